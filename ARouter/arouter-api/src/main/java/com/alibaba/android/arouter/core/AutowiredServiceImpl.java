@@ -1,14 +1,14 @@
 package com.alibaba.android.arouter.core;
 
 import android.content.Context;
-import android.util.LruCache;
 
 import com.alibaba.android.arouter.facade.annotation.Route;
 import com.alibaba.android.arouter.facade.service.AutowiredService;
 import com.alibaba.android.arouter.facade.template.ISyringe;
+import com.alibaba.android.arouter.facade.template.ISyringeGroup;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.alibaba.android.arouter.utils.Consts.SUFFIX_AUTOWIRED;
 
@@ -21,13 +21,18 @@ import static com.alibaba.android.arouter.utils.Consts.SUFFIX_AUTOWIRED;
  */
 @Route(path = "/arouter/service/autowired")
 public class AutowiredServiceImpl implements AutowiredService {
-    private LruCache<String, ISyringe> classCache;
-    private List<String> blackList;
+    // Mark of class which need not autowired.
+    private static final ISyringe NONE = new ISyringe() {
+        @Override
+        public void inject(Object target) {
+        }
+    };
+
+    private Map<Class<?>, ISyringe> classCache;
 
     @Override
     public void init(Context context) {
-        classCache = new LruCache<>(50);
-        blackList = new ArrayList<>();
+        classCache = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -57,21 +62,26 @@ public class AutowiredServiceImpl implements AutowiredService {
     }
 
     private ISyringe getSyringe(Class<?> clazz) {
-        String className = clazz.getName();
+        ISyringe syringeHelper = classCache.get(clazz);
+        if (null == syringeHelper) {  // No cache.
+            syringeHelper = createSyringe(clazz.getName());
+            classCache.put(clazz, null == syringeHelper ? NONE : syringeHelper);
+        }
+
+        return NONE == syringeHelper ? null : syringeHelper;
+    }
+
+    private ISyringe createSyringe(String className) {
+        ISyringeGroup group = Warehouse.syringesIndex.get(className);
+        if (null != group) {
+            return group.create(className);
+        }
 
+        // Module compiled by old version of compiler has no syringe group.
         try {
-            if (!blackList.contains(className)) {
-                ISyringe syringeHelper = classCache.get(className);
-                if (null == syringeHelper) {  // No cache.
-                    syringeHelper = (ISyringe) Class.forName(clazz.getName() + SUFFIX_AUTOWIRED).getConstructor().newInstance();
-                }
-                classCache.put(className, syringeHelper);
-                return syringeHelper;
-            }
+            return (ISyringe) Class.forName(className + SUFFIX_AUTOWIRED).getConstructor().newInstance();
         } catch (Exception e) {
-            blackList.add(className);    // This instance need not autowired.
+            return null;    // This instance need not autowired.
         }
-
-        return null;
     }
 }
@@ -0,0 +1,136 @@
+package com.alibaba.android.arouter.core;
+
+import android.content.Context;
+
+import com.alibaba.android.arouter.facade.service.SerializationService;
+import com.alibaba.android.arouter.facade.template.ICodec;
+import com.alibaba.android.arouter.facade.template.ICodecGroup;
+import com.alibaba.android.arouter.utils.CodecInput;
+import com.alibaba.android.arouter.utils.CodecOutput;
+
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.alibaba.android.arouter.launcher.ARouter.logger;
+import static com.alibaba.android.arouter.utils.Consts.TAG;
+
+/**
+ * Serialization service which writes objects with codecs generated for autowired fields,
+ * objects without codec are still serialized as json by subclass.
+ * <p>
+ * Binary value is kept in string one byte per char, so that it passes through
+ * {@link com.alibaba.android.arouter.facade.Postcard#withObject(String, Object)} unchanged.
+ * Objects are written as tree, objects with cyclic references are serialized as json.
+ * <pre>
+ * &#64;Route(path = "/yourservicegroupname/json")
+ * public class JsonServiceImpl extends CodecSerializationService {
+ *     protected String toJson(Object instance) { return JSON.toJSONString(instance); }
+ *     protected &lt;T&gt; T fromJson(String input, Type type) { return JSON.parseObject(input, type); }
+ * }
+ * </pre>
+ */
+public abstract class CodecSerializationService implements SerializationService {
+    private static final char MARK = '\u0000';
+    private static final int VERSION = 1;
+    private static final Charset LATIN_1 = Charset.forName("ISO-8859-1");
+
+    // Mark of class which has no codec.
+    private static final ICodec<Object> NONE = new ICodec<Object>() {
+        @Override
+        public void write(CodecOutput out, Object value) {
+        }
+
+        @Override
+        public Object read(CodecInput in) {
+            return null;
+        }
+    };
+
+    private final Map<String, ICodec<?>> codecs = new ConcurrentHashMap<>();
+
+    /**
+     * Serialize object which has no codec.
+     */
+    protected abstract String toJson(Object instance);
+
+    /**
+     * Parse string written by {@link #toJson(Object)}.
+     */
+    protected abstract <T> T fromJson(String input, Type type);
+
+    @Override
+    public void init(Context context) {
+    }
+
+    @Override
+    public <T> T json2Object(String input, Class<T> clazz) {
+        return parseObject(input, clazz);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public String object2Json(Object instance) {
+        if (null != instance) {
+            String className = instance.getClass().getName();
+            ICodec<Object> codec = (ICodec<Object>) getCodec(className);
+            if (null != codec) {
+                CodecOutput out = new CodecOutput();
+                out.writeByte(MARK);
+                out.writeByte(VERSION);
+                out.writeString(className);
+                try {
+                    out.writeFields(instance, codec);
+                    return out.toString(LATIN_1);
+                } catch (RuntimeException e) {
+                    logger.warning(TAG, "Write object of class [" + className + "] failed, use json. " + e.getMessage());
+                }
+            }
+        }
+
+        return toJson(instance);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T parseObject(String input, Type clazz) {
+        if (null == input || input.isEmpty() || MARK != input.charAt(0)) {
+            return fromJson(input, clazz);
+        }
+
+        try {
+            CodecInput in = new CodecInput(input.getBytes(LATIN_1), 1);
+            if (VERSION != in.readByte()) {
+                logger.warning(TAG, "Unknown version of codec, value is dropped.");
+                return null;
+            }
+            String className = in.readString();
+            ICodec<?> codec = getCodec(className);
+            if (null == codec) {
+                logger.warning(TAG, "No codec of class [" + className + "], value is dropped.");
+                return null;
+            }
+            Object value = codec.read(in);
+            if (clazz instanceof Class && !((Class<?>) clazz).isInstance(value)) {
+                logger.warning(TAG, "Class [" + className + "] can not be cast to [" + clazz + "], value is dropped.");
+                return null;
+            }
+            return (T) value;
+        } catch (Exception e) {
+            logger.error(TAG, "Parse object failed, value is dropped.", e);
+            return null;
+        }
+    }
+
+    private ICodec<?> getCodec(String className) {
+        ICodec<?> codec = codecs.get(className);
+        if (null == codec) {
+            ICodecGroup group = Warehouse.codecsIndex.get(className);
+            codec = null == group ? null : group.create(className);
+            codecs.put(className, null == codec ? NONE : codec);
+        }
+
+        return NONE == codec ? null : codec;
+    }
+}
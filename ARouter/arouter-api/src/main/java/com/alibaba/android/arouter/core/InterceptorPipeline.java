@@ -0,0 +1,271 @@
+package com.alibaba.android.arouter.core;
+
+import com.alibaba.android.arouter.exception.HandlerException;
+import com.alibaba.android.arouter.facade.Postcard;
+import com.alibaba.android.arouter.facade.callback.InterceptorCallback;
+import com.alibaba.android.arouter.facade.template.IInterceptor;
+import com.alibaba.android.arouter.facade.template.IInterceptorOptions;
+import com.alibaba.android.arouter.thread.DefaultThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interceptors of one navigation, no thread is blocked while waiting for them.
+ * <p>
+ * Each interceptor continues the pipeline from its own callback, timeouts are fired by a shared timer.
+ * Adjacent independent interceptors make up one stage, all of them are started before any of them calls back.
+ * A callback which arrives later on another thread hands the rest of the pipeline back to the executor,
+ * so the following interceptors never run on the thread the interceptor happened to call back from.
+ * The same holds for interrupts, timeouts never run the navigation callback on the shared timer.
+ */
+final class InterceptorPipeline implements Runnable {
+    private static final int PURGE_THRESHOLD = 64;
+
+    private static volatile ScheduledThreadPoolExecutor timer;
+    private static final AtomicInteger cancelled = new AtomicInteger();
+
+    private final Stage[] stages;
+    private final Postcard postcard;
+    private final InterceptorCallback callback;
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private final AtomicBoolean armed = new AtomicBoolean();
+    private volatile long deadline;
+    private volatile ScheduledFuture<?> timeout;
+
+    private InterceptorPipeline(Stage[] stages, Postcard postcard, InterceptorCallback callback) {
+        this.stages = stages;
+        this.postcard = postcard;
+        this.callback = callback;
+    }
+
+    /**
+     * Group interceptors into stages, keep the order of priority.
+     * Options are read once here, type checks against them are not cheap on the navigation path.
+     */
+    static Stage[] stagesOf(List<IInterceptor> interceptors) {
+        List<Stage> stages = new ArrayList<>();
+        List<IInterceptor> parallel = new ArrayList<>();
+        for (IInterceptor interceptor : interceptors) {
+            if (interceptor instanceof IInterceptorOptions && ((IInterceptorOptions) interceptor).isIndependent()) {
+                parallel.add(interceptor);
+                continue;
+            }
+            if (!parallel.isEmpty()) {
+                stages.add(new Stage(parallel));
+                parallel.clear();
+            }
+            stages.add(new Stage(Collections.singletonList(interceptor)));
+        }
+        if (!parallel.isEmpty()) {
+            stages.add(new Stage(parallel));
+        }
+        return stages.toArray(new Stage[stages.size()]);
+    }
+
+    /**
+     * Process interceptors on executor, callback will be called exactly once.
+     */
+    static void start(Stage[] stages, Postcard postcard, InterceptorCallback callback) {
+        LogisticsCenter.executor.execute(new InterceptorPipeline(stages, postcard, callback));
+    }
+
+    @Override
+    public void run() {
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(postcard.getTimeout());
+        process(0);
+    }
+
+    /**
+     * Continue from the given stage on executor.
+     */
+    private void resume(final int from) {
+        LogisticsCenter.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                process(from);
+            }
+        });
+    }
+
+    /**
+     * Process stages from the given one. The loop holds one share of each stage, so interceptors which
+     * call back synchronously never continue the pipeline themselves, the stack does not grow with them.
+     */
+    private void process(int from) {
+        for (int index = from; index < stages.length; index++) {
+            if (finished.get()) {
+                return;
+            }
+            Stage stage = stages[index];
+            AtomicInteger pending = new AtomicInteger(stage.interceptors.length + 1);
+            for (int i = 0; i < stage.interceptors.length; i++) {
+                new Step(this, stage.interceptors[i], stage.timeouts[i], index, pending).start();
+            }
+            if (pending.decrementAndGet() > 0) {
+                armTimeout();    // The last one to call back will continue the pipeline.
+                return;
+            }
+        }
+        if (finished.compareAndSet(false, true)) {
+            cancel(timeout);
+            callback.onContinue(postcard);
+        }
+    }
+
+    /**
+     * Most interceptors call back synchronously, the timer is only needed once one of them goes asynchronous.
+     */
+    private void armTimeout() {
+        if (!finished.get() && armed.compareAndSet(false, true)) {
+            timeout = schedule(new Timeout(this, null), deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (finished.get()) {
+                cancel(timeout);
+            }
+        }
+    }
+
+    /**
+     * @param onPipelineThread whether the caller is the thread which is processing the pipeline,
+     *                         otherwise the navigation callback is handed to the executor
+     */
+    private void interrupt(final Throwable exception, boolean onPipelineThread) {
+        if (finished.compareAndSet(false, true)) {
+            cancel(timeout);
+            postcard.setTag(exception);    // Save the exception message for backup.
+            if (onPipelineThread) {
+                callback.onInterrupt(exception);
+            } else {
+                LogisticsCenter.executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onInterrupt(exception);
+                    }
+                });
+            }
+        }
+    }
+
+    private static ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        if (null == timer) {
+            synchronized (InterceptorPipeline.class) {
+                if (null == timer) {
+                    timer = new ScheduledThreadPoolExecutor(1, new DefaultThreadFactory());
+                }
+            }
+        }
+        return timer.schedule(task, delay, unit);
+    }
+
+    /**
+     * Cancelled tasks stay in the timer queue until their delay elapses, remove them from time to time.
+     */
+    private static void cancel(ScheduledFuture<?> future) {
+        if (null != future && future.cancel(false) && cancelled.incrementAndGet() >= PURGE_THRESHOLD) {
+            cancelled.set(0);
+            timer.purge();
+        }
+    }
+
+    /**
+     * One interceptor in one stage, the callback only takes effect once.
+     */
+    private static final class Step implements InterceptorCallback {
+        private final InterceptorPipeline pipeline;
+        private final IInterceptor interceptor;
+        private final long millis;
+        private final int stage;
+        private final AtomicInteger pending;
+        private final Thread thread = Thread.currentThread();
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile ScheduledFuture<?> timeout;
+
+        Step(InterceptorPipeline pipeline, IInterceptor interceptor, long millis, int stage, AtomicInteger pending) {
+            this.pipeline = pipeline;
+            this.interceptor = interceptor;
+            this.millis = millis;
+            this.stage = stage;
+            this.pending = pending;
+        }
+
+        void start() {
+            if (pipeline.finished.get()) {
+                return;
+            }
+            if (millis > 0 && millis < TimeUnit.NANOSECONDS.toMillis(pipeline.deadline - System.nanoTime())) {
+                timeout = schedule(new Timeout(pipeline, this), millis, TimeUnit.MILLISECONDS);
+            }
+            try {
+                interceptor.process(pipeline.postcard, this);
+            } catch (Exception e) {
+                onInterrupt(e);
+            }
+        }
+
+        @Override
+        public void onContinue(Postcard postcard) {
+            if (done.compareAndSet(false, true)) {
+                cancel(timeout);
+                if (pending.decrementAndGet() == 0) {
+                    if (Thread.currentThread() == thread) {
+                        pipeline.process(stage + 1);
+                    } else {
+                        pipeline.resume(stage + 1);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void onInterrupt(Throwable exception) {
+            if (done.compareAndSet(false, true)) {
+                cancel(timeout);
+                pipeline.interrupt(null == exception ? new HandlerException("No message.") : exception,
+                        Thread.currentThread() == thread);
+            }
+        }
+    }
+
+    /**
+     * Interceptors which are started together, with their own timeouts.
+     */
+    static final class Stage {
+        private final IInterceptor[] interceptors;
+        private final long[] timeouts;
+
+        private Stage(List<IInterceptor> interceptors) {
+            this.interceptors = interceptors.toArray(new IInterceptor[interceptors.size()]);
+            this.timeouts = new long[interceptors.size()];
+            for (int i = 0; i < timeouts.length; i++) {
+                if (this.interceptors[i] instanceof IInterceptorOptions) {
+                    timeouts[i] = ((IInterceptorOptions) this.interceptors[i]).getTimeout();
+                }
+            }
+        }
+    }
+
+    private static final class Timeout implements Runnable {
+        private final InterceptorPipeline pipeline;
+        private final Step step;
+
+        Timeout(InterceptorPipeline pipeline, Step step) {
+            this.pipeline = pipeline;
+            this.step = step;
+        }
+
+        @Override
+        public void run() {
+            if (null == step) {
+                pipeline.interrupt(new HandlerException("The interceptor processing timed out."), false);
+            } else if (step.done.compareAndSet(false, true)) {
+                pipeline.interrupt(new HandlerException("The interceptor [" + step.interceptor.getClass().getName() + "] processing timed out."), false);
+            }
+        }
+    }
+}
@@ -1,27 +1,31 @@
 package com.alibaba.android.arouter.core;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.net.Uri;
 
 import com.alibaba.android.arouter.exception.HandlerException;
 import com.alibaba.android.arouter.exception.NoRouteFoundException;
 import com.alibaba.android.arouter.facade.Postcard;
+import com.alibaba.android.arouter.facade.callback.MetricsListener;
 import com.alibaba.android.arouter.facade.enums.TypeKind;
 import com.alibaba.android.arouter.facade.model.RouteMeta;
+import com.alibaba.android.arouter.facade.template.ICodecGroup;
 import com.alibaba.android.arouter.facade.template.IInterceptorGroup;
 import com.alibaba.android.arouter.facade.template.IProvider;
 import com.alibaba.android.arouter.facade.template.IProviderGroup;
 import com.alibaba.android.arouter.facade.template.IRouteGroup;
 import com.alibaba.android.arouter.facade.template.IRouteRoot;
+import com.alibaba.android.arouter.facade.template.IRouteTable;
+import com.alibaba.android.arouter.facade.template.ISyringeGroup;
 import com.alibaba.android.arouter.launcher.ARouter;
-import com.alibaba.android.arouter.utils.ClassUtils;
 import com.alibaba.android.arouter.utils.Consts;
+import com.alibaba.android.arouter.utils.DexClassIndex;
 import com.alibaba.android.arouter.utils.MapUtils;
 import com.alibaba.android.arouter.utils.PackageUtils;
 import com.alibaba.android.arouter.utils.TextUtils;
 
 import java.lang.reflect.InvocationTargetException;
-import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -34,9 +38,11 @@ import static com.alibaba.android.arouter.utils.Consts.DOT;
 import static com.alibaba.android.arouter.utils.Consts.ROUTE_ROOT_PAKCAGE;
 import static com.alibaba.android.arouter.utils.Consts.SDK_NAME;
 import static com.alibaba.android.arouter.utils.Consts.SEPARATOR;
+import static com.alibaba.android.arouter.utils.Consts.SUFFIX_CODECS;
 import static com.alibaba.android.arouter.utils.Consts.SUFFIX_INTERCEPTORS;
 import static com.alibaba.android.arouter.utils.Consts.SUFFIX_PROVIDERS;
 import static com.alibaba.android.arouter.utils.Consts.SUFFIX_ROOT;
+import static com.alibaba.android.arouter.utils.Consts.SUFFIX_SYRINGES;
 import static com.alibaba.android.arouter.utils.Consts.TAG;
 
 /**
@@ -51,9 +57,10 @@ import static com.alibaba.android.arouter.utils.Consts.TAG;
  * @since 16/8/23 15:02
  */
 public class LogisticsCenter {
-    private static Context mContext;
+    private static volatile Context mContext;
     static ThreadPoolExecutor executor;
     private static boolean registerByPlugin;
+    private static volatile MetricsListener metricsListener;
 
     /**
      * arouter-auto-register plugin will generate code inside this method
@@ -83,9 +90,13 @@ public class LogisticsCenter {
                     registerProvider((IProviderGroup) obj);
                 } else if (obj instanceof IInterceptorGroup) {
                     registerInterceptor((IInterceptorGroup) obj);
+                } else if (obj instanceof ISyringeGroup) {
+                    registerSyringe((ISyringeGroup) obj);
+                } else if (obj instanceof ICodecGroup) {
+                    registerCodec((ICodecGroup) obj);
                 } else {
                     logger.info(TAG, "register failed, class name: " + className
-                            + " should implements one of IRouteRoot/IProviderGroup/IInterceptorGroup.");
+                            + " should implements one of IRouteRoot/IProviderGroup/IInterceptorGroup/ISyringeGroup/ICodecGroup.");
                 }
             } catch (Exception e) {
                 logger.error(TAG,"register class error:" + className, e);
@@ -126,6 +137,28 @@ public class LogisticsCenter {
         }
     }
 
+    /**
+     * method for arouter-auto-register plugin to register Syringes
+     * @param syringeGroup ISyringeGroup implementation class in the package: com.alibaba.android.arouter.core.routers
+     */
+    private static void registerSyringe(ISyringeGroup syringeGroup) {
+        markRegisteredByPlugin();
+        if (syringeGroup != null) {
+            syringeGroup.loadInto(Warehouse.syringesIndex);
+        }
+    }
+
+    /**
+     * method for arouter-auto-register plugin to register Codecs
+     * @param codecGroup ICodecGroup implementation class in the package: com.alibaba.android.arouter.core.routers
+     */
+    private static void registerCodec(ICodecGroup codecGroup) {
+        markRegisteredByPlugin();
+        if (codecGroup != null) {
+            codecGroup.loadInto(Warehouse.codecsIndex);
+        }
+    }
+
     /**
      * mark already registered by arouter-auto-register plugin
      */
@@ -151,19 +184,22 @@ public class LogisticsCenter {
             } else {
                 Set<String> routerMap;
 
-                // It will rebuild router map every times when debuggable.
+                // It will verify router map every times when debuggable, only the changed dex will be scanned.
                 if (ARouter.debuggable() || PackageUtils.isNewVersion(context)) {
                     logger.info(TAG, "Run with debug mode or new install, rebuild router map.");
                     // These class was generated by arouter-compiler.
-                    routerMap = ClassUtils.getFileNameByPackageName(mContext, ROUTE_ROOT_PAKCAGE);
-                    if (!routerMap.isEmpty()) {
-                        context.getSharedPreferences(AROUTER_SP_CACHE_KEY, Context.MODE_PRIVATE).edit().putStringSet(AROUTER_SP_KEY_MAP, routerMap).apply();
+                    routerMap = DexClassIndex.getFileNameByPackageName(mContext, ROUTE_ROOT_PAKCAGE, true);
+
+                    // Router map was cached in shared preferences by old version, it is loaded with version.
+                    SharedPreferences sp = context.getSharedPreferences(AROUTER_SP_CACHE_KEY, Context.MODE_PRIVATE);
+                    if (sp.contains(AROUTER_SP_KEY_MAP)) {
+                        sp.edit().remove(AROUTER_SP_KEY_MAP).apply();
                     }
 
                     PackageUtils.updateVersion(context);    // Save new version name when router map update finishes.
                 } else {
                     logger.info(TAG, "Load router map from cache.");
-                    routerMap = new HashSet<>(context.getSharedPreferences(AROUTER_SP_CACHE_KEY, Context.MODE_PRIVATE).getStringSet(AROUTER_SP_KEY_MAP, new HashSet<String>()));
+                    routerMap = DexClassIndex.getFileNameByPackageName(mContext, ROUTE_ROOT_PAKCAGE, false);
                 }
 
                 logger.info(TAG, "Find router map finished, map size = " + routerMap.size() + ", cost " + (System.currentTimeMillis() - startInit) + " ms.");
@@ -179,6 +215,12 @@ public class LogisticsCenter {
                     } else if (className.startsWith(ROUTE_ROOT_PAKCAGE + DOT + SDK_NAME + SEPARATOR + SUFFIX_PROVIDERS)) {
                         // Load providerIndex
                         ((IProviderGroup) (Class.forName(className).getConstructor().newInstance())).loadInto(Warehouse.providersIndex);
+                    } else if (className.startsWith(ROUTE_ROOT_PAKCAGE + DOT + SDK_NAME + SEPARATOR + SUFFIX_SYRINGES)) {
+                        // Load syringeIndex
+                        ((ISyringeGroup) (Class.forName(className).getConstructor().newInstance())).loadInto(Warehouse.syringesIndex);
+                    } else if (className.startsWith(ROUTE_ROOT_PAKCAGE + DOT + SDK_NAME + SEPARATOR + SUFFIX_CODECS)) {
+                        // Load codecIndex
+                        ((ICodecGroup) (Class.forName(className).getConstructor().newInstance())).loadInto(Warehouse.codecsIndex);
                     }
                 }
             }
@@ -190,13 +232,24 @@ public class LogisticsCenter {
             }
 
             if (ARouter.debuggable()) {
-                logger.debug(TAG, String.format(Locale.getDefault(), "LogisticsCenter has already been loaded, GroupIndex[%d], InterceptorIndex[%d], ProviderIndex[%d]", Warehouse.groupsIndex.size(), Warehouse.interceptorsIndex.size(), Warehouse.providersIndex.size()));
+                logger.debug(TAG, String.format(Locale.getDefault(), "LogisticsCenter has already been loaded, GroupIndex[%d], InterceptorIndex[%d], ProviderIndex[%d], SyringeIndex[%d], CodecIndex[%d]", Warehouse.groupsIndex.size(), Warehouse.interceptorsIndex.size(), Warehouse.providersIndex.size(), Warehouse.syringesIndex.size(), Warehouse.codecsIndex.size()));
             }
         } catch (Exception e) {
             throw new HandlerException(TAG + "ARouter init logistics center exception! [" + e.getMessage() + "]");
         }
     }
 
+    /**
+     * Set listener of navigation metrics, null to stop measuring.
+     */
+    public static void setMetricsListener(MetricsListener listener) {
+        metricsListener = listener;
+    }
+
+    public static MetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
     /**
      * Build postcard by serviceName
      *
@@ -214,91 +267,180 @@ public class LogisticsCenter {
     }
 
     /**
-     * Completion the postcard by route metas
+     * Completion the postcard by route metas.
+     * Lookups do not lock, only the first navigation into a group takes the lock to load it.
+     *
+     * @param postcard Incomplete postcard, should complete by this method.
+     */
+    public static void completion(Postcard postcard) {
+        completion(postcard, metricsListener);
+    }
+
+    /**
+     * Completion of the services ARouter looks up by itself during a navigation, nothing is reported to the
+     * metrics listener, so that a navigation reports the completion of its own route only.
      *
      * @param postcard Incomplete postcard, should complete by this method.
      */
-    public synchronized static void completion(Postcard postcard) {
+    public static void completionUnmeasured(Postcard postcard) {
+        completion(postcard, null);
+    }
+
+    private static void completion(Postcard postcard, MetricsListener listener) {
         if (null == postcard) {
             throw new NoRouteFoundException(TAG + "No postcard!");
         }
 
+        if (null == listener) {
+            complete(postcard, null);
+        } else {
+            long start = System.nanoTime();
+            try {
+                complete(postcard, listener);
+            } finally {
+                listener.onPhase(postcard.getPath(), MetricsListener.Phase.COMPLETION, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static void complete(Postcard postcard, MetricsListener listener) {
         RouteMeta routeMeta = Warehouse.routes.get(postcard.getPath());
+        if (null != listener) {
+            listener.onCache(postcard.getPath(), MetricsListener.Cache.ROUTE, null != routeMeta);
+        }
+        if (null == routeMeta) {
+            routeMeta = findRoute(postcard);
+        }
         if (null == routeMeta) {
             // Maybe its does't exist, or didn't load.
-            if (!Warehouse.groupsIndex.containsKey(postcard.getGroup())) {
+            if (!loadGroup(postcard, listener) || null == (routeMeta = findRoute(postcard))) {
                 throw new NoRouteFoundException(TAG + "There is no route match the path [" + postcard.getPath() + "], in group [" + postcard.getGroup() + "]");
-            } else {
-                // Load route and cache it into memory, then delete from metas.
-                try {
-                    if (ARouter.debuggable()) {
-                        logger.debug(TAG, String.format(Locale.getDefault(), "The group [%s] starts loading, trigger by [%s]", postcard.getGroup(), postcard.getPath()));
-                    }
+            }
+        }
+
+        postcard.setDestination(routeMeta.getDestination());
+        postcard.setType(routeMeta.getType());
+        postcard.setPriority(routeMeta.getPriority());
+        postcard.setExtra(routeMeta.getExtra());
+
+        Uri rawUri = postcard.getUri();
+        if (null != rawUri) {   // Try to set params into bundle.
+            Map<String, String> resultMap = TextUtils.splitQueryParameters(rawUri);
+            Map<String, Integer> paramsType = routeMeta.getParamsType();
+
+            if (MapUtils.isNotEmpty(paramsType)) {
+                // Set value by its type, just for params which annotation by @Param
+                for (Map.Entry<String, Integer> params : paramsType.entrySet()) {
+                    setValue(postcard,
+                            params.getValue(),
+                            params.getKey(),
+                            resultMap.get(params.getKey()));
+                }
+
+                // Save params name which need auto inject.
+                postcard.getExtras().putStringArray(ARouter.AUTO_INJECT, paramsType.keySet().toArray(new String[]{}));
+            }
 
-                    addRouteGroupDynamic(postcard.getGroup(), null);
+            // Save raw uri
+            postcard.withString(ARouter.RAW_URI, rawUri.toString());
+        }
 
-                    if (ARouter.debuggable()) {
-                        logger.debug(TAG, String.format(Locale.getDefault(), "The group [%s] has already been loaded, trigger by [%s]", postcard.getGroup(), postcard.getPath()));
+        switch (routeMeta.getType()) {
+            case PROVIDER:  // if the route is provider, should find its instance
+                // Its provider, so it must implement IProvider
+                Class<? extends IProvider> providerMeta = (Class<? extends IProvider>) routeMeta.getDestination();
+                IProvider instance = Warehouse.providers.get(providerMeta);
+                if (null != listener) {
+                    listener.onCache(postcard.getPath(), MetricsListener.Cache.PROVIDER, null != instance);
+                }
+                if (null == instance) { // There's no instance of this provider
+                    instance = createProvider(providerMeta);
+                }
+                postcard.setProvider(instance);
+                postcard.greenChannel();    // Provider should skip all of interceptors
+                break;
+            case FRAGMENT:
+                postcard.greenChannel();    // Fragment needn't interceptors
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Find route in loaded groups, the meta of route table is cached after first built.
+     *
+     * @return null if the group of postcard has not been loaded or there is no such route in it
+     */
+    private static RouteMeta findRoute(Postcard postcard) {
+        RouteMeta routeMeta = Warehouse.routes.get(postcard.getPath());
+        if (null == routeMeta) {
+            IRouteTable table = Warehouse.tables.get(postcard.getGroup());
+            if (null != table) {
+                routeMeta = table.lookup(postcard.getPath());
+                if (null != routeMeta) {
+                    // Route added dynamically has high priority, don't cover it.
+                    RouteMeta exists = Warehouse.routes.putIfAbsent(postcard.getPath(), routeMeta);
+                    if (null != exists) {
+                        routeMeta = exists;
                     }
-                } catch (Exception e) {
-                    throw new HandlerException(TAG + "Fatal exception when loading group meta. [" + e.getMessage() + "]");
                 }
+            }
+        }
+        return routeMeta;
+    }
+
+    /**
+     * Load the group of postcard once, threads navigating into the same group wait for the first one.
+     *
+     * @return false if the route can not be found in any group
+     */
+    private synchronized static boolean loadGroup(Postcard postcard, MetricsListener listener) {
+        if (null != findRoute(postcard)) {
+            return true;    // Loaded by another thread.
+        }
+        if (!Warehouse.groupsIndex.containsKey(postcard.getGroup())) {
+            return false;
+        }
 
-                completion(postcard);   // Reload
+        // Load route and cache it into memory, then delete from metas.
+        try {
+            if (ARouter.debuggable()) {
+                logger.debug(TAG, String.format(Locale.getDefault(), "The group [%s] starts loading, trigger by [%s]", postcard.getGroup(), postcard.getPath()));
             }
-        } else {
-            postcard.setDestination(routeMeta.getDestination());
-            postcard.setType(routeMeta.getType());
-            postcard.setPriority(routeMeta.getPriority());
-            postcard.setExtra(routeMeta.getExtra());
-
-            Uri rawUri = postcard.getUri();
-            if (null != rawUri) {   // Try to set params into bundle.
-                Map<String, String> resultMap = TextUtils.splitQueryParameters(rawUri);
-                Map<String, Integer> paramsType = routeMeta.getParamsType();
-
-                if (MapUtils.isNotEmpty(paramsType)) {
-                    // Set value by its type, just for params which annotation by @Param
-                    for (Map.Entry<String, Integer> params : paramsType.entrySet()) {
-                        setValue(postcard,
-                                params.getValue(),
-                                params.getKey(),
-                                resultMap.get(params.getKey()));
-                    }
 
-                    // Save params name which need auto inject.
-                    postcard.getExtras().putStringArray(ARouter.AUTO_INJECT, paramsType.keySet().toArray(new String[]{}));
-                }
+            long start = null == listener ? 0 : System.nanoTime();
+            addRouteGroupDynamic(postcard.getGroup(), null);
+            if (null != listener) {
+                listener.onGroupLoaded(postcard.getGroup(), System.nanoTime() - start);
+            }
 
-                // Save raw uri
-                postcard.withString(ARouter.RAW_URI, rawUri.toString());
+            if (ARouter.debuggable()) {
+                logger.debug(TAG, String.format(Locale.getDefault(), "The group [%s] has already been loaded, trigger by [%s]", postcard.getGroup(), postcard.getPath()));
             }
+        } catch (Exception e) {
+            throw new HandlerException(TAG + "Fatal exception when loading group meta. [" + e.getMessage() + "]");
+        }
+        return true;
+    }
 
-            switch (routeMeta.getType()) {
-                case PROVIDER:  // if the route is provider, should find its instance
-                    // Its provider, so it must implement IProvider
-                    Class<? extends IProvider> providerMeta = (Class<? extends IProvider>) routeMeta.getDestination();
-                    IProvider instance = Warehouse.providers.get(providerMeta);
-                    if (null == instance) { // There's no instance of this provider
-                        IProvider provider;
-                        try {
-                            provider = providerMeta.getConstructor().newInstance();
-                            provider.init(mContext);
-                            Warehouse.providers.put(providerMeta, provider);
-                            instance = provider;
-                        } catch (Exception e) {
-                            logger.error(TAG, "Init provider failed!", e);
-                            throw new HandlerException("Init provider failed!");
-                        }
-                    }
-                    postcard.setProvider(instance);
-                    postcard.greenChannel();    // Provider should skip all of interceptors
-                    break;
-                case FRAGMENT:
-                    postcard.greenChannel();    // Fragment needn't interceptors
-                default:
-                    break;
+    /**
+     * Create and init provider only once. Provider may navigate to other providers in its init,
+     * so it is guarded by its own lock instead of the lock of route table.
+     */
+    private static IProvider createProvider(Class<? extends IProvider> providerMeta) {
+        synchronized (Warehouse.providers) {
+            IProvider instance = Warehouse.providers.get(providerMeta);
+            if (null == instance) {
+                try {
+                    instance = providerMeta.getConstructor().newInstance();
+                    instance.init(mContext);
+                    Warehouse.providers.put(providerMeta, instance);
+                } catch (Exception e) {
+                    logger.error(TAG, "Init provider failed!", e);
+                    throw new HandlerException("Init provider failed!");
+                }
             }
+            return instance;
         }
     }
 
@@ -351,7 +493,7 @@ public class LogisticsCenter {
     /**
      * Suspend business, clear cache.
      */
-    public static void suspend() {
+    public synchronized static void suspend() {
         Warehouse.clear();
     }
 
@@ -359,7 +501,13 @@ public class LogisticsCenter {
         if (Warehouse.groupsIndex.containsKey(groupName)){
             // If this group is included, but it has not been loaded
             // load this group first, because dynamic route has high priority.
-            Warehouse.groupsIndex.get(groupName).getConstructor().newInstance().loadInto(Warehouse.routes);
+            IRouteGroup loaded = Warehouse.groupsIndex.get(groupName).getConstructor().newInstance();
+            if (loaded instanceof IRouteTable) {
+                // Route meta in table will be built when navigate to it.
+                Warehouse.tables.put(groupName, (IRouteTable) loaded);
+            } else {
+                loaded.loadInto(Warehouse.routes);
+            }
             Warehouse.groupsIndex.remove(groupName);
         }
 
@@ -2,14 +2,19 @@ package com.alibaba.android.arouter.core;
 
 import com.alibaba.android.arouter.base.UniqueKeyTreeMap;
 import com.alibaba.android.arouter.facade.model.RouteMeta;
+import com.alibaba.android.arouter.facade.template.ICodecGroup;
 import com.alibaba.android.arouter.facade.template.IInterceptor;
 import com.alibaba.android.arouter.facade.template.IProvider;
 import com.alibaba.android.arouter.facade.template.IRouteGroup;
+import com.alibaba.android.arouter.facade.template.IRouteTable;
+import com.alibaba.android.arouter.facade.template.ISyringeGroup;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Storage of route meta and other data.
@@ -19,24 +24,36 @@ import java.util.Map;
  * @since 2017/2/23 下午1:39
  */
 class Warehouse {
-    // Cache route and metas
+    // Cache route and metas, only modified while holding the lock of LogisticsCenter.
+    // Routes are read without lock during navigation.
     static Map<String, Class<? extends IRouteGroup>> groupsIndex = new HashMap<>();
-    static Map<String, RouteMeta> routes = new HashMap<>();
+    static ConcurrentMap<String, RouteMeta> routes = new ConcurrentHashMap<>();
+    // Loaded groups which build route meta on demand, metas built are cached in routes.
+    static Map<String, IRouteTable> tables = new ConcurrentHashMap<>();
 
     // Cache provider
-    static Map<Class, IProvider> providers = new HashMap<>();
-    static Map<String, RouteMeta> providersIndex = new HashMap<>();
+    static Map<Class, IProvider> providers = new ConcurrentHashMap<>();
+    static Map<String, RouteMeta> providersIndex = new ConcurrentHashMap<>();
 
     // Cache interceptor
     static Map<Integer, Class<? extends IInterceptor>> interceptorsIndex = new UniqueKeyTreeMap<>("More than one interceptors use same priority [%s]");
     static List<IInterceptor> interceptors = new ArrayList<>();
 
+    // Cache syringe, class name and the group create its syringe.
+    static Map<String, ISyringeGroup> syringesIndex = new ConcurrentHashMap<>();
+
+    // Cache codec, class name and the group create its codec.
+    static Map<String, ICodecGroup> codecsIndex = new ConcurrentHashMap<>();
+
     static void clear() {
         routes.clear();
+        tables.clear();
         groupsIndex.clear();
         providers.clear();
         providersIndex.clear();
         interceptors.clear();
         interceptorsIndex.clear();
+        syringesIndex.clear();
+        codecsIndex.clear();
     }
 }
@@ -0,0 +1,62 @@
+package com.alibaba.android.arouter.facade.callback;
+
+/**
+ * Listener of navigation metrics, set by {@link com.alibaba.android.arouter.launcher.ARouter#setMetricsListener(MetricsListener)}.
+ * <p>
+ * It is called synchronously on the thread doing the work, interceptors and the navigation after them
+ * run in the thread pool of router, so the implementation should be thread safe and cheap.
+ * Nothing is measured when there is no listener.
+ */
+public interface MetricsListener {
+    /**
+     * Phases of navigation.
+     */
+    enum Phase {
+        // PathReplaceService.forString/forUri, the lookup of service is not included.
+        PATH_REPLACE,
+        // PretreatmentService.onPretreatment, the lookup of service is not included.
+        PRETREATMENT,
+        // LogisticsCenter.completion, include the loading of group.
+        COMPLETION,
+        // From the start of interceptors to continue or interrupt.
+        INTERCEPTORS,
+        // Start activity or create instance of destination.
+        NAVIGATION
+    }
+
+    /**
+     * Caches looked up by navigation, the lookups of services used by router itself are not reported.
+     */
+    enum Cache {
+        // Route meta of path.
+        ROUTE,
+        // Instance of provider.
+        PROVIDER
+    }
+
+    /**
+     * Callback when a phase of navigation finished, or failed.
+     *
+     * @param path  path of navigation, after replaced.
+     * @param phase phase
+     * @param nanos cost in nanoseconds
+     */
+    void onPhase(String path, Phase phase, long nanos);
+
+    /**
+     * Callback when a group is loaded lazily by the first navigation into it.
+     *
+     * @param group group name
+     * @param nanos cost in nanoseconds
+     */
+    void onGroupLoaded(String group, long nanos);
+
+    /**
+     * Callback when a cache is looked up.
+     *
+     * @param path  path of navigation
+     * @param cache cache
+     * @param hit   true if the value is cached
+     */
+    void onCache(String path, Cache cache, boolean hit);
+}
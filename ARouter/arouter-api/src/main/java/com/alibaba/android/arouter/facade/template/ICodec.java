@@ -0,0 +1,25 @@
+package com.alibaba.android.arouter.facade.template;
+
+import com.alibaba.android.arouter.utils.CodecInput;
+import com.alibaba.android.arouter.utils.CodecOutput;
+
+/**
+ * Binary codec of object which is autowired, generated by compiler.
+ */
+public interface ICodec<T> {
+    /**
+     * Write fields of object.
+     *
+     * @param out   output
+     * @param value object, never null
+     */
+    void write(CodecOutput out, T value);
+
+    /**
+     * Read object written by {@link #write(CodecOutput, Object)}.
+     *
+     * @param in input
+     * @return new object
+     */
+    T read(CodecInput in);
+}
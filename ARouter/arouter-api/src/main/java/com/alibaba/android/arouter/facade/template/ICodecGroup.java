@@ -0,0 +1,23 @@
+package com.alibaba.android.arouter.facade.template;
+
+import java.util.Map;
+
+/**
+ * Codecs of one module, create codec of object without reflection.
+ */
+public interface ICodecGroup {
+    /**
+     * Fill the atlas with class names of object which has codec.
+     *
+     * @param codecs class name and the group create its codec.
+     */
+    void loadInto(Map<String, ICodecGroup> codecs);
+
+    /**
+     * Create codec of object.
+     *
+     * @param className class name of object
+     * @return codec, or null if the class is not in this group
+     */
+    ICodec<?> create(String className);
+}
@@ -0,0 +1,21 @@
+package com.alibaba.android.arouter.facade.template;
+
+/**
+ * Interceptor which tells the pipeline how it should be scheduled.
+ */
+public interface IInterceptorOptions extends IInterceptor {
+    /**
+     * Max time this interceptor may take before calling back, TimeUnit.Millisecond.
+     *
+     * @return timeout, zero or negative to use the timeout of postcard only
+     */
+    long getTimeout();
+
+    /**
+     * Independent interceptors neither depend on nor modify what other interceptors see,
+     * adjacent independent interceptors will be processed in parallel.
+     *
+     * @return true if this interceptor is independent
+     */
+    boolean isIndependent();
+}
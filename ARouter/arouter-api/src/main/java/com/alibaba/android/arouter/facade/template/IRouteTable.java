@@ -0,0 +1,16 @@
+package com.alibaba.android.arouter.facade.template;
+
+import com.alibaba.android.arouter.facade.model.RouteMeta;
+
+/**
+ * Group element which can be looked up by path, route meta is built only when its path is required.
+ */
+public interface IRouteTable extends IRouteGroup {
+    /**
+     * Find route in group.
+     *
+     * @param path path of route
+     * @return route meta, or null if the path is not in this group
+     */
+    RouteMeta lookup(String path);
+}
@@ -0,0 +1,23 @@
+package com.alibaba.android.arouter.facade.template;
+
+import java.util.Map;
+
+/**
+ * Template of syringe group, one for each module, create syringe without reflection.
+ */
+public interface ISyringeGroup {
+    /**
+     * Load name of classes which have syringe in this group.
+     *
+     * @param syringes input, class name and the group create its syringe
+     */
+    void loadInto(Map<String, ISyringeGroup> syringes);
+
+    /**
+     * Create syringe.
+     *
+     * @param className name of class which has fields need autowired
+     * @return syringe, or null if the class is not in this group
+     */
+    ISyringe create(String className);
+}
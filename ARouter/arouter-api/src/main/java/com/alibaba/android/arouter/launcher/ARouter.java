@@ -6,6 +6,7 @@ import android.net.Uri;
 
 import com.alibaba.android.arouter.exception.InitException;
 import com.alibaba.android.arouter.facade.Postcard;
+import com.alibaba.android.arouter.facade.callback.MetricsListener;
 import com.alibaba.android.arouter.facade.callback.NavigationCallback;
 import com.alibaba.android.arouter.facade.model.RouteMeta;
 import com.alibaba.android.arouter.facade.template.ILogger;
@@ -127,6 +128,13 @@ public final class ARouter {
         _ARouter.setLogger(userLogger);
     }
 
+    /**
+     * Listen to phase timings and cache usage of navigation, null to stop measuring.
+     */
+    public static void setMetricsListener(MetricsListener listener) {
+        _ARouter.setMetricsListener(listener);
+    }
+
     /**
      * Inject params and services.
      */
@@ -19,6 +19,7 @@ import com.alibaba.android.arouter.exception.InitException;
 import com.alibaba.android.arouter.exception.NoRouteFoundException;
 import com.alibaba.android.arouter.facade.Postcard;
 import com.alibaba.android.arouter.facade.callback.InterceptorCallback;
+import com.alibaba.android.arouter.facade.callback.MetricsListener;
 import com.alibaba.android.arouter.facade.callback.NavigationCallback;
 import com.alibaba.android.arouter.facade.model.RouteMeta;
 import com.alibaba.android.arouter.facade.service.*;
@@ -167,6 +168,10 @@ final class _ARouter {
         }
     }
 
+    static void setMetricsListener(MetricsListener listener) {
+        LogisticsCenter.setMetricsListener(listener);
+    }
+
     static void inject(Object thiz) {
         AutowiredService autowiredService = ((AutowiredService) ARouter.getInstance().build("/arouter/service/autowired").navigation());
         if (null != autowiredService) {
@@ -181,10 +186,15 @@ final class _ARouter {
         if (TextUtils.isEmpty(path)) {
             throw new HandlerException(Consts.TAG + "Parameter is invalid!");
         } else {
-            PathReplaceService pService = ARouter.getInstance().navigation(PathReplaceService.class);
+            PathReplaceService pService = navigation(PathReplaceService.class, false);
+            MetricsListener listener = LogisticsCenter.getMetricsListener();
+            long start = null == listener ? 0 : System.nanoTime();
             if (null != pService) {
                 path = pService.forString(path);
             }
+            if (null != listener) {
+                listener.onPhase(path, MetricsListener.Phase.PATH_REPLACE, System.nanoTime() - start);
+            }
             return build(path, extractGroup(path), true);
         }
     }
@@ -196,10 +206,15 @@ final class _ARouter {
         if (null == uri || TextUtils.isEmpty(uri.toString())) {
             throw new HandlerException(Consts.TAG + "Parameter invalid!");
         } else {
-            PathReplaceService pService = ARouter.getInstance().navigation(PathReplaceService.class);
+            PathReplaceService pService = navigation(PathReplaceService.class, false);
+            MetricsListener listener = LogisticsCenter.getMetricsListener();
+            long start = null == listener ? 0 : System.nanoTime();
             if (null != pService) {
                 uri = pService.forUri(uri);
             }
+            if (null != listener) {
+                listener.onPhase(uri.getPath(), MetricsListener.Phase.PATH_REPLACE, System.nanoTime() - start);
+            }
             return new Postcard(uri.getPath(), extractGroup(uri.getPath()), uri, null);
         }
     }
@@ -212,10 +227,15 @@ final class _ARouter {
             throw new HandlerException(Consts.TAG + "Parameter is invalid!");
         } else {
             if (!afterReplace) {
-                PathReplaceService pService = ARouter.getInstance().navigation(PathReplaceService.class);
+                PathReplaceService pService = navigation(PathReplaceService.class, false);
+                MetricsListener listener = LogisticsCenter.getMetricsListener();
+                long start = null == listener ? 0 : System.nanoTime();
                 if (null != pService) {
                     path = pService.forString(path);
                 }
+                if (null != listener) {
+                    listener.onPhase(path, MetricsListener.Phase.PATH_REPLACE, System.nanoTime() - start);
+                }
             }
             return new Postcard(path, group);
         }
@@ -248,6 +268,13 @@ final class _ARouter {
     }
 
     protected <T> T navigation(Class<? extends T> service) {
+        return navigation(service, true);
+    }
+
+    /**
+     * @param measured false for the services ARouter uses by itself, their completion is not reported as metrics
+     */
+    private <T> T navigation(Class<? extends T> service, boolean measured) {
         try {
             Postcard postcard = LogisticsCenter.buildProvider(service.getName());
 
@@ -265,7 +292,11 @@ final class _ARouter {
             // Set application to postcard.
             postcard.setContext(mContext);
 
-            LogisticsCenter.completion(postcard);
+            if (measured) {
+                LogisticsCenter.completion(postcard);
+            } else {
+                LogisticsCenter.completionUnmeasured(postcard);
+            }
             return (T) postcard.getProvider();
         } catch (NoRouteFoundException ex) {
             logger.warning(Consts.TAG, ex.getMessage());
@@ -282,8 +313,14 @@ final class _ARouter {
      * @param callback    cb
      */
     protected Object navigation(final Context context, final Postcard postcard, final int requestCode, final NavigationCallback callback) {
-        PretreatmentService pretreatmentService = ARouter.getInstance().navigation(PretreatmentService.class);
-        if (null != pretreatmentService && !pretreatmentService.onPretreatment(context, postcard)) {
+        PretreatmentService pretreatmentService = navigation(PretreatmentService.class, false);
+        final MetricsListener listener = LogisticsCenter.getMetricsListener();
+        long start = null == listener ? 0 : System.nanoTime();
+        boolean pretreated = null == pretreatmentService || pretreatmentService.onPretreatment(context, postcard);
+        if (null != listener) {
+            listener.onPhase(postcard.getPath(), MetricsListener.Phase.PRETREATMENT, System.nanoTime() - start);
+        }
+        if (!pretreated) {
             // Pretreatment failed, navigation canceled.
             return null;
         }
@@ -312,7 +349,7 @@ final class _ARouter {
                 callback.onLost(postcard);
             } else {
                 // No callback for this invoke, then we use the global degrade service.
-                DegradeService degradeService = ARouter.getInstance().navigation(DegradeService.class);
+                DegradeService degradeService = navigation(DegradeService.class, false);
                 if (null != degradeService) {
                     degradeService.onLost(context, postcard);
                 }
@@ -326,6 +363,7 @@ final class _ARouter {
         }
 
         if (!postcard.isGreenChannel()) {   // It must be run in async thread, maybe interceptor cost too mush time made ANR.
+            final long startInterceptions = null == listener ? 0 : System.nanoTime();
             interceptorService.doInterceptions(postcard, new InterceptorCallback() {
                 /**
                  * Continue process
@@ -334,7 +372,10 @@ final class _ARouter {
                  */
                 @Override
                 public void onContinue(Postcard postcard) {
-                    _navigation(postcard, requestCode, callback);
+                    if (null != listener) {
+                        listener.onPhase(postcard.getPath(), MetricsListener.Phase.INTERCEPTORS, System.nanoTime() - startInterceptions);
+                    }
+                    _navigation(postcard, requestCode, callback, listener);
                 }
 
                 /**
@@ -344,6 +385,10 @@ final class _ARouter {
                  */
                 @Override
                 public void onInterrupt(Throwable exception) {
+                    if (null != listener) {
+                        listener.onPhase(postcard.getPath(), MetricsListener.Phase.INTERCEPTORS, System.nanoTime() - startInterceptions);
+                    }
+
                     if (null != callback) {
                         callback.onInterrupt(postcard);
                     }
@@ -352,12 +397,25 @@ final class _ARouter {
                 }
             });
         } else {
-            return _navigation(postcard, requestCode, callback);
+            return _navigation(postcard, requestCode, callback, listener);
         }
 
         return null;
     }
 
+    private Object _navigation(Postcard postcard, int requestCode, NavigationCallback callback, MetricsListener listener) {
+        if (null == listener) {
+            return _navigation(postcard, requestCode, callback);
+        }
+
+        long start = System.nanoTime();
+        try {
+            return _navigation(postcard, requestCode, callback);
+        } finally {
+            listener.onPhase(postcard.getPath(), MetricsListener.Phase.NAVIGATION, System.nanoTime() - start);
+        }
+    }
+
     private Object _navigation(final Postcard postcard, final int requestCode, final NavigationCallback callback) {
         final Context currentContext = postcard.getContext();
 
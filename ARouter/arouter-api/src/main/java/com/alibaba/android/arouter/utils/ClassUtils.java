@@ -67,33 +67,9 @@ public class ClassUtils {
             DefaultPoolExecutor.getInstance().execute(new Runnable() {
                 @Override
                 public void run() {
-                    DexFile dexfile = null;
-
                     try {
-                        if (path.endsWith(EXTRACTED_SUFFIX)) {
-                            //NOT use new DexFile(path), because it will throw "permission error in /data/dalvik-cache"
-                            dexfile = DexFile.loadDex(path, path + ".tmp", 0);
-                        } else {
-                            dexfile = new DexFile(path);
-                        }
-
-                        Enumeration<String> dexEntries = dexfile.entries();
-                        while (dexEntries.hasMoreElements()) {
-                            String className = dexEntries.nextElement();
-                            if (className.startsWith(packageName)) {
-                                classNames.add(className);
-                            }
-                        }
-                    } catch (Throwable ignore) {
-                        Log.e("ARouter", "Scan map file in dex files made error.", ignore);
+                        scan(path, packageName, classNames);
                     } finally {
-                        if (null != dexfile) {
-                            try {
-                                dexfile.close();
-                            } catch (Throwable ignore) {
-                            }
-                        }
-
                         parserCtl.countDown();
                     }
                 }
@@ -106,6 +82,43 @@ public class ClassUtils {
         return classNames;
     }
 
+    /**
+     * Load dex file and find out class under package.
+     *
+     * @param path        path of dex, apk or extracted zip
+     * @param packageName package name
+     * @param classNames  output
+     */
+    static void scan(String path, String packageName, Set<String> classNames) {
+        DexFile dexfile = null;
+
+        try {
+            if (path.endsWith(EXTRACTED_SUFFIX)) {
+                //NOT use new DexFile(path), because it will throw "permission error in /data/dalvik-cache"
+                dexfile = DexFile.loadDex(path, path + ".tmp", 0);
+            } else {
+                dexfile = new DexFile(path);
+            }
+
+            Enumeration<String> dexEntries = dexfile.entries();
+            while (dexEntries.hasMoreElements()) {
+                String className = dexEntries.nextElement();
+                if (className.startsWith(packageName)) {
+                    classNames.add(className);
+                }
+            }
+        } catch (Throwable ignore) {
+            Log.e("ARouter", "Scan map file in dex files made error.", ignore);
+        } finally {
+            if (null != dexfile) {
+                try {
+                    dexfile.close();
+                } catch (Throwable ignore) {
+                }
+            }
+        }
+    }
+
     /**
      * get all the dex path
      *
@@ -0,0 +1,86 @@
+package com.alibaba.android.arouter.utils;
+
+import com.alibaba.android.arouter.facade.template.ICodec;
+
+/**
+ * Input of generated codecs, reads what {@link CodecOutput} wrote.
+ */
+public final class CodecInput {
+    private final byte[] buffer;
+    private int position;
+
+    public CodecInput(byte[] buffer) {
+        this(buffer, 0);
+    }
+
+    public CodecInput(byte[] buffer, int offset) {
+        this.buffer = buffer;
+        this.position = offset;
+    }
+
+    public boolean readBoolean() {
+        return buffer[position++] != 0;
+    }
+
+    public byte readByte() {
+        return buffer[position++];
+    }
+
+    public short readShort() {
+        return (short) (((buffer[position++] & 0xFF) << 8) | (buffer[position++] & 0xFF));
+    }
+
+    public char readChar() {
+        return (char) readShort();
+    }
+
+    public int readInt() {
+        return ((buffer[position++] & 0xFF) << 24)
+                | ((buffer[position++] & 0xFF) << 16)
+                | ((buffer[position++] & 0xFF) << 8)
+                | (buffer[position++] & 0xFF);
+    }
+
+    public long readLong() {
+        return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    public float readFloat() {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    public String readString() {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] buffer = this.buffer;
+        int position = this.position;
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            int b = buffer[position++];
+            if (b >= 0) {
+                chars[i] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[i] = (char) (((b & 0x1F) << 6) | (buffer[position++] & 0x3F));
+            } else {
+                chars[i] = (char) (((b & 0x0F) << 12) | ((buffer[position++] & 0x3F) << 6) | (buffer[position++] & 0x3F));
+            }
+        }
+        this.position = position;
+        return new String(chars);
+    }
+
+    public <E extends Enum<E>> E readEnum(E[] values) {
+        int ordinal = readInt();
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    public <T> T readObject(ICodec<T> codec) {
+        return readBoolean() ? codec.read(this) : null;
+    }
+}
@@ -0,0 +1,153 @@
+package com.alibaba.android.arouter.utils;
+
+import com.alibaba.android.arouter.facade.template.ICodec;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Output of generated codecs, values are written in big endian.
+ */
+public final class CodecOutput {
+    /**
+     * Nesting of objects deeper than this is treated like a cycle, generated codecs recurse on the stack.
+     */
+    public static final int MAX_DEPTH = 256;
+
+    private byte[] buffer;
+    private int position;
+
+    // Objects being written, from the root to the current one.
+    private Object[] path = new Object[8];
+    private int depth;
+
+    public CodecOutput() {
+        this(256);
+    }
+
+    public CodecOutput(int capacity) {
+        buffer = new byte[Math.max(16, capacity)];
+    }
+
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    public void writeByte(int value) {
+        ensure(1);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeShort(int value) {
+        ensure(2);
+        buffer[position++] = (byte) (value >> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeChar(int value) {
+        writeShort(value);
+    }
+
+    public void writeInt(int value) {
+        ensure(4);
+        buffer[position++] = (byte) (value >> 24);
+        buffer[position++] = (byte) (value >> 16);
+        buffer[position++] = (byte) (value >> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeLong(long value) {
+        writeInt((int) (value >> 32));
+        writeInt((int) value);
+    }
+
+    public void writeFloat(float value) {
+        writeInt(Float.floatToIntBits(value));
+    }
+
+    public void writeDouble(double value) {
+        writeLong(Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Write string as utf-8, chars of surrogate pair are encoded one by one.
+     */
+    public void writeString(String value) {
+        if (null == value) {
+            writeInt(-1);
+            return;
+        }
+        int length = value.length();
+        writeInt(length);
+        ensure(length * 3);
+        byte[] buffer = this.buffer;
+        int position = this.position;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        this.position = position;
+    }
+
+    public void writeEnum(Enum<?> value) {
+        writeInt(null == value ? -1 : value.ordinal());
+    }
+
+    public <T> void writeObject(T value, ICodec<T> codec) {
+        if (null == value) {
+            writeBoolean(false);
+        } else {
+            writeBoolean(true);
+            writeFields(value, codec);
+        }
+    }
+
+    /**
+     * Write fields of object with its codec. Objects are written as tree, an object shared by several
+     * fields is written once for each of them.
+     *
+     * @throws IllegalStateException if the object refers to itself, or objects are nested deeper than {@link #MAX_DEPTH}
+     */
+    public <T> void writeFields(T value, ICodec<T> codec) {
+        for (int i = 0; i < depth; i++) {
+            if (path[i] == value) {
+                throw new IllegalStateException("Cyclic reference of [" + value.getClass().getName() + "]");
+            }
+        }
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("Objects are nested deeper than " + MAX_DEPTH);
+        }
+        if (depth == path.length) {
+            path = Arrays.copyOf(path, depth << 1);
+        }
+        path[depth++] = value;
+        codec.write(this, value);
+        path[--depth] = null;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * Decode the written bytes with charset, without copying them first.
+     */
+    public String toString(Charset charset) {
+        return new String(buffer, 0, position, charset);
+    }
+
+    private void ensure(int count) {
+        if (position + count > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + count));
+        }
+    }
+}
@@ -14,6 +14,8 @@ public final class Consts {
     public static final String SUFFIX_ROOT = "Root";
     public static final String SUFFIX_INTERCEPTORS = "Interceptors";
     public static final String SUFFIX_PROVIDERS = "Providers";
+    public static final String SUFFIX_SYRINGES = "Syringes";
+    public static final String SUFFIX_CODECS = "Codecs";
     public static final String SUFFIX_AUTOWIRED = SEPARATOR + SDK_NAME + SEPARATOR + "Autowired";
     public static final String DOT = ".";
     public static final String ROUTE_ROOT_PAKCAGE = "com.alibaba.android.arouter.routes";
@@ -0,0 +1,388 @@
+package com.alibaba.android.arouter.utils;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Process;
+import android.util.Log;
+
+import com.alibaba.android.arouter.thread.DefaultPoolExecutor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Index of class names in dex files, used to find out route classes without loading every dex.
+ * <p>
+ * Class names are recorded per dex together with the checksum of dex, the checksum of dex in apk comes from
+ * the central directory of zip, so it is cheap to verify. Only dex changed since last scan will be scanned,
+ * by reading class definitions from dex directly. The index is a small binary file in cache dir, read by mmap.
+ */
+public class DexClassIndex {
+    private static final String INDEX_FILE = "arouter_dex_index";
+    private static final int MAGIC = 0x41524958;    // "ARIX"
+    private static final int VERSION = 1;
+
+    private static final String DEX_PREFIX = "classes";
+    private static final String DEX_SUFFIX = ".dex";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // Offsets in header of dex, look at https://source.android.com/devices/tech/dalvik/dex-format
+    private static final int DEX_HEADER_SIZE = 0x70;
+    private static final int DEX_STRING_IDS_OFF = 0x3C;
+    private static final int DEX_TYPE_IDS_OFF = 0x44;
+    private static final int DEX_CLASS_DEFS_SIZE = 0x60;
+    private static final int DEX_CLASS_DEFS_OFF = 0x64;
+    private static final int DEX_CLASS_DEF_ITEM_SIZE = 0x20;
+
+    /**
+     * Find out class with package name from index.
+     *
+     * @param context     U know
+     * @param packageName package name
+     * @param verify      verify checksum of each dex and scan the changed, or trust the index if it exists
+     * @return all class name under package
+     */
+    public static Set<String> getFileNameByPackageName(Context context, final String packageName, boolean verify) throws PackageManager.NameNotFoundException, IOException, InterruptedException {
+        File indexFile = new File(context.getCacheDir(), INDEX_FILE);
+        List<Dex> cached = read(indexFile, packageName);
+        if (!verify && null != cached) {
+            return classNamesOf(cached);
+        }
+
+        // The dir of apk changes after each install, so dex is identified by file name.
+        Map<String, Dex> cachedByKey = new HashMap<>();
+        if (null != cached) {
+            for (Dex dex : cached) {
+                cachedByKey.put(dex.key, dex);
+            }
+        }
+
+        final List<Dex> dexList = new ArrayList<>();
+        final Set<String> unknownPaths = Collections.synchronizedSet(new HashSet<String>());
+        for (String path : ClassUtils.getSourcePaths(context)) {
+            try {
+                listDex(path, dexList);
+            } catch (IOException e) {
+                unknownPaths.add(path);
+            }
+        }
+
+        final List<Dex> changed = new ArrayList<>();
+        for (Dex dex : dexList) {
+            Dex last = cachedByKey.remove(dex.key);
+            if (null != last && last.checksum == dex.checksum) {
+                dex.classNames = last.classNames;
+            } else {
+                changed.add(dex);
+            }
+        }
+
+        final CountDownLatch parserCtl = new CountDownLatch(changed.size());
+        for (final Dex dex : changed) {
+            DefaultPoolExecutor.getInstance().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        dex.classNames = readClassNames(readDex(dex), packageName);
+                    } catch (Throwable e) {
+                        Log.w(Consts.TAG, "Read dex [" + dex.key + "] failed, scan it by DexFile. " + e.getMessage());
+                        unknownPaths.add(dex.path);
+                    } finally {
+                        parserCtl.countDown();
+                    }
+                }
+            });
+        }
+        parserCtl.await();
+
+        // The dex can not be read is not indexed, it will be scanned next time.
+        List<Dex> indexed = new ArrayList<>(dexList.size());
+        for (Dex dex : dexList) {
+            if (null != dex.classNames) {
+                indexed.add(dex);
+            }
+        }
+
+        if (!changed.isEmpty() || !cachedByKey.isEmpty() || null == cached) {
+            write(indexFile, packageName, indexed);
+        }
+
+        Set<String> classNames = classNamesOf(indexed);
+        for (String path : unknownPaths) {
+            ClassUtils.scan(path, packageName, classNames);
+        }
+
+        Log.d(Consts.TAG, "Filter " + classNames.size() + " classes by packageName <" + packageName + ">, "
+                + changed.size() + " of " + dexList.size() + " dex scanned");
+        return classNames;
+    }
+
+    /**
+     * List dex in file, the apk and extracted zip may contain more than one dex.
+     */
+    private static void listDex(String path, List<Dex> dexList) throws IOException {
+        if (path.endsWith(DEX_SUFFIX)) {
+            File file = new File(path);
+            dexList.add(new Dex(path, null, file.getName(), file.length() * 31 + file.lastModified()));
+            return;
+        }
+
+        String fileName = new File(path).getName();
+        ZipFile zip = new ZipFile(path);
+        try {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (name.startsWith(DEX_PREFIX) && name.endsWith(DEX_SUFFIX) && name.indexOf('/') < 0) {
+                    dexList.add(new Dex(path, name, fileName + '!' + name, (entry.getSize() << 32) | (entry.getCrc() & 0xFFFFFFFFL)));
+                }
+            }
+        } finally {
+            zip.close();
+        }
+    }
+
+    private static byte[] readDex(Dex dex) throws IOException {
+        if (null == dex.entry) {
+            InputStream in = new FileInputStream(dex.path);
+            try {
+                return readFully(in, (int) new File(dex.path).length());
+            } finally {
+                in.close();
+            }
+        }
+
+        ZipFile zip = new ZipFile(dex.path);
+        try {
+            ZipEntry entry = zip.getEntry(dex.entry);
+            if (null == entry) {
+                throw new IOException("Missing " + dex.entry);
+            }
+
+            InputStream in = zip.getInputStream(entry);
+            try {
+                return readFully(in, (int) entry.getSize());
+            } finally {
+                in.close();
+            }
+        } finally {
+            zip.close();
+        }
+    }
+
+    private static byte[] readFully(InputStream in, int size) throws IOException {
+        int count;
+        if (size <= 0) {    // Unknown size
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        }
+
+        byte[] data = new byte[size];
+        int offset = 0;
+        while (offset < size && (count = in.read(data, offset, size - offset)) != -1) {
+            offset += count;
+        }
+        if (offset < size) {
+            throw new EOFException("Dex is truncated");
+        }
+        return data;
+    }
+
+    /**
+     * Read name of classes defined in dex, only descriptors start with package are decoded.
+     */
+    static List<String> readClassNames(byte[] dex, String packageName) {
+        if (dex.length < DEX_HEADER_SIZE || dex[0] != 'd' || dex[1] != 'e' || dex[2] != 'x' || dex[3] != '\n') {
+            throw new IllegalArgumentException("Not a dex file");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(dex).order(ByteOrder.LITTLE_ENDIAN);
+        int stringIdsOff = buffer.getInt(DEX_STRING_IDS_OFF);
+        int typeIdsOff = buffer.getInt(DEX_TYPE_IDS_OFF);
+        int classDefsSize = buffer.getInt(DEX_CLASS_DEFS_SIZE);
+        int classDefsOff = buffer.getInt(DEX_CLASS_DEFS_OFF);
+        byte[] prefix = ("L" + packageName.replace('.', '/')).getBytes(UTF_8);
+
+        List<String> classNames = new ArrayList<>();
+        for (int i = 0; i < classDefsSize; i++) {
+            int typeIdx = buffer.getInt(classDefsOff + i * DEX_CLASS_DEF_ITEM_SIZE);
+            int stringIdx = buffer.getInt(typeIdsOff + typeIdx * 4);
+            int pos = buffer.getInt(stringIdsOff + stringIdx * 4);
+            while ((dex[pos++] & 0x80) != 0) {
+                // Skip the utf16 size in uleb128.
+            }
+
+            if (!startsWith(dex, pos, prefix)) {
+                continue;
+            }
+
+            // Descriptor looks like 'Lcom/alibaba/android/arouter/routes/ARouter$$Root$$app;'
+            int end = pos;
+            while (dex[end] != 0) {
+                end++;
+            }
+            classNames.add(new String(dex, pos + 1, end - pos - 2, UTF_8).replace('/', '.'));
+        }
+        return classNames;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, byte[] prefix) {
+        if (offset + prefix.length > data.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> classNamesOf(List<Dex> dexList) {
+        Set<String> classNames = new HashSet<>();
+        for (Dex dex : dexList) {
+            classNames.addAll(dex.classNames);
+        }
+        return classNames;
+    }
+
+    /**
+     * Read index by mmap.
+     *
+     * @return null if there is no index, or it was built for other package
+     */
+    private static List<Dex> read(File indexFile, String packageName) {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(indexFile, "r");
+            FileChannel channel = raf.getChannel();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || !packageName.equals(readString(buffer))) {
+                return null;
+            }
+
+            int dexCount = buffer.getInt();
+            List<Dex> dexList = new ArrayList<>(dexCount);
+            for (int i = 0; i < dexCount; i++) {
+                Dex dex = new Dex(null, null, readString(buffer), buffer.getLong());
+                int classCount = buffer.getInt();
+                dex.classNames = new ArrayList<>(classCount);
+                for (int j = 0; j < classCount; j++) {
+                    dex.classNames.add(readString(buffer));
+                }
+                dexList.add(dex);
+            }
+            return dexList;
+        } catch (Exception e) {
+            Log.w(Consts.TAG, "Read dex index failed, " + e.getMessage());
+            return null;
+        } finally {
+            if (null != raf) {
+                try {
+                    raf.close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Write index to temp file then rename, the index never be seen half written.
+     */
+    private static void write(File indexFile, String packageName, List<Dex> dexList) {
+        File tmp = new File(indexFile.getPath() + "." + Process.myPid() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new FileOutputStream(tmp));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, packageName);
+            out.writeInt(dexList.size());
+            for (Dex dex : dexList) {
+                writeString(out, dex.key);
+                out.writeLong(dex.checksum);
+                out.writeInt(dex.classNames.size());
+                for (String className : dex.classNames) {
+                    writeString(out, className);
+                }
+            }
+            out.close();
+            out = null;
+
+            if (!tmp.renameTo(indexFile)) {
+                Log.w(Consts.TAG, "Rename dex index failed.");
+            }
+        } catch (IOException e) {
+            Log.w(Consts.TAG, "Write dex index failed, " + e.getMessage());
+        } finally {
+            if (null != out) {
+                try {
+                    out.close();
+                } catch (IOException ignore) {
+                }
+            }
+            tmp.delete();
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * A dex file, or a dex entry in zip. Dex read from index only has key.
+     */
+    private static class Dex {
+        private final String path;
+        private final String entry;
+        private final String key;
+        private final long checksum;
+        private List<String> classNames;
+
+        Dex(String path, String entry, String key, long checksum) {
+            this.path = path;
+            this.entry = entry;
+            this.key = key;
+            this.checksum = checksum;
+        }
+    }
+}
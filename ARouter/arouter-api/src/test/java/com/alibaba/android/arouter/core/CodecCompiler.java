@@ -0,0 +1,73 @@
+package com.alibaba.android.arouter.core;
+
+import com.alibaba.android.arouter.facade.template.ICodecGroup;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Generates codecs of compiled beans with arouter-compiler, as a module which autowires them would.
+ */
+final class CodecCompiler {
+    private static final String PROCESSOR = "com.alibaba.android.arouter.compiler.processor.AutowiredProcessor";
+
+    private CodecCompiler() {
+    }
+
+    /**
+     * Compile an activity autowiring the beans with AutowiredProcessor, and load the generated codec group.
+     * The compiler is only on the runtime classpath of tests, as processors on the compile classpath are rejected.
+     *
+     * @param dir    empty directory for sources and classes
+     * @param module module name of generated classes
+     * @param beans  public classes, their codecs are loaded in a child of the class loader of the first one
+     */
+    static ICodecGroup generate(File dir, String module, Class<?>... beans) throws Exception {
+        File sources = new File(dir, "src");
+        File generated = new File(dir, "generated");
+        File classes = new File(dir, "classes");
+        if (!sources.mkdirs() || !generated.mkdirs() || !classes.mkdirs()) {
+            throw new IllegalStateException("Can not create directories in " + dir);
+        }
+        StringBuilder source = new StringBuilder()
+                .append("package ").append(module).append(";\n")
+                .append("import com.alibaba.android.arouter.facade.annotation.Autowired;\n")
+                .append("public class CodecTarget extends android.app.Activity {\n");
+        for (int i = 0; i < beans.length; i++) {
+            source.append("    @Autowired public ").append(beans[i].getCanonicalName()).append(" bean").append(i).append(";\n");
+        }
+        source.append("}\n");
+        File target = new File(sources, "CodecTarget.java");
+        Files.write(target.toPath(), source.toString().getBytes(Charset.forName("UTF-8")));
+
+        String classpath = System.getProperty("java.class.path");
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        try {
+            boolean compiled = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-classpath", classpath, "-processorpath", classpath, "-processor", PROCESSOR,
+                            "-AAROUTER_MODULE_NAME=" + module, "-s", generated.getPath(), "-d", classes.getPath()),
+                    null, fileManager.getJavaFileObjects(target)).call();
+            if (!compiled) {
+                throw new IllegalStateException("Compile failed: " + diagnostics.getDiagnostics());
+            }
+        } finally {
+            fileManager.close();
+        }
+
+        ClassLoader loader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, beans[0].getClassLoader());
+        return (ICodecGroup) loader.loadClass("com.alibaba.android.arouter.routes.ARouter$$Codecs$$" + module)
+                .getConstructor().newInstance();
+    }
+}
@@ -0,0 +1,227 @@
+package com.alibaba.android.arouter.core;
+
+import com.alibaba.android.arouter.launcher.ARouter;
+import com.alibaba.android.arouter.utils.DefaultLogger;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generated codecs against fastjson for objects of several sizes, as {@link CodecSerializationService} writes and
+ * reads them for autowired fields. Not a unit test, run the main method on the JVM:
+ * <pre>
+ * java -cp ... com.alibaba.android.arouter.core.CodecSerializationBenchmark [rounds]
+ * </pre>
+ */
+public class CodecSerializationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        ARouter.logger = new DefaultLogger();
+        File dir = Files.createTempDirectory("codec-benchmark").toFile();
+        CodecCompiler.generate(dir, "codecbenchmark", Small.class, User.class, Feed.class).loadInto(Warehouse.codecsIndex);
+        JsonService service = new JsonService();
+
+        Small small = new Small();
+        small.id = 42;
+        small.name = "item";
+        small.checked = true;
+        small.count = 7;
+        small.url = "https://example.com/item/42";
+        Feed feed = new Feed();
+        feed.title = "feed";
+        feed.page = 3;
+        feed.items = new ArrayList<>();
+        feed.seen = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            feed.items.add(user(i));
+            feed.seen.add("id" + i);
+        }
+        Object[][] cases = {{"small", small, 200000}, {"user", user(1), 50000}, {"feed100", feed, 500}};
+
+        for (Object[] c : cases) {
+            String value = service.object2Json(c[1]);
+            String json = JSON.toJSONString(c[1]);
+            if (0 != value.charAt(0)) {
+                throw new IllegalStateException(c[0] + " has no codec");
+            }
+            String copy = JSON.toJSONString(service.parseObject(value, c[1].getClass()));
+            if (!copy.equals(JSON.toJSONString(c[1], SerializerFeature.DisableCircularReferenceDetect))) {
+                throw new IllegalStateException(c[0] + " differs after round trip: " + copy);
+            }
+            System.out.println(String.format("%-8s chars codec %6d, json %6d", c[0], value.length(), json.length()));
+        }
+
+        long sink = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (Object[] c : cases) {
+                Object object = c[1];
+                Type type = object.getClass();
+                int count = (Integer) c[2];
+                long t0 = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    sink += service.object2Json(object).length();
+                }
+                long t1 = System.nanoTime();
+                String value = service.object2Json(object);
+                for (int i = 0; i < count; i++) {
+                    sink += service.parseObject(value, type).hashCode() & 1;
+                }
+                long t2 = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    sink += JSON.toJSONString(object).length();
+                }
+                long t3 = System.nanoTime();
+                String json = JSON.toJSONString(object);
+                for (int i = 0; i < count; i++) {
+                    sink += JSON.parseObject(json, type).hashCode() & 1;
+                }
+                long t4 = System.nanoTime();
+                System.out.println(String.format("round %d %-8s codec write %8.0f ns, read %8.0f ns | json write %8.0f ns, read %8.0f ns",
+                        round, c[0], (t1 - t0) / (double) count, (t2 - t1) / (double) count,
+                        (t3 - t2) / (double) count, (t4 - t3) / (double) count));
+            }
+        }
+        System.out.println("(" + (sink & 1) + ")");
+    }
+
+    private static User user(int i) {
+        User user = new User();
+        user.id = i;
+        user.name = "user name " + i + " 用户";
+        user.vip = i % 2 == 0;
+        user.score = i % 3 == 0 ? null : (long) i * 1000;
+        user.level = Level.values()[i % 3];
+        Address address = new Address();
+        address.setCity("Hangzhou");
+        address.setStreet("West Lake Road " + i);
+        address.setZip(310000 + i);
+        address.setLat(30.25);
+        address.setLng(120.16);
+        user.address = address;
+        user.tags = new ArrayList<>(Arrays.asList("alpha", "beta", "gamma", "delta", "t" + i));
+        user.counters = new HashMap<>();
+        user.counters.put("views", i);
+        user.counters.put("likes", i * 2);
+        user.counters.put("none", null);
+        user.history = new ArrayList<>();
+        user.history.add(address);
+        user.setWeight(60.5f);
+        user.createdBy = "system";
+        return user;
+    }
+
+    public enum Level {
+        LOW, NORMAL, HIGH
+    }
+
+    public static class Small {
+        public long id;
+        public String name;
+        public boolean checked;
+        public int count;
+        public String url;
+    }
+
+    public static class Address {
+        private String city;
+        private String street;
+        private int zip;
+        private double lat;
+        private double lng;
+
+        public String getCity() {
+            return city;
+        }
+
+        public void setCity(String city) {
+            this.city = city;
+        }
+
+        public String getStreet() {
+            return street;
+        }
+
+        public void setStreet(String street) {
+            this.street = street;
+        }
+
+        public int getZip() {
+            return zip;
+        }
+
+        public void setZip(int zip) {
+            this.zip = zip;
+        }
+
+        public double getLat() {
+            return lat;
+        }
+
+        public void setLat(double lat) {
+            this.lat = lat;
+        }
+
+        public double getLng() {
+            return lng;
+        }
+
+        public void setLng(double lng) {
+            this.lng = lng;
+        }
+    }
+
+    public static class Base {
+        public String createdBy;
+    }
+
+    public static class User extends Base {
+        public int id;
+        public String name;
+        public boolean vip;
+        public Long score;
+        public Level level;
+        public Address address;
+        public List<String> tags;
+        public Map<String, Integer> counters;
+        public List<Address> history;
+        private float weight;
+
+        public float getWeight() {
+            return weight;
+        }
+
+        public void setWeight(float weight) {
+            this.weight = weight;
+        }
+    }
+
+    public static class Feed {
+        public String title;
+        public int page;
+        public ArrayList<User> items;
+        public Set<String> seen;
+    }
+
+    private static class JsonService extends CodecSerializationService {
+        @Override
+        protected String toJson(Object instance) {
+            return JSON.toJSONString(instance);
+        }
+
+        @Override
+        protected <T> T fromJson(String input, Type type) {
+            return JSON.parseObject(input, type);
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.alibaba.android.arouter.core;
+
+import com.alibaba.android.arouter.facade.template.ICodecGroup;
+import com.alibaba.android.arouter.facade.template.ILogger;
+import com.alibaba.android.arouter.launcher.ARouter;
+import com.alibaba.android.arouter.utils.CodecOutput;
+import com.alibaba.android.arouter.utils.DefaultLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Codecs generated by arouter-compiler for the beans below, and objects written and read with them
+ * through {@link CodecSerializationService}.
+ */
+public class CodecSerializationServiceTest {
+    private static final String MODULE = "codectest";
+    private static final String JSON = "json:";
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static ICodecGroup group;
+
+    private ILogger previousLogger;
+    private JsonService service;
+
+    @BeforeClass
+    public static void generateCodecs() throws Exception {
+        group = CodecCompiler.generate(folder.newFolder(), MODULE,
+                Bean.class, Node.class, Unsupported.class, HasUnsupported.class);
+    }
+
+    @Before
+    public void setUp() {
+        previousLogger = ARouter.logger;
+        ARouter.logger = new DefaultLogger();
+        group.loadInto(Warehouse.codecsIndex);
+        service = new JsonService();
+    }
+
+    @After
+    public void tearDown() {
+        Warehouse.codecsIndex.clear();
+        ARouter.logger = previousLogger;
+    }
+
+    @Test
+    public void generatesCodecsOfSupportedTypesOnly() {
+        Map<String, ICodecGroup> codecs = new TreeMap<>();
+        group.loadInto(codecs);
+
+        assertEquals(Arrays.asList(Bean.class.getName(), Node.class.getName()), new ArrayList<>(codecs.keySet()));
+        assertNotNull(group.create(Bean.class.getName()));
+        // Node refers to itself through a field and a list, its codec is still generated.
+        assertNotNull(group.create(Node.class.getName()));
+        assertNull(group.create(Unsupported.class.getName()));
+        assertNull(group.create(HasUnsupported.class.getName()));
+    }
+
+    @Test
+    public void beanRoundTrip() {
+        Bean bean = bean();
+        String value = service.object2Json(bean);
+        assertEquals('\u0000', value.charAt(0));
+        assertTrue(service.json.isEmpty());
+
+        Bean copy = service.parseObject(value, Bean.class);
+        assertNotSame(bean, copy);
+        assertEquals(describe(bean), describe(copy));
+        assertEquals(describe(bean), describe(service.json2Object(value, Bean.class)));
+    }
+
+    @Test
+    public void nullsRoundTrip() {
+        Bean copy = service.parseObject(service.object2Json(new Bean()), Bean.class);
+
+        assertEquals(describe(new Bean()), describe(copy));
+        assertNull(copy.node);
+        assertNull(copy.counters);
+    }
+
+    @Test
+    public void sharedObjectIsWrittenAsTree() {
+        Node shared = node("shared");
+        Node root = node("root");
+        root.next = shared;
+        root.children = Arrays.asList(shared, shared);
+
+        Node copy = service.parseObject(service.object2Json(root), Node.class);
+
+        assertTrue(service.json.isEmpty());
+        assertEquals("shared", copy.next.name);
+        assertEquals(2, copy.children.size());
+        assertNotSame(copy.children.get(0), copy.children.get(1));
+    }
+
+    @Test
+    public void selfReferenceFallsBackToJson() {
+        Node node = node("self");
+        node.next = node;
+
+        assertEquals(JSON + 0, service.object2Json(node));
+        assertEquals(Collections.<Object>singletonList(node), service.json);
+        assertTrue(node == service.parseObject(JSON + 0, Node.class));
+    }
+
+    @Test
+    public void cycleThroughCollectionAndOtherBeanFallsBackToJson() {
+        Node child = node("child");
+        Node root = node("root");
+        root.children = Collections.singletonList(child);
+        child.next = root;
+        Bean bean = bean();
+        bean.node = root;
+
+        assertEquals(JSON + 0, service.object2Json(bean));
+        assertEquals(Collections.<Object>singletonList(bean), service.json);
+
+        // A cycle which does not pass through the root is detected as well.
+        child.next = child;
+        assertEquals(JSON + 1, service.object2Json(bean));
+    }
+
+    @Test
+    public void deepNestingFallsBackToJson() {
+        Node deepest = chain(CodecOutput.MAX_DEPTH);
+        Node copy = service.parseObject(service.object2Json(deepest), Node.class);
+        int length = 0;
+        for (Node n = copy; null != n; n = n.next) {
+            length++;
+        }
+        assertEquals(CodecOutput.MAX_DEPTH, length);
+
+        assertEquals(JSON + 0, service.object2Json(chain(CodecOutput.MAX_DEPTH + 1)));
+    }
+
+    @Test
+    public void typeWithoutCodecUsesJson() {
+        HasUnsupported value = new HasUnsupported();
+        assertEquals(JSON + 0, service.object2Json(value));
+        assertEquals(JSON + 1, service.object2Json("plain"));
+        assertEquals(JSON + 2, service.object2Json(null));
+    }
+
+    private static Bean bean() {
+        Bean bean = new Bean();
+        bean.id = 42;
+        bean.time = Long.MIN_VALUE;
+        bean.ratio = -0.5;
+        bean.flag = true;
+        bean.initial = '中';
+        bean.boxed = null;
+        bean.text = "text é中😀";
+        bean.level = Level.HIGH;
+        bean.setWeight(61.5f);
+        bean.counters = new HashMap<>();
+        bean.counters.put("a", 1L);
+        bean.counters.put("b", null);
+        bean.tags = new HashSet<>(Arrays.asList("x", "y"));
+        Node root = node("root");
+        root.next = node("next");
+        root.children = new ArrayList<>(Arrays.asList(node("first"), null, node("third")));
+        bean.node = root;
+        return bean;
+    }
+
+    private static Node node(String name) {
+        Node node = new Node();
+        node.name = name;
+        return node;
+    }
+
+    private static Node chain(int length) {
+        Node head = null;
+        for (int i = 0; i < length; i++) {
+            Node node = node("n" + i);
+            node.next = head;
+            head = node;
+        }
+        return head;
+    }
+
+    private static String describe(Bean bean) {
+        return bean.id + "|" + bean.time + "|" + bean.ratio + "|" + bean.flag + "|" + bean.initial + "|" + bean.boxed
+                + "|" + bean.text + "|" + bean.level + "|" + bean.getWeight() + "|" + bean.counters + "|" + bean.tags
+                + "|" + describe(bean.node);
+    }
+
+    private static String describe(Node node) {
+        if (null == node) {
+            return "null";
+        }
+        List<String> children = null;
+        if (null != node.children) {
+            children = new ArrayList<>();
+            for (Node child : node.children) {
+                children.add(describe(child));
+            }
+        }
+        return node.name + "(" + describe(node.next) + ", " + children + ")";
+    }
+
+    public enum Level {
+        LOW, HIGH
+    }
+
+    public static class Node {
+        public String name;
+        public Node next;
+        public List<Node> children;
+    }
+
+    public static class Bean {
+        public int id;
+        public long time;
+        public double ratio;
+        public boolean flag;
+        public char initial;
+        public Integer boxed;
+        public String text;
+        public Level level;
+        public Node node;
+        public Map<String, Long> counters;
+        public Set<String> tags;
+        private float weight;
+
+        public float getWeight() {
+            return weight;
+        }
+
+        public void setWeight(float weight) {
+            this.weight = weight;
+        }
+    }
+
+    public static class Unsupported {
+        public Date date;
+    }
+
+    public static class HasUnsupported {
+        public String name;
+        public Unsupported unsupported;
+    }
+
+    /**
+     * Keeps objects without codec in memory, so that they can be told apart from binary values.
+     */
+    private static class JsonService extends CodecSerializationService {
+        final List<Object> json = new ArrayList<>();
+
+        @Override
+        protected String toJson(Object instance) {
+            json.add(instance);
+            return JSON + (json.size() - 1);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected <T> T fromJson(String input, Type type) {
+            return (T) json.get(Integer.parseInt(input.substring(JSON.length())));
+        }
+    }
+
+}
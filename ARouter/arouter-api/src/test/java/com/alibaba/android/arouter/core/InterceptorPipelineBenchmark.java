@@ -0,0 +1,230 @@
+package com.alibaba.android.arouter.core;
+
+import android.content.Context;
+
+import com.alibaba.android.arouter.exception.HandlerException;
+import com.alibaba.android.arouter.facade.Postcard;
+import com.alibaba.android.arouter.facade.callback.InterceptorCallback;
+import com.alibaba.android.arouter.facade.template.IInterceptor;
+import com.alibaba.android.arouter.facade.template.IInterceptorOptions;
+import com.alibaba.android.arouter.launcher.ARouter;
+import com.alibaba.android.arouter.thread.CancelableCountDownLatch;
+import com.alibaba.android.arouter.thread.DefaultPoolExecutor;
+import com.alibaba.android.arouter.utils.DefaultLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Navigation throughput of 10 interceptors through {@link InterceptorPipeline}, against the blocking chain it
+ * replaced (one pool thread waits on a latch per navigation). Not a unit test, run the main method on the JVM:
+ * <pre>
+ * java -cp ... com.alibaba.android.arouter.core.InterceptorPipelineBenchmark [seconds per case]
+ * </pre>
+ */
+public class InterceptorPipelineBenchmark {
+    private static final int INTERCEPTORS = 10;
+    private static final int IN_FLIGHT = 32;
+
+    private static final ScheduledExecutorService delayer = Executors.newScheduledThreadPool(4);
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        ARouter.logger = new DefaultLogger();
+        LogisticsCenter.executor = DefaultPoolExecutor.getInstance();
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors() + ", interceptors: "
+                + INTERCEPTORS + ", in flight: " + IN_FLIGHT);
+
+        run("all synchronous", chain(0, 0, false), seconds);
+        run("one async 2ms", chain(1, 2, false), seconds);
+        run("all async 1ms", chain(INTERCEPTORS, 1, false), seconds);
+        run("all independent 1ms", chain(INTERCEPTORS, 1, true), seconds);
+
+        delayer.shutdownNow();
+        DefaultPoolExecutor.getInstance().shutdownNow();
+        System.exit(0);
+    }
+
+    private static void run(String name, List<IInterceptor> interceptors, int seconds) throws Exception {
+        boolean independent = interceptors.get(interceptors.size() - 1) instanceof IInterceptorOptions;
+        String blocking = independent ? "-" : format(measure(new Blocking(interceptors), seconds));
+        String pipeline = format(measure(new Pipeline(interceptors), seconds));
+        System.out.println(String.format("%-22s blocking %12s   pipeline %12s", name, blocking, pipeline));
+    }
+
+    private static String format(double perSecond) {
+        return String.format("%.0f nav/s", perSecond);
+    }
+
+    /**
+     * Keep IN_FLIGHT navigations running, count the finished ones after one second of warm up.
+     */
+    private static double measure(Chain chain, int seconds) throws Exception {
+        final Semaphore slots = new Semaphore(IN_FLIGHT);
+        final AtomicLong finished = new AtomicLong();
+        InterceptorCallback callback = new InterceptorCallback() {
+            @Override
+            public void onContinue(Postcard postcard) {
+                finished.incrementAndGet();
+                slots.release();
+            }
+
+            @Override
+            public void onInterrupt(Throwable exception) {
+                slots.release();
+            }
+        };
+        long warmUpEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        long end = warmUpEnd + TimeUnit.SECONDS.toNanos(seconds);
+        long start = 0;
+        long base = 0;
+        while (System.nanoTime() < end) {
+            if (0 == start && System.nanoTime() >= warmUpEnd) {
+                start = System.nanoTime();
+                base = finished.get();
+            }
+            slots.acquire();
+            chain.navigate(new Postcard("/bench/target", "bench"), callback);
+        }
+        slots.acquire(IN_FLIGHT);
+        return (finished.get() - base) * 1e9 / (System.nanoTime() - start);
+    }
+
+    private static List<IInterceptor> chain(int async, long delayMillis, boolean independent) {
+        List<IInterceptor> interceptors = new ArrayList<>();
+        for (int i = 0; i < INTERCEPTORS; i++) {
+            if (i < async) {
+                interceptors.add(independent ? new IndependentDelayed(delayMillis) : new Delayed(delayMillis));
+            } else {
+                interceptors.add(new Synchronous());
+            }
+        }
+        return interceptors;
+    }
+
+    private interface Chain {
+        void navigate(Postcard postcard, InterceptorCallback callback);
+    }
+
+    private static final class Pipeline implements Chain {
+        private final InterceptorPipeline.Stage[] stages;
+
+        Pipeline(List<IInterceptor> interceptors) {
+            this.stages = InterceptorPipeline.stagesOf(interceptors);
+        }
+
+        @Override
+        public void navigate(Postcard postcard, InterceptorCallback callback) {
+            InterceptorPipeline.start(stages, postcard, callback);
+        }
+    }
+
+    /**
+     * The chain before InterceptorPipeline: a pool thread drives the interceptors and waits for all of them.
+     */
+    private static final class Blocking implements Chain {
+        private final List<IInterceptor> interceptors;
+
+        Blocking(List<IInterceptor> interceptors) {
+            this.interceptors = interceptors;
+        }
+
+        @Override
+        public void navigate(final Postcard postcard, final InterceptorCallback callback) {
+            LogisticsCenter.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    CancelableCountDownLatch counter = new CancelableCountDownLatch(interceptors.size());
+                    try {
+                        execute(0, counter, postcard);
+                        counter.await(postcard.getTimeout(), TimeUnit.SECONDS);
+                        if (counter.getCount() > 0) {
+                            callback.onInterrupt(new HandlerException("The interceptor processing timed out."));
+                        } else if (null != postcard.getTag()) {
+                            callback.onInterrupt((Throwable) postcard.getTag());
+                        } else {
+                            callback.onContinue(postcard);
+                        }
+                    } catch (Exception e) {
+                        callback.onInterrupt(e);
+                    }
+                }
+            });
+        }
+
+        private void execute(final int index, final CancelableCountDownLatch counter, final Postcard postcard) {
+            if (index < interceptors.size()) {
+                interceptors.get(index).process(postcard, new InterceptorCallback() {
+                    @Override
+                    public void onContinue(Postcard postcard) {
+                        counter.countDown();
+                        execute(index + 1, counter, postcard);
+                    }
+
+                    @Override
+                    public void onInterrupt(Throwable exception) {
+                        postcard.setTag(exception);
+                        counter.cancel();
+                    }
+                });
+            }
+        }
+    }
+
+    private static class Synchronous implements IInterceptor {
+        @Override
+        public void process(Postcard postcard, InterceptorCallback callback) {
+            callback.onContinue(postcard);
+        }
+
+        @Override
+        public void init(Context context) {
+        }
+    }
+
+    /**
+     * Hands the navigation to another thread and continues it after a delay.
+     */
+    private static class Delayed implements IInterceptor {
+        private final long delayMillis;
+
+        Delayed(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public void process(final Postcard postcard, final InterceptorCallback callback) {
+            delayer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    callback.onContinue(postcard);
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void init(Context context) {
+        }
+    }
+
+    private static final class IndependentDelayed extends Delayed implements IInterceptorOptions {
+        IndependentDelayed(long delayMillis) {
+            super(delayMillis);
+        }
+
+        @Override
+        public long getTimeout() {
+            return 0;
+        }
+
+        @Override
+        public boolean isIndependent() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.alibaba.android.arouter.core;
+
+import android.content.Context;
+
+import com.alibaba.android.arouter.exception.HandlerException;
+import com.alibaba.android.arouter.facade.Postcard;
+import com.alibaba.android.arouter.facade.callback.InterceptorCallback;
+import com.alibaba.android.arouter.facade.template.IInterceptor;
+import com.alibaba.android.arouter.facade.template.IInterceptorOptions;
+import com.alibaba.android.arouter.facade.template.ILogger;
+import com.alibaba.android.arouter.launcher.ARouter;
+import com.alibaba.android.arouter.utils.DefaultLogger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Callbacks, threads and timeouts of {@link InterceptorPipeline}.
+ */
+public class InterceptorPipelineTest {
+    private static final String EXECUTOR_THREAD = "pipeline-test-";
+
+    private ILogger previousLogger;
+    private ThreadPoolExecutor previousExecutor;
+    private ThreadPoolExecutor executor;
+    private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() {
+        // The timer thread factory logs, the logger is only set by ARouter.init.
+        previousLogger = ARouter.logger;
+        ARouter.logger = new DefaultLogger();
+        previousExecutor = LogisticsCenter.executor;
+        final AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r, EXECUTOR_THREAD + count.incrementAndGet());
+                    }
+                });
+        LogisticsCenter.executor = executor;
+    }
+
+    @After
+    public void tearDown() {
+        LogisticsCenter.executor = previousExecutor;
+        ARouter.logger = previousLogger;
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void synchronousChainContinuesInOrder() throws Exception {
+        List<IInterceptor> interceptors = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            interceptors.add(new Recording("sync" + i));
+        }
+        Result result = navigate(interceptors, 300);
+
+        assertNull(result.exception);
+        assertTrue(result.thread.startsWith(EXECUTOR_THREAD));
+        assertEquals(Arrays.asList("sync0", "sync1", "sync2", "sync3", "sync4", "sync5", "sync6", "sync7",
+                "sync8", "sync9"), events);
+    }
+
+    @Test
+    public void asyncCallbackResumesOnExecutor() throws Exception {
+        Recording after = new Recording("after");
+        Result result = navigate(Arrays.asList(new Recording("before"), new Async("async", 20, true), after), 300);
+
+        assertNull(result.exception);
+        assertEquals(Arrays.asList("before", "async", "after"), events);
+        // The interceptor after the async one and the navigation callback do not run on the async thread.
+        assertTrue(after.thread.startsWith(EXECUTOR_THREAD));
+        assertTrue(result.thread.startsWith(EXECUTOR_THREAD));
+    }
+
+    @Test
+    public void interruptFromAnotherThreadIsDeliveredOnExecutor() throws Exception {
+        Result result = navigate(Collections.<IInterceptor>singletonList(new Async("async", 20, false)), 300);
+
+        assertTrue(result.exception instanceof HandlerException);
+        assertTrue(result.thread.startsWith(EXECUTOR_THREAD));
+    }
+
+    @Test
+    public void interceptorTimeoutInterruptsOnExecutor() throws Exception {
+        long start = System.nanoTime();
+        Result result = navigate(Arrays.asList(new Recording("first"), new Silent("silent", 50, false),
+                new Recording("never")), 300);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(result.exception.getMessage().contains(Silent.class.getName()));
+        assertTrue(millis >= 50 && millis < 5000);
+        assertTrue(result.thread.startsWith(EXECUTOR_THREAD));
+        assertEquals(Arrays.asList("first", "silent"), events);
+    }
+
+    @Test
+    public void postcardTimeoutInterrupts() throws Exception {
+        Result result = navigate(Collections.<IInterceptor>singletonList(new Silent("silent", 0, false)), 1);
+
+        assertEquals("The interceptor processing timed out.", result.exception.getMessage());
+        assertTrue(result.thread.startsWith(EXECUTOR_THREAD));
+    }
+
+    @Test
+    public void independentInterceptorsRunInParallel() throws Exception {
+        final AtomicInteger started = new AtomicInteger();
+        final List<Integer> startedWhenCalledBack = Collections.synchronizedList(new ArrayList<Integer>());
+        List<IInterceptor> interceptors = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            interceptors.add(new Async("independent" + i, 200, true) {
+                @Override
+                public void process(Postcard postcard, InterceptorCallback callback) {
+                    started.incrementAndGet();
+                    super.process(postcard, callback);
+                }
+
+                @Override
+                void calledBack() {
+                    startedWhenCalledBack.add(started.get());
+                }
+
+                @Override
+                public boolean isIndependent() {
+                    return true;
+                }
+            });
+        }
+        interceptors.add(new Recording("dependent"));
+        long start = System.nanoTime();
+        Result result = navigate(interceptors, 300);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertNull(result.exception);
+        assertEquals(2, InterceptorPipeline.stagesOf(interceptors).length);
+        assertEquals(Arrays.asList(3, 3, 3), startedWhenCalledBack);
+        assertEquals("dependent", events.get(events.size() - 1));
+        // Three sequential interceptors would take 600 ms.
+        assertTrue("took " + millis + " ms", millis < 550);
+    }
+
+    @Test
+    public void lateCallbacksAreIgnored() throws Exception {
+        final CountDownLatch lateCalled = new CountDownLatch(1);
+        final AtomicInteger callbacks = new AtomicInteger();
+        IInterceptor late = new Silent("late", 30, false) {
+            @Override
+            public void process(final Postcard postcard, final InterceptorCallback callback) {
+                super.process(postcard, callback);
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        sleep(150);
+                        // After the timeout: continue twice and interrupt, none of them reaches the navigation.
+                        callback.onContinue(postcard);
+                        callback.onContinue(postcard);
+                        callback.onInterrupt(new HandlerException("late"));
+                        lateCalled.countDown();
+                    }
+                }).start();
+            }
+        };
+        Postcard postcard = new Postcard("/test/late", "test");
+        final CountDownLatch finished = new CountDownLatch(1);
+        final Throwable[] exception = new Throwable[1];
+        InterceptorPipeline.start(InterceptorPipeline.stagesOf(Arrays.asList(late, new Recording("never"))),
+                postcard, new InterceptorCallback() {
+                    @Override
+                    public void onContinue(Postcard postcard) {
+                        callbacks.incrementAndGet();
+                        finished.countDown();
+                    }
+
+                    @Override
+                    public void onInterrupt(Throwable e) {
+                        callbacks.incrementAndGet();
+                        exception[0] = e;
+                        finished.countDown();
+                    }
+                });
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertTrue(lateCalled.await(5, TimeUnit.SECONDS));
+        drain();
+
+        assertEquals(1, callbacks.get());
+        assertTrue(exception[0].getMessage().contains("timed out"));
+        assertEquals(Collections.singletonList("late"), events);
+    }
+
+    private Result navigate(List<IInterceptor> interceptors, int timeoutSeconds) throws Exception {
+        Postcard postcard = new Postcard("/test/pipeline", "test");
+        postcard.setTimeout(timeoutSeconds);
+        final Result result = new Result();
+        final CountDownLatch finished = new CountDownLatch(1);
+        InterceptorPipeline.start(InterceptorPipeline.stagesOf(interceptors), postcard, new InterceptorCallback() {
+            @Override
+            public void onContinue(Postcard postcard) {
+                result.thread = Thread.currentThread().getName();
+                finished.countDown();
+            }
+
+            @Override
+            public void onInterrupt(Throwable exception) {
+                result.thread = Thread.currentThread().getName();
+                result.exception = exception;
+                finished.countDown();
+            }
+        });
+        assertTrue(finished.await(timeoutSeconds + 5, TimeUnit.SECONDS));
+        return result;
+    }
+
+    /**
+     * Wait until callbacks already handed to the executor have run.
+     */
+    private void drain() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Result {
+        volatile String thread;
+        volatile Throwable exception;
+    }
+
+    private class Recording implements IInterceptor {
+        final String name;
+        volatile String thread;
+
+        Recording(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void process(Postcard postcard, InterceptorCallback callback) {
+            thread = Thread.currentThread().getName();
+            events.add(name);
+            callback.onContinue(postcard);
+        }
+
+        @Override
+        public void init(Context context) {
+        }
+    }
+
+    /**
+     * Calls back from its own thread after a while.
+     */
+    private class Async implements IInterceptorOptions {
+        final String name;
+        final long delay;
+        final boolean proceed;
+
+        Async(String name, long delay, boolean proceed) {
+            this.name = name;
+            this.delay = delay;
+            this.proceed = proceed;
+        }
+
+        @Override
+        public void process(final Postcard postcard, final InterceptorCallback callback) {
+            events.add(name);
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    sleep(delay);
+                    calledBack();
+                    if (proceed) {
+                        callback.onContinue(postcard);
+                    } else {
+                        callback.onInterrupt(new HandlerException(name));
+                    }
+                }
+            }, "async-" + name).start();
+        }
+
+        void calledBack() {
+        }
+
+        @Override
+        public long getTimeout() {
+            return 0;
+        }
+
+        @Override
+        public boolean isIndependent() {
+            return false;
+        }
+
+        @Override
+        public void init(Context context) {
+        }
+    }
+
+    /**
+     * Never calls back by itself.
+     */
+    private class Silent implements IInterceptorOptions {
+        final String name;
+        final long timeout;
+        final boolean independent;
+
+        Silent(String name, long timeout, boolean independent) {
+            this.name = name;
+            this.timeout = timeout;
+            this.independent = independent;
+        }
+
+        @Override
+        public void process(Postcard postcard, InterceptorCallback callback) {
+            events.add(name);
+        }
+
+        @Override
+        public long getTimeout() {
+            return timeout;
+        }
+
+        @Override
+        public boolean isIndependent() {
+            return independent;
+        }
+
+        @Override
+        public void init(Context context) {
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.alibaba.android.arouter.core;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.alibaba.android.arouter.exception.NoRouteFoundException;
+import com.alibaba.android.arouter.facade.Postcard;
+import com.alibaba.android.arouter.facade.callback.MetricsListener;
+import com.alibaba.android.arouter.facade.callback.NavigationCallback;
+import com.alibaba.android.arouter.facade.enums.RouteType;
+import com.alibaba.android.arouter.facade.model.RouteMeta;
+import com.alibaba.android.arouter.facade.service.PathReplaceService;
+import com.alibaba.android.arouter.facade.template.IProvider;
+import com.alibaba.android.arouter.facade.template.IRouteGroup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Callbacks of {@link LogisticsCenter#setMetricsListener(MetricsListener)} during completion, and during a
+ * navigation through the router with the services it looks up by itself.
+ */
+public class LogisticsCenterMetricsTest {
+    private static final String GROUP = "metrics";
+    private static final String ACTIVITY = "/metrics/activity";
+    private static final String PROVIDER = "/metrics/provider";
+    private static final String MISSING = "/metrics/missing";
+    private static final String REPLACE = "/metrics/replace";
+    private static final String OLD_PROVIDER = "/metrics/old";
+
+    private final RecordingListener listener = new RecordingListener();
+
+    @Before
+    public void setUp() {
+        LogisticsCenter.suspend();
+        Warehouse.groupsIndex.put(GROUP, MetricsGroup.class);
+        LogisticsCenter.setMetricsListener(listener);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        LogisticsCenter.setMetricsListener(null);
+        LogisticsCenter.suspend();
+        routerInit().setBoolean(null, false);
+    }
+
+    @Test
+    public void firstNavigationLoadsGroupOnce() {
+        LogisticsCenter.completion(new Postcard(ACTIVITY, GROUP));
+
+        assertEquals(Collections.singletonList(GROUP), listener.groups);
+        assertEquals(Collections.singletonList("ROUTE " + ACTIVITY + " miss"), listener.caches);
+        assertEquals(Collections.singletonList("COMPLETION " + ACTIVITY), listener.phases);
+
+        listener.clear();
+        LogisticsCenter.completion(new Postcard(ACTIVITY, GROUP));
+
+        assertTrue(listener.groups.isEmpty());
+        assertEquals(Collections.singletonList("ROUTE " + ACTIVITY + " hit"), listener.caches);
+        assertEquals(Collections.singletonList("COMPLETION " + ACTIVITY), listener.phases);
+    }
+
+    @Test
+    public void providerCacheIsReported() {
+        Postcard first = new Postcard(PROVIDER, GROUP);
+        LogisticsCenter.completion(first);
+        assertEquals(Arrays.asList("ROUTE " + PROVIDER + " miss", "PROVIDER " + PROVIDER + " miss"), listener.caches);
+
+        listener.clear();
+        Postcard second = new Postcard(PROVIDER, GROUP);
+        LogisticsCenter.completion(second);
+        assertEquals(Arrays.asList("ROUTE " + PROVIDER + " hit", "PROVIDER " + PROVIDER + " hit"), listener.caches);
+        assertSame(first.getProvider(), second.getProvider());
+    }
+
+    @Test
+    public void failedCompletionIsStillReported() {
+        try {
+            LogisticsCenter.completion(new Postcard(MISSING, GROUP));
+            fail("route should not be found");
+        } catch (NoRouteFoundException expected) {
+            // expected
+        }
+        assertEquals(Collections.singletonList(GROUP), listener.groups);
+        assertEquals(Collections.singletonList("ROUTE " + MISSING + " miss"), listener.caches);
+        assertEquals(Collections.singletonList("COMPLETION " + MISSING), listener.phases);
+    }
+
+    @Test
+    public void nothingIsReportedWithoutListener() {
+        LogisticsCenter.setMetricsListener(null);
+        LogisticsCenter.completion(new Postcard(ACTIVITY, GROUP));
+
+        assertTrue(listener.groups.isEmpty());
+        assertTrue(listener.caches.isEmpty());
+        assertTrue(listener.phases.isEmpty());
+    }
+
+    @Test
+    public void serviceLookupsAreNotReportedDuringNavigation() throws Exception {
+        Warehouse.providersIndex.put(PathReplaceService.class.getName(), RouteMeta.build(RouteType.PROVIDER,
+                MetricsPathReplace.class, REPLACE, GROUP, -1, Integer.MIN_VALUE));
+        routerInit().setBoolean(null, true);
+
+        assertNotNull(navigate(OLD_PROVIDER));
+
+        assertEquals(Arrays.asList("PATH_REPLACE " + PROVIDER, "PRETREATMENT " + PROVIDER, "COMPLETION " + PROVIDER,
+                "NAVIGATION " + PROVIDER), listener.phases);
+        // The group was loaded by the unreported lookup of PathReplaceService.
+        assertEquals(Arrays.asList("ROUTE " + PROVIDER + " hit", "PROVIDER " + PROVIDER + " miss"), listener.caches);
+        assertTrue(listener.groups.isEmpty());
+
+        listener.clear();
+        assertNotNull(navigate(PROVIDER));
+
+        assertEquals(Arrays.asList("PATH_REPLACE " + PROVIDER, "PRETREATMENT " + PROVIDER, "COMPLETION " + PROVIDER,
+                "NAVIGATION " + PROVIDER), listener.phases);
+        assertEquals(Arrays.asList("ROUTE " + PROVIDER + " hit", "PROVIDER " + PROVIDER + " hit"), listener.caches);
+    }
+
+    /**
+     * ARouter.getInstance().build(path).navigation(), without ARouter.init which needs a device.
+     */
+    private static Object navigate(String path) throws Exception {
+        Class<?> router = Class.forName("com.alibaba.android.arouter.launcher._ARouter");
+        Method getInstance = router.getDeclaredMethod("getInstance");
+        Method build = router.getDeclaredMethod("build", String.class);
+        Method navigation = router.getDeclaredMethod("navigation", Context.class, Postcard.class, int.class,
+                NavigationCallback.class);
+        getInstance.setAccessible(true);
+        build.setAccessible(true);
+        navigation.setAccessible(true);
+        Object instance = getInstance.invoke(null);
+        Postcard postcard = (Postcard) build.invoke(instance, path);
+        return navigation.invoke(instance, null, postcard, -1, null);
+    }
+
+    private static Field routerInit() throws Exception {
+        Field hasInit = Class.forName("com.alibaba.android.arouter.launcher._ARouter").getDeclaredField("hasInit");
+        hasInit.setAccessible(true);
+        return hasInit;
+    }
+
+    public static class MetricsGroup implements IRouteGroup {
+        @Override
+        public void loadInto(Map<String, RouteMeta> atlas) {
+            atlas.put(ACTIVITY, RouteMeta.build(RouteType.ACTIVITY, Object.class, ACTIVITY, GROUP, -1, Integer.MIN_VALUE));
+            atlas.put(PROVIDER, RouteMeta.build(RouteType.PROVIDER, MetricsProvider.class, PROVIDER, GROUP, -1, Integer.MIN_VALUE));
+            atlas.put(REPLACE, RouteMeta.build(RouteType.PROVIDER, MetricsPathReplace.class, REPLACE, GROUP, -1, Integer.MIN_VALUE));
+        }
+    }
+
+    public static class MetricsPathReplace implements PathReplaceService {
+        @Override
+        public String forString(String path) {
+            return OLD_PROVIDER.equals(path) ? PROVIDER : path;
+        }
+
+        @Override
+        public Uri forUri(Uri uri) {
+            return uri;
+        }
+
+        @Override
+        public void init(Context context) {
+        }
+    }
+
+    public static class MetricsProvider implements IProvider {
+        @Override
+        public void init(Context context) {
+        }
+    }
+
+    private static class RecordingListener implements MetricsListener {
+        final List<String> phases = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> groups = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> caches = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void onPhase(String path, Phase phase, long nanos) {
+            assertTrue(nanos >= 0);
+            phases.add(phase + " " + path);
+        }
+
+        @Override
+        public void onGroupLoaded(String group, long nanos) {
+            assertTrue(nanos >= 0);
+            groups.add(group);
+        }
+
+        @Override
+        public void onCache(String path, Cache cache, boolean hit) {
+            caches.add(cache + " " + path + " " + (hit ? "hit" : "miss"));
+        }
+
+        void clear() {
+            phases.clear();
+            groups.clear();
+            caches.clear();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.alibaba.android.arouter.compiler.processor;
 
+import com.alibaba.android.arouter.compiler.utils.CodecGenerator;
 import com.alibaba.android.arouter.compiler.utils.Consts;
 import com.alibaba.android.arouter.facade.annotation.Autowired;
 import com.alibaba.android.arouter.facade.enums.TypeKind;
@@ -10,6 +11,7 @@ import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
@@ -23,6 +25,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.Processor;
@@ -89,6 +92,12 @@ public class AutowiredProcessor extends BaseProcessor {
         // Build input param name.
         ParameterSpec objectParamSpec = ParameterSpec.builder(TypeName.OBJECT, "target").build();
 
+        // Class name and its helper, used for generate syringe group in order.
+        Map<String, ClassName> syringes = new TreeMap<>();
+
+        // Objects autowired by SerializationService, binary codec is generated if possible.
+        CodecGenerator codecGenerator = new CodecGenerator(types, elementUtils, logger, moduleName);
+
         if (MapUtils.isNotEmpty(parentAndChild)) {
             for (Map.Entry<TypeElement, List<Element>> entry : parentAndChild.entrySet()) {
                 // Build method : 'inject'
@@ -162,6 +171,7 @@ public class AutowiredProcessor extends BaseProcessor {
 
                         statement = buildStatement(originalValue, statement, typeUtils.typeExchange(element), isActivity, isKtClass(parent));
                         if (statement.startsWith("serializationService.")) {   // Not mortals
+                            codecGenerator.add(element.asType());
                             injectMethodBuilder.beginControlFlow("if (null != serializationService)");
                             injectMethodBuilder.addStatement(
                                     "substitute." + fieldName + " = " + statement,
@@ -190,14 +200,72 @@ public class AutowiredProcessor extends BaseProcessor {
 
                 // Generate autowire helper
                 JavaFile.builder(packageName, helper.build()).build().writeTo(mFiler);
+                syringes.put(elementUtils.getBinaryName(parent).toString(), ClassName.get(packageName, fileName));
 
                 logger.info(">>> " + parent.getSimpleName() + " has been processed, " + fileName + " has been generated. <<<");
             }
 
+            generateSyringeGroup(syringes);
+            codecGenerator.generate(mFiler);
+
             logger.info(">>> Autowired processor stop. <<<");
         }
     }
 
+    /**
+     * Generate syringe group of module, it creates helper by class name without reflection.
+     */
+    private void generateSyringeGroup(Map<String, ClassName> syringes) throws IOException {
+        ClassName type_ISyringe = ClassName.get(elementUtils.getTypeElement(ISYRINGE));
+        ClassName type_ISyringeGroup = ClassName.get(elementUtils.getTypeElement(ISYRINGE_GROUP));
+
+        /*
+           Build input type, format as :
+
+           ```Map<String, ISyringeGroup>```
+         */
+        ParameterizedTypeName inputMapTypeOfGroup = ParameterizedTypeName.get(
+                ClassName.get(Map.class),
+                ClassName.get(String.class),
+                type_ISyringeGroup
+        );
+
+        MethodSpec.Builder loadIntoMethodBuilder = MethodSpec.methodBuilder(METHOD_LOAD_INTO)
+                .addAnnotation(Override.class)
+                .addModifiers(PUBLIC)
+                .addParameter(ParameterSpec.builder(inputMapTypeOfGroup, "syringes").build());
+
+        MethodSpec.Builder createMethodBuilder = MethodSpec.methodBuilder(METHOD_CREATE)
+                .addAnnotation(Override.class)
+                .addModifiers(PUBLIC)
+                .returns(type_ISyringe)
+                .addParameter(ParameterSpec.builder(String.class, "className").build())
+                .beginControlFlow("switch (className)");
+
+        for (Map.Entry<String, ClassName> entry : syringes.entrySet()) {
+            loadIntoMethodBuilder.addStatement("syringes.put($S, this)", entry.getKey());
+            createMethodBuilder.addCode("case $S:\n", entry.getKey())
+                    .addStatement("$>return new $T()$<", entry.getValue());
+        }
+
+        createMethodBuilder.addCode("default:\n")
+                .addStatement("$>return null$<")
+                .endControlFlow();
+
+        String groupFileName = NAME_OF_SYRINGES + SEPARATOR + moduleName;
+        JavaFile.builder(PACKAGE_OF_GENERATE_FILE,
+                TypeSpec.classBuilder(groupFileName)
+                        .addJavadoc(WARNING_TIPS)
+                        .addSuperinterface(type_ISyringeGroup)
+                        .addModifiers(PUBLIC)
+                        .addMethod(loadIntoMethodBuilder.build())
+                        .addMethod(createMethodBuilder.build())
+                        .build()
+        ).build().writeTo(mFiler);
+
+        logger.info(">>> Generated syringe group, name is " + groupFileName + " <<<");
+    }
+
     private boolean isKtClass(Element element) {
         for (AnnotationMirror annotationMirror : elementUtils.getAllAnnotationMirrors(element)) {
             if (annotationMirror.getAnnotationType().toString().contains("kotlin")) {
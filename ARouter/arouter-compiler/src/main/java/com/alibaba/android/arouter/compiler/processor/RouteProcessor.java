@@ -10,7 +10,10 @@ import com.alibaba.android.arouter.facade.model.RouteMeta;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 import com.google.auto.service.AutoService;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
@@ -25,6 +28,7 @@ import org.apache.commons.lang3.StringUtils;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -46,11 +50,15 @@ import javax.tools.StandardLocation;
 import static com.alibaba.android.arouter.compiler.utils.Consts.ACTIVITY;
 import static com.alibaba.android.arouter.compiler.utils.Consts.ANNOTATION_TYPE_AUTOWIRED;
 import static com.alibaba.android.arouter.compiler.utils.Consts.ANNOTATION_TYPE_ROUTE;
+import static com.alibaba.android.arouter.compiler.utils.Consts.FIELD_PATHS;
 import static com.alibaba.android.arouter.compiler.utils.Consts.FRAGMENT;
 import static com.alibaba.android.arouter.compiler.utils.Consts.IPROVIDER_GROUP;
 import static com.alibaba.android.arouter.compiler.utils.Consts.IROUTE_GROUP;
+import static com.alibaba.android.arouter.compiler.utils.Consts.IROUTE_TABLE;
 import static com.alibaba.android.arouter.compiler.utils.Consts.ITROUTE_ROOT;
+import static com.alibaba.android.arouter.compiler.utils.Consts.METHOD_BUILD;
 import static com.alibaba.android.arouter.compiler.utils.Consts.METHOD_LOAD_INTO;
+import static com.alibaba.android.arouter.compiler.utils.Consts.METHOD_LOOKUP;
 import static com.alibaba.android.arouter.compiler.utils.Consts.NAME_OF_GROUP;
 import static com.alibaba.android.arouter.compiler.utils.Consts.NAME_OF_PROVIDER;
 import static com.alibaba.android.arouter.compiler.utils.Consts.NAME_OF_ROOT;
@@ -59,7 +67,10 @@ import static com.alibaba.android.arouter.compiler.utils.Consts.PACKAGE_OF_GENER
 import static com.alibaba.android.arouter.compiler.utils.Consts.SEPARATOR;
 import static com.alibaba.android.arouter.compiler.utils.Consts.SERVICE;
 import static com.alibaba.android.arouter.compiler.utils.Consts.WARNING_TIPS;
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.STATIC;
 
 /**
  * A processor used for find route.
@@ -136,6 +147,7 @@ public class RouteProcessor extends BaseProcessor {
 
             // Interface of ARouter
             TypeElement type_IRouteGroup = elementUtils.getTypeElement(IROUTE_GROUP);
+            TypeElement type_IRouteTable = elementUtils.getTypeElement(IROUTE_TABLE);
             TypeElement type_IProviderGroup = elementUtils.getTypeElement(IPROVIDER_GROUP);
             ClassName routeMetaCn = ClassName.get(RouteMeta.class);
             ClassName routeTypeCn = ClassName.get(RouteType.class);
@@ -170,6 +182,18 @@ public class RouteProcessor extends BaseProcessor {
             ParameterSpec rootParamSpec = ParameterSpec.builder(inputMapTypeOfRoot, "routes").build();
             ParameterSpec groupParamSpec = ParameterSpec.builder(inputMapTypeOfGroup, "atlas").build();
             ParameterSpec providerParamSpec = ParameterSpec.builder(inputMapTypeOfGroup, "providers").build();  // Ps. its param type same as groupParamSpec!
+            ParameterSpec pathParamSpec = ParameterSpec.builder(String.class, "path").build();
+            ParameterSpec indexParamSpec = ParameterSpec.builder(int.class, "index").build();
+
+            /*
+
+              ```Map<String, Integer>```
+             */
+            ParameterizedTypeName paramsTypeOfRoute = ParameterizedTypeName.get(
+                    ClassName.get(Map.class),
+                    ClassName.get(String.class),
+                    ClassName.get(Integer.class)
+            );
 
             /*
               Build method : 'loadInto'
@@ -224,13 +248,35 @@ public class RouteProcessor extends BaseProcessor {
             Map<String, List<RouteDoc>> docSource = new HashMap<>();
 
             // Start generate java source, structure is divided into upper and lower levels, used for demand initialization.
+            // Each group is a table of paths in order, route meta is built only when its path is found by binary search.
             for (Map.Entry<String, Set<RouteMeta>> entry : groupMap.entrySet()) {
                 String groupName = entry.getKey();
 
                 MethodSpec.Builder loadIntoMethodOfGroupBuilder = MethodSpec.methodBuilder(METHOD_LOAD_INTO)
                         .addAnnotation(Override.class)
                         .addModifiers(PUBLIC)
-                        .addParameter(groupParamSpec);
+                        .addParameter(groupParamSpec)
+                        .beginControlFlow("for (int i = 0; i < $L.length; i++)", FIELD_PATHS)
+                        .addStatement("atlas.put($L[i], $L(i))", FIELD_PATHS, METHOD_BUILD)
+                        .endControlFlow();
+
+                MethodSpec.Builder lookupMethodOfGroupBuilder = MethodSpec.methodBuilder(METHOD_LOOKUP)
+                        .addAnnotation(Override.class)
+                        .addModifiers(PUBLIC)
+                        .returns(routeMetaCn)
+                        .addParameter(pathParamSpec)
+                        .addStatement("int index = $T.binarySearch($L, path)", Arrays.class, FIELD_PATHS)
+                        .addStatement("return index < 0 ? null : $L(index)", METHOD_BUILD);
+
+                MethodSpec.Builder buildMethodOfGroupBuilder = MethodSpec.methodBuilder(METHOD_BUILD)
+                        .addModifiers(PRIVATE)
+                        .returns(routeMetaCn)
+                        .addParameter(indexParamSpec)
+                        .beginControlFlow("switch (index)");
+
+                // Metas are sorted by path, so are the paths.
+                CodeBlock.Builder pathsBuilder = CodeBlock.builder().add("{");
+                int index = 0;
 
                 List<RouteDoc> routeDocList = new ArrayList<>();
 
@@ -274,15 +320,18 @@ public class RouteProcessor extends BaseProcessor {
                             break;
                     }
 
+                    pathsBuilder.add(index == 0 ? "$S" : ", $S", routeMeta.getPath());
+                    buildMethodOfGroupBuilder.beginControlFlow("case $L:", index++);
+
                     // Make map body for paramsType
-                    StringBuilder mapBodyBuilder = new StringBuilder();
                     Map<String, Integer> paramsType = routeMeta.getParamsType();
                     Map<String, Autowired> injectConfigs = routeMeta.getInjectConfig();
                     if (MapUtils.isNotEmpty(paramsType)) {
                         List<RouteDoc.Param> paramList = new ArrayList<>();
 
+                        buildMethodOfGroupBuilder.addStatement("$T paramsType = new $T<>()", paramsTypeOfRoute, HashMap.class);
                         for (Map.Entry<String, Integer> types : paramsType.entrySet()) {
-                            mapBodyBuilder.append("put(\"").append(types.getKey()).append("\", ").append(types.getValue()).append("); ");
+                            buildMethodOfGroupBuilder.addStatement("paramsType.put($S, $L)", types.getKey(), types.getValue());
 
                             RouteDoc.Param param = new RouteDoc.Param();
                             Autowired injectConfig = injectConfigs.get(types.getKey());
@@ -296,29 +345,38 @@ public class RouteProcessor extends BaseProcessor {
 
                         routeDoc.setParams(paramList);
                     }
-                    String mapBody = mapBodyBuilder.toString();
 
-                    loadIntoMethodOfGroupBuilder.addStatement(
-                            "atlas.put($S, $T.build($T." + routeMeta.getType() + ", $T.class, $S, $S, " + (StringUtils.isEmpty(mapBody) ? null : ("new java.util.HashMap<String, Integer>(){{" + mapBodyBuilder.toString() + "}}")) + ", " + routeMeta.getPriority() + ", " + routeMeta.getExtra() + "))",
-                            routeMeta.getPath(),
+                    buildMethodOfGroupBuilder.addStatement(
+                            "return $T.build($T." + routeMeta.getType() + ", $T.class, $S, $S, " + (MapUtils.isEmpty(paramsType) ? null : "paramsType") + ", " + routeMeta.getPriority() + ", " + routeMeta.getExtra() + ")",
                             routeMetaCn,
                             routeTypeCn,
                             className,
                             routeMeta.getPath().toLowerCase(),
                             routeMeta.getGroup().toLowerCase());
+                    buildMethodOfGroupBuilder.endControlFlow();
 
                     routeDoc.setClassName(className.toString());
                     routeDocList.add(routeDoc);
                 }
 
+                buildMethodOfGroupBuilder.beginControlFlow("default:")
+                        .addStatement("return null")
+                        .endControlFlow()
+                        .endControlFlow();
+
                 // Generate groups
                 String groupFileName = NAME_OF_GROUP + groupName;
                 JavaFile.builder(PACKAGE_OF_GENERATE_FILE,
                         TypeSpec.classBuilder(groupFileName)
                                 .addJavadoc(WARNING_TIPS)
-                                .addSuperinterface(ClassName.get(type_IRouteGroup))
+                                .addSuperinterface(ClassName.get(type_IRouteTable))
                                 .addModifiers(PUBLIC)
+                                .addField(FieldSpec.builder(ArrayTypeName.of(String.class), FIELD_PATHS, PRIVATE, STATIC, FINAL)
+                                        .initializer(pathsBuilder.add("}").build())
+                                        .build())
                                 .addMethod(loadIntoMethodOfGroupBuilder.build())
+                                .addMethod(lookupMethodOfGroupBuilder.build())
+                                .addMethod(buildMethodOfGroupBuilder.build())
                                 .build()
                 ).build().writeTo(mFiler);
 
@@ -0,0 +1,586 @@
+package com.alibaba.android.arouter.compiler.utils;
+
+import com.squareup.javapoet.ArrayTypeName;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import static com.alibaba.android.arouter.compiler.utils.Consts.*;
+import static javax.lang.model.element.Modifier.FINAL;
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.STATIC;
+
+/**
+ * Generate binary codecs of objects which are autowired, fields are accessed directly or by getter and setter.
+ * Types which can not be written without reflection are left to json of SerializationService.
+ * Types may refer to themselves, objects which do are detected by CodecOutput when written and left to json too.
+ */
+public class CodecGenerator {
+    private static final ClassName CODEC_OUTPUT = ClassName.get(PACKAGE_OF_UTILS, "CodecOutput");
+    private static final ClassName CODEC_INPUT = ClassName.get(PACKAGE_OF_UTILS, "CodecInput");
+
+    private final Types types;
+    private final Elements elements;
+    private final Logger logger;
+    private final String moduleName;
+    private final ClassName codecInterface;
+    private final ClassName codecGroupInterface;
+
+    // Binary name of type and its codec, null if the type is not supported.
+    private final Map<String, Codec> codecs = new LinkedHashMap<>();
+
+    public CodecGenerator(Types types, Elements elements, Logger logger, String moduleName) {
+        this.types = types;
+        this.elements = elements;
+        this.logger = logger;
+        this.moduleName = moduleName;
+        this.codecInterface = ClassName.get(elements.getTypeElement(ICODEC));
+        this.codecGroupInterface = ClassName.get(elements.getTypeElement(ICODEC_GROUP));
+    }
+
+    /**
+     * Add type of autowired field, generic types are not supported as the codec is found by class of object.
+     */
+    public void add(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).getTypeArguments().isEmpty()) {
+            analyze((TypeElement) types.asElement(type));
+        }
+    }
+
+    /**
+     * Generate codecs and the codec group of module.
+     */
+    public void generate(Filer filer) throws IOException {
+        // Drop types which refer to unsupported types, until nothing changes.
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Map.Entry<String, Codec> entry : codecs.entrySet()) {
+                Codec codec = entry.getValue();
+                if (null != codec && hasUnsupported(codec.dependencies)) {
+                    logger.info(">>> " + entry.getKey() + " refers to type without codec, use json. <<<");
+                    entry.setValue(null);
+                    changed = true;
+                }
+            }
+        }
+
+        Map<String, ClassName> generated = new TreeMap<>();
+        for (Map.Entry<String, Codec> entry : codecs.entrySet()) {
+            Codec codec = entry.getValue();
+            if (null != codec) {
+                JavaFile.builder(codec.name.packageName(), codec.build()).build().writeTo(filer);
+                generated.put(entry.getKey(), codec.name);
+            }
+        }
+
+        if (!generated.isEmpty()) {
+            generateGroup(filer, generated);
+        }
+    }
+
+    private boolean hasUnsupported(Set<String> dependencies) {
+        for (String dependency : dependencies) {
+            if (null == codecs.get(dependency)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void generateGroup(Filer filer, Map<String, ClassName> generated) throws IOException {
+        ParameterizedTypeName inputMapTypeOfGroup = ParameterizedTypeName.get(
+                ClassName.get(Map.class),
+                ClassName.get(String.class),
+                codecGroupInterface
+        );
+
+        MethodSpec.Builder loadIntoMethodBuilder = MethodSpec.methodBuilder(METHOD_LOAD_INTO)
+                .addAnnotation(Override.class)
+                .addModifiers(PUBLIC)
+                .addParameter(ParameterSpec.builder(inputMapTypeOfGroup, "codecs").build());
+
+        MethodSpec.Builder createMethodBuilder = MethodSpec.methodBuilder(METHOD_CREATE)
+                .addAnnotation(Override.class)
+                .addModifiers(PUBLIC)
+                .returns(ParameterizedTypeName.get(codecInterface, WildcardTypeName.subtypeOf(Object.class)))
+                .addParameter(ParameterSpec.builder(String.class, "className").build())
+                .beginControlFlow("switch (className)");
+
+        for (Map.Entry<String, ClassName> entry : generated.entrySet()) {
+            loadIntoMethodBuilder.addStatement("codecs.put($S, this)", entry.getKey());
+            createMethodBuilder.addCode("case $S:\n", entry.getKey())
+                    .addStatement("$>return new $T()$<", entry.getValue());
+        }
+
+        createMethodBuilder.addCode("default:\n")
+                .addStatement("$>return null$<")
+                .endControlFlow();
+
+        String groupFileName = NAME_OF_CODECS + SEPARATOR + moduleName;
+        JavaFile.builder(PACKAGE_OF_GENERATE_FILE,
+                TypeSpec.classBuilder(groupFileName)
+                        .addJavadoc(WARNING_TIPS)
+                        .addSuperinterface(codecGroupInterface)
+                        .addModifiers(PUBLIC)
+                        .addMethod(loadIntoMethodBuilder.build())
+                        .addMethod(createMethodBuilder.build())
+                        .build()
+        ).build().writeTo(filer);
+
+        logger.info(">>> Generated codec group, name is " + groupFileName + " <<<");
+    }
+
+    private Codec analyze(TypeElement element) {
+        String key = elements.getBinaryName(element).toString();
+        if (codecs.containsKey(key)) {
+            return codecs.get(key);
+        }
+
+        ClassName type = ClassName.get(element);
+        Codec codec = new Codec(element, ClassName.get(type.packageName(),
+                StringUtils.join(type.simpleNames(), "$") + NAME_OF_CODEC + SEPARATOR + moduleName));
+        codecs.put(key, codec);   // Put first, the type may refer to itself.
+
+        String reason = check(codec);
+        if (null != reason) {
+            logger.info(">>> " + key + " " + reason + ", use json. <<<");
+            codecs.put(key, null);
+            return null;
+        }
+        return codec;
+    }
+
+    /**
+     * @return why the type is not supported, or null
+     */
+    private String check(Codec codec) {
+        TypeElement element = codec.element;
+        if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+            return "is not a concrete class";
+        }
+        if (!element.getTypeParameters().isEmpty()) {
+            return "has type parameters";
+        }
+        if (element.getNestingKind() == NestingKind.MEMBER && !element.getModifiers().contains(STATIC)) {
+            return "is inner class";
+        }
+        for (Element e = element; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(PRIVATE)) {
+                return "is not accessible";
+            }
+        }
+        if (!hasDefaultConstructor(element)) {
+            return "has no constructor without parameters";
+        }
+
+        Set<String> names = new HashSet<>();
+        DeclaredType owner = (DeclaredType) element.asType();
+        for (TypeElement current = element; null != current && !isFramework(current); current = superclassOf(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                String name = field.getSimpleName().toString();
+                if (!names.add(name)) {
+                    return "hides field [" + name + "]";
+                }
+
+                TypeMirror fieldType = types.asMemberOf(owner, field);
+                if (!supports(fieldType, codec.dependencies)) {
+                    return "has field [" + name + "] of unsupported type";
+                }
+
+                Property property = new Property(fieldType);
+                if (!modifiers.contains(FINAL) && isAccessible(field, element)) {
+                    property.getter = "value." + name;
+                    property.setter = "value." + name + " = $L";
+                } else {
+                    ExecutableElement getter = findAccessor(element, owner, name, fieldType, true);
+                    ExecutableElement setter = findAccessor(element, owner, name, fieldType, false);
+                    if (null == getter || null == setter) {
+                        return "has field [" + name + "] without accessible getter and setter";
+                    }
+                    property.getter = "value." + getter.getSimpleName() + "()";
+                    property.setter = "value." + setter.getSimpleName() + "($L)";
+                }
+                codec.properties.add(property);
+            }
+        }
+        return null;
+    }
+
+    private boolean hasDefaultConstructor(TypeElement element) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(element.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) {
+                return !constructor.getModifiers().contains(PRIVATE);
+            }
+        }
+        return false;
+    }
+
+    private TypeElement superclassOf(TypeElement element) {
+        TypeMirror superclass = element.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) types.asElement(superclass) : null;
+    }
+
+    private boolean isFramework(TypeElement element) {
+        String name = element.getQualifiedName().toString();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("android.");
+    }
+
+    /**
+     * Codec is generated in the package of type, it can access members which are public or in the same package.
+     */
+    private boolean isAccessible(Element member, TypeElement type) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(PRIVATE)) {
+            return false;
+        }
+        if (modifiers.contains(PUBLIC)) {
+            return true;
+        }
+        return packageOf(member).equals(packageOf(type));
+    }
+
+    private PackageElement packageOf(Element element) {
+        return elements.getPackageOf(element);
+    }
+
+    private ExecutableElement findAccessor(TypeElement type, DeclaredType owner, String name, TypeMirror fieldType, boolean getter) {
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            if (method.getModifiers().contains(STATIC) || !isAccessible(method, type)) {
+                continue;
+            }
+            String methodName = method.getSimpleName().toString();
+            ExecutableType executable = (ExecutableType) types.asMemberOf(owner, method);
+            if (getter) {
+                boolean named = methodName.equals("get" + capitalized)
+                        || (fieldType.getKind() == TypeKind.BOOLEAN && methodName.equals("is" + capitalized));
+                if (named && method.getParameters().isEmpty() && types.isSameType(executable.getReturnType(), fieldType)) {
+                    return method;
+                }
+            } else if (methodName.equals("set" + capitalized) && method.getParameters().size() == 1
+                    && types.isSameType(executable.getParameterTypes().get(0), fieldType)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private boolean supports(TypeMirror type, Set<String> dependencies) {
+        if (type.getKind().isPrimitive()) {
+            return true;
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        switch (kindOf(type)) {
+            case STRING:
+            case BOXED:
+                return true;
+            case ENUM:
+                return isAccessibleType((TypeElement) types.asElement(type));
+            case COLLECTION:
+            case SET:
+                return supports(argumentOf(type, 0), dependencies);
+            case MAP:
+                return supports(argumentOf(type, 0), dependencies) && supports(argumentOf(type, 1), dependencies);
+            case OBJECT:
+                if (!((DeclaredType) type).getTypeArguments().isEmpty()) {
+                    return false;
+                }
+                TypeElement element = (TypeElement) types.asElement(type);
+                if (isFramework(element) || null == analyze(element)) {
+                    return false;
+                }
+                dependencies.add(elements.getBinaryName(element).toString());
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean isAccessibleType(TypeElement element) {
+        for (Element e = element; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (!e.getModifiers().contains(PUBLIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TypeMirror argumentOf(TypeMirror type, int index) {
+        List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+        return index < arguments.size() ? arguments.get(index) : types.getNoType(TypeKind.NONE);
+    }
+
+    private ValueKind kindOf(TypeMirror type) {
+        TypeElement element = (TypeElement) types.asElement(type);
+        if (element.getKind() == ElementKind.ENUM) {
+            return ValueKind.ENUM;
+        }
+        switch (element.getQualifiedName().toString()) {
+            case STRING:
+                return ValueKind.STRING;
+            case BYTE:
+            case SHORT:
+            case INTEGER:
+            case LONG:
+            case FLOAT:
+            case DOUBEL:
+            case BOOLEAN:
+            case CHAR:
+                return ValueKind.BOXED;
+            case "java.util.Collection":
+            case "java.util.List":
+            case "java.util.ArrayList":
+                return ValueKind.COLLECTION;
+            case "java.util.Set":
+            case "java.util.HashSet":
+                return ValueKind.SET;
+            case "java.util.Map":
+            case "java.util.HashMap":
+                return ValueKind.MAP;
+            default:
+                return element.getQualifiedName().toString().startsWith("java.") ? ValueKind.UNSUPPORTED : ValueKind.OBJECT;
+        }
+    }
+
+    private enum ValueKind {
+        STRING, BOXED, ENUM, COLLECTION, SET, MAP, OBJECT, UNSUPPORTED
+    }
+
+    private static class Property {
+        private final TypeMirror type;
+        private String getter;
+        private String setter;
+
+        Property(TypeMirror type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * Codec of one type, generated code writes properties in declared order.
+     */
+    private class Codec {
+        private final TypeElement element;
+        private final ClassName name;
+        private final List<Property> properties = new ArrayList<>();
+        private final Set<String> dependencies = new HashSet<>();
+
+        // Static fields of nested codecs and enum values, by type.
+        private final Map<String, String> constants = new HashMap<>();
+        private final List<FieldSpec> fields = new ArrayList<>();
+        private int variables;
+
+        Codec(TypeElement element, ClassName name) {
+            this.element = element;
+            this.name = name;
+        }
+
+        TypeSpec build() {
+            TypeName type = ClassName.get(element);
+
+            CodeBlock.Builder write = CodeBlock.builder();
+            CodeBlock.Builder read = CodeBlock.builder();
+            read.addStatement("$T value = new $T()", type, type);
+            for (Property property : properties) {
+                write(write, property.type, property.getter);
+                read.addStatement(property.setter, read(read, property.type));
+            }
+            read.addStatement("return value");
+
+            return TypeSpec.classBuilder(name)
+                    .addJavadoc(WARNING_TIPS)
+                    .addSuperinterface(ParameterizedTypeName.get(codecInterface, type))
+                    .addModifiers(PUBLIC)
+                    .addFields(fields)
+                    .addMethod(MethodSpec.methodBuilder(METHOD_WRITE)
+                            .addAnnotation(Override.class)
+                            .addModifiers(PUBLIC)
+                            .addParameter(CODEC_OUTPUT, "out")
+                            .addParameter(type, "value")
+                            .addCode(write.build())
+                            .build())
+                    .addMethod(MethodSpec.methodBuilder(METHOD_READ)
+                            .addAnnotation(Override.class)
+                            .addModifiers(PUBLIC)
+                            .returns(type)
+                            .addParameter(CODEC_INPUT, "in")
+                            .addCode(read.build())
+                            .build())
+                    .build();
+        }
+
+        private void write(CodeBlock.Builder code, TypeMirror type, String value) {
+            if (type.getKind().isPrimitive()) {
+                code.addStatement("out.write$L($L)", primitiveName(type), value);
+                return;
+            }
+            switch (kindOf(type)) {
+                case STRING:
+                    code.addStatement("out.writeString($L)", value);
+                    break;
+                case BOXED:
+                    String boxed = variable("v");
+                    code.addStatement("$T $L = $L", type, boxed, value);
+                    code.addStatement("out.writeBoolean(null != $L)", boxed);
+                    code.beginControlFlow("if (null != $L)", boxed);
+                    code.addStatement("out.write$L($L)", primitiveName(types.unboxedType(type)), boxed);
+                    code.endControlFlow();
+                    break;
+                case ENUM:
+                    code.addStatement("out.writeEnum($L)", value);
+                    break;
+                case OBJECT:
+                    code.addStatement("out.writeObject($L, $L)", value, codecOf(type));
+                    break;
+                default:
+                    boolean isMap = kindOf(type) == ValueKind.MAP;
+                    String container = variable("c");
+                    code.addStatement("$T $L = $L", type, container, value);
+                    code.beginControlFlow("if (null == $L)", container);
+                    code.addStatement("out.writeInt(-1)");
+                    code.nextControlFlow("else");
+                    code.addStatement("out.writeInt($L.size())", container);
+                    String element = variable("e");
+                    if (isMap) {
+                        code.beginControlFlow("for ($T $L : $L.entrySet())", ParameterizedTypeName.get(ClassName.get(Map.Entry.class),
+                                TypeName.get(argumentOf(type, 0)), TypeName.get(argumentOf(type, 1))), element, container);
+                        write(code, argumentOf(type, 0), element + ".getKey()");
+                        write(code, argumentOf(type, 1), element + ".getValue()");
+                    } else {
+                        code.beginControlFlow("for ($T $L : $L)", argumentOf(type, 0), element, container);
+                        write(code, argumentOf(type, 0), element);
+                    }
+                    code.endControlFlow();
+                    code.endControlFlow();
+                    break;
+            }
+        }
+
+        /**
+         * @return expression of value, statements it depends on are added to code
+         */
+        private CodeBlock read(CodeBlock.Builder code, TypeMirror type) {
+            if (type.getKind().isPrimitive()) {
+                return CodeBlock.of("in.read$L()", primitiveName(type));
+            }
+            switch (kindOf(type)) {
+                case STRING:
+                    return CodeBlock.of("in.readString()");
+                case BOXED:
+                    return CodeBlock.of("in.readBoolean() ? $T.valueOf(in.read$L()) : null", type, primitiveName(types.unboxedType(type)));
+                case ENUM:
+                    return CodeBlock.of("in.readEnum($L)", valuesOf(type));
+                case OBJECT:
+                    return CodeBlock.of("in.readObject($L)", codecOf(type));
+                default:
+                    ValueKind kind = kindOf(type);
+                    TypeName implementation = kind == ValueKind.MAP
+                            ? ParameterizedTypeName.get(ClassName.get(HashMap.class), TypeName.get(argumentOf(type, 0)), TypeName.get(argumentOf(type, 1)))
+                            : ParameterizedTypeName.get(ClassName.get(kind == ValueKind.SET ? HashSet.class : ArrayList.class), TypeName.get(argumentOf(type, 0)));
+                    String size = variable("n");
+                    String container = variable("c");
+                    String index = variable("i");
+                    code.addStatement("int $L = in.readInt()", size);
+                    code.addStatement("$T $L = null", implementation, container);
+                    code.beginControlFlow("if ($L >= 0)", size);
+                    code.addStatement("$L = new $T($L)", container, implementation, size);
+                    code.beginControlFlow("for (int $L = 0; $L < $L; $L++)", index, index, size, index);
+                    // Elements are kept in variables, so they are read in the order they were written.
+                    String element = readInto(code, argumentOf(type, 0));
+                    if (kind == ValueKind.MAP) {
+                        code.addStatement("$L.put($L, $L)", container, element, readInto(code, argumentOf(type, 1)));
+                    } else {
+                        code.addStatement("$L.add($L)", container, element);
+                    }
+                    code.endControlFlow();
+                    code.endControlFlow();
+                    return CodeBlock.of("$L", container);
+            }
+        }
+
+        private String readInto(CodeBlock.Builder code, TypeMirror type) {
+            CodeBlock expression = read(code, type);
+            String variable = variable("e");
+            code.addStatement("$T $L = $L", type, variable, expression);
+            return variable;
+        }
+
+        private String codecOf(TypeMirror type) {
+            String key = elements.getBinaryName((TypeElement) types.asElement(type)).toString();
+            String constant = constants.get(key);
+            if (null == constant) {
+                ClassName codecName = codecs.get(key).name;
+                constant = "CODEC_" + constants.size();
+                fields.add(FieldSpec.builder(codecName, constant, PRIVATE, STATIC, FINAL)
+                        .initializer("new $T()", codecName).build());
+                constants.put(key, constant);
+            }
+            return constant;
+        }
+
+        private String valuesOf(TypeMirror type) {
+            String key = "[]" + elements.getBinaryName((TypeElement) types.asElement(type));
+            String constant = constants.get(key);
+            if (null == constant) {
+                constant = "VALUES_" + constants.size();
+                fields.add(FieldSpec.builder(ArrayTypeName.of(TypeName.get(type)), constant, PRIVATE, STATIC, FINAL)
+                        .initializer("$T.values()", type).build());
+                constants.put(key, constant);
+            }
+            return constant;
+        }
+
+        private String variable(String prefix) {
+            return prefix + variables++;
+        }
+    }
+
+    private static String primitiveName(TypeMirror type) {
+        String name = type.getKind().name().toLowerCase();
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
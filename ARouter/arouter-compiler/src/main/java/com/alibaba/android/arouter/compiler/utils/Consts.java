@@ -15,13 +15,23 @@ public class Consts {
     public static final String WARNING_TIPS = "DO NOT EDIT THIS FILE!!! IT WAS GENERATED BY AROUTER.";
     public static final String METHOD_LOAD_INTO = "loadInto";
     public static final String METHOD_INJECT = "inject";
+    public static final String METHOD_CREATE = "create";
+    public static final String METHOD_WRITE = "write";
+    public static final String METHOD_READ = "read";
+    public static final String METHOD_LOOKUP = "lookup";
+    public static final String METHOD_BUILD = "build";
+    public static final String FIELD_PATHS = "PATHS";
     public static final String NAME_OF_ROOT = PROJECT + SEPARATOR + "Root";
     public static final String NAME_OF_PROVIDER = PROJECT + SEPARATOR + "Providers";
     public static final String NAME_OF_GROUP = PROJECT + SEPARATOR + "Group" + SEPARATOR;
     public static final String NAME_OF_INTERCEPTOR = PROJECT + SEPARATOR + "Interceptors";
     public static final String NAME_OF_AUTOWIRED = SEPARATOR + PROJECT + SEPARATOR + "Autowired";
+    public static final String NAME_OF_SYRINGES = PROJECT + SEPARATOR + "Syringes";
+    public static final String NAME_OF_CODEC = SEPARATOR + PROJECT + SEPARATOR + "Codec";
+    public static final String NAME_OF_CODECS = PROJECT + SEPARATOR + "Codecs";
     public static final String PACKAGE_OF_GENERATE_FILE = "com.alibaba.android.arouter.routes";
     public static final String PACKAGE_OF_GENERATE_DOCS = "com.alibaba.android.arouter.docs";
+    public static final String PACKAGE_OF_UTILS = "com.alibaba.android.arouter.utils";
 
     // System interface
     public static final String ACTIVITY = "android.app.Activity";
@@ -54,7 +64,11 @@ public class Consts {
     public static final String IINTERCEPTOR_GROUP = FACADE_PACKAGE + TEMPLATE_PACKAGE + ".IInterceptorGroup";
     public static final String ITROUTE_ROOT = FACADE_PACKAGE + TEMPLATE_PACKAGE + ".IRouteRoot";
     public static final String IROUTE_GROUP = FACADE_PACKAGE + TEMPLATE_PACKAGE + ".IRouteGroup";
+    public static final String IROUTE_TABLE = FACADE_PACKAGE + TEMPLATE_PACKAGE + ".IRouteTable";
     public static final String ISYRINGE = FACADE_PACKAGE + TEMPLATE_PACKAGE + ".ISyringe";
+    public static final String ISYRINGE_GROUP = FACADE_PACKAGE + TEMPLATE_PACKAGE + ".ISyringeGroup";
+    public static final String ICODEC = FACADE_PACKAGE + TEMPLATE_PACKAGE + ".ICodec";
+    public static final String ICODEC_GROUP = FACADE_PACKAGE + TEMPLATE_PACKAGE + ".ICodecGroup";
     public static final String JSON_SERVICE = FACADE_PACKAGE + SERVICE_PACKAGE + ".SerializationService";
     public static final String TYPE_WRAPPER = FACADE_PACKAGE + MODEL_PACKAGE + ".TypeWrapper";
 
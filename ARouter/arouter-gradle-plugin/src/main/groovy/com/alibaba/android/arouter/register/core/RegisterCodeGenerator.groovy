@@ -14,15 +14,18 @@ import java.util.zip.ZipEntry
  * @author billy.qi email: qiyilike@163.com
  */
 class RegisterCodeGenerator {
-    ScanSetting extension
+    List<ScanSetting> extensions
 
-    private RegisterCodeGenerator(ScanSetting extension) {
-        this.extension = extension
+    private RegisterCodeGenerator(List<ScanSetting> extensions) {
+        this.extensions = extensions
     }
 
-    static void insertInitCodeTo(ScanSetting registerSetting) {
-        if (registerSetting != null && !registerSetting.classList.isEmpty()) {
-            RegisterCodeGenerator processor = new RegisterCodeGenerator(registerSetting)
+    /**
+     * generate register code of all settings, the jar file is rewritten once
+     */
+    static void insertInitCodeTo(List<ScanSetting> registerList) {
+        if (registerList != null && registerList.any { !it.classList.isEmpty() }) {
+            RegisterCodeGenerator processor = new RegisterCodeGenerator(registerList)
             File file = RegisterTransform.fileContainsInitClass
             if (file.getName().endsWith('.jar'))
                 processor.insertInitCodeIntoJarFile(file)
@@ -113,15 +116,17 @@ class RegisterCodeGenerator {
         void visitInsn(int opcode) {
             //generate code before return
             if ((opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN)) {
-                extension.classList.each { name ->
-                    name = name.replaceAll("/", ".")
-                    mv.visitLdcInsn(name)//类名
-                    // generate invoke register method into LogisticsCenter.loadRouterMap()
-                    mv.visitMethodInsn(Opcodes.INVOKESTATIC
-                            , ScanSetting.GENERATE_TO_CLASS_NAME
-                            , ScanSetting.REGISTER_METHOD_NAME
-                            , "(Ljava/lang/String;)V"
-                            , false)
+                extensions.each { extension ->
+                    extension.classList.each { name ->
+                        name = name.replaceAll("/", ".")
+                        mv.visitLdcInsn(name)//类名
+                        // generate invoke register method into LogisticsCenter.loadRouterMap()
+                        mv.visitMethodInsn(Opcodes.INVOKESTATIC
+                                , ScanSetting.GENERATE_TO_CLASS_NAME
+                                , ScanSetting.REGISTER_METHOD_NAME
+                                , "(Ljava/lang/String;)V"
+                                , false)
+                    }
                 }
             }
             super.visitInsn(opcode)
@@ -1,6 +1,8 @@
 package com.alibaba.android.arouter.register.core
 
 import com.alibaba.android.arouter.register.utils.Logger
+import com.alibaba.android.arouter.register.utils.ScanCache
+import com.alibaba.android.arouter.register.utils.ScanResult
 import com.alibaba.android.arouter.register.utils.ScanSetting
 import com.alibaba.android.arouter.register.utils.ScanUtil
 import com.android.build.api.transform.*
@@ -9,11 +11,19 @@ import org.apache.commons.codec.digest.DigestUtils
 import org.apache.commons.io.FileUtils
 import org.gradle.api.Project
 
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+
 /**
  * transform api
  * <p>
  *     1. Scan all classes to find which classes implement the specified interface
  *     2. Generate register code into class file: {@link ScanSetting#GENERATE_TO_CLASS_FILE_NAME}
+ *     3. Scan results are cached, incremental build only scans the changed inputs,
+ *        and the register code is generated again only when registered classes changed
  * @author billy.qi email: qiyilike@163.com
  * @since 17/3/21 11:48
  */
@@ -22,6 +32,11 @@ class RegisterTransform extends Transform {
     Project project
     static ArrayList<ScanSetting> registerList
     static File fileContainsInitClass;
+    // input jar of fileContainsInitClass, and whether it is copied to output by this build
+    static File fileContainsInitClassSource
+    static boolean fileContainsInitClassCopied
+
+    private static final String CACHE_FILE_NAME = 'scan-cache.json'
 
     RegisterTransform(Project project) {
         this.project = project
@@ -52,7 +67,7 @@ class RegisterTransform extends Transform {
 
     @Override
     boolean isIncremental() {
-        return false
+        return true
     }
 
 
@@ -62,71 +77,201 @@ class RegisterTransform extends Transform {
                    , TransformOutputProvider outputProvider
                    , boolean isIncremental) throws IOException, TransformException, InterruptedException {
 
-        Logger.i('Start scan register info in jar file.')
+        Logger.i('Start scan register info in jar file, incremental: ' + isIncremental)
 
         long startTime = System.currentTimeMillis()
-        boolean leftSlash = File.separator == '/'
+        fileContainsInitClass = null
+        fileContainsInitClassSource = null
+        fileContainsInitClassCopied = false
+
+        // Non-incremental build still reuses the results of jars whose content was scanned before.
+        ScanCache cache = ScanCache.load(new File(context.getTemporaryDir(), CACHE_FILE_NAME), registerList)
+        Map<String, String> previousJars = new HashMap<>(cache.jars)
+        cache.jars.clear()
+        if (!isIncremental) {
+            outputProvider.deleteAll()
+        }
+
+        // Inputs are scanned and copied in parallel, the results are merged in order of input.
+        List<Future<List<ScanResult>>> scans = new ArrayList<>()
+        Set<String> directories = new HashSet<>()
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())
+        try {
+            inputs.each { TransformInput input ->
 
-        inputs.each { TransformInput input ->
+                // scan all jars
+                input.jarInputs.each { JarInput jarInput ->
+                    String destName = jarInput.name
+                    // rename jar files
+                    def hexName = DigestUtils.md5Hex(jarInput.file.absolutePath)
+                    if (destName.endsWith(".jar")) {
+                        destName = destName.substring(0, destName.length() - 4)
+                    }
+                    // input file
+                    File src = jarInput.file
+                    // output file
+                    File dest = outputProvider.getContentLocation(destName + "_" + hexName, jarInput.contentTypes, jarInput.scopes, Format.JAR)
 
-            // scan all jars
-            input.jarInputs.each { JarInput jarInput ->
-                String destName = jarInput.name
-                // rename jar files
-                def hexName = DigestUtils.md5Hex(jarInput.file.absolutePath)
-                if (destName.endsWith(".jar")) {
-                    destName = destName.substring(0, destName.length() - 4)
+                    Status status = isIncremental ? jarInput.status : Status.ADDED
+                    if (status == Status.REMOVED) {
+                        FileUtils.deleteQuietly(dest)
+                    } else {
+                        scans.add(executor.submit({
+                            return [scanJar(src, dest, status != Status.NOTCHANGED, previousJars, cache)]
+                        } as Callable<List<ScanResult>>))
+                    }
                 }
-                // input file
-                File src = jarInput.file
-                // output file
-                File dest = outputProvider.getContentLocation(destName + "_" + hexName, jarInput.contentTypes, jarInput.scopes, Format.JAR)
-
-                //scan jar file to find classes
-                if (ScanUtil.shouldProcessPreDexJar(src.absolutePath)) {
-                    ScanUtil.scanJar(src, dest)
+                // scan class files
+                input.directoryInputs.each { DirectoryInput directoryInput ->
+                    File dest = outputProvider.getContentLocation(directoryInput.name, directoryInput.contentTypes, directoryInput.scopes, Format.DIRECTORY)
+                    directories.add(directoryInput.file.absolutePath)
+                    scans.add(executor.submit({
+                        return scanDirectory(directoryInput, dest, isIncremental, cache)
+                    } as Callable<List<ScanResult>>))
                 }
-                FileUtils.copyFile(src, dest)
+            }
 
+            registerList.each { ext ->
+                ext.classList.clear()
             }
-            // scan class files
-            input.directoryInputs.each { DirectoryInput directoryInput ->
-                File dest = outputProvider.getContentLocation(directoryInput.name, directoryInput.contentTypes, directoryInput.scopes, Format.DIRECTORY)
-                String root = directoryInput.file.absolutePath
-                if (!root.endsWith(File.separator))
-                    root += File.separator
-                directoryInput.file.eachFileRecurse { File file ->
-                    def path = file.absolutePath.replace(root, '')
-                    if (!leftSlash) {
-                        path = path.replaceAll("\\\\", "/")
-                    }
-                    if(file.isFile() && ScanUtil.shouldProcessClass(path)){
-                        ScanUtil.scanClass(file)
+            scans.each { Future<List<ScanResult>> scan ->
+                scan.get().each { ScanResult result ->
+                    registerList.each { ext ->
+                        result?.classes?.get(ext.interfaceName)?.each { String name ->
+                            //fix repeated inject init code when Multi-channel packaging
+                            if (!ext.classList.contains(name)) {
+                                ext.classList.add(name)
+                            }
+                        }
                     }
                 }
-
-                // copy to dest
-                FileUtils.copyDirectory(directoryInput.file, dest)
             }
+        } catch (ExecutionException e) {
+            throw e.getCause()
+        } finally {
+            executor.shutdown()
         }
+        cache.directories.keySet().retainAll(directories)
 
         Logger.i('Scan finish, current cost time ' + (System.currentTimeMillis() - startTime) + "ms")
 
         if (fileContainsInitClass) {
+            Map<String, List<String>> registered = new LinkedHashMap<>()
             registerList.each { ext ->
-                Logger.i('Insert register code to file ' + fileContainsInitClass.absolutePath)
+                registered.put(ext.interfaceName, new ArrayList<String>(ext.classList))
+            }
+
+            if (isIncremental && !fileContainsInitClassCopied && registered == cache.registered) {
+                Logger.i('Registered classes are not changed, skip insert register code.')
+            } else {
+                if (!fileContainsInitClassCopied) {
+                    // Output has register code of last build, restore it.
+                    FileUtils.copyFile(fileContainsInitClassSource, fileContainsInitClass)
+                }
 
-                if (ext.classList.isEmpty()) {
-                    Logger.e("No class implements found for interface:" + ext.interfaceName)
-                } else {
-                    ext.classList.each {
-                        Logger.i(it)
+                Logger.i('Insert register code to file ' + fileContainsInitClass.absolutePath)
+                registerList.each { ext ->
+                    if (ext.classList.isEmpty()) {
+                        Logger.e("No class implements found for interface:" + ext.interfaceName)
+                    } else {
+                        ext.classList.each {
+                            Logger.i(it)
+                        }
                     }
-                    RegisterCodeGenerator.insertInitCodeTo(ext)
                 }
+                RegisterCodeGenerator.insertInitCodeTo(registerList)
             }
+            cache.registered = registered
         }
+        cache.save(registerList)
 
         Logger.i("Generate code finish, current cost time: " + (System.currentTimeMillis() - startTime) + "ms")
     }
+
+    /**
+     * scan jar and copy it to output if it is changed. The result of unchanged jar is read from cache by path,
+     * a changed jar is looked up by hash of its content, which is computed while listing its entries for scanning.
+     */
+    private static ScanResult scanJar(File src, File dest, boolean changed, Map<String, String> previousJars, ScanCache cache) {
+        ScanResult result = null
+        //scan jar file to find classes
+        if (ScanUtil.shouldProcessPreDexJar(src.absolutePath)) {
+            String hash = changed ? null : previousJars.get(src.absolutePath)
+            result = hash == null ? null : cache.results.get(hash)
+            if (result == null) {
+                hash = ScanUtil.scanJar(src, cache.results)
+                result = cache.results.get(hash)
+            }
+            cache.jars.put(src.absolutePath, hash)
+        }
+        if (changed) {
+            FileUtils.copyFile(src, dest)
+        }
+
+        if (result != null && result.containsInitClass) {
+            // After the scan is complete, we will generate register code into this file
+            fileContainsInitClass = dest
+            fileContainsInitClassSource = src
+            fileContainsInitClassCopied = changed
+        }
+        return result
+    }
+
+    /**
+     * scan class files of directory and copy them to output, only the changed files are handled by incremental build
+     * @return results of class files, in order of path
+     */
+    private static List<ScanResult> scanDirectory(DirectoryInput directoryInput, File dest, boolean isIncremental, ScanCache cache) {
+        String root = directoryInput.file.absolutePath
+        if (!root.endsWith(File.separator))
+            root += File.separator
+
+        Map<String, ScanResult> results = isIncremental ? cache.directories.get(directoryInput.file.absolutePath) : null
+        if (results == null) {
+            results = new TreeMap<>()
+            directoryInput.file.eachFileRecurse { File file ->
+                def path = relativePath(root, file)
+                if(file.isFile() && ScanUtil.shouldProcessClass(path)){
+                    results.put(path, ScanUtil.scanClass(file))
+                }
+            }
+
+            // copy to dest
+            FileUtils.copyDirectory(directoryInput.file, dest)
+        } else {
+            results = new TreeMap<>(results)
+            directoryInput.changedFiles.each { File file, Status status ->
+                def path = relativePath(root, file)
+                File destFile = new File(dest, file.absolutePath.substring(root.length()))
+                switch (status) {
+                    case Status.REMOVED:
+                        FileUtils.deleteQuietly(destFile)
+                        results.remove(path)
+                        break
+                    case Status.ADDED:
+                    case Status.CHANGED:
+                        if (file.isFile()) {
+                            if (ScanUtil.shouldProcessClass(path)) {
+                                results.put(path, ScanUtil.scanClass(file))
+                            }
+                            FileUtils.copyFile(file, destFile)
+                        }
+                        break
+                    default:
+                        break
+                }
+            }
+        }
+
+        cache.directories.put(directoryInput.file.absolutePath, results)
+        return new ArrayList<ScanResult>(results.values())
+    }
+
+    private static String relativePath(String root, File file) {
+        def path = file.absolutePath.replace(root, '')
+        if (File.separator != '/') {
+            path = path.replaceAll("\\\\", "/")
+        }
+        return path
+    }
 }
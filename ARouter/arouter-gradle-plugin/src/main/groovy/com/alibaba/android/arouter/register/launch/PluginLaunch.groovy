@@ -27,10 +27,12 @@ public class PluginLaunch implements Plugin<Project> {
             def transformImpl = new RegisterTransform(project)
 
             //init arouter-auto-register settings
-            ArrayList<ScanSetting> list = new ArrayList<>(3)
+            ArrayList<ScanSetting> list = new ArrayList<>(5)
             list.add(new ScanSetting('IRouteRoot'))
             list.add(new ScanSetting('IInterceptorGroup'))
             list.add(new ScanSetting('IProviderGroup'))
+            list.add(new ScanSetting('ISyringeGroup'))
+            list.add(new ScanSetting('ICodecGroup'))
             RegisterTransform.registerList = list
             //register this plugin
             android.registerTransform(transformImpl)
@@ -0,0 +1,104 @@
+package com.alibaba.android.arouter.register.utils
+
+import groovy.json.JsonOutput
+import groovy.json.JsonSlurper
+
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Scan results saved between builds, so that only the changed inputs are scanned by incremental build.
+ */
+class ScanCache {
+    private static final int VERSION = 3
+
+    private File file
+    /**
+     * hash of jar content and its scan result
+     */
+    final Map<String, ScanResult> results = new ConcurrentHashMap<>()
+    /**
+     * path of jar input and hash of its content
+     */
+    final Map<String, String> jars = new ConcurrentHashMap<>()
+    /**
+     * path of directory input, path of class file in it and scan result of the class
+     */
+    final Map<String, Map<String, ScanResult>> directories = new ConcurrentHashMap<>()
+    /**
+     * interface name and the classes registered into {@link ScanSetting#GENERATE_TO_CLASS_NAME} by last build
+     */
+    Map<String, List<String>> registered = new LinkedHashMap<>()
+
+    private ScanCache(File file) {
+        this.file = file
+    }
+
+    /**
+     * load cache from file, the cache is dropped if it was written by other version or settings
+     */
+    static ScanCache load(File file, List<ScanSetting> settings) {
+        ScanCache cache = new ScanCache(file)
+        if (!file.exists()) {
+            return cache
+        }
+
+        try {
+            Map json = new JsonSlurper().parse(file, 'UTF-8') as Map
+            if (json.version != VERSION || json.interfaces != settings.collect { it.interfaceName }) {
+                Logger.i('Scan cache is out of date, scan all inputs.')
+                return cache
+            }
+            json.results.each { String hash, Map result ->
+                cache.results.put(hash, ScanResult.fromMap(result))
+            }
+            cache.jars.putAll(json.jars as Map)
+            json.directories.each { String dir, Map classes ->
+                Map<String, ScanResult> results = new ConcurrentHashMap<>()
+                classes.each { String path, Map result ->
+                    results.put(path, ScanResult.fromMap(result))
+                }
+                cache.directories.put(dir, results)
+            }
+            json.registered.each { String interfaceName, List<String> names ->
+                cache.registered.put(interfaceName, new ArrayList<String>(names))
+            }
+        } catch (Exception e) {
+            Logger.w('Read scan cache failed, scan all inputs. ' + e.getMessage())
+            return new ScanCache(file)
+        }
+        return cache
+    }
+
+    /**
+     * save cache, results of jars which are not input any more are removed
+     */
+    void save(List<ScanSetting> settings) {
+        Map<String, Map> results = new TreeMap<>()
+        jars.values().each { String hash ->
+            ScanResult result = this.results.get(hash)
+            if (result != null) {
+                results.put(hash, result.toMap())
+            }
+        }
+        Map<String, Map> directories = new TreeMap<>()
+        this.directories.each { String dir, Map<String, ScanResult> classes ->
+            Map<String, Map> map = new TreeMap<>()
+            classes.each { String path, ScanResult result ->
+                map.put(path, result.toMap())
+            }
+            directories.put(dir, map)
+        }
+
+        def json = [version    : VERSION,
+                    interfaces : settings.collect { it.interfaceName },
+                    jars       : new TreeMap<>(jars),
+                    results    : results,
+                    directories: directories,
+                    registered : registered]
+        file.parentFile.mkdirs()
+        File tmp = new File(file.parentFile, file.name + '.tmp')
+        tmp.setText(JsonOutput.toJson(json), 'UTF-8')
+        file.delete()
+        tmp.renameTo(file)
+    }
+}
@@ -0,0 +1,39 @@
+package com.alibaba.android.arouter.register.utils
+
+/**
+ * Scan result of one jar file or class file, it is saved in {@link ScanCache} between builds.
+ */
+class ScanResult {
+    /**
+     * true if this jar contains class: {@link ScanSetting#GENERATE_TO_CLASS_NAME}
+     */
+    boolean containsInitClass
+    /**
+     * interface name and the classes implement it, in scan order
+     */
+    Map<String, List<String>> classes = new LinkedHashMap<>()
+
+    void add(String interfaceName, String className) {
+        List<String> list = classes.get(interfaceName)
+        if (list == null) {
+            list = new ArrayList<>()
+            classes.put(interfaceName, list)
+        }
+        if (!list.contains(className)) {
+            list.add(className)
+        }
+    }
+
+    Map toMap() {
+        return [init: containsInitClass, classes: classes]
+    }
+
+    static ScanResult fromMap(Map map) {
+        ScanResult result = new ScanResult()
+        result.containsInitClass = map.init
+        map.classes.each { String interfaceName, List<String> names ->
+            result.classes.put(interfaceName, new ArrayList<String>(names))
+        }
+        return result
+    }
+}
@@ -1,11 +1,14 @@
 package com.alibaba.android.arouter.register.utils
 
 import com.alibaba.android.arouter.register.core.RegisterTransform
+import groovy.transform.CompileStatic
 import org.objectweb.asm.ClassReader
 import org.objectweb.asm.ClassVisitor
 import org.objectweb.asm.ClassWriter
 import org.objectweb.asm.Opcodes
 
+import java.security.DigestOutputStream
+import java.security.MessageDigest
 import java.util.jar.JarEntry
 import java.util.jar.JarFile
 
@@ -18,31 +21,61 @@ import java.util.jar.JarFile
 class ScanUtil {
 
     /**
-     * scan jar file
+     * scan jar file, the classes are not scanned again if a jar of same content was scanned before
      * @param jarFile All jar files that are compiled into apk
-     * @param destFile dest file after this transform
+     * @param results scan results of previous builds, by hash of jar content
+     * @return hash of jar content, its scan result is in results
      */
-    static void scanJar(File jarFile, File destFile) {
-        if (jarFile) {
-            def file = new JarFile(jarFile)
+    @CompileStatic
+    static String scanJar(File jarFile, Map<String, ScanResult> results) {
+        def file = new JarFile(jarFile)
+        try {
+            // crc and size of entries are read from the central directory in the same pass, nothing is inflated
+            MessageDigest digest = MessageDigest.getInstance('MD5')
+            DataOutputStream hashStream = new DataOutputStream(new DigestOutputStream(new NullOutputStream(), digest))
+            List<JarEntry> routerEntries = new ArrayList<>()
+            ScanResult result = new ScanResult()
             Enumeration enumeration = file.entries()
             while (enumeration.hasMoreElements()) {
                 JarEntry jarEntry = (JarEntry) enumeration.nextElement()
                 String entryName = jarEntry.getName()
+                hashStream.writeUTF(entryName)
+                hashStream.writeLong(jarEntry.getCrc())
+                hashStream.writeLong(jarEntry.getSize())
                 if (entryName.startsWith(ScanSetting.ROUTER_CLASS_PACKAGE_NAME)) {
-                    InputStream inputStream = file.getInputStream(jarEntry)
-                    scanClass(inputStream)
-                    inputStream.close()
+                    routerEntries.add(jarEntry)
                 } else if (ScanSetting.GENERATE_TO_CLASS_FILE_NAME == entryName) {
                     // mark this jar file contains LogisticsCenter.class
                     // After the scan is complete, we will generate register code into this file
-                    RegisterTransform.fileContainsInitClass = destFile
+                    result.containsInitClass = true
                 }
             }
+
+            String hash = digest.digest().encodeHex().toString()
+            if (results.containsKey(hash)) {
+                return hash
+            }
+
+            for (JarEntry jarEntry : routerEntries) {
+                scanClass(file.getInputStream(jarEntry), result)
+            }
+            results.put(hash, result)
+            return hash
+        } finally {
             file.close()
         }
     }
 
+    private static class NullOutputStream extends OutputStream {
+        @Override
+        void write(int b) {
+        }
+
+        @Override
+        void write(byte[] b, int off, int len) {
+        }
+    }
+
     static boolean shouldProcessPreDexJar(String path) {
         return !path.contains("com.android.support") && !path.contains("/android/m2repository")
     }
@@ -54,23 +87,29 @@ class ScanUtil {
     /**
      * scan class file
      * @param class file
+     * @return classes found in this file
      */
-    static void scanClass(File file) {
-        scanClass(new FileInputStream(file))
+    static ScanResult scanClass(File file) {
+        ScanResult result = new ScanResult()
+        scanClass(new FileInputStream(file), result)
+        return result
     }
 
-    static void scanClass(InputStream inputStream) {
+    @CompileStatic
+    static void scanClass(InputStream inputStream, ScanResult result) {
         ClassReader cr = new ClassReader(inputStream)
         ClassWriter cw = new ClassWriter(cr, 0)
-        ScanClassVisitor cv = new ScanClassVisitor(Opcodes.ASM5, cw)
+        ScanClassVisitor cv = new ScanClassVisitor(Opcodes.ASM5, cw, result)
         cr.accept(cv, ClassReader.EXPAND_FRAMES)
         inputStream.close()
     }
 
     static class ScanClassVisitor extends ClassVisitor {
+        private ScanResult result
 
-        ScanClassVisitor(int api, ClassVisitor cv) {
+        ScanClassVisitor(int api, ClassVisitor cv, ScanResult result) {
             super(api, cv)
+            this.result = result
         }
 
         void visit(int version, int access, String name, String signature,
@@ -81,9 +120,7 @@ class ScanUtil {
                     interfaces.each { itName ->
                         if (itName == ext.interfaceName) {
                             //fix repeated inject init code when Multi-channel packaging
-                            if (!ext.classList.contains(name)) {
-                                ext.classList.add(name)
-                            }
+                            result.add(ext.interfaceName, name)
                         }
                     }
                 }
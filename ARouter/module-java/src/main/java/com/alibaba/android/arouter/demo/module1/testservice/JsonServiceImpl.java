@@ -1,9 +1,7 @@
 package com.alibaba.android.arouter.demo.module1.testservice;
 
-import android.content.Context;
-
+import com.alibaba.android.arouter.core.CodecSerializationService;
 import com.alibaba.android.arouter.facade.annotation.Route;
-import com.alibaba.android.arouter.facade.service.SerializationService;
 import com.alibaba.fastjson.JSON;
 
 import java.lang.reflect.Type;
@@ -16,24 +14,14 @@ import java.lang.reflect.Type;
  * @since 2017/4/10 下午2:10
  */
 @Route(path = "/yourservicegroupname/json")
-public class JsonServiceImpl implements SerializationService {
-    @Override
-    public void init(Context context) {
-
-    }
-
-    @Override
-    public <T> T json2Object(String text, Class<T> clazz) {
-        return JSON.parseObject(text, clazz);
-    }
-
+public class JsonServiceImpl extends CodecSerializationService {
     @Override
-    public String object2Json(Object instance) {
+    protected String toJson(Object instance) {
         return JSON.toJSONString(instance);
     }
 
     @Override
-    public <T> T parseObject(String input, Type clazz) {
-        return JSON.parseObject(input, clazz);
+    protected <T> T fromJson(String input, Type type) {
+        return JSON.parseObject(input, type);
     }
 }
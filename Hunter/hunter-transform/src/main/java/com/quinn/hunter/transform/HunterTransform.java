@@ -105,18 +105,20 @@ public class HunterTransform extends Transform {
                         jarInput.getContentTypes(),
                         jarInput.getScopes(),
                         Format.JAR);
+                File entryHashFile = new File(context.getTemporaryDir(), "entries" + File.separator + dest.getName());
                 if(isIncremental && !emptyRun) {
                     switch(status) {
                         case NOTCHANGED:
                             break;
                         case ADDED:
                         case CHANGED:
-                            transformJar(jarInput.getFile(), dest, status);
+                            transformJar(jarInput.getFile(), dest, entryHashFile, status);
                             break;
                         case REMOVED:
                             if (dest.exists()) {
                                 FileUtils.forceDelete(dest);
                             }
+                            FileUtils.deleteQuietly(entryHashFile);
                             break;
                     }
                 } else {
@@ -125,7 +127,7 @@ public class HunterTransform extends Transform {
                         cleanDexBuilderFolder(dest);
                         flagForCleanDexBuilderFolder = true;
                     }
-                    transformJar(jarInput.getFile(), dest, status);
+                    transformJar(jarInput.getFile(), dest, entryHashFile, status);
                 }
             }
 
@@ -203,13 +205,14 @@ public class HunterTransform extends Transform {
         }
     }
 
-    private void transformJar(final File srcJar, final File destJar, Status status) {
+    private void transformJar(final File srcJar, final File destJar, final File entryHashFile, Status status) {
         worker.submit(() -> {
             if(emptyRun) {
+                FileUtils.deleteQuietly(entryHashFile);
                 FileUtils.copyFile(srcJar, destJar);
                 return null;
             }
-            bytecodeWeaver.weaveJar(srcJar, destJar);
+            bytecodeWeaver.weaveJar(srcJar, destJar, entryHashFile);
             return null;
         });
     }
@@ -1,5 +1,7 @@
 package com.quinn.hunter.transform.asm;
 
+import com.quinn.hunter.transform.concurrent.Schedulers;
+
 import org.apache.commons.io.FileUtils;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -7,13 +9,29 @@ import org.objectweb.asm.ClassWriter;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -30,41 +48,163 @@ public abstract class BaseWeaver implements IWeaver{
 
     protected ClassLoader classLoader;
 
+    protected ClassHierarchy classHierarchy;
+
     public BaseWeaver() {
     }
 
     public final void weaveJar(File inputJar, File outputJar) throws IOException {
-        ZipFile inputZip = new ZipFile(inputJar);
-        ZipOutputStream outputZip = new ZipOutputStream(new BufferedOutputStream(
-                java.nio.file.Files.newOutputStream(outputJar.toPath())));
-        Enumeration<? extends ZipEntry> inEntries = inputZip.entries();
-        while (inEntries.hasMoreElements()) {
-            ZipEntry entry = inEntries.nextElement();
-            InputStream originalFile =
-                    new BufferedInputStream(inputZip.getInputStream(entry));
-            ZipEntry outEntry = new ZipEntry(entry.getName());
-            byte[] newEntryContent;
-            // separator of entry name is always '/', even in windows
-            if (!isWeavableClass(outEntry.getName().replace("/", "."))) {
-                newEntryContent = org.apache.commons.io.IOUtils.toByteArray(originalFile);
-            } else {
-                newEntryContent = weaveSingleClassToByteArray(originalFile);
+        weaveJar(inputJar, outputJar, null);
+    }
+
+    /**
+     * Weave entries of jar concurrently in {@link Schedulers#COMPUTATION()}, and write them in the order of input jar.
+     *
+     * @param entryHashFile md5 of the weavable entries woven into outputJar by last build, the entries which are not
+     *                      changed are copied from last outputJar instead of weaving again. It is updated for next build,
+     *                      null to weave all entries.
+     */
+    public final void weaveJar(File inputJar, File outputJar, File entryHashFile) throws IOException {
+        Map<String, byte[]> lastHashes = Collections.emptyMap();
+        Map<String, byte[]> hashes = null;
+        File lastOutputJar = null;
+        if (entryHashFile != null) {
+            hashes = new ConcurrentHashMap<>();
+            if (entryHashFile.isFile()) {
+                lastHashes = readEntryHashes(entryHashFile);
+                FileUtils.forceDelete(entryHashFile);
+                if (outputJar.isFile()) {
+                    lastOutputJar = new File(entryHashFile.getPath() + ".jar");
+                    Files.move(outputJar.toPath(), lastOutputJar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        ForkJoinPool executor = Schedulers.FORKJOINPOOL();
+        //entries woven ahead of the one being written
+        int window = executor.getParallelism() * 4;
+        LinkedList<Future<byte[]>> futures = new LinkedList<>();
+        LinkedList<String> names = new LinkedList<>();
+        try (ZipFile inputZip = new ZipFile(inputJar);
+             ZipFile lastOutputZip = lastOutputJar == null ? null : new ZipFile(lastOutputJar);
+             ZipOutputStream outputZip = new ZipOutputStream(new BufferedOutputStream(
+                     Files.newOutputStream(outputJar.toPath())))) {
+            Enumeration<? extends ZipEntry> inEntries = inputZip.entries();
+            while (inEntries.hasMoreElements()) {
+                ZipEntry entry = inEntries.nextElement();
+                Map<String, byte[]> entryHashes = hashes;
+                Map<String, byte[]> lastEntryHashes = lastHashes;
+                futures.add(executor.submit(() -> weaveEntry(inputZip, entry, entryHashes, lastEntryHashes, lastOutputZip)));
+                names.add(entry.getName());
+                if (futures.size() >= window) {
+                    writeEntry(outputZip, names.pollFirst(), getEntry(futures.pollFirst()));
+                }
+            }
+            while (!futures.isEmpty()) {
+                writeEntry(outputZip, names.pollFirst(), getEntry(futures.pollFirst()));
+            }
+            outputZip.flush();
+        } finally {
+            for (Future<byte[]> future : futures) {
+                future.cancel(false);
+            }
+            if (lastOutputJar != null) {
+                FileUtils.deleteQuietly(lastOutputJar);
+            }
+        }
+        if (hashes != null) {
+            writeEntryHashes(entryHashFile, hashes);
+        }
+    }
+
+    private byte[] weaveEntry(ZipFile inputZip, ZipEntry entry, Map<String, byte[]> hashes,
+                              Map<String, byte[]> lastHashes, ZipFile lastOutputZip) throws IOException {
+        byte[] bytes;
+        try (InputStream inputStream = inputZip.getInputStream(entry)) {
+            bytes = org.apache.commons.io.IOUtils.toByteArray(inputStream);
+        }
+        // separator of entry name is always '/', even in windows
+        if (!isWeavableClass(entry.getName().replace("/", "."))) {
+            return bytes;
+        }
+        if (hashes != null) {
+            byte[] hash = md5(bytes);
+            hashes.put(entry.getName(), hash);
+            ZipEntry lastEntry = lastOutputZip == null ? null : lastOutputZip.getEntry(entry.getName());
+            if (lastEntry != null && Arrays.equals(hash, lastHashes.get(entry.getName()))) {
+                try (InputStream inputStream = lastOutputZip.getInputStream(lastEntry)) {
+                    return org.apache.commons.io.IOUtils.toByteArray(inputStream);
+                }
+            }
+        }
+        return weaveSingleClassToByteArray(new ByteArrayInputStream(bytes));
+    }
+
+    private static byte[] md5(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] getEntry(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException | InterruptedException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause() == null ? e : e.getCause());
+        }
+    }
+
+    private static void writeEntry(ZipOutputStream outputZip, String name, byte[] newEntryContent) throws IOException {
+        ZipEntry outEntry = new ZipEntry(name);
+        CRC32 crc32 = new CRC32();
+        crc32.update(newEntryContent);
+        outEntry.setCrc(crc32.getValue());
+        outEntry.setMethod(ZipEntry.STORED);
+        outEntry.setSize(newEntryContent.length);
+        outEntry.setCompressedSize(newEntryContent.length);
+        outEntry.setLastAccessTime(ZERO);
+        outEntry.setLastModifiedTime(ZERO);
+        outEntry.setCreationTime(ZERO);
+        outputZip.putNextEntry(outEntry);
+        outputZip.write(newEntryContent);
+        outputZip.closeEntry();
+    }
+
+    private static Map<String, byte[]> readEntryHashes(File entryHashFile) {
+        Map<String, byte[]> hashes = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(entryHashFile)))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] hash = new byte[in.readUnsignedByte()];
+                in.readFully(hash);
+                hashes.put(name, hash);
+            }
+        } catch (IOException e) {
+            //weave all entries
+            return Collections.emptyMap();
+        }
+        return hashes;
+    }
+
+    private static void writeEntryHashes(File entryHashFile, Map<String, byte[]> hashes) throws IOException {
+        FileUtils.forceMkdirParent(entryHashFile);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(entryHashFile)))) {
+            out.writeInt(hashes.size());
+            for (Map.Entry<String, byte[]> entry : hashes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeByte(entry.getValue().length);
+                out.write(entry.getValue());
             }
-            CRC32 crc32 = new CRC32();
-            crc32.update(newEntryContent);
-            outEntry.setCrc(crc32.getValue());
-            outEntry.setMethod(ZipEntry.STORED);
-            outEntry.setSize(newEntryContent.length);
-            outEntry.setCompressedSize(newEntryContent.length);
-            outEntry.setLastAccessTime(ZERO);
-            outEntry.setLastModifiedTime(ZERO);
-            outEntry.setCreationTime(ZERO);
-            outputZip.putNextEntry(outEntry);
-            outputZip.write(newEntryContent);
-            outputZip.closeEntry();
         }
-        outputZip.flush();
-        outputZip.close();
     }
 
     public final void weaveSingleClassToFile(File inputFile, File outputFile, String inputBaseDir) throws IOException {
@@ -87,17 +227,27 @@ public abstract class BaseWeaver implements IWeaver{
 
     public final void setClassLoader(ClassLoader classLoader) {
         this.classLoader = classLoader;
+        this.classHierarchy = new ClassHierarchy(classLoader);
     }
 
     @Override
     public byte[] weaveSingleClassToByteArray(InputStream inputStream) throws IOException {
         ClassReader classReader = new ClassReader(inputStream);
-        ClassWriter classWriter = new ExtendClassWriter(classLoader, ClassWriter.COMPUTE_MAXS);
+        ClassWriter classWriter = new ExtendClassWriter(classHierarchy, getClassWriterFlags());
         ClassVisitor classWriterWrapper = wrapClassWriter(classWriter);
         classReader.accept(classWriterWrapper, ClassReader.EXPAND_FRAMES);
         return classWriter.toByteArray();
     }
 
+    /**
+     * Flags of the writer of woven classes. A weaver which adds branches without writing their stack map frames
+     * returns {@link ClassWriter#COMPUTE_FRAMES}, the frames are then merged with the super classes read from
+     * the class loader of transform, through the {@link ClassHierarchy} shared by all weaving threads.
+     */
+    protected int getClassWriterFlags() {
+        return ClassWriter.COMPUTE_MAXS;
+    }
+
     public void setExtension(Object extension) {
 
     }
@@ -0,0 +1,207 @@
+package com.quinn.hunter.transform.asm;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Super class and interfaces of classes read from class loader of transform, it is created once per build
+ * and shared by all weaving threads, so that each class file is read once for
+ * {@link ExtendClassWriter#getCommonSuperClass(String, String)}, instead of once per woven class.
+ */
+public class ClassHierarchy {
+
+    private static final String OBJECT = "java/lang/Object";
+
+    private static final ClassInfo MISSING = new ClassInfo(null, 0, new String[0]);
+
+    private final ClassLoader classLoader;
+
+    private final Map<String, ClassInfo> classes = new ConcurrentHashMap<>();
+
+    private final Map<String, String> commonSuperClasses = new ConcurrentHashMap<>();
+
+    public ClassHierarchy(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * https://github.com/Moniter123/pinpoint/blob/40106ffe6cc4d6aea9d59b4fb7324bcc009483ee/profiler/src/main/java/com/navercorp/pinpoint/profiler/instrument/ASMClassWriter.java
+     */
+    public String getCommonSuperClass(final String type1, final String type2) {
+        if (type1 == null || type1.equals(OBJECT) || type2 == null || type2.equals(OBJECT)) {
+            return OBJECT;
+        }
+
+        if (type1.equals(type2)) {
+            return type1;
+        }
+
+        String key = type1 + ';' + type2;
+        String commonSuperClass = commonSuperClasses.get(key);
+        if (commonSuperClass == null) {
+            commonSuperClass = findCommonSuperClass(type1, type2);
+            commonSuperClasses.put(key, commonSuperClass);
+        }
+        return commonSuperClass;
+    }
+
+    private String findCommonSuperClass(final String type1, final String type2) {
+        ClassInfo type1Info = getClassInfo(type1);
+        ClassInfo type2Info = getClassInfo(type2);
+        if (type1Info == null || type2Info == null) {
+            return OBJECT;
+        }
+
+        if (type1Info.isInterface()) {
+            String interfaceName = type1;
+            if (isImplements(interfaceName, type2Info)) {
+                return interfaceName;
+            }
+            if (type2Info.isInterface()) {
+                interfaceName = type2;
+                if (isImplements(interfaceName, type1Info)) {
+                    return interfaceName;
+                }
+            }
+            return OBJECT;
+        }
+
+        if (type2Info.isInterface()) {
+            String interfaceName = type2;
+            if (isImplements(interfaceName, type1Info)) {
+                return interfaceName;
+            }
+            return OBJECT;
+        }
+
+        final Set<String> superClassNames = new HashSet<String>();
+        superClassNames.add(type1);
+        superClassNames.add(type2);
+
+        String type1SuperClassName = type1Info.superName;
+        if (!superClassNames.add(type1SuperClassName)) {
+            return type1SuperClassName;
+        }
+
+        String type2SuperClassName = type2Info.superName;
+        if (!superClassNames.add(type2SuperClassName)) {
+            return type2SuperClassName;
+        }
+
+        while (type1SuperClassName != null || type2SuperClassName != null) {
+            if (type1SuperClassName != null) {
+                type1SuperClassName = getSuperClassName(type1SuperClassName);
+                if (type1SuperClassName != null) {
+                    if (!superClassNames.add(type1SuperClassName)) {
+                        return type1SuperClassName;
+                    }
+                }
+            }
+
+            if (type2SuperClassName != null) {
+                type2SuperClassName = getSuperClassName(type2SuperClassName);
+                if (type2SuperClassName != null) {
+                    if (!superClassNames.add(type2SuperClassName)) {
+                        return type2SuperClassName;
+                    }
+                }
+            }
+        }
+
+        return OBJECT;
+    }
+
+    private boolean isImplements(final String interfaceName, final ClassInfo classInfo) {
+        ClassInfo info = classInfo;
+
+        while (info != null) {
+            final String[] interfaceNames = info.interfaces;
+            for (String name : interfaceNames) {
+                if (name != null && name.equals(interfaceName)) {
+                    return true;
+                }
+            }
+
+            for (String name : interfaceNames) {
+                if (name != null) {
+                    final ClassInfo interfaceInfo = getClassInfo(name);
+                    if (interfaceInfo != null) {
+                        if (isImplements(interfaceName, interfaceInfo)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+
+            final String superClassName = info.superName;
+            if (superClassName == null || superClassName.equals(OBJECT)) {
+                break;
+            }
+            info = getClassInfo(superClassName);
+        }
+
+        return false;
+    }
+
+    private String getSuperClassName(final String className) {
+        final ClassInfo classInfo = getClassInfo(className);
+        if (classInfo == null) {
+            return null;
+        }
+        return classInfo.superName;
+    }
+
+    private ClassInfo getClassInfo(final String className) {
+        ClassInfo classInfo = classes.get(className);
+        if (classInfo == null) {
+            classInfo = readClassInfo(className);
+            classes.put(className, classInfo);
+        }
+        return classInfo == MISSING ? null : classInfo;
+    }
+
+    private ClassInfo readClassInfo(final String className) {
+        if (classLoader == null) {
+            return MISSING;
+        }
+        InputStream inputStream = classLoader.getResourceAsStream(className + ".class");
+        try {
+            if (inputStream != null) {
+                ClassReader classReader = new ClassReader(inputStream);
+                return new ClassInfo(classReader.getSuperName(), classReader.getAccess(), classReader.getInterfaces());
+            }
+        } catch (IOException ignored) {
+        } finally {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        return MISSING;
+    }
+
+    private static final class ClassInfo {
+        final String superName;
+        final int access;
+        final String[] interfaces;
+
+        ClassInfo(String superName, int access, String[] interfaces) {
+            this.superName = superName;
+            this.access = access;
+            this.interfaces = interfaces;
+        }
+
+        boolean isInterface() {
+            return (access & Opcodes.ACC_INTERFACE) != 0;
+        }
+    }
+}
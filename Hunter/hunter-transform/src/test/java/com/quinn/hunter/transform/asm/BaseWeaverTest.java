@@ -0,0 +1,185 @@
+package com.quinn.hunter.transform.asm;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Jars woven with and without entry hashes of last build are the same, byte for byte and in entry order.
+ */
+public class BaseWeaverTest {
+
+    private static final int CLASSES = 50;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final CountingWeaver weaver = new CountingWeaver();
+
+    @Test
+    public void entryHashesDoNotChangeOutput() throws IOException {
+        File input = jar("input.jar", -1);
+        File expected = folder.newFile("expected.jar");
+        weaver.weaveJar(input, expected);
+        assertEquals(CLASSES, weaver.woven.getAndSet(0));
+
+        File hashes = new File(folder.getRoot(), "entries/input.hash");
+        File output = new File(folder.getRoot(), "output.jar");
+        weaver.weaveJar(input, output, hashes);
+        assertEquals(CLASSES, weaver.woven.getAndSet(0));
+        assertTrue(hashes.isFile());
+        assertSameJar(expected, output);
+
+        // nothing changed, every class is copied from last output
+        weaver.weaveJar(input, output, hashes);
+        assertEquals(0, weaver.woven.getAndSet(0));
+        assertSameJar(expected, output);
+        assertEquals(Collections.singletonList("input.hash"), listNames(hashes.getParentFile()));
+    }
+
+    @Test
+    public void changedEntryIsWovenAgain() throws IOException {
+        File hashes = new File(folder.getRoot(), "input.hash");
+        File output = new File(folder.getRoot(), "output.jar");
+        weaver.weaveJar(jar("input.jar", -1), output, hashes);
+        weaver.woven.set(0);
+
+        File changed = jar("changed.jar", 7);
+        weaver.weaveJar(changed, output, hashes);
+        assertEquals(1, weaver.woven.getAndSet(0));
+
+        File expected = folder.newFile("expected.jar");
+        weaver.weaveJar(changed, expected);
+        assertSameJar(expected, output);
+    }
+
+    @Test
+    public void brokenHashFileWeavesEverything() throws IOException {
+        File input = jar("input.jar", -1);
+        File hashes = new File(folder.getRoot(), "input.hash");
+        File output = new File(folder.getRoot(), "output.jar");
+        weaver.weaveJar(input, output, hashes);
+        FileUtils.writeByteArrayToFile(hashes, new byte[]{0, 0, 0, 9, 1});
+        weaver.woven.set(0);
+
+        weaver.weaveJar(input, output, hashes);
+
+        assertEquals(CLASSES, weaver.woven.get());
+        File expected = folder.newFile("expected.jar");
+        weaver.weaveJar(input, expected);
+        assertSameJar(expected, output);
+    }
+
+    /**
+     * Classes, a resource, a directory and R classes which are not woven, in a fixed order.
+     *
+     * @param changed index of the class which gets another field, -1 for none
+     */
+    private File jar(String name, int changed) throws IOException {
+        File jar = folder.newFile(name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            put(out, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n".getBytes("UTF-8"));
+            put(out, "com/example/", new byte[0]);
+            for (int i = 0; i < CLASSES; i++) {
+                put(out, "com/example/C" + i + ".class", newClass("com/example/C" + i, i == changed));
+                if (i % 10 == 0) {
+                    put(out, "com/example/R$id" + i + ".class", newClass("com/example/R$id" + i, false));
+                    put(out, "com/example/res" + i + ".txt", ("resource " + i).getBytes("UTF-8"));
+                }
+            }
+        }
+        return jar;
+    }
+
+    private static void put(ZipOutputStream out, String name, byte[] bytes) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(bytes);
+        out.closeEntry();
+    }
+
+    private static byte[] newClass(String name, boolean changed) {
+        ClassWriter classWriter = new ClassWriter(0);
+        classWriter.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        classWriter.visitField(Opcodes.ACC_PUBLIC, changed ? "changed" : "value", "I", null, null).visitEnd();
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    private static void assertSameJar(File expected, File actual) throws IOException {
+        try (ZipFile expectedZip = new ZipFile(expected); ZipFile actualZip = new ZipFile(actual)) {
+            List<String> expectedNames = names(expectedZip);
+            assertEquals(expectedNames, names(actualZip));
+            for (String name : expectedNames) {
+                assertArrayEquals(name, read(expectedZip, name), read(actualZip, name));
+            }
+        }
+        assertArrayEquals(FileUtils.readFileToByteArray(expected), FileUtils.readFileToByteArray(actual));
+    }
+
+    private static List<String> names(ZipFile zip) {
+        List<String> names = new ArrayList<>();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            names.add(entries.nextElement().getName());
+        }
+        return names;
+    }
+
+    private static byte[] read(ZipFile zip, String name) throws IOException {
+        try (InputStream inputStream = zip.getInputStream(zip.getEntry(name))) {
+            return org.apache.commons.io.IOUtils.toByteArray(inputStream);
+        }
+    }
+
+    private static List<String> listNames(File dir) {
+        List<String> names = new ArrayList<>();
+        Collections.addAll(names, dir.list());
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Adds a field to every woven class, and counts the classes it weaves.
+     */
+    private static final class CountingWeaver extends BaseWeaver {
+        final AtomicInteger woven = new AtomicInteger();
+
+        @Override
+        public byte[] weaveSingleClassToByteArray(InputStream inputStream) throws IOException {
+            woven.incrementAndGet();
+            return super.weaveSingleClassToByteArray(inputStream);
+        }
+
+        @Override
+        protected ClassVisitor wrapClassWriter(ClassWriter classWriter) {
+            return new ClassVisitor(Opcodes.ASM7, classWriter) {
+                @Override
+                public void visitEnd() {
+                    visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "woven", "Z", null, null).visitEnd();
+                    super.visitEnd();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.quinn.hunter.transform.asm;
+
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Common super classes resolved by {@link ClassHierarchy}, the results are the ones of ExtendClassWriter before
+ * the hierarchy was shared, which read every class again from the class loader.
+ */
+public class ClassHierarchyTest {
+
+    private static final String OBJECT = "java/lang/Object";
+
+    /**
+     * type1, type2, common super class
+     */
+    private static final String[][] CASES = {
+            {name(B.class), name(C.class), name(A.class)},
+            {name(B.class), name(A.class), name(A.class)},
+            {name(A.class), name(B.class), name(A.class)},
+            {name(B.class), name(B.class), name(B.class)},
+            {name(A.class), name(E.class), OBJECT},
+            {name(B.class), OBJECT, OBJECT},
+            {null, name(B.class), OBJECT},
+            // interface first or second, implemented directly, by super class or by super interface
+            {name(I.class), name(A.class), name(I.class)},
+            {name(A.class), name(I.class), name(I.class)},
+            {name(I.class), name(C.class), name(I.class)},
+            {name(I.class), name(D.class), name(I.class)},
+            {name(J.class), name(I.class), name(I.class)},
+            {name(I.class), name(J.class), name(I.class)},
+            {name(J.class), name(A.class), OBJECT},
+            {name(I.class), name(E.class), OBJECT},
+            {name(E.class), name(J.class), OBJECT},
+            {name(I.class), name(K.class), OBJECT},
+            // classes of the JDK
+            {"java/util/ArrayList", "java/util/LinkedList", "java/util/AbstractList"},
+            {"java/lang/Integer", "java/lang/Long", "java/lang/Number"},
+            {"java/util/ArrayList", "java/util/HashMap", "java/lang/Object"},
+            {"java/util/List", "java/util/ArrayList", "java/util/List"},
+            {"java/util/Collection", "java/util/List", "java/util/Collection"},
+            {"java/lang/Runnable", "java/lang/Thread", "java/lang/Runnable"},
+            // classes not found
+            {"com/example/Missing", name(A.class), OBJECT},
+            {name(I.class), "com/example/Missing", OBJECT},
+    };
+
+    @Test
+    public void resolvesCommonSuperClasses() {
+        ClassHierarchy hierarchy = new ClassHierarchy(getClass().getClassLoader());
+        for (int round = 0; round < 2; round++) {
+            for (String[] c : CASES) {
+                assertEquals(c[0] + ", " + c[1], c[2], hierarchy.getCommonSuperClass(c[0], c[1]));
+            }
+        }
+    }
+
+    @Test
+    public void writerWithClassLoaderResolvesTheSame() {
+        ExtendClassWriter writer = new ExtendClassWriter(getClass().getClassLoader(), ClassWriter.COMPUTE_FRAMES);
+        for (String[] c : CASES) {
+            assertEquals(c[0] + ", " + c[1], c[2], writer.getCommonSuperClass(c[0], c[1]));
+        }
+    }
+
+    @Test
+    public void readsEachClassOnce() {
+        CountingClassLoader classLoader = new CountingClassLoader(getClass().getClassLoader());
+        ClassHierarchy hierarchy = new ClassHierarchy(classLoader);
+        for (int i = 0; i < 3; i++) {
+            for (String[] c : CASES) {
+                hierarchy.getCommonSuperClass(c[0], c[1]);
+            }
+        }
+        assertTrue(classLoader.reads.size() > 0);
+        for (Map.Entry<String, Integer> entry : classLoader.reads.entrySet()) {
+            assertEquals(entry.getKey(), Integer.valueOf(1), entry.getValue());
+        }
+    }
+
+    @Test
+    public void weaverComputingFramesMergesWithHierarchy() throws IOException {
+        BaseWeaver weaver = new BaseWeaver() {
+            @Override
+            protected int getClassWriterFlags() {
+                return ClassWriter.COMPUTE_FRAMES;
+            }
+        };
+        weaver.setClassLoader(getClass().getClassLoader());
+        String resource = name(Merge.class) + ".class";
+        byte[] woven;
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(resource)) {
+            woven = weaver.weaveSingleClassToByteArray(inputStream);
+        }
+
+        // B and C meet after the branch, the recomputed frame holds their common super class
+        assertTrue(frameLocals(woven, "pick").contains(name(A.class)));
+    }
+
+    private static List<Object> frameLocals(byte[] bytes, final String method) throws IOException {
+        final List<Object> locals = new ArrayList<>();
+        new ClassReader(new ByteArrayInputStream(bytes)).accept(new ClassVisitor(Opcodes.ASM7) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                             String[] exceptions) {
+                if (!name.equals(method)) {
+                    return null;
+                }
+                return new MethodVisitor(Opcodes.ASM7) {
+                    @Override
+                    public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+                        for (int i = 0; i < numLocal; i++) {
+                            locals.add(local[i]);
+                        }
+                    }
+                };
+            }
+        }, 0);
+        return locals;
+    }
+
+    private static String name(Class<?> clazz) {
+        return clazz.getName().replace('.', '/');
+    }
+
+    private static final class CountingClassLoader extends ClassLoader {
+        final Map<String, Integer> reads = new HashMap<>();
+
+        CountingClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        public InputStream getResourceAsStream(String name) {
+            Integer count = reads.get(name);
+            reads.put(name, count == null ? 1 : count + 1);
+            return super.getResourceAsStream(name);
+        }
+    }
+
+    interface I {
+    }
+
+    interface J extends I {
+    }
+
+    interface K {
+    }
+
+    static class A implements I {
+    }
+
+    static class B extends A {
+    }
+
+    static class C extends A {
+    }
+
+    static class D implements J {
+    }
+
+    static class E {
+    }
+
+    static class Merge {
+        static Object pick(boolean first) {
+            Object picked;
+            if (first) {
+                picked = new B();
+            } else {
+                picked = new C();
+            }
+            return picked;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.quinn.hunter.transform.asm;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Time of {@link BaseWeaver#weaveJar(File, File)} for one jar, to compare the number of processors. Not a unit test,
+ * run the main method once per processor count:
+ * <pre>
+ * java -XX:ActiveProcessorCount=4 -cp ... com.quinn.hunter.transform.asm.WeaveJarBenchmark [input jar] [rounds]
+ * </pre>
+ * Without input jar, a jar of 10000 generated classes is woven.
+ */
+public class WeaveJarBenchmark {
+
+    private static final int CLASSES = 10000;
+    private static final int METHODS = 20;
+
+    public static void main(String[] args) throws IOException {
+        File input;
+        if (args.length > 0) {
+            input = new File(args[0]);
+        } else {
+            input = File.createTempFile("weave-benchmark", ".jar");
+            input.deleteOnExit();
+            generate(input);
+        }
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        File output = File.createTempFile("weave-benchmark-out", ".jar");
+        output.deleteOnExit();
+        BaseWeaver weaver = new BaseWeaver() {
+        };
+        weaver.setClassLoader(WeaveJarBenchmark.class.getClassLoader());
+
+        long[] millis = new long[rounds];
+        for (int i = -3; i < rounds; i++) {
+            long start = System.nanoTime();
+            weaver.weaveJar(input, output);
+            if (i >= 0) {
+                millis[i] = (System.nanoTime() - start) / 1000000;
+            }
+        }
+        Arrays.sort(millis);
+        System.out.println("processors " + Runtime.getRuntime().availableProcessors() + ", " + input.length() / 1024
+                + "KB, median " + millis[rounds / 2] + "ms, " + Arrays.toString(millis));
+    }
+
+    private static void generate(File jar) throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (int i = 0; i < CLASSES; i++) {
+                String name = "com/example/bench/C" + i;
+                out.putNextEntry(new ZipEntry(name + ".class"));
+                out.write(newClass(name));
+                out.closeEntry();
+            }
+        }
+    }
+
+    private static byte[] newClass(String name) {
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        classWriter.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        for (int m = 0; m < METHODS; m++) {
+            MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "m" + m,
+                    "(Ljava/lang/String;I)Ljava/lang/String;", null, null);
+            mv.visitCode();
+            mv.visitTypeInsn(Opcodes.NEW, "java/lang/StringBuilder");
+            mv.visitInsn(Opcodes.DUP);
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "()V", false);
+            mv.visitVarInsn(Opcodes.ALOAD, 0);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "append",
+                    "(Ljava/lang/String;)Ljava/lang/StringBuilder;", false);
+            mv.visitVarInsn(Opcodes.ILOAD, 1);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "append",
+                    "(I)Ljava/lang/StringBuilder;", false);
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/StringBuilder", "toString",
+                    "()Ljava/lang/String;", false);
+            mv.visitInsn(Opcodes.ARETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+}
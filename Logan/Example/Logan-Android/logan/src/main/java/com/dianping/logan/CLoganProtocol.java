@@ -22,6 +22,7 @@
 
 package com.dianping.logan;
 
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -87,6 +88,13 @@ class CLoganProtocol implements LoganProtocolHandler {
     private native int clogan_write(int flag, String log, long local_time, String thread_name,
             long thread_id, int is_main);
 
+    /**
+     * @param buffer 打包好的多条日志，必须是direct ByteBuffer
+     * @param length 有效数据长度
+     * @return 全部成功返回写入成功，否则返回第一个失败的状态码
+     */
+    private native int clogan_write_batch(ByteBuffer buffer, int length);
+
     private native void clogan_flush();
 
     @Override
@@ -178,6 +186,23 @@ class CLoganProtocol implements LoganProtocolHandler {
         }
     }
 
+    @Override
+    public void logan_write_batch(ByteBuffer buffer, int length) {
+        if (!mIsLoganOpen || !sIsCloganOk || length <= 0) {
+            return;
+        }
+        try {
+            int code = clogan_write_batch(buffer, length);
+            if (code != ConstantCode.CloganStatus.CLOGAN_WRITE_SUCCESS || Logan.sDebug) {
+                loganStatusCode(ConstantCode.CloganStatus.CLOGAN_WRITE_STATUS, code);
+            }
+        } catch (UnsatisfiedLinkError e) {
+            e.printStackTrace();
+            loganStatusCode(ConstantCode.CloganStatus.CLOGAN_WRITE_STATUS,
+                    ConstantCode.CloganStatus.CLOGAN_WRITE_FAIL_JNI);
+        }
+    }
+
     private void loganStatusCode(String cmd, int code) {
         if (code < 0) {
             if (ConstantCode.CloganStatus.CLOGAN_WRITE_STATUS.endsWith(cmd)
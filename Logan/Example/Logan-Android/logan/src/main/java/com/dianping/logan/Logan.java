@@ -139,6 +139,16 @@ public class Logan {
         return allFilesInfo;
     }
 
+    /**
+     * @brief 返回因队列溢出被丢弃的日志条数
+     */
+    public static long getDroppedLogCount() {
+        if (sLoganControlCenter == null) {
+            throw new RuntimeException("Please initialize Logan first");
+        }
+        return sLoganControlCenter.getDroppedCount();
+    }
+
     /**
      * @brief Logan Debug开关
      */
@@ -32,6 +32,20 @@ public class LoganConfig {
     private static final long DEFAULT_FILE_SIZE = 10 * M;
     private static final long DEFAULT_MIN_SDCARD_SIZE = 50 * M; //最小的SD卡小于这个大小不写入
     private static final int DEFAULT_QUEUE = 500;
+    private static final int DEFAULT_SAMPLE_RATE = 10;
+
+    /**
+     * 队列满时丢弃新日志(默认)
+     */
+    public static final int OVERFLOW_DROP_NEWEST = 0;
+    /**
+     * 队列满时丢弃最早的日志
+     */
+    public static final int OVERFLOW_DROP_OLDEST = 1;
+    /**
+     * 队列过半后按1/sampleRate采样写入，满时丢弃新日志
+     */
+    public static final int OVERFLOW_SAMPLE = 2;
 
     String mCachePath; //mmap缓存路径
     String mPathPath; //file文件路径
@@ -39,6 +53,8 @@ public class LoganConfig {
     long mMaxFile = DEFAULT_FILE_SIZE; //删除文件最大值
     long mDay = DEFAULT_DAY; //删除天数
     long mMaxQueue = DEFAULT_QUEUE;
+    int mOverflowPolicy = OVERFLOW_DROP_NEWEST; //队列溢出策略
+    int mSampleRate = DEFAULT_SAMPLE_RATE; //采样策略下的采样间隔
     long mMinSDCard = DEFAULT_MIN_SDCARD_SIZE; //最小sdk卡大小
 
     byte[] mEncryptKey16; //128位aes加密Key
@@ -77,6 +93,18 @@ public class LoganConfig {
         mMinSDCard = minSDCard;
     }
 
+    private void setMaxQueue(long maxQueue) {
+        mMaxQueue = maxQueue;
+    }
+
+    private void setOverflowPolicy(int overflowPolicy) {
+        mOverflowPolicy = overflowPolicy;
+    }
+
+    private void setSampleRate(int sampleRate) {
+        mSampleRate = sampleRate;
+    }
+
     private void setEncryptKey16(byte[] encryptKey16) {
         mEncryptKey16 = encryptKey16;
     }
@@ -93,6 +121,9 @@ public class LoganConfig {
         byte[] mEncryptKey16; //128位ase加密Key
         byte[] mEncryptIv16; //128位aes加密IV
         long mMinSDCard = DEFAULT_MIN_SDCARD_SIZE;
+        long mMaxQueue = DEFAULT_QUEUE;
+        int mOverflowPolicy = OVERFLOW_DROP_NEWEST;
+        int mSampleRate = DEFAULT_SAMPLE_RATE;
 
         public Builder setCachePath(String cachePath) {
             mCachePath = cachePath;
@@ -129,6 +160,31 @@ public class LoganConfig {
             return this;
         }
 
+        /**
+         * @param maxQueue 日志队列容量，会向上取整为2的幂
+         */
+        public Builder setMaxQueue(long maxQueue) {
+            this.mMaxQueue = maxQueue;
+            return this;
+        }
+
+        /**
+         * @param overflowPolicy {@link #OVERFLOW_DROP_NEWEST}、{@link #OVERFLOW_DROP_OLDEST}
+         *                       或{@link #OVERFLOW_SAMPLE}
+         */
+        public Builder setOverflowPolicy(int overflowPolicy) {
+            this.mOverflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * @param sampleRate 采样策略下每sampleRate条日志保留1条
+         */
+        public Builder setSampleRate(int sampleRate) {
+            this.mSampleRate = sampleRate;
+            return this;
+        }
+
         public LoganConfig build() {
             LoganConfig config = new LoganConfig();
             config.setCachePath(mCachePath);
@@ -136,6 +192,9 @@ public class LoganConfig {
             config.setMaxFile(mMaxFile);
             config.setMinSDCard(mMinSDCard);
             config.setDay(mDay);
+            config.setMaxQueue(mMaxQueue);
+            config.setOverflowPolicy(mOverflowPolicy);
+            config.setSampleRate(mSampleRate);
             config.setEncryptKey16(mEncryptKey16);
             config.setEncryptIV16(mEncryptIv16);
             return config;
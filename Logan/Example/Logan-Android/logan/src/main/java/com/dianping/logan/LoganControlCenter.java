@@ -28,19 +28,18 @@ import android.text.TextUtils;
 import java.io.File;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 class LoganControlCenter {
 
     private static LoganControlCenter sLoganControlCenter;
 
-    private ConcurrentLinkedQueue<LoganModel> mCacheLogQueue = new ConcurrentLinkedQueue<>();
+    private LoganQueue<LoganModel> mCacheLogQueue = new LoganQueue<>(); //发送、flush等控制动作
+    private LoganRingBuffer mLogRing; //待写入的日志
     private String mCachePath; // 缓存文件路径
     private String mPath; //文件路径
     private long mSaveTime; //存储时间
     private long mMaxLogFile;//最大文件大小
     private long mMinSDCard;
-    private long mMaxQueue; //最大队列数
     private String mEncryptKey16;
     private String mEncryptIv16;
     private LoganThread mLoganThread;
@@ -56,7 +55,8 @@ class LoganControlCenter {
         mSaveTime = config.mDay;
         mMinSDCard = config.mMinSDCard;
         mMaxLogFile = config.mMaxFile;
-        mMaxQueue = config.mMaxQueue;
+        mLogRing = new LoganRingBuffer((int) Math.min(config.mMaxQueue, 1 << 20),
+                config.mOverflowPolicy, config.mSampleRate);
         mEncryptKey16 = new String(config.mEncryptKey16);
         mEncryptIv16 = new String(config.mEncryptIv16);
 
@@ -65,7 +65,7 @@ class LoganControlCenter {
 
     private void init() {
         if (mLoganThread == null) {
-            mLoganThread = new LoganThread(mCacheLogQueue, mCachePath, mPath, mSaveTime,
+            mLoganThread = new LoganThread(mCacheLogQueue, mLogRing, mCachePath, mPath, mSaveTime,
                     mMaxLogFile, mMinSDCard, mEncryptKey16, mEncryptIv16);
             mLoganThread.setName("logan-thread");
             mLoganThread.start();
@@ -87,30 +87,21 @@ class LoganControlCenter {
         if (TextUtils.isEmpty(log)) {
             return;
         }
-        LoganModel model = new LoganModel();
-        model.action = LoganModel.Action.WRITE;
-        WriteAction action = new WriteAction();
-        String threadName = Thread.currentThread().getName();
-        long threadLog = Thread.currentThread().getId();
-        boolean isMain = false;
-        if (Looper.getMainLooper() == Looper.myLooper()) {
-            isMain = true;
-        }
-        action.log = log;
-        action.localTime = System.currentTimeMillis();
-        action.flag = flag;
-        action.isMainThread = isMain;
-        action.threadId = threadLog;
-        action.threadName = threadName;
-        model.writeAction = action;
-        if (mCacheLogQueue.size() < mMaxQueue) {
-            mCacheLogQueue.add(model);
+        Thread thread = Thread.currentThread();
+        boolean isMain = Looper.getMainLooper() == Looper.myLooper();
+        // 写入预分配的槽位，不再为每条日志创建LoganModel和WriteAction
+        if (mLogRing.offer(flag, log, System.currentTimeMillis(), thread.getName(),
+                thread.getId(), isMain)) {
             if (mLoganThread != null) {
                 mLoganThread.notifyRun();
             }
         }
     }
 
+    long getDroppedCount() {
+        return mLogRing.getDroppedCount();
+    }
+
     void send(String dates[], SendLogRunnable runnable) {
         if (TextUtils.isEmpty(mPath) || dates == null || dates.length == 0) {
             return;
@@ -127,7 +118,7 @@ class LoganControlCenter {
                 action.date = String.valueOf(time);
                 action.sendLogRunnable = runnable;
                 model.sendAction = action;
-                mCacheLogQueue.add(model);
+                mCacheLogQueue.offer(model);
                 if (mLoganThread != null) {
                     mLoganThread.notifyRun();
                 }
@@ -141,7 +132,7 @@ class LoganControlCenter {
         }
         LoganModel model = new LoganModel();
         model.action = LoganModel.Action.FLUSH;
-        mCacheLogQueue.add(model);
+        mCacheLogQueue.offer(model);
         if (mLoganThread != null) {
             mLoganThread.notifyRun();
         }
@@ -22,6 +22,8 @@
 
 package com.dianping.logan;
 
+import java.nio.ByteBuffer;
+
 class LoganProtocol implements LoganProtocolHandler {
 
     private static LoganProtocol sLoganProtocol;
@@ -59,6 +61,13 @@ class LoganProtocol implements LoganProtocolHandler {
         }
     }
 
+    @Override
+    public void logan_write_batch(ByteBuffer buffer, int length) {
+        if (mCurProtocol != null) {
+            mCurProtocol.logan_write_batch(buffer, length);
+        }
+    }
+
     @Override
     public void logan_open(String file_name) {
         if (mCurProtocol != null) {
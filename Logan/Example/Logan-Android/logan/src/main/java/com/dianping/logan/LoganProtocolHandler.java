@@ -22,6 +22,8 @@
 
 package com.dianping.logan;
 
+import java.nio.ByteBuffer;
+
 public interface LoganProtocolHandler {
 
     void logan_flush();
@@ -29,6 +31,11 @@ public interface LoganProtocolHandler {
     void logan_write(int flag, String log, long local_time, String thread_name,
             long thread_id, boolean is_main);
 
+    /**
+     * 批量写入，buffer为direct ByteBuffer，格式见{@link LoganWriteBatch}
+     */
+    void logan_write_batch(ByteBuffer buffer, int length);
+
     void logan_open(String file_name);
 
     void logan_init(String cache_path, String dir_path, int max_file, String encrypt_key_16,
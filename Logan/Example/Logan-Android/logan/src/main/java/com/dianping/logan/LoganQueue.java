@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018-present, 美团点评
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.dianping.logan;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * 多生产者单消费者的无锁队列
+ * <p>
+ * 生产者只做一次getAndSet和一次链接，不加锁、不自旋；poll只能由唯一的消费者线程(LoganThread)调用。
+ */
+class LoganQueue<E> {
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<LoganQueue, Node> TAIL_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(LoganQueue.class, Node.class, "mTail");
+
+    private final AtomicInteger mSize = new AtomicInteger();
+    private Node<E> mHead; // 只由消费者访问
+    private volatile Node<E> mTail;
+
+    LoganQueue() {
+        Node<E> stub = new Node<>(null);
+        mHead = stub;
+        mTail = stub;
+    }
+
+    /**
+     * 任意线程调用
+     */
+    @SuppressWarnings("unchecked")
+    void offer(E item) {
+        Node<E> node = new Node<>(item);
+        mSize.incrementAndGet();
+        Node<E> prev = TAIL_UPDATER.getAndSet(this, node);
+        prev.next = node;
+    }
+
+    /**
+     * 仅消费者线程调用
+     *
+     * @return 队首元素，队列为空或生产者尚未完成链接时返回null
+     */
+    E poll() {
+        Node<E> next = mHead.next;
+        if (next == null) {
+            return null;
+        }
+        E item = next.item;
+        next.item = null;
+        mHead = next;
+        mSize.decrementAndGet();
+        return item;
+    }
+
+    /**
+     * 仅消费者线程调用
+     */
+    boolean isEmpty() {
+        return mHead.next == null;
+    }
+
+    /**
+     * 近似大小，O(1)
+     */
+    int size() {
+        return mSize.get();
+    }
+
+    private static class Node<E> {
+        E item;
+        volatile Node<E> next;
+
+        Node(E item) {
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2018-present, 美团点评
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.dianping.logan;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 预分配的定长日志环形队列，槽位(WriteAction)循环复用，写日志不产生新对象
+ * <p>
+ * 基于每个槽位的序号做无锁的入队/出队：序号等于入队位置时槽位空闲，等于出队位置+1时已写好可读。
+ * 队列满时按{@link LoganConfig}中配置的溢出策略处理，被丢弃的日志计入丢弃计数。
+ */
+class LoganRingBuffer {
+
+    private final WriteAction[] mSlots;
+    private final AtomicLongArray mSequences;
+    private final int mMask;
+    private final int mOverflowPolicy;
+    private final int mSampleRate;
+
+    private final AtomicLong mHead = new AtomicLong();
+    private final AtomicLong mTail = new AtomicLong();
+    private final AtomicLong mDroppedCount = new AtomicLong();
+    private final AtomicLong mSampleCounter = new AtomicLong();
+
+    LoganRingBuffer(int capacity, int overflowPolicy, int sampleRate) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        mSlots = new WriteAction[size];
+        mSequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            mSlots[i] = new WriteAction();
+            mSequences.set(i, i);
+        }
+        mMask = size - 1;
+        mOverflowPolicy = overflowPolicy;
+        mSampleRate = Math.max(1, sampleRate);
+    }
+
+    /**
+     * 任意线程调用，不阻塞
+     *
+     * @return 是否入队，被溢出策略丢弃时返回false
+     */
+    boolean offer(int flag, String log, long localTime, String threadName, long threadId,
+            boolean isMainThread) {
+        if (mOverflowPolicy == LoganConfig.OVERFLOW_SAMPLE && size() >= capacity() / 2
+                && mSampleCounter.incrementAndGet() % mSampleRate != 0) {
+            mDroppedCount.incrementAndGet();
+            return false;
+        }
+        boolean discarded = false;
+        while (true) {
+            long pos = mTail.get();
+            int index = (int) (pos & mMask);
+            long diff = mSequences.get(index) - pos;
+            if (diff == 0) {
+                if (mTail.compareAndSet(pos, pos + 1)) {
+                    WriteAction slot = mSlots[index];
+                    slot.flag = flag;
+                    slot.log = log;
+                    slot.localTime = localTime;
+                    slot.threadName = threadName;
+                    slot.threadId = threadId;
+                    slot.isMainThread = isMainThread;
+                    slot.sequence = pos;
+                    mSequences.set(index, pos + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // 队列已满。每次最多丢弃一条旧日志；要写入的槽位正被消费者持有时丢弃别的槽位也腾不出位置，直接丢弃新日志
+                if (mOverflowPolicy == LoganConfig.OVERFLOW_DROP_OLDEST && !discarded
+                        && mHead.get() <= pos - mSlots.length && discardOldest()) {
+                    discarded = true;
+                    continue;
+                }
+                mDroppedCount.incrementAndGet();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 取出最早的一条日志，处理完后必须调用{@link #release(WriteAction)}归还槽位。
+     * 持有槽位期间队列对生产者来说是满的，应先把内容拷出再归还，不要持有槽位写文件
+     *
+     * @return 队列为空时返回null
+     */
+    WriteAction claim() {
+        while (true) {
+            long pos = mHead.get();
+            int index = (int) (pos & mMask);
+            long diff = mSequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (mHead.compareAndSet(pos, pos + 1)) {
+                    return mSlots[index];
+                }
+            } else if (diff < 0) {
+                return null;
+            }
+        }
+    }
+
+    void release(WriteAction slot) {
+        slot.log = null;
+        slot.threadName = "";
+        mSequences.set((int) (slot.sequence & mMask), slot.sequence + mSlots.length);
+    }
+
+    boolean isEmpty() {
+        return mHead.get() >= mTail.get();
+    }
+
+    int size() {
+        return (int) Math.max(0, mTail.get() - mHead.get());
+    }
+
+    int capacity() {
+        return mSlots.length;
+    }
+
+    long getDroppedCount() {
+        return mDroppedCount.get();
+    }
+
+    private boolean discardOldest() {
+        WriteAction oldest = claim();
+        if (oldest == null) {
+            return false;
+        }
+        release(oldest);
+        mDroppedCount.incrementAndGet();
+        return true;
+    }
+}
@@ -35,6 +35,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
 
 class LoganThread extends Thread {
 
@@ -43,17 +44,20 @@ class LoganThread extends Thread {
     private static final long LONG = 24 * 60 * 60 * 1000;
     private static final int CACHE_SIZE = 1024;
 
-    private final Object sync = new Object();
     private final Object sendSync = new Object();
     private volatile boolean mIsRun = true;
 
     private long mCurrentDay;
-    private volatile boolean mIsWorking;
+    private volatile boolean mIsWaiting;
     private File mFileDirectory;
     private boolean mIsSDCard;
     private long mLastTime;
     private LoganProtocol mLoganProtocol;
-    private ConcurrentLinkedQueue<LoganModel> mCacheLogQueue;
+    private LoganQueue<LoganModel> mCacheLogQueue;
+    private LoganRingBuffer mLogRing;
+    private long mReportedDropCount;
+    private final LoganWriteBatch mWriteBatch = new LoganWriteBatch();
+    private final WriteAction mPendingAction = new WriteAction();
     private String mCachePath; // 缓存文件路径
     private String mPath; //文件路径
     private long mSaveTime; //存储时间
@@ -67,10 +71,11 @@ class LoganThread extends Thread {
     private ExecutorService mSingleThreadExecutor;
 
     LoganThread(
-            ConcurrentLinkedQueue<LoganModel> cacheLogQueue, String cachePath,
+            LoganQueue<LoganModel> cacheLogQueue, LoganRingBuffer logRing, String cachePath,
             String path, long saveTime, long maxLogFile, long minSDCard, String encryptKey16,
             String encryptIv16) {
         mCacheLogQueue = cacheLogQueue;
+        mLogRing = logRing;
         mCachePath = cachePath;
         mPath = path;
         mSaveTime = saveTime;
@@ -80,50 +85,105 @@ class LoganThread extends Thread {
         mEncryptIv16 = encryptIv16;
     }
 
+    /**
+     * 入队后调用，只有日志线程在等待时才需要唤醒，不加锁
+     */
     void notifyRun() {
-        if (!mIsWorking) {
-            synchronized (sync) {
-                sync.notify();
-            }
+        if (mIsWaiting) {
+            LockSupport.unpark(this);
         }
     }
 
     void quit() {
         mIsRun = false;
-        if (!mIsWorking) {
-            synchronized (sync) {
-                sync.notify();
-            }
-        }
+        LockSupport.unpark(this);
     }
 
     @Override
     public void run() {
         super.run();
         while (mIsRun) {
-            synchronized (sync) {
-                mIsWorking = true;
-                try {
-                    LoganModel model = mCacheLogQueue.poll();
-                    if (model == null) {
-                        mIsWorking = false;
-                        sync.wait();
-                        mIsWorking = true;
-                    } else {
-                        action(model);
-                    }
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                    mIsWorking = false;
+            // 先把已入队的日志写完，再处理发送、flush等动作，保证flush包含之前的日志
+            drainLogRing();
+            LoganModel model = mCacheLogQueue.poll();
+            while (model != null) {
+                action(model);
+                model = mCacheLogQueue.poll();
+            }
+            reportDropped();
+
+            // 先声明等待再检查队列，与notifyRun中先入队再检查mIsWaiting配合，不会丢失唤醒
+            mIsWaiting = true;
+            if (mIsRun && mCacheLogQueue.isEmpty() && mLogRing.isEmpty()) {
+                LockSupport.park(this);
+                Thread.interrupted(); // park不会清除中断标记，避免之后空转
+            }
+            mIsWaiting = false;
+        }
+        drainLogRing();
+    }
+
+    /**
+     * 每次最多取一圈，避免持续写日志时发送、flush动作得不到处理。
+     * 槽位内容拷进批量缓冲区(或暂存)后立即归还，写文件时不持有槽位，避免生产者把队列看成已满
+     */
+    private void drainLogRing() {
+        int count = mLogRing.capacity();
+        WriteAction slot;
+        while (count-- > 0 && (slot = mLogRing.claim()) != null) {
+            boolean pending = false;
+            try {
+                if (slot.isValid() && !mWriteBatch.add(slot)) {
+                    mPendingAction.copyFrom(slot);
+                    pending = true;
                 }
+            } finally {
+                mLogRing.release(slot);
+            }
+            if (pending) {
+                writePending();
             }
         }
+        doWriteBatch2File();
     }
 
-    private void action(LoganModel model) {
-        if (model == null || !model.isValid()) {
+    private void reportDropped() {
+        long dropped = mLogRing.getDroppedCount();
+        if (dropped != mReportedDropCount) {
+            if (Logan.sDebug) {
+                Log.d(TAG, "Logan queue overflow, dropped: " + (dropped - mReportedDropCount));
+            }
+            mReportedDropCount = dropped;
+        }
+    }
+
+    /**
+     * 批量缓冲区放不下暂存的日志：先写出当前批次再放入
+     */
+    private void writePending() {
+        doWriteBatch2File();
+        if (!mWriteBatch.add(mPendingAction)) {
+            // 单条日志超过了批量缓冲区，单独写入
+            doWriteLog2File(mPendingAction);
+        }
+        mPendingAction.log = null;
+        mPendingAction.threadName = "";
+    }
+
+    private void doWriteBatch2File() {
+        if (mWriteBatch.isEmpty()) {
             return;
         }
+        if (Logan.sDebug) {
+            Log.d(TAG, "Logan write batch start, count: " + mWriteBatch.count());
+        }
+        if (prepareWrite()) {
+            mLoganProtocol.logan_write_batch(mWriteBatch.buffer(), mWriteBatch.length());
+        }
+        mWriteBatch.clear();
+    }
+
+    private void ensureProtocol() {
         if (mLoganProtocol == null) {
             mLoganProtocol = LoganProtocol.newInstance();
             mLoganProtocol.setOnLoganProtocolStatus(new OnLoganProtocolStatus() {
@@ -136,6 +196,13 @@ class LoganThread extends Thread {
                     mEncryptIv16);
             mLoganProtocol.logan_debug(Logan.sDebug);
         }
+    }
+
+    private void action(LoganModel model) {
+        if (model == null || !model.isValid()) {
+            return;
+        }
+        ensureProtocol();
 
         if (model.action == LoganModel.Action.WRITE) {
             doWriteLog2File(model.writeAction);
@@ -198,6 +265,20 @@ class LoganThread extends Thread {
         if (Logan.sDebug) {
             Log.d(TAG, "Logan write start");
         }
+        if (!prepareWrite()) {
+            return;
+        }
+        mLoganProtocol.logan_write(action.flag, action.log, action.localTime, action.threadName,
+                action.threadId, action.isMainThread);
+    }
+
+    /**
+     * 写入前的检查：跨天切换文件、删除过期文件、判断存储空间
+     *
+     * @return 是否可以写入
+     */
+    private boolean prepareWrite() {
+        ensureProtocol();
         if (mFileDirectory == null) {
             mFileDirectory = new File(mPath);
         }
@@ -217,11 +298,7 @@ class LoganThread extends Thread {
         }
         mLastTime = System.currentTimeMillis();
 
-        if (!mIsSDCard) { //如果大于50M 不让再次写入
-            return;
-        }
-        mLoganProtocol.logan_write(action.flag, action.log, action.localTime, action.threadName,
-                action.threadId, action.isMainThread);
+        return mIsSDCard; //如果大于50M 不让再次写入
     }
 
     private void doSendLog2Net(SendAction action) {
@@ -246,8 +323,10 @@ class LoganThread extends Thread {
                         synchronized (sendSync) {
                             mSendLogStatusCode = statusCode;
                             if (statusCode == SendLogRunnable.FINISH) {
-                                mCacheLogQueue.addAll(mCacheSendQueue);
-                                mCacheSendQueue.clear();
+                                LoganModel model;
+                                while ((model = mCacheSendQueue.poll()) != null) {
+                                    mCacheLogQueue.offer(model);
+                                }
                                 notifyRun();
                             }
                         }
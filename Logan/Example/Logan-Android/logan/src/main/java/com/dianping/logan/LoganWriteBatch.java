@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2018-present, 美团点评
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.dianping.logan;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 批量写入的缓冲区，多条日志打包进一块复用的direct ByteBuffer，一次JNI调用写入
+ * <p>
+ * 每条日志的格式(本机字节序，与clogan_protocol.c保持一致)：
+ * flag(int) + is_main(int) + local_time(long) + thread_id(long) + log长度(int) + thread_name长度(int)
+ * + log + '\0' + thread_name + '\0'
+ * <p>
+ * 字符串按JNI的modified UTF-8编码，与单条写入时GetStringUTFChars的结果逐字节相同：
+ * U+0000编码为C0 80，不会截断native侧的C字符串；增补字符按代理对分别编码。
+ */
+class LoganWriteBatch {
+
+    static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4;
+    private static final int DEFAULT_CAPACITY = 64 * 1024;
+    private static final int MAX_THREAD_NAME_CACHE = 64;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer mBuffer;
+    private final Map<String, byte[]> mThreadNameCache = new HashMap<>();
+    private int mCount;
+
+    LoganWriteBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    LoganWriteBatch(int capacity) {
+        mBuffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * @return 放不下时返回false，调用方应先写出当前批次；空批次也放不下的超长日志需要单条写入
+     */
+    boolean add(WriteAction action) {
+        byte[] log = encode(action.log);
+        byte[] threadName = encodeThreadName(action.threadName);
+        int size = HEADER_SIZE + log.length + 1 + threadName.length + 1;
+        if (size > mBuffer.remaining()) {
+            return false;
+        }
+        mBuffer.putInt(action.flag);
+        mBuffer.putInt(action.isMainThread ? 1 : 0);
+        mBuffer.putLong(action.localTime);
+        mBuffer.putLong(action.threadId);
+        mBuffer.putInt(log.length);
+        mBuffer.putInt(threadName.length);
+        mBuffer.put(log).put((byte) 0);
+        mBuffer.put(threadName).put((byte) 0);
+        mCount++;
+        return true;
+    }
+
+    boolean isEmpty() {
+        return mCount == 0;
+    }
+
+    int count() {
+        return mCount;
+    }
+
+    int length() {
+        return mBuffer.position();
+    }
+
+    ByteBuffer buffer() {
+        return mBuffer;
+    }
+
+    void clear() {
+        mBuffer.clear();
+        mCount = 0;
+    }
+
+    /**
+     * 线程名重复率很高，缓存编码结果
+     */
+    private byte[] encodeThreadName(String threadName) {
+        if (threadName == null) {
+            threadName = "";
+        }
+        byte[] bytes = mThreadNameCache.get(threadName);
+        if (bytes == null) {
+            if (mThreadNameCache.size() >= MAX_THREAD_NAME_CACHE) {
+                mThreadNameCache.clear();
+            }
+            bytes = encode(threadName);
+            mThreadNameCache.put(threadName, bytes);
+        }
+        return bytes;
+    }
+
+    /**
+     * 不含'\0'和代理字符时modified UTF-8与标准UTF-8相同，直接用系统编码
+     */
+    static byte[] encode(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == 0 || Character.isSurrogate(c)) {
+                return encodeModifiedUtf8(value);
+            }
+        }
+        return value.getBytes(UTF_8);
+    }
+
+    private static byte[] encodeModifiedUtf8(String value) {
+        int length = value.length();
+        int size = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c != 0 && c < 0x80) {
+                size += 1;
+            } else if (c < 0x800) {
+                size += 2;
+            } else {
+                size += 3;
+            }
+        }
+        byte[] bytes = new byte[size];
+        int pos = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c != 0 && c < 0x80) {
+                bytes[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[pos++] = (byte) (0xC0 | (c >> 6));
+                bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                bytes[pos++] = (byte) (0xE0 | (c >> 12));
+                bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) 2018-present, 美团点评
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.dianping.logan;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSession;
+
+/**
+ * 分片上传日志文件
+ * <p>
+ * 文件按固定大小切片，先提交各分片的md5清单，服务端返回尚缺的分片，再并行上传这些分片，最后通知服务端合并。
+ * 上传中断后再次发送同一文件时，已上传的分片不会重传；当天日志文件增长后，未变化的分片同样可以复用。
+ */
+public class SendLogChunkRunnable extends SendLogRunnable {
+
+    private static final String TAG = "SendLogChunkRunnable";
+
+    private static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+    private static final int DEFAULT_PARALLELISM = 3;
+    private static final int DEFAULT_MAX_RETRY = 3;
+    private static final int RETRY_BACKOFF = 500;
+    private static final int TIMEOUT = 15000;
+    private static final int RESPONSE_SUCCESS = 200;
+
+    private final Map<String, String> mRequestHeaders = new HashMap<>();
+    private String mBaseUrl;
+    private int mChunkSize = DEFAULT_CHUNK_SIZE;
+    private int mParallelism = DEFAULT_PARALLELISM;
+    private int mMaxRetry = DEFAULT_MAX_RETRY;
+    private SendLogCallback mSendLogCallback;
+
+    private final AtomicLong mSentBytes = new AtomicLong();
+    private final AtomicLong mRetransmittedBytes = new AtomicLong();
+
+    @Override
+    public void sendLog(File logFile) {
+        mSentBytes.set(0);
+        mRetransmittedBytes.set(0);
+        HttpResult result = doChunkUpload(logFile);
+        if (Logan.sDebug) {
+            Log.d(TAG, "log chunk send completed, http statusCode : " + result.statusCode
+                    + ", sent bytes: " + mSentBytes.get() + ", retransmitted bytes: "
+                    + mRetransmittedBytes.get());
+        }
+        if (mSendLogCallback != null) {
+            mSendLogCallback.onLogSendCompleted(result.statusCode, result.data);
+        }
+        // Must Call finish after send log
+        finish();
+        if (logFile.getName().contains(".copy")) {
+            logFile.delete();
+        }
+    }
+
+    /**
+     * @param baseUrl 分片上传接口前缀，如 https://host/logan-web/logan/chunk
+     */
+    public void setUrl(String baseUrl) {
+        mBaseUrl = baseUrl;
+    }
+
+    public void setRequestHeader(Map<String, String> headers) {
+        mRequestHeaders.clear();
+        if (headers != null) {
+            mRequestHeaders.putAll(headers);
+        }
+    }
+
+    public void setSendLogCallback(SendLogCallback sendLogCallback) {
+        mSendLogCallback = sendLogCallback;
+    }
+
+    /**
+     * @param chunkSize 分片大小(字节)，服务端限制最大4M
+     */
+    public void setChunkSize(int chunkSize) {
+        mChunkSize = chunkSize;
+    }
+
+    /**
+     * @param parallelism 同时上传的分片数
+     */
+    public void setParallelism(int parallelism) {
+        mParallelism = parallelism;
+    }
+
+    /**
+     * @param maxRetry 单个分片失败后的重试次数
+     */
+    public void setMaxRetry(int maxRetry) {
+        mMaxRetry = maxRetry;
+    }
+
+    /**
+     * 最近一次发送实际上传的字节数，包括失败重传的部分
+     */
+    public long getSentBytes() {
+        return mSentBytes.get();
+    }
+
+    /**
+     * 最近一次发送中因失败而重传的字节数
+     */
+    public long getRetransmittedBytes() {
+        return mRetransmittedBytes.get();
+    }
+
+    private HttpResult doChunkUpload(File logFile) {
+        long fileSize = logFile.length();
+        if (fileSize <= 0 || mChunkSize <= 0) {
+            return HttpResult.FAILED;
+        }
+        List<String> chunkMd5s;
+        try {
+            chunkMd5s = computeChunkMd5s(logFile, mChunkSize);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return HttpResult.FAILED;
+        }
+
+        // 1. 提交清单，取得缺失的分片
+        Map<String, String> initHeaders = new HashMap<>(mRequestHeaders);
+        initHeaders.put("fileSize", String.valueOf(fileSize));
+        initHeaders.put("chunkSize", String.valueOf(mChunkSize));
+        StringBuilder manifest = new StringBuilder(chunkMd5s.size() * 33);
+        for (String md5 : chunkMd5s) {
+            manifest.append(md5).append('\n');
+        }
+        byte[] manifestBytes = manifest.toString().getBytes();
+        HttpResult init = post(mBaseUrl + "/init.json", initHeaders, manifestBytes, manifestBytes.length);
+        JSONObject initData = parseData(init);
+        if (initData == null) {
+            return init;
+        }
+        final String uploadId = initData.optString("uploadId");
+        List<Integer> missing = new ArrayList<>();
+        JSONArray array = initData.optJSONArray("missing");
+        for (int i = 0; array != null && i < array.length(); i++) {
+            missing.add(array.optInt(i));
+        }
+
+        // 2. 并行上传缺失的分片
+        HttpResult failed = uploadChunks(logFile, fileSize, uploadId, chunkMd5s, missing);
+        if (failed != null) {
+            return failed;
+        }
+
+        // 3. 合并
+        Map<String, String> completeHeaders = new HashMap<>(mRequestHeaders);
+        completeHeaders.put("uploadId", uploadId);
+        return post(mBaseUrl + "/complete.json", completeHeaders, new byte[0], 0);
+    }
+
+    /**
+     * @return 全部成功返回null，否则返回最后一个失败的结果
+     */
+    private HttpResult uploadChunks(final File logFile, final long fileSize, final String uploadId,
+            final List<String> chunkMd5s, List<Integer> missing) {
+        if (missing.isEmpty()) {
+            return null;
+        }
+        final AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(mParallelism, missing.size())), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r, "logan-thread-send-chunk-" + threadCount.incrementAndGet());
+                    }
+                });
+        try {
+            List<Future<HttpResult>> futures = new ArrayList<>(missing.size());
+            for (final Integer index : missing) {
+                futures.add(executor.submit(new Callable<HttpResult>() {
+                    @Override
+                    public HttpResult call() throws Exception {
+                        return uploadChunk(logFile, fileSize, uploadId, index, chunkMd5s.get(index));
+                    }
+                }));
+            }
+            HttpResult failed = null;
+            for (Future<HttpResult> future : futures) {
+                try {
+                    HttpResult result = future.get();
+                    if (parseData(result) == null) {
+                        failed = result;
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    failed = HttpResult.FAILED;
+                }
+            }
+            return failed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private HttpResult uploadChunk(File logFile, long fileSize, String uploadId, int index,
+            String md5) throws IOException {
+        long offset = (long) index * mChunkSize;
+        int length = (int) Math.min(mChunkSize, fileSize - offset);
+        byte[] data = new byte[length];
+        RandomAccessFile file = new RandomAccessFile(logFile, "r");
+        try {
+            file.seek(offset);
+            file.readFully(data);
+        } finally {
+            file.close();
+        }
+        Map<String, String> headers = new HashMap<>(mRequestHeaders);
+        headers.put("uploadId", uploadId);
+        headers.put("chunkIndex", String.valueOf(index));
+        headers.put("chunkMd5", md5);
+        HttpResult result = HttpResult.FAILED;
+        for (int attempt = 0; attempt <= mMaxRetry; attempt++) {
+            if (attempt > 0) {
+                mRetransmittedBytes.addAndGet(length);
+                try {
+                    Thread.sleep(RETRY_BACKOFF * attempt);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return result;
+                }
+            }
+            result = post(mBaseUrl + "/part.json", headers, data, length);
+            if (parseData(result) != null) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    private static List<String> computeChunkMd5s(File file, int chunkSize)
+            throws IOException, NoSuchAlgorithmException {
+        List<String> md5s = new ArrayList<>();
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        byte[] buffer = new byte[8 * 1024];
+        InputStream in = new FileInputStream(file);
+        try {
+            int inChunk = 0;
+            int count;
+            while ((count = in.read(buffer, 0, Math.min(buffer.length, chunkSize - inChunk))) != -1) {
+                digest.update(buffer, 0, count);
+                inChunk += count;
+                if (inChunk == chunkSize) {
+                    md5s.add(toHex(digest.digest()));
+                    inChunk = 0;
+                }
+            }
+            if (inChunk > 0) {
+                md5s.add(toHex(digest.digest()));
+            }
+        } finally {
+            in.close();
+        }
+        return md5s;
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Integer.toString((b & 0xff) + 0x100, 16).substring(1));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return 接口返回成功时的data对象，否则返回null
+     */
+    private static JSONObject parseData(HttpResult result) {
+        if (!result.isSuccess() || result.data == null) {
+            return null;
+        }
+        try {
+            JSONObject response = new JSONObject(new String(result.data));
+            if (response.optInt("code") != RESPONSE_SUCCESS) {
+                return null;
+            }
+            JSONObject data = response.optJSONObject("data");
+            return data != null ? data : new JSONObject();
+        } catch (JSONException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private HttpResult post(String url, Map<String, String> headers, byte[] body, int length) {
+        HttpURLConnection c = null;
+        int statusCode = -1;
+        byte[] data = null;
+        try {
+            c = (HttpURLConnection) new URL(url).openConnection();
+            if (c instanceof HttpsURLConnection) {
+                ((HttpsURLConnection) c).setHostnameVerifier(new HostnameVerifier() {
+                    @Override
+                    public boolean verify(String hostname, SSLSession session) {
+                        return true;
+                    }
+                });
+            }
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                c.addRequestProperty(entry.getKey(), entry.getValue());
+            }
+            c.setReadTimeout(TIMEOUT);
+            c.setConnectTimeout(TIMEOUT);
+            c.setDoInput(true);
+            c.setDoOutput(true);
+            c.setRequestMethod("POST");
+            c.setFixedLengthStreamingMode(length);
+            OutputStream outputStream = c.getOutputStream();
+            try {
+                mSentBytes.addAndGet(length);
+                outputStream.write(body, 0, length);
+                outputStream.flush();
+            } finally {
+                outputStream.close();
+            }
+            statusCode = c.getResponseCode();
+            if (statusCode / 100 == 2) {
+                InputStream inputStream = c.getInputStream();
+                try {
+                    ByteArrayOutputStream back = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[2048];
+                    int i;
+                    while ((i = inputStream.read(buffer)) != -1) {
+                        back.write(buffer, 0, i);
+                    }
+                    data = back.toByteArray();
+                } finally {
+                    inputStream.close();
+                }
+            }
+        } catch (IOException e) {
+            if (Logan.sDebug) {
+                Log.d(TAG, "post " + url + " failed: " + e);
+            }
+            statusCode = -1;
+        } finally {
+            if (c != null) {
+                c.disconnect();
+            }
+        }
+        return new HttpResult(statusCode, data);
+    }
+
+    private static class HttpResult {
+        static final HttpResult FAILED = new HttpResult(-1, null);
+
+        final int statusCode;
+        final byte[] data;
+
+        HttpResult(int statusCode, byte[] data) {
+            this.statusCode = statusCode;
+            this.data = data;
+        }
+
+        boolean isSuccess() {
+            return statusCode / 100 == 2;
+        }
+    }
+}
@@ -38,6 +38,17 @@ class WriteAction {
 
     int flag;
 
+    long sequence; //在环形队列中的位置
+
+    void copyFrom(WriteAction other) {
+        log = other.log;
+        isMainThread = other.isMainThread;
+        threadId = other.threadId;
+        threadName = other.threadName;
+        localTime = other.localTime;
+        flag = other.flag;
+    }
+
     boolean isValid() {
         boolean valid = false;
         if (!TextUtils.isEmpty(log)) {
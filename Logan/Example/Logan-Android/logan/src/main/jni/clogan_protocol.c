@@ -20,7 +20,14 @@
  * THE SOFTWARE.
  */
 
+#include <string.h>
 #include "clogan_protocol.h"
+#include <clogan_status.h>
+
+/**
+ * 与LoganWriteBatch中每条日志的头部一致，本机字节序
+ */
+#define CLOGAN_BATCH_HEADER_SIZE 32
 
 JNIEXPORT jint JNICALL
 Java_com_dianping_logan_CLoganProtocol_clogan_1write(JNIEnv *env, jobject instance, jint flag,
@@ -38,6 +45,48 @@ Java_com_dianping_logan_CLoganProtocol_clogan_1write(JNIEnv *env, jobject instan
 
 }
 
+JNIEXPORT jint JNICALL
+Java_com_dianping_logan_CLoganProtocol_clogan_1write_1batch(JNIEnv *env, jobject instance,
+                                                           jobject buffer, jint length) {
+    char *data = (char *) (*env)->GetDirectBufferAddress(env, buffer);
+    jlong capacity = (*env)->GetDirectBufferCapacity(env, buffer);
+    if (NULL == data || length < 0 || capacity < length) {
+        return CLOGAN_WRITE_FAIL_PARAM;
+    }
+
+    jint code = CLOGAN_WRITE_SUCCESS;
+    char *cursor = data;
+    char *end = data + length;
+    while (end - cursor >= CLOGAN_BATCH_HEADER_SIZE) {
+        jint flag, is_main, log_len, thread_name_len;
+        jlong local_time, thread_id;
+        // 头部字段不保证对齐，用memcpy读取
+        memcpy(&flag, cursor, 4);
+        memcpy(&is_main, cursor + 4, 4);
+        memcpy(&local_time, cursor + 8, 8);
+        memcpy(&thread_id, cursor + 16, 8);
+        memcpy(&log_len, cursor + 24, 4);
+        memcpy(&thread_name_len, cursor + 28, 4);
+        cursor += CLOGAN_BATCH_HEADER_SIZE;
+
+        if (log_len < 0 || thread_name_len < 0
+            || end - cursor < (jlong) log_len + thread_name_len + 2) {
+            return CLOGAN_WRITE_FAIL_PARAM;
+        }
+        // 字符串在Java侧已经以'\0'结尾，直接引用缓冲区，不再拷贝
+        char *log = cursor;
+        cursor += log_len + 1;
+        char *thread_name = cursor;
+        cursor += thread_name_len + 1;
+
+        int back = clogan_write(flag, log, local_time, thread_name, thread_id, is_main);
+        if (back != CLOGAN_WRITE_SUCCESS && code == CLOGAN_WRITE_SUCCESS) {
+            code = (jint) back;
+        }
+    }
+    return code;
+}
+
 JNIEXPORT jint JNICALL
 Java_com_dianping_logan_CLoganProtocol_clogan_1init(JNIEnv *env, jobject instance,
                                                     jstring cache_path_,
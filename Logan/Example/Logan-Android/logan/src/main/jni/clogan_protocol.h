@@ -38,6 +38,13 @@ Java_com_dianping_logan_CLoganProtocol_clogan_1write(JNIEnv *env, jobject instan
                                                           jint flag, jstring log_,
                                                           jlong local_time, jstring thread_name_,
                                                           jlong thread_id, jint ismain);
+/**
+ * JNI batch write interface
+ */
+JNIEXPORT jint JNICALL
+Java_com_dianping_logan_CLoganProtocol_clogan_1write_1batch(JNIEnv *env, jobject instance,
+                                                                jobject buffer, jint length);
+
 /**
  * JNI init interface
  */
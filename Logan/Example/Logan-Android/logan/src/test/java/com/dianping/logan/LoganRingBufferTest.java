@@ -0,0 +1,122 @@
+package com.dianping.logan;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 环形队列在DROP_OLDEST策略下的丢弃行为
+ */
+public class LoganRingBufferTest {
+
+    @Test
+    public void fullRingDropsOnlyTheOldest() {
+        LoganRingBuffer ring = newRing(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(offer(ring, i));
+        }
+        assertTrue(offer(ring, 4));
+        assertEquals(1, ring.getDroppedCount());
+        assertEquals(list(1, 2, 3, 4), drain(ring));
+    }
+
+    @Test
+    public void heldTailSlotDropsTheNewest() {
+        LoganRingBuffer ring = newRing(4);
+        for (int i = 0; i < 4; i++) {
+            offer(ring, i);
+        }
+        // 消费者取走最早的一条但还没归还，生产者要写的正是这个槽位
+        WriteAction held = ring.claim();
+        assertEquals("0", held.log);
+
+        assertFalse(offer(ring, 4));
+        assertEquals(1, ring.getDroppedCount());
+        assertEquals(3, ring.size());
+
+        ring.release(held);
+        assertTrue(offer(ring, 5));
+        assertEquals(list(1, 2, 3, 5), drain(ring));
+        assertEquals(1, ring.getDroppedCount());
+    }
+
+    @Test
+    public void slowConsumerLosesAtMostOneLinePerOffer() throws Exception {
+        final int total = 20000;
+        final LoganRingBuffer ring = newRing(64);
+        final List<Integer> consumed = new ArrayList<>();
+        final AtomicBoolean producing = new AtomicBoolean(true);
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                int count = 0;
+                while (producing.get() || !ring.isEmpty()) {
+                    WriteAction slot = ring.claim();
+                    if (slot == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    try {
+                        consumed.add(Integer.valueOf(slot.log));
+                        if (++count % 16 == 0) {
+                            // 持有槽位时慢速写文件
+                            Thread.sleep(1);
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    } finally {
+                        ring.release(slot);
+                    }
+                }
+            }
+        });
+        consumer.start();
+
+        for (int i = 0; i < total; i++) {
+            long before = ring.getDroppedCount();
+            offer(ring, i);
+            assertTrue(ring.getDroppedCount() - before <= 1);
+        }
+        producing.set(false);
+        consumer.join();
+
+        assertNull(ring.claim());
+        assertEquals(total, consumed.size() + ring.getDroppedCount());
+        for (int i = 1; i < consumed.size(); i++) {
+            assertTrue(consumed.get(i) > consumed.get(i - 1));
+        }
+    }
+
+    private static LoganRingBuffer newRing(int capacity) {
+        return new LoganRingBuffer(capacity, LoganConfig.OVERFLOW_DROP_OLDEST, 1);
+    }
+
+    private static boolean offer(LoganRingBuffer ring, int value) {
+        return ring.offer(1, String.valueOf(value), value, "main", 1, true);
+    }
+
+    private static List<Integer> drain(LoganRingBuffer ring) {
+        List<Integer> result = new ArrayList<>();
+        WriteAction slot;
+        while ((slot = ring.claim()) != null) {
+            result.add(Integer.valueOf(slot.log));
+            ring.release(slot);
+        }
+        return result;
+    }
+
+    private static List<Integer> list(int... values) {
+        List<Integer> result = new ArrayList<>();
+        for (int value : values) {
+            result.add(value);
+        }
+        return result;
+    }
+}
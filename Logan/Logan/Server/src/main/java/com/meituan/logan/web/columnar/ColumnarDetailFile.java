@@ -0,0 +1,62 @@
+package com.meituan.logan.web.columnar;
+
+/**
+ * 列存文件的格式常量与详情ID编码
+ *
+ * <p>文件由若干块和一个尾部目录组成：块内按日志时间排序，类型、时间、内容三列分别压缩；
+ * 尾部目录记录每块的行号范围、时间最大最小值、类型位图以及各列的位置。</p>
+ *
+ * <p>列存的详情没有数据库ID，ID由任务ID与行号拼成，并置上第52位以区别于数据库自增ID。</p>
+ *
+ * @since logan-web 1.0
+ */
+public class ColumnarDetailFile {
+
+    static final int MAGIC = 0x4C47434C;
+    static final int VERSION = 1;
+    static final int BLOCK_ROWS = 4096;
+    static final int COLUMN_COUNT = 3;
+    static final int COLUMN_TYPE = 0;
+    static final int COLUMN_TIME = 1;
+    static final int COLUMN_CONTENT = 2;
+
+    private static final long ID_FLAG = 1L << 52;
+    private static final int ROW_BITS = 24;
+    private static final long MAX_TASK_ID = (1L << (52 - ROW_BITS)) - 1;
+    static final int MAX_ROWS = 1 << ROW_BITS;
+
+    public static boolean supports(long taskId) {
+        return taskId > 0 && taskId <= MAX_TASK_ID;
+    }
+
+    public static boolean isColumnarId(long detailId) {
+        return (detailId & ID_FLAG) != 0;
+    }
+
+    public static long encodeId(long taskId, int row) {
+        return ID_FLAG | (taskId << ROW_BITS) | row;
+    }
+
+    public static long taskIdOf(long detailId) {
+        return (detailId & ~ID_FLAG) >>> ROW_BITS;
+    }
+
+    public static int rowOf(long detailId) {
+        return (int) (detailId & (MAX_ROWS - 1));
+    }
+
+    static long typeBit(int type) {
+        return 1L << (type & 63);
+    }
+
+    static class BlockMeta {
+        int rowStart;
+        int rowCount;
+        long minTime;
+        long maxTime;
+        long typeMask;
+        final long[] offsets = new long[COLUMN_COUNT];
+        final int[] lengths = new int[COLUMN_COUNT];
+        final int[] rawLengths = new int[COLUMN_COUNT];
+    }
+}
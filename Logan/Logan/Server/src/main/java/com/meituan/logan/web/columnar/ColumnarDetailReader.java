@@ -0,0 +1,232 @@
+package com.meituan.logan.web.columnar;
+
+import com.meituan.logan.web.dto.LoganLogDetailDTO;
+import com.meituan.logan.web.util.VarInts;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 读取一个任务的列存文件。尾部目录常驻内存，列数据按块按需读取解压，
+ * 只有用到内容(关键字过滤或查看详情)时才解压内容列。每次查询单独打开文件，可被多个线程共享。
+ *
+ * @since logan-web 1.0
+ */
+public class ColumnarDetailReader {
+
+    private static final int TRAILER_SIZE = 16;
+    private static final int BLOCK_META_SIZE = 4 + 4 + 8 + 8 + 8 + ColumnarDetailFile.COLUMN_COUNT * 16;
+
+    private final long taskId;
+    private final File file;
+    private final ColumnarDetailFile.BlockMeta[] blocks;
+
+    public ColumnarDetailReader(long taskId, File file) throws IOException {
+        this.taskId = taskId;
+        this.file = file;
+        try (FileChannel channel = open()) {
+            long size = channel.size();
+            ByteBuffer trailer = read(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != ColumnarDetailFile.VERSION || trailer.getInt() != ColumnarDetailFile.MAGIC) {
+                throw new IOException("illegal columnar file: " + file.getName());
+            }
+            ByteBuffer footer = read(channel, footerOffset, (int) (size - TRAILER_SIZE - footerOffset));
+            int blockCount = footer.getInt();
+            if (blockCount < 0 || footer.remaining() < (long) blockCount * BLOCK_META_SIZE) {
+                throw new IOException("illegal columnar footer: " + file.getName());
+            }
+            blocks = new ColumnarDetailFile.BlockMeta[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                ColumnarDetailFile.BlockMeta block = new ColumnarDetailFile.BlockMeta();
+                block.rowStart = footer.getInt();
+                block.rowCount = footer.getInt();
+                block.minTime = footer.getLong();
+                block.maxTime = footer.getLong();
+                block.typeMask = footer.getLong();
+                for (int j = 0; j < ColumnarDetailFile.COLUMN_COUNT; j++) {
+                    block.offsets[j] = footer.getLong();
+                    block.lengths[j] = footer.getInt();
+                    block.rawLengths[j] = footer.getInt();
+                }
+                blocks[i] = block;
+            }
+        }
+    }
+
+    /**
+     * 按类型、时间范围、关键字检索，只读取统计信息命中的块
+     *
+     * @return 不含内容的详情，按块内时间顺序排列
+     */
+    public List<LoganLogDetailDTO> query(Collection<Integer> types, Long beginTime, Long endTime, String keyword)
+            throws IOException {
+        long typeMask = 0;
+        if (types != null && !types.isEmpty()) {
+            for (Integer type : types) {
+                typeMask |= ColumnarDetailFile.typeBit(type);
+            }
+        }
+        boolean filterByKeyword = StringUtils.isNotEmpty(keyword);
+        List<LoganLogDetailDTO> result = new ArrayList<>();
+        try (FileChannel channel = open()) {
+            for (ColumnarDetailFile.BlockMeta block : blocks) {
+                if ((typeMask != 0 && (block.typeMask & typeMask) == 0)
+                        || (beginTime != null && block.maxTime < beginTime)
+                        || (endTime != null && block.minTime > endTime)) {
+                    continue;
+                }
+                int[] blockTypes = readTypes(channel, block);
+                long[] blockTimes = readTimes(channel, block);
+                String[] contents = filterByKeyword ? readContents(channel, block) : null;
+                for (int i = 0; i < block.rowCount; i++) {
+                    if ((typeMask != 0 && !types.contains(blockTypes[i]))
+                            || (beginTime != null && blockTimes[i] < beginTime)
+                            || (endTime != null && blockTimes[i] > endTime)
+                            || (filterByKeyword && !StringUtils.containsIgnoreCase(contents[i], keyword))) {
+                        continue;
+                    }
+                    result.add(toDetail(block.rowStart + i, blockTypes[i], blockTimes[i], null));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按行号读取完整详情(含内容)，行号不存在的被忽略
+     */
+    public List<LoganLogDetailDTO> get(List<Integer> rows) throws IOException {
+        List<LoganLogDetailDTO> result = new ArrayList<>(rows.size());
+        ColumnarDetailFile.BlockMeta cachedBlock = null;
+        int[] blockTypes = null;
+        long[] blockTimes = null;
+        String[] contents = null;
+        try (FileChannel channel = open()) {
+            for (int row : rows) {
+                ColumnarDetailFile.BlockMeta block = blockOf(row);
+                if (block == null) {
+                    continue;
+                }
+                if (block != cachedBlock) {
+                    blockTypes = readTypes(channel, block);
+                    blockTimes = readTimes(channel, block);
+                    contents = readContents(channel, block);
+                    cachedBlock = block;
+                }
+                int index = row - block.rowStart;
+                result.add(toDetail(row, blockTypes[index], blockTimes[index], contents[index]));
+            }
+        }
+        return result;
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    }
+
+    private LoganLogDetailDTO toDetail(int row, int type, long time, String content) {
+        LoganLogDetailDTO dto = new LoganLogDetailDTO();
+        dto.setId(ColumnarDetailFile.encodeId(taskId, row));
+        dto.setTaskId(taskId);
+        dto.setLogType(type);
+        dto.setLogTime(time);
+        dto.setContent(content);
+        return dto;
+    }
+
+    private ColumnarDetailFile.BlockMeta blockOf(int row) {
+        int low = 0;
+        int high = blocks.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            ColumnarDetailFile.BlockMeta block = blocks[mid];
+            if (row < block.rowStart) {
+                high = mid - 1;
+            } else if (row >= block.rowStart + block.rowCount) {
+                low = mid + 1;
+            } else {
+                return block;
+            }
+        }
+        return null;
+    }
+
+    private int[] readTypes(FileChannel channel, ColumnarDetailFile.BlockMeta block) throws IOException {
+        ByteBuffer in = readColumn(channel, block, ColumnarDetailFile.COLUMN_TYPE);
+        int[] values = new int[block.rowCount];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (int) VarInts.read(in);
+        }
+        return values;
+    }
+
+    private long[] readTimes(FileChannel channel, ColumnarDetailFile.BlockMeta block) throws IOException {
+        ByteBuffer in = readColumn(channel, block, ColumnarDetailFile.COLUMN_TIME);
+        long[] values = new long[block.rowCount];
+        long time = 0;
+        for (int i = 0; i < values.length; i++) {
+            time += VarInts.unzigzag(VarInts.read(in));
+            values[i] = time;
+        }
+        return values;
+    }
+
+    private String[] readContents(FileChannel channel, ColumnarDetailFile.BlockMeta block) throws IOException {
+        ByteBuffer in = readColumn(channel, block, ColumnarDetailFile.COLUMN_CONTENT);
+        byte[] array = in.array();
+        String[] values = new String[block.rowCount];
+        for (int i = 0; i < values.length; i++) {
+            int length = (int) VarInts.read(in);
+            values[i] = new String(array, in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        }
+        return values;
+    }
+
+    private ByteBuffer readColumn(FileChannel channel, ColumnarDetailFile.BlockMeta block, int column) throws IOException {
+        ByteBuffer compressed = read(channel, block.offsets[column], block.lengths[column]);
+        byte[] raw = new byte[block.rawLengths[column]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array(), 0, compressed.limit());
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int count = inflater.inflate(raw, length, raw.length - length);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += count;
+            }
+            if (length != raw.length) {
+                throw new IOException("truncated column in columnar file of task " + taskId);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(raw);
+    }
+
+    private ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("unexpected end of columnar file of task " + taskId);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,172 @@
+package com.meituan.logan.web.columnar;
+
+import com.meituan.logan.web.util.VarInts;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * 顺序写出一个任务的列存文件，先写到临时文件，{@link #finish()}后改名为正式文件。
+ *
+ * @since logan-web 1.0
+ */
+public class ColumnarDetailWriter implements Closeable {
+
+    private final File target;
+    private final File tmp;
+    private final DataOutputStream out;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final byte[] deflateBuffer = new byte[64 * 1024];
+
+    private final List<Row> pending = new ArrayList<>(ColumnarDetailFile.BLOCK_ROWS);
+    private final List<ColumnarDetailFile.BlockMeta> blocks = new ArrayList<>();
+    private long position;
+    private int rowCount;
+    private long rawContentBytes;
+    private boolean finished;
+
+    public ColumnarDetailWriter(File target) throws IOException {
+        this.target = target;
+        this.tmp = new File(target.getPath() + ".tmp");
+        if (!target.getParentFile().exists()) {
+            target.getParentFile().mkdirs();
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 256 * 1024));
+    }
+
+    /**
+     * @return 行数超过上限时返回false
+     */
+    public boolean append(int type, long time, String content) throws IOException {
+        if (rowCount + pending.size() >= ColumnarDetailFile.MAX_ROWS) {
+            return false;
+        }
+        pending.add(new Row(type, time, content == null ? "" : content));
+        if (pending.size() >= ColumnarDetailFile.BLOCK_ROWS) {
+            flushBlock();
+        }
+        return true;
+    }
+
+    public int getRowCount() {
+        return rowCount + pending.size();
+    }
+
+    public long getRawContentBytes() {
+        return rawContentBytes;
+    }
+
+    /**
+     * 写出尾部目录并改名为正式文件
+     *
+     * @return 文件大小
+     */
+    public long finish() throws IOException {
+        flushBlock();
+        long footerOffset = position;
+        out.writeInt(blocks.size());
+        for (ColumnarDetailFile.BlockMeta block : blocks) {
+            out.writeInt(block.rowStart);
+            out.writeInt(block.rowCount);
+            out.writeLong(block.minTime);
+            out.writeLong(block.maxTime);
+            out.writeLong(block.typeMask);
+            for (int i = 0; i < ColumnarDetailFile.COLUMN_COUNT; i++) {
+                out.writeLong(block.offsets[i]);
+                out.writeInt(block.lengths[i]);
+                out.writeInt(block.rawLengths[i]);
+            }
+        }
+        out.writeLong(footerOffset);
+        out.writeInt(ColumnarDetailFile.VERSION);
+        out.writeInt(ColumnarDetailFile.MAGIC);
+        out.close();
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+        return target.length();
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        if (!finished) {
+            out.close();
+            tmp.delete();
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // 块内按时间排序，List.sort是稳定排序，同一时间的日志保持原有顺序
+        pending.sort(Comparator.comparingLong(row -> row.time));
+        ColumnarDetailFile.BlockMeta block = new ColumnarDetailFile.BlockMeta();
+        block.rowStart = rowCount;
+        block.rowCount = pending.size();
+        block.minTime = pending.get(0).time;
+        block.maxTime = pending.get(pending.size() - 1).time;
+
+        ByteArrayOutputStream types = new ByteArrayOutputStream(pending.size());
+        ByteArrayOutputStream times = new ByteArrayOutputStream(pending.size() * 2);
+        ByteArrayOutputStream contents = new ByteArrayOutputStream(pending.size() * 64);
+        long previousTime = 0;
+        for (Row row : pending) {
+            block.typeMask |= ColumnarDetailFile.typeBit(row.type);
+            VarInts.write(types, row.type);
+            VarInts.write(times, VarInts.zigzag(row.time - previousTime));
+            previousTime = row.time;
+            byte[] bytes = row.content.getBytes(StandardCharsets.UTF_8);
+            VarInts.write(contents, bytes.length);
+            contents.write(bytes, 0, bytes.length);
+            rawContentBytes += bytes.length;
+        }
+        writeColumn(block, ColumnarDetailFile.COLUMN_TYPE, types);
+        writeColumn(block, ColumnarDetailFile.COLUMN_TIME, times);
+        writeColumn(block, ColumnarDetailFile.COLUMN_CONTENT, contents);
+        blocks.add(block);
+        rowCount += pending.size();
+        pending.clear();
+    }
+
+    private void writeColumn(ColumnarDetailFile.BlockMeta block, int column, ByteArrayOutputStream raw) throws IOException {
+        byte[] input = raw.toByteArray();
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            int count = deflater.deflate(deflateBuffer);
+            out.write(deflateBuffer, 0, count);
+            length += count;
+        }
+        block.offsets[column] = position;
+        block.lengths[column] = length;
+        block.rawLengths[column] = input.length;
+        position += length;
+    }
+
+    private static class Row {
+        private final int type;
+        private final long time;
+        private final String content;
+
+        Row(int type, long time, String content) {
+            this.type = type;
+            this.time = time;
+            this.content = content;
+        }
+    }
+}
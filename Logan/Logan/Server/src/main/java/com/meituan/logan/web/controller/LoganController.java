@@ -1,17 +1,24 @@
 package com.meituan.logan.web.controller;
 
+import com.meituan.logan.web.dto.LoganLogDetailDTO;
 import com.meituan.logan.web.enums.LogTypeEnum;
+import com.meituan.logan.web.enums.TaskStatusEnum;
+import com.meituan.logan.web.model.BatchInsertMetrics;
 import com.meituan.logan.web.model.LoganLogDetailModel;
 import com.meituan.logan.web.model.LoganLogSimpleModel;
 import com.meituan.logan.web.model.LoganTaskModel;
+import com.meituan.logan.web.model.RetentionMetrics;
 import com.meituan.logan.web.model.Tuple;
 import com.meituan.logan.web.model.request.LoganTaskRequest;
 import com.meituan.logan.web.model.response.LoganResponse;
+import com.meituan.logan.web.service.BatchInsertService;
+import com.meituan.logan.web.service.LogRetentionService;
 import com.meituan.logan.web.service.LoganLogDetailService;
+import com.meituan.logan.web.service.LoganLogFileService;
 import com.meituan.logan.web.service.LoganTaskService;
 import com.meituan.logan.web.util.FileUtil;
 import com.meituan.logan.web.util.TypeSafeUtil;
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -22,8 +29,8 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -41,6 +48,12 @@ public class LoganController {
     private LoganTaskService taskService;
     @Resource
     private LoganLogDetailService detailService;
+    @Resource(name = "loganLogDetailService")
+    private BatchInsertService<LoganLogDetailDTO> batchInsertService;
+    @Resource
+    private LoganLogFileService fileService;
+    @Resource
+    private LogRetentionService retentionService;
 
     @GetMapping("/latest.json")
     @ResponseBody
@@ -71,7 +84,12 @@ public class LoganController {
         if (taskId <= 0) {
             return LoganResponse.badParam(PARAM_ERROR);
         }
-        return LoganResponse.success(taskService.getByTaskId(taskId));
+        LoganTaskModel model = taskService.getByTaskId(taskId);
+        if (model != null) {
+            model.setAnalyzeProgress(TaskStatusEnum.ANALYZED.getStatus() == model.getStatus() ?
+                    100 : Math.max(0, detailService.getAnalyzeProgress(taskId)));
+        }
+        return LoganResponse.success(model);
     }
 
     /**
@@ -83,16 +101,36 @@ public class LoganController {
         return LoganResponse.success(LogTypeEnum.allLogTypes());
     }
 
+    /**
+     * 日志详情入库流水线的队列深度与入库指标
+     */
+    @GetMapping("/meta/insertMetrics.json")
+    @ResponseBody
+    public LoganResponse<BatchInsertMetrics> insertMetrics() {
+        return LoganResponse.success(batchInsertService.getMetrics());
+    }
+
+    /**
+     * 归档与过期清理的运行指标
+     */
+    @GetMapping("/meta/retentionMetrics.json")
+    @ResponseBody
+    public LoganResponse<RetentionMetrics> retentionMetrics() {
+        return LoganResponse.success(retentionService.getMetrics());
+    }
+
     /**
      * 通过任务ID和日志类型获取日志详情的索引信息
      */
     @GetMapping("/task/{taskId}/brief.json")
     @ResponseBody
-    public LoganResponse<List<List<LoganLogSimpleModel>>> brief(@PathVariable("taskId") int taskId, String logTypes, String keyword) {
+    public LoganResponse<List<List<LoganLogSimpleModel>>> brief(@PathVariable("taskId") int taskId, String logTypes, String keyword,
+                                                                Long beginTime, Long endTime) {
         if (taskId <= 0) {
             return LoganResponse.badParam(PARAM_ERROR);
         }
-        return LoganResponse.success(detailService.listByTaskIdTypeKeyword(taskId, TypeSafeUtil.parseIntList(logTypes), keyword));
+        return LoganResponse.success(detailService.listByTaskIdTypeKeyword(taskId, TypeSafeUtil.parseIntList(logTypes), keyword,
+                beginTime, endTime));
     }
 
     /**
@@ -112,7 +150,7 @@ public class LoganController {
      */
     @GetMapping("/task/{detailId}/detail.json")
     @ResponseBody
-    public LoganResponse<LoganLogDetailModel> detail(@PathVariable("detailId") int detailId) {
+    public LoganResponse<LoganLogDetailModel> detail(@PathVariable("detailId") long detailId) {
         if (detailId <= 0) {
             return LoganResponse.badParam(PARAM_ERROR);
         }
@@ -140,12 +178,14 @@ public class LoganController {
      */
     @GetMapping("/downing")
     public ResponseEntity<byte[]> downloadFile(String name) throws IOException {
-        File file = FileUtil.getFile(name);
+        Tuple<InputStream, Long> file = fileService.open(name);
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
         headers.setContentDispositionFormData("attachment", name);
-        if (file != null && file.exists()) {
-            return new ResponseEntity<>(FileUtils.readFileToByteArray(file), headers, HttpStatus.CREATED);
+        if (file != null) {
+            try (InputStream in = file.getFirst()) {
+                return new ResponseEntity<>(IOUtils.toByteArray(in), headers, HttpStatus.CREATED);
+            }
         }
         return new ResponseEntity<>("fileNotFound".getBytes(), headers, HttpStatus.CREATED);
     }
@@ -1,21 +1,32 @@
 package com.meituan.logan.web.controller;
 
 import com.meituan.logan.web.enums.ResultEnum;
+import com.meituan.logan.web.model.ChunkUploadStatus;
 import com.meituan.logan.web.model.LoganTaskModel;
+import com.meituan.logan.web.model.Tuple;
 import com.meituan.logan.web.model.response.LoganResponse;
 import com.meituan.logan.web.parser.RequestContextParser;
+import com.meituan.logan.web.service.LoganChunkUploadService;
+import com.meituan.logan.web.service.LoganLogDetailService;
 import com.meituan.logan.web.service.LoganLogFileService;
 import com.meituan.logan.web.service.LoganTaskService;
 import com.meituan.logan.web.util.FileUtil;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 客户端日志上报接口
@@ -32,6 +43,10 @@ public class LoganUploadController {
     private LoganTaskService taskService;
     @Resource
     private LoganLogFileService fileService;
+    @Resource
+    private LoganLogDetailService detailService;
+    @Resource
+    private LoganChunkUploadService chunkUploadService;
 
     /**
      * 一次上报一个任务一天日志
@@ -44,9 +59,64 @@ public class LoganUploadController {
         if (ResultEnum.SUCCESS != result) {
             return LoganResponse.exception(result.name());
         }
-        return taskService.insertTask(model) > 0 ?
-                LoganResponse.success(FileUtil.getDownloadUrl(request, model.getLogFileName()))
-                : LoganResponse.exception(ResultEnum.ERROR_DATABASE.name());
+        long taskId = taskService.insertTask(model);
+        if (taskId <= 0) {
+            return LoganResponse.exception(ResultEnum.ERROR_DATABASE.name());
+        }
+        detailService.submitAnalyze(taskId);
+        return LoganResponse.success(FileUtil.getDownloadUrl(request, model.getLogFileName()));
+    }
+
+    /**
+     * 分片上传第一步：请求头与upload.json相同，另带fileSize、chunkSize，请求体为每个分片的md5，一行一个。
+     * 同一清单重复提交返回同一个uploadId和仍缺失的分片，用于断点续传
+     */
+    @PostMapping("/chunk/init.json")
+    @ResponseBody
+    public LoganResponse<ChunkUploadStatus> initChunkUpload(HttpServletRequest request) throws IOException {
+        LoganTaskModel model = RequestContextParser.parse(request);
+        List<String> chunkMd5s = new ArrayList<>();
+        for (String line : IOUtils.readLines(request.getInputStream(), StandardCharsets.UTF_8)) {
+            if (StringUtils.isNotBlank(line)) {
+                chunkMd5s.add(StringUtils.trim(line).toLowerCase());
+            }
+        }
+        ChunkUploadStatus status = chunkUploadService.init(model, NumberUtils.toLong(request.getHeader("fileSize")),
+                NumberUtils.toInt(request.getHeader("chunkSize")), chunkMd5s);
+        if (status == null) {
+            return LoganResponse.badParam("invalid chunk manifest");
+        }
+        return LoganResponse.success(status);
+    }
 
+    /**
+     * 分片上传第二步：上传一个分片，可并行调用
+     */
+    @PostMapping("/chunk/part.json")
+    @ResponseBody
+    public LoganResponse<String> uploadChunk(@RequestHeader("uploadId") String uploadId,
+            @RequestHeader("chunkIndex") int chunkIndex, @RequestHeader("chunkMd5") String chunkMd5,
+            HttpServletRequest request) throws IOException {
+        ResultEnum result = chunkUploadService.writeChunk(uploadId, chunkIndex, StringUtils.lowerCase(chunkMd5),
+                request.getInputStream());
+        if (ResultEnum.SUCCESS != result) {
+            return ResultEnum.ERROR_PARAM == result ? LoganResponse.badParam(result.name())
+                    : LoganResponse.exception(result.name());
+        }
+        return LoganResponse.success(null);
+    }
+
+    /**
+     * 分片上传第三步：合并分片并解析，成功后与upload.json一样创建任务；重复调用返回同一个任务的下载地址
+     */
+    @PostMapping("/chunk/complete.json")
+    @ResponseBody
+    public LoganResponse<String> completeChunkUpload(@RequestHeader("uploadId") String uploadId,
+            HttpServletRequest request) {
+        Tuple<ResultEnum, LoganTaskModel> result = chunkUploadService.complete(uploadId);
+        if (ResultEnum.SUCCESS != result.getFirst()) {
+            return LoganResponse.exception(result.getFirst().name());
+        }
+        return LoganResponse.success(FileUtil.getDownloadUrl(request, result.getSecond().getLogFileName()));
     }
 }
\ No newline at end of file
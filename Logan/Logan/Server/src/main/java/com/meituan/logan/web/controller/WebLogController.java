@@ -4,6 +4,7 @@ import com.google.common.collect.ArrayListMultimap;
 import com.meituan.logan.web.dto.WebLogDetailDTO;
 import com.meituan.logan.web.dto.WebLogTaskDTO;
 import com.meituan.logan.web.enums.TaskStatusEnum;
+import com.meituan.logan.web.model.BatchInsertMetrics;
 import com.meituan.logan.web.model.WebLogIndex;
 import com.meituan.logan.web.model.response.LoganResponse;
 import com.meituan.logan.web.parser.WebLogParser;
@@ -52,6 +53,8 @@ public class WebLogController {
 
     private static final int PAGE_SIZE = 20;
 
+    private static final int ANALYZE_BATCH_SIZE = 1000;
+
     private Executor executor = Threads.newFixedThreadPool(WebLogController.class.getSimpleName(),
             20);
 
@@ -84,6 +87,15 @@ public class WebLogController {
         return LoganResponse.success(result);
     }
 
+    /**
+     * H5日志详情入库流水线的队列深度与入库指标
+     */
+    @GetMapping("/insertMetrics.json")
+    @ResponseBody
+    public LoganResponse<BatchInsertMetrics> insertMetrics() {
+        return LoganResponse.success(batchInsertService.getMetrics());
+    }
+
     /**
      * 获取最近的一组日志上报
      * @return
@@ -310,9 +322,14 @@ public class WebLogController {
         Collections.sort(list);
         for (WebLogTaskDTO taskDTO : list) {
             if (taskDTO.getStatus() == TaskStatusEnum.NORMAL.getStatus()) {
-                List<WebLogDetailDTO> detailDTOS = WebLogParser.parseWebLogDetail(
-                        taskDTO.getContent(), taskDTO.getTaskId());
-                batchInsertService.saveLogDetails(detailDTOS);
+                WebLogParser.parseWebLogDetail(taskDTO.getContent(), taskDTO.getTaskId(), ANALYZE_BATCH_SIZE,
+                        batchInsertService::saveLogDetails);
+                // 不等待入库，只记录失败，同时清掉该任务在流水线中的失败记录
+                batchInsertService.flush(taskDTO.getTaskId()).whenComplete((result, e) -> {
+                    if (e != null) {
+                        LOGGER.error(e);
+                    }
+                });
                 webTaskService.updateStatus(taskDTO.getTaskId(), TaskStatusEnum.ANALYZED);
             }
         }
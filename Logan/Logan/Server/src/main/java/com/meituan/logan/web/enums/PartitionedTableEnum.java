@@ -0,0 +1,35 @@
+package com.meituan.logan.web.enums;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 功能描述:  <p>按天分区的详情表，分区键为add_time</p>
+ *
+ * @since logan-web 1.0
+ */
+public enum PartitionedTableEnum {
+
+    LOGAN_LOG_DETAIL("logan_log_detail", TimeUnit.SECONDS), WEB_DETAIL("web_detail", TimeUnit.MILLISECONDS);
+
+    @Getter
+    private String table;
+    /**
+     * 分区边界值的单位：logan_log_detail按UNIX_TIMESTAMP(add_time)分区，web_detail的add_time本身是毫秒
+     */
+    private TimeUnit boundUnit;
+
+    PartitionedTableEnum(String table, TimeUnit boundUnit) {
+        this.table = table;
+        this.boundUnit = boundUnit;
+    }
+
+    public long toBound(long millis) {
+        return boundUnit.convert(millis, TimeUnit.MILLISECONDS);
+    }
+
+    public long toMillis(long bound) {
+        return boundUnit.toMillis(bound);
+    }
+}
@@ -6,6 +6,7 @@ public enum ResultEnum {
     EXCEPTION,//日志解析异常
     ERROR_LOG_PATH,//文件路径创建失败
     ERROR_DECRYPT,//解密过程中出错
-    ERROR_DATABASE;//保存到数据库出错
+    ERROR_DATABASE,//保存到数据库出错
+    ERROR_CHUNK;//分片缺失或校验失败
 
 }
@@ -0,0 +1,155 @@
+package com.meituan.logan.web.index;
+
+import com.meituan.logan.web.util.VarInts;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 只读的索引段，文档表常驻内存，索引词和倒排表通过内存映射按需读取。
+ *
+ * @since logan-web 1.0
+ */
+public class IndexSegment {
+
+    static final int MAGIC = 0x4C474958;
+    static final int VERSION = 1;
+
+    private final long[] ids;
+    private final int[] types;
+    private final long[] times;
+
+    private final MappedByteBuffer buffer;
+    private final int termCount;
+    private final int termsPosition;
+    private final int offsetsPosition;
+    private final int postingsPosition;
+
+    private IndexSegment(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        ByteBuffer in = buffer.duplicate();
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IOException("illegal index segment");
+        }
+        int docCount = in.getInt();
+        ids = new long[docCount];
+        types = new int[docCount];
+        times = new long[docCount];
+        long id = 0;
+        long time = 0;
+        for (int i = 0; i < docCount; i++) {
+            id += VarInts.read(in);
+            ids[i] = id;
+            types[i] = (int) VarInts.read(in);
+            time += VarInts.unzigzag(VarInts.read(in));
+            times[i] = time;
+        }
+        termCount = in.getInt();
+        termsPosition = in.position();
+        offsetsPosition = termsPosition + termCount * 8;
+        postingsPosition = offsetsPosition + (termCount + 1) * 4;
+    }
+
+    public static IndexSegment open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new IndexSegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * 找出包含全部索引词、且满足类型与时间条件的详情ID
+     *
+     * @param terms     升序的索引词，不能为空
+     * @param types     日志类型，为空时不限
+     * @param beginTime 起始时间(含)，为空时不限
+     * @param endTime   结束时间(含)，为空时不限
+     */
+    public void search(long[] terms, Collection<Integer> types, Long beginTime, Long endTime, List<Long> result) {
+        int[][] lists = new int[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            int index = indexOfTerm(terms[i]);
+            if (index < 0) {
+                return;
+            }
+            lists[i] = readPostings(index);
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+        int[] matched = lists[0];
+        int size = matched.length;
+        for (int i = 1; i < lists.length && size > 0; i++) {
+            size = intersect(matched, size, lists[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            int ordinal = matched[i];
+            if (types != null && !types.isEmpty() && !types.contains(this.types[ordinal])) {
+                continue;
+            }
+            if ((beginTime != null && times[ordinal] < beginTime) || (endTime != null && times[ordinal] > endTime)) {
+                continue;
+            }
+            result.add(ids[ordinal]);
+        }
+    }
+
+    private int indexOfTerm(long term) {
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = buffer.getLong(termsPosition + mid * 8);
+            if (value < term) {
+                low = mid + 1;
+            } else if (value > term) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int[] readPostings(int index) {
+        int begin = buffer.getInt(offsetsPosition + index * 4);
+        int end = buffer.getInt(offsetsPosition + (index + 1) * 4);
+        ByteBuffer in = buffer.duplicate();
+        in.position(postingsPosition + begin);
+        int limit = postingsPosition + end;
+        int[] postings = new int[Math.min(end - begin, ids.length)];
+        int size = 0;
+        int ordinal = 0;
+        while (in.position() < limit) {
+            ordinal += (int) VarInts.read(in);
+            postings[size++] = ordinal;
+        }
+        return size == postings.length ? postings : Arrays.copyOf(postings, size);
+    }
+
+    /**
+     * 两个升序数组求交集，结果写回第一个数组
+     */
+    private static int intersect(int[] target, int size, int[] other) {
+        int result = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.length) {
+            if (target[i] < other[j]) {
+                i++;
+            } else if (target[i] > other[j]) {
+                j++;
+            } else {
+                target[result++] = target[i];
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+}
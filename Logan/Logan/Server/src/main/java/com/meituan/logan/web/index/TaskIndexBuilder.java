@@ -0,0 +1,132 @@
+package com.meituan.logan.web.index;
+
+import com.meituan.logan.web.util.VarInts;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 在内存中累积一个任务的日志详情，写出为不可变的索引段。
+ *
+ * <p>段内的文档按详情ID升序排列，倒排表记录文档序号，序号和ID、时间都做差值变长编码。</p>
+ *
+ * @since logan-web 1.0
+ */
+public class TaskIndexBuilder {
+
+    private final long taskId;
+
+    private long[] ids = new long[1024];
+    private int[] types = new int[1024];
+    private long[] times = new long[1024];
+    private int docCount;
+
+    private Map<Long, IntList> postings = new HashMap<>();
+
+    public TaskIndexBuilder(long taskId) {
+        this.taskId = taskId;
+    }
+
+    public long getTaskId() {
+        return taskId;
+    }
+
+    public int size() {
+        return docCount;
+    }
+
+    /**
+     * 段内的ID必须递增，不递增时需要先写出当前段
+     */
+    public boolean accepts(long id) {
+        return docCount == 0 || id > ids[docCount - 1];
+    }
+
+    public void add(long id, int type, long time, String content) {
+        if (docCount == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            types = Arrays.copyOf(types, capacity);
+            times = Arrays.copyOf(times, capacity);
+        }
+        int ordinal = docCount++;
+        ids[ordinal] = id;
+        types[ordinal] = type;
+        times[ordinal] = time;
+        for (long term : TrigramTokenizer.tokenize(content)) {
+            postings.computeIfAbsent(term, k -> new IntList()).add(ordinal);
+        }
+    }
+
+    public void reset() {
+        docCount = 0;
+        postings = new HashMap<>();
+    }
+
+    /**
+     * 段文件格式：头 | 文档表 | 有序的索引词 | 倒排表偏移 | 倒排表
+     */
+    public void writeTo(File file) throws IOException {
+        long[] terms = new long[postings.size()];
+        int index = 0;
+        for (Long term : postings.keySet()) {
+            terms[index++] = term;
+        }
+        Arrays.sort(terms);
+
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        int[] offsets = new int[terms.length + 1];
+        for (int i = 0; i < terms.length; i++) {
+            offsets[i] = blob.size();
+            IntList list = postings.get(terms[i]);
+            int previous = 0;
+            for (int j = 0; j < list.size; j++) {
+                VarInts.write(blob, list.data[j] - previous);
+                previous = list.data[j];
+            }
+        }
+        offsets[terms.length] = blob.size();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024))) {
+            out.writeInt(IndexSegment.MAGIC);
+            out.writeInt(IndexSegment.VERSION);
+            out.writeInt(docCount);
+            long previousId = 0;
+            long previousTime = 0;
+            for (int i = 0; i < docCount; i++) {
+                VarInts.write(out, ids[i] - previousId);
+                VarInts.write(out, types[i]);
+                VarInts.write(out, VarInts.zigzag(times[i] - previousTime));
+                previousId = ids[i];
+                previousTime = times[i];
+            }
+            out.writeInt(terms.length);
+            for (long term : terms) {
+                out.writeLong(term);
+            }
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            blob.writeTo(out);
+        }
+    }
+
+    private static class IntList {
+        private int[] data = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.meituan.logan.web.index;
+
+import java.util.Arrays;
+
+/**
+ * 把文本切成小写的三字符片段，用于支持任意位置的子串检索（包括中文）。
+ * 三个char被压缩成一个long作为索引词。
+ *
+ * @since logan-web 1.0
+ */
+public class TrigramTokenizer {
+
+    public static final int GRAM_LENGTH = 3;
+
+    private static final long[] EMPTY = new long[0];
+
+    /**
+     * @return 去重并升序排列的索引词
+     */
+    public static long[] tokenize(String text) {
+        if (text == null || text.length() < GRAM_LENGTH) {
+            return EMPTY;
+        }
+        int length = text.length();
+        long[] terms = new long[length - GRAM_LENGTH + 1];
+        long c0 = Character.toLowerCase(text.charAt(0));
+        long c1 = Character.toLowerCase(text.charAt(1));
+        for (int i = GRAM_LENGTH - 1; i < length; i++) {
+            long c2 = Character.toLowerCase(text.charAt(i));
+            terms[i - GRAM_LENGTH + 1] = (c0 << 32) | (c1 << 16) | c2;
+            c0 = c1;
+            c1 = c2;
+        }
+        Arrays.sort(terms);
+        int size = 0;
+        for (int i = 0; i < terms.length; i++) {
+            if (i == 0 || terms[i] != terms[size - 1]) {
+                terms[size++] = terms[i];
+            }
+        }
+        return size == terms.length ? terms : Arrays.copyOf(terms, size);
+    }
+}
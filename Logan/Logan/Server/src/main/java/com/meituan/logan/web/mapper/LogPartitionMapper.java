@@ -0,0 +1,19 @@
+package com.meituan.logan.web.mapper;
+
+import com.meituan.logan.web.model.LogPartition;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 表名通过${}拼接，只能传入PartitionedTableEnum中的表名
+ */
+public interface LogPartitionMapper {
+
+    List<LogPartition> queryPartitions(@Param("table") String table);
+
+    void dropPartitions(@Param("table") String table, @Param("names") List<String> names);
+
+    void splitMaxPartition(@Param("table") String table, @Param("maxName") String maxName,
+            @Param("partitions") List<LogPartition> partitions);
+}
@@ -14,7 +14,8 @@ public interface LoganLogDetailMapper {
     LoganLogDetailDTO selectById(@Param("id") long id);
 
     List<LoganLogDetailDTO> queryByTaskIdTypeKeyword(@Param("taskId") long taskId,
-            @Param("types") List<Integer> types, @Param("keyword") String keyword);
+            @Param("types") List<Integer> types, @Param("keyword") String keyword,
+            @Param("beginTime") Long beginTime, @Param("endTime") Long endTime);
 
     List<LoganLogDetailDTO> queryByIds(@Param("ids") List<Long> detailIds);
 }
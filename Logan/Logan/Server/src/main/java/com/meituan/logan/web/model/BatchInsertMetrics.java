@@ -0,0 +1,34 @@
+package com.meituan.logan.web.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 功能描述:  <p>批量入库流水线的运行指标</p>
+ *
+ * @since logan-web 1.0
+ */
+@Data
+public class BatchInsertMetrics {
+
+    private String name;
+
+    private int shards;
+    /**
+     * 所有分片中等待入库的数据条数
+     */
+    private int queueDepth;
+    /**
+     * 各分片当前的批次大小
+     */
+    private List<Integer> batchSizes;
+
+    private long insertedRows;
+
+    private long insertedBatches;
+
+    private long failedBatches;
+
+    private long avgBatchCostMillis;
+}
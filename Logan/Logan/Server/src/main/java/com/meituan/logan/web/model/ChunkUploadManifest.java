@@ -0,0 +1,30 @@
+package com.meituan.logan.web.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 分片上传清单，初始化时由客户端提交，合并时按顺序拼接各分片
+ *
+ * @since logan-web 1.0
+ */
+@Data
+public class ChunkUploadManifest {
+
+    private String uploadId;
+    /**
+     * 分片按内容(md5)存放在该目录下，同一设备同一内容的分片只需上传一次
+     */
+    private String owner;
+
+    private long fileSize;
+
+    private int chunkSize;
+
+    private List<String> chunkMd5s;
+    /**
+     * 初始化时从请求头解析出的任务信息
+     */
+    private LoganTaskModel task;
+}
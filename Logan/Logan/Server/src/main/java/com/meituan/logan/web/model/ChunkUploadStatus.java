@@ -0,0 +1,22 @@
+package com.meituan.logan.web.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 分片上传的状态，客户端只需上传missing中的分片
+ *
+ * @since logan-web 1.0
+ */
+@Data
+public class ChunkUploadStatus {
+
+    private String uploadId;
+
+    private int chunkCount;
+    /**
+     * 服务端尚未收到的分片序号
+     */
+    private List<Integer> missing;
+}
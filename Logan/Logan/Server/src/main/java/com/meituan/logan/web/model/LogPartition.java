@@ -0,0 +1,25 @@
+package com.meituan.logan.web.model;
+
+import lombok.Data;
+
+/**
+ * 详情表的一个分区
+ *
+ * @since logan-web 1.0
+ */
+@Data
+public class LogPartition {
+
+    private String name;
+    /**
+     * VALUES LESS THAN的边界值，MAXVALUE分区为"MAXVALUE"
+     */
+    private String lessThan;
+
+    public static LogPartition create(String name, long lessThan) {
+        LogPartition partition = new LogPartition();
+        partition.name = name;
+        partition.lessThan = String.valueOf(lessThan);
+        return partition;
+    }
+}
@@ -44,6 +44,10 @@ public class LoganTaskModel {
      * 0 : 未分析过，1 : 已分析过
      */
     private int status;
+    /**
+     * 日志解析进度，0-100
+     */
+    private int analyzeProgress;
 
     public LoganTaskDTO transformToDto() {
         LoganTaskDTO dto = new LoganTaskDTO();
@@ -0,0 +1,50 @@
+package com.meituan.logan.web.model;
+
+import lombok.Data;
+
+/**
+ * 功能描述:  <p>归档与过期清理的运行指标，计数均为服务启动以来的累计值</p>
+ *
+ * @since logan-web 1.0
+ */
+@Data
+public class RetentionMetrics {
+
+    private boolean enabled;
+    /**
+     * 是否删除过期数据，关闭时只归档和预建分区
+     */
+    private boolean deleteExpired;
+
+    private int retentionDays;
+
+    private long runs;
+
+    private long failures;
+
+    private long lastRunTime;
+
+    private long lastRunCostMillis;
+
+    private String lastError;
+
+    private long archivedFiles;
+    /**
+     * 归档的原始字节数
+     */
+    private long archivedBytes;
+    /**
+     * 归档后压缩包增加的字节数
+     */
+    private long archiveCompressedBytes;
+
+    private long expiredArchives;
+
+    private long droppedPartitions;
+
+    private long createdPartitions;
+    /**
+     * 直接删除的过期文件数：超期的原始日志、列存文件、索引目录与上传分片
+     */
+    private long deletedFiles;
+}
@@ -2,23 +2,29 @@ package com.meituan.logan.web.parser;
 
 import com.meituan.logan.web.enums.ResultEnum;
 import com.meituan.logan.web.model.Tuple;
-import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.springframework.core.io.support.PropertiesLoaderUtils;
 
-import javax.annotation.PreDestroy;
 import javax.crypto.Cipher;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.security.Security;
+import java.util.Arrays;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
 
 /**
+ * 流式解析客户端上报的日志：按块从请求流中读取、解密、解压后写入文件，内存占用与上报大小无关。
+ *
+ * <p>块格式：'\1' + 4字节长度 + 加密内容 + '\0'</p>
+ *
  * @since logan-web 1.0
  */
 public class LoganProtocol {
@@ -29,84 +35,145 @@ public class LoganProtocol {
 
     private static final String AES_ALGORITHM_TYPE = "AES/CBC/NoPadding";
 
+    /**
+     * 单个加密块的上限，客户端每块远小于该值，超过视为非法数据，避免恶意长度撑爆内存
+     */
+    private static final int MAX_BLOCK_SIZE = 16 * 1024 * 1024;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final int WRITE_BUFFER_SIZE = 256 * 1024;
+
     private static AtomicBoolean initialized = new AtomicBoolean(false);
 
+    private static volatile Tuple<SecretKeySpec, IvParameterSpec> secureParam;
+
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(AES_ALGORITHM_TYPE);
+        } catch (Exception e) {
+            LOGGER.error(e);
+            return null;
+        }
+    });
+
     static {
         initialize();
     }
 
-    private ByteBuffer wrap;
-    private FileOutputStream fileOutputStream;
+    private final DataInputStream input;
+    private final File file;
+
+    private byte[] encrypt = new byte[READ_BUFFER_SIZE];
+    private byte[] decrypt = new byte[READ_BUFFER_SIZE];
+    private byte[] inflated = new byte[READ_BUFFER_SIZE];
 
     public LoganProtocol(InputStream stream, File file) {
-        try {
-            wrap = ByteBuffer.wrap(IOUtils.toByteArray(stream));
-            fileOutputStream = new FileOutputStream(file);
-        } catch (IOException e) {
-            LOGGER.error(e);
-        }
+        this.input = new DataInputStream(new BufferedInputStream(stream, READ_BUFFER_SIZE));
+        this.file = file;
     }
 
     public ResultEnum process() {
-        while (wrap.hasRemaining()) {
-            while (wrap.get() == ENCRYPT_CONTENT_START) {
-                byte[] encrypt = new byte[wrap.getInt()];
-                if (!tryGetEncryptContent(encrypt) || !decryptAndAppendFile(encrypt)) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            int flag;
+            while ((flag = input.read()) != -1) {
+                if (flag != ENCRYPT_CONTENT_START) {
+                    continue;
+                }
+                int length = tryGetEncryptContent();
+                if (length < 0 || !decryptAndAppendFile(length, channel, writeBuffer)) {
                     return ResultEnum.ERROR_DECRYPT;
                 }
             }
+            flush(channel, writeBuffer);
+            return ResultEnum.SUCCESS;
+        } catch (IOException e) {
+            LOGGER.error(e);
         }
-        return ResultEnum.SUCCESS;
+        return ResultEnum.EXCEPTION;
     }
 
-    private boolean tryGetEncryptContent(byte[] encrypt) {
+    /**
+     * 读取一个加密块到复用的缓冲区中
+     *
+     * @return 块长度，数据不完整或长度非法时返回-1
+     */
+    private int tryGetEncryptContent() {
         try {
-            wrap.get(encrypt);
-        } catch (java.nio.BufferUnderflowException e) {
+            int length = input.readInt();
+            if (length < 0 || length > MAX_BLOCK_SIZE) {
+                LOGGER.error("illegal encrypt block length: " + length);
+                return -1;
+            }
+            if (encrypt.length < length) {
+                encrypt = new byte[length];
+            }
+            input.readFully(encrypt, 0, length);
+            return length;
+        } catch (IOException e) {
             LOGGER.error(e);
-            return false;
+            return -1;
         }
-        return true;
     }
 
-    private boolean decryptAndAppendFile(byte[] encrypt) {
-        boolean result = false;
+    private boolean decryptAndAppendFile(int length, FileChannel channel, ByteBuffer writeBuffer) {
         try {
-            Cipher aesEncryptCipher = Cipher.getInstance(AES_ALGORITHM_TYPE);
-            Tuple<String, String> secureParam = getSecureParam();
-            if (secureParam == null) {
+            Tuple<SecretKeySpec, IvParameterSpec> param = getSecureParam();
+            Cipher cipher = CIPHER.get();
+            if (param == null || cipher == null) {
                 return false;
             }
-            SecretKeySpec secretKeySpec = new SecretKeySpec(secureParam.getFirst().getBytes(), "AES");
-            aesEncryptCipher.init(Cipher.DECRYPT_MODE, secretKeySpec, new IvParameterSpec(secureParam.getSecond().getBytes()));
-            byte[] compressed = aesEncryptCipher.doFinal(encrypt);
-            byte[] plainText = decompress(compressed);
-            result = true;
-            fileOutputStream.write(plainText);
-            fileOutputStream.flush();
+            cipher.init(Cipher.DECRYPT_MODE, param.getFirst(), param.getSecond());
+            int outputSize = cipher.getOutputSize(length);
+            if (decrypt.length < outputSize) {
+                decrypt = new byte[outputSize];
+            }
+            int compressedLength = cipher.doFinal(encrypt, 0, length, decrypt, 0);
+            decompressTo(compressedLength, channel, writeBuffer);
+            return true;
         } catch (Exception e) {
             LOGGER.error(e);
         }
-        return result;
+        return false;
     }
 
-    private static byte[] decompress(byte[] contentBytes) {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            IOUtils.copy(new GZIPInputStream(new ByteArrayInputStream(contentBytes)), out);
-            return out.toByteArray();
-        } catch (IOException e) {
+    /**
+     * 先把整块解压到复用的缓冲区，成功后再写入文件，压缩数据损坏的块不会留下半截内容
+     */
+    private void decompressTo(int compressedLength, FileChannel channel, ByteBuffer writeBuffer) throws IOException {
+        int size = 0;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(decrypt, 0, compressedLength), READ_BUFFER_SIZE)) {
+            int count;
+            while ((count = in.read(inflated, size, inflated.length - size)) != -1) {
+                size += count;
+                if (size == inflated.length) {
+                    inflated = Arrays.copyOf(inflated, inflated.length << 1);
+                }
+            }
+        } catch (EOFException | ZipException e) {
+            // 与原先实现保持一致：压缩数据损坏时跳过该块，不影响后续块
             LOGGER.error(e);
+            return;
+        }
+        int offset = 0;
+        while (offset < size) {
+            int length = Math.min(writeBuffer.remaining(), size - offset);
+            writeBuffer.put(inflated, offset, length);
+            offset += length;
+            if (!writeBuffer.hasRemaining()) {
+                flush(channel, writeBuffer);
+            }
         }
-        return new byte[0];
     }
 
-    @PreDestroy
-    public void closeFileSteam() {
-        try {
-            fileOutputStream.close();
-        } catch (IOException e) {
-            LOGGER.error(e);
+    private static void flush(FileChannel channel, ByteBuffer writeBuffer) throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            channel.write(writeBuffer);
         }
+        writeBuffer.clear();
     }
 
     /**
@@ -120,17 +187,26 @@ public class LoganProtocol {
         initialized.set(true);
     }
 
-
-    private static Tuple<String, String> getSecureParam() {
-        try {
-            Properties properties = PropertiesLoaderUtils.loadAllProperties("secure.properties");
-            Tuple<String, String> tuple = new Tuple<>();
-            tuple.setFirst(properties.getProperty("AES_KEY"));
-            tuple.setSecond(properties.getProperty("IV"));
-            return tuple;
-        } catch (IOException e) {
-            LOGGER.error(e);
+    /**
+     * 密钥只在首次使用时从secure.properties加载一次
+     */
+    private static Tuple<SecretKeySpec, IvParameterSpec> getSecureParam() {
+        Tuple<SecretKeySpec, IvParameterSpec> param = secureParam;
+        if (param != null) {
+            return param;
+        }
+        synchronized (LoganProtocol.class) {
+            if (secureParam != null) {
+                return secureParam;
+            }
+            try {
+                Properties properties = PropertiesLoaderUtils.loadAllProperties("secure.properties");
+                secureParam = Tuple.create(new SecretKeySpec(properties.getProperty("AES_KEY").getBytes(), "AES"),
+                        new IvParameterSpec(properties.getProperty("IV").getBytes()));
+            } catch (Exception e) {
+                LOGGER.error(e);
+            }
+            return secureParam;
         }
-        return null;
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,7 @@
 package com.meituan.logan.web.parser;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.log4j.Logger;
 
@@ -10,6 +12,7 @@ import java.security.KeyFactory;
 import java.security.Security;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 功能描述:  <p></p>
@@ -27,27 +30,61 @@ public class WebLogDecryptHelper {
 
     private static final String RSA = "RSA";
 
+    /**
+     * 同一次上报的每条日志都带着同一个加密后的AES key，按key缓存，避免每条日志都做一次RSA解密
+     */
+    private static final Cache<String, WebLogDecryptHelper> HELPERS = CacheBuilder.newBuilder()
+            .maximumSize(1024).expireAfterAccess(10, TimeUnit.MINUTES).build();
+
+    private static final ThreadLocal<Cipher> AES_CIPHER = ThreadLocal.withInitial(() -> newCipher(ALGORITHM_TYPE_H5));
+
+    private static final ThreadLocal<Cipher> RSA_CIPHER = ThreadLocal.withInitial(() -> newCipher(RSA));
+
+    private static final RSAPrivateKey PRIVATE_KEY;
+
     private SecretKeySpec secretKeySpec;
 
     static {
         Security.addProvider(new org.bouncycastle.jce.provider.BouncyCastleProvider());
+        PRIVATE_KEY = loadPrivateKey();
     }
 
     public static WebLogDecryptHelper create(String encryptKey) {
-        WebLogDecryptHelper webLogDecryptHelper = new WebLogDecryptHelper();
-        byte[] uploadKey = getPrivateKey(encryptKey);
-        webLogDecryptHelper.secretKeySpec = new SecretKeySpec(uploadKey, ALGORITHM);
+        WebLogDecryptHelper webLogDecryptHelper = HELPERS.getIfPresent(encryptKey);
+        if (webLogDecryptHelper == null) {
+            webLogDecryptHelper = new WebLogDecryptHelper();
+            byte[] uploadKey = getPrivateKey(encryptKey);
+            webLogDecryptHelper.secretKeySpec = new SecretKeySpec(uploadKey, ALGORITHM);
+            HELPERS.put(encryptKey, webLogDecryptHelper);
+        }
         return webLogDecryptHelper;
     }
 
-    private static byte[] getPrivateKey(String uploadKey) {
-        byte[] back = null;
+    private static RSAPrivateKey loadPrivateKey() {
         try {
             PKCS8EncodedKeySpec pkcs8EncodedKeySpec = new PKCS8EncodedKeySpec(Base64.decodeBase64(RSA_PRIVATE_KEY_H5));
             KeyFactory keyFactory = KeyFactory.getInstance(RSA);
-            RSAPrivateKey privateKey = (RSAPrivateKey) keyFactory.generatePrivate(pkcs8EncodedKeySpec);
-            Cipher cipher = Cipher.getInstance(RSA);
-            cipher.init(Cipher.DECRYPT_MODE, privateKey);
+            return (RSAPrivateKey) keyFactory.generatePrivate(pkcs8EncodedKeySpec);
+        } catch (Exception e) {
+            LOGGER.error(e);
+        }
+        return null;
+    }
+
+    private static Cipher newCipher(String transformation) {
+        try {
+            return Cipher.getInstance(transformation);
+        } catch (Exception e) {
+            LOGGER.error(e);
+        }
+        return null;
+    }
+
+    private static byte[] getPrivateKey(String uploadKey) {
+        byte[] back = null;
+        try {
+            Cipher cipher = RSA_CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, PRIVATE_KEY);
             back = cipher.doFinal(Base64.decodeBase64(uploadKey));
         } catch (Exception e) {
             LOGGER.error(e);
@@ -57,7 +94,7 @@ public class WebLogDecryptHelper {
 
     public String doDecrypt(String iv, byte[] content) {
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM_TYPE_H5);
+            Cipher cipher = AES_CIPHER.get();
             cipher.init(Cipher.DECRYPT_MODE, secretKeySpec, new IvParameterSpec(iv.getBytes()));
             return new String(cipher.doFinal(content));
         } catch (Exception e) {
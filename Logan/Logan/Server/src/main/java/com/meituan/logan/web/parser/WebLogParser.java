@@ -9,11 +9,13 @@ import com.meituan.logan.web.util.LocalStringUtils;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.log4j.Logger;
 
 import java.net.URLDecoder;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 功能描述:  <p></p>
@@ -22,10 +24,11 @@ import java.util.List;
  * @since logan-web 1.0
  */
 public class WebLogParser {
+    private static final Logger LOGGER = Logger.getLogger(WebLogParser.class);
 
     public static String parse(String logArray) {
-        List<String> logs = new LinkedList<>();
         String[] logItems = logArray.split(",");
+        List<String> logs = new ArrayList<>(logItems.length);
         for (String item : logItems) {
             String content = URLDecoder.decode(item);
             JSONObject jsonObject = JSON.parseObject(content);
@@ -63,19 +66,58 @@ public class WebLogParser {
     }
 
     public static List<WebLogDetailDTO> parseWebLogDetail(String content, long taskId) {
+        List<WebLogDetailDTO> result = new ArrayList<>();
+        parseWebLogDetail(content, taskId, Integer.MAX_VALUE, result::addAll);
+        return result;
+    }
+
+    /**
+     * 单遍解析任务内容，详情按批交给consumer，批次列表在consumer返回后复用
+     *
+     * @return 解析出的详情条数
+     */
+    public static int parseWebLogDetail(String content, long taskId, int batchSize,
+            Consumer<List<WebLogDetailDTO>> consumer) {
+        WebLogStreamParser parser = new WebLogStreamParser(content, taskId);
+        try {
+            return parser.parse(batchSize, consumer);
+        } catch (IllegalArgumentException e) {
+            LOGGER.error("fallback to json parser, task " + taskId + ": " + e.getMessage());
+            return parser.getDeliveredDetails()
+                    + parseByJson(content, taskId, parser.getDeliveredItems(), batchSize, consumer);
+        }
+    }
+
+    static int parseByJson(String content, long taskId, int skipItems, int batchSize,
+            Consumer<List<WebLogDetailDTO>> consumer) {
         List<String> logs = JSON.parseArray(content, String.class);
-        List<WebLogDetailDTO> result = new LinkedList<>();
-        for (String log : logs) {
-            WebLogDetailDTO detailDTO = parseOneLogItem(log, taskId);
+        if (logs == null) {
+            return 0;
+        }
+        List<WebLogDetailDTO> batch = new ArrayList<>();
+        int count = 0;
+        for (int i = skipItems; i < logs.size(); i++) {
+            WebLogDetailDTO detailDTO = parseOneLogItem(logs.get(i), taskId);
             if (detailDTO != null) {
-                result.add(detailDTO);
+                batch.add(detailDTO);
+                count++;
+                if (batch.size() >= batchSize) {
+                    consumer.accept(batch);
+                    batch.clear();
+                }
             }
         }
-        return result;
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+        return count;
     }
 
     private static WebLogDetailDTO parseOneLogItem(String logItem, long taskId) {
         JSONObject jsonObject = JSONObject.parseObject(logItem);
+        if (jsonObject == null) {
+            return null;
+        }
         String logType = jsonObject.getString(WebLogFieldEnum.LOG_TYPE.key);
         String content = jsonObject.getString(WebLogFieldEnum.CONTENT.key);
         String logTime = jsonObject.getString(WebLogFieldEnum.LOG_TIME.key);
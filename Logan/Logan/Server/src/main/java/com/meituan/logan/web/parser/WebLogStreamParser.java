@@ -0,0 +1,399 @@
+package com.meituan.logan.web.parser;
+
+import com.meituan.logan.web.dto.WebLogDetailDTO;
+import com.meituan.logan.web.enums.WebLogFieldEnum;
+import com.meituan.logan.web.util.DateTimeUtil;
+import com.meituan.logan.web.util.TrimFieldEnum;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * H5日志详情的单遍解析器
+ *
+ * <p>任务内容是一个JSON字符串数组，每个元素又是一个序列化后的JSON对象(t:日志类型，c:日志内容，d:日志时间)。
+ * 这里直接扫描字符，元素反转义到复用的缓冲区后就地取出这三个字段，不构建中间的JSONObject，
+ * 解析出的详情按批交给调用方，批次列表复用。</p>
+ *
+ * <p>格式不符合预期时抛出IllegalArgumentException，由调用方回退到通用JSON解析。</p>
+ *
+ * @since logan-web 1.0
+ */
+public class WebLogStreamParser {
+
+    private static final long ONE_MINUTE = 60 * 1000;
+    private static final int INITIAL_BATCH_CAPACITY = 1024;
+    private static final Charset CHARSET = Charset.defaultCharset();
+
+    private final CharSequence text;
+    private final long taskId;
+    private final StringBuilder item = new StringBuilder(256);
+    private final StringBuilder value = new StringBuilder(256);
+    private byte[] bytes = new byte[256];
+
+    private CharSequence source;
+    private int pos;
+
+    private int itemIndex;
+    private int deliveredItems;
+    private int deliveredDetails;
+
+    private long dayStart = Long.MAX_VALUE;
+    private long nextDayStart = Long.MIN_VALUE;
+
+    public WebLogStreamParser(CharSequence text, long taskId) {
+        this.text = text;
+        this.taskId = taskId;
+    }
+
+    /**
+     * @param batchSize 每批的条数
+     * @param consumer  接收一批详情，返回后批次列表会被清空复用，不能持有列表本身
+     * @return 解析出的详情条数
+     */
+    public int parse(int batchSize, Consumer<List<WebLogDetailDTO>> consumer) {
+        List<WebLogDetailDTO> batch = new ArrayList<>(Math.min(batchSize, INITIAL_BATCH_CAPACITY));
+        int count = 0;
+        itemIndex = 0;
+        deliveredItems = 0;
+        deliveredDetails = 0;
+        source = text;
+        pos = 0;
+        if (StringUtils.isBlank(text)) {
+            return 0;
+        }
+        skipWhitespace();
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            return 0;
+        }
+        while (true) {
+            skipWhitespace();
+            WebLogDetailDTO dto = null;
+            if (peek() == '"') {
+                item.setLength(0);
+                readString(item);
+                int outerPos = pos;
+                dto = parseItem();
+                source = text;
+                pos = outerPos;
+            } else if (!"null".equals(readToken())) {
+                // fastjson把数字、布尔转成字符串后再按对象解析(会失败)，对象、数组元素也交给它处理
+                throw error("string item");
+            }
+            itemIndex++;
+            if (dto != null) {
+                batch.add(dto);
+                count++;
+                if (batch.size() >= batchSize) {
+                    deliver(batch, consumer);
+                }
+            }
+            skipWhitespace();
+            char c = next();
+            if (c == ']') {
+                break;
+            }
+            if (c != ',') {
+                throw error("',' or ']'");
+            }
+        }
+        if (!batch.isEmpty()) {
+            deliver(batch, consumer);
+        }
+        return count;
+    }
+
+    /**
+     * @return 已交付给调用方的数组元素个数，解析失败时调用方据此跳过已交付的部分
+     */
+    public int getDeliveredItems() {
+        return deliveredItems;
+    }
+
+    /**
+     * @return 已交付给调用方的详情条数
+     */
+    public int getDeliveredDetails() {
+        return deliveredDetails;
+    }
+
+    private void deliver(List<WebLogDetailDTO> batch, Consumer<List<WebLogDetailDTO>> consumer) {
+        consumer.accept(batch);
+        deliveredDetails += batch.size();
+        batch.clear();
+        deliveredItems = itemIndex;
+    }
+
+    private WebLogDetailDTO parseItem() {
+        source = item;
+        pos = 0;
+        skipWhitespace();
+        expect('{');
+        String logType = null;
+        String content = null;
+        String logTime = null;
+        skipWhitespace();
+        if (peek() == '}') {
+            return null;
+        }
+        while (true) {
+            skipWhitespace();
+            value.setLength(0);
+            readString(value);
+            WebLogFieldEnum field = fieldOf(value);
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if (field == null) {
+                skipValue();
+            } else {
+                String fieldValue = readScalar();
+                if (field == WebLogFieldEnum.LOG_TYPE) {
+                    logType = fieldValue;
+                } else if (field == WebLogFieldEnum.CONTENT) {
+                    content = fieldValue;
+                } else {
+                    logTime = fieldValue;
+                }
+            }
+            skipWhitespace();
+            char c = next();
+            if (c == '}') {
+                break;
+            }
+            if (c != ',') {
+                throw error("',' or '}'");
+            }
+        }
+        if (StringUtils.isEmpty(logType) || StringUtils.isEmpty(content) || StringUtils.isEmpty(logTime)) {
+            return null;
+        }
+        WebLogDetailDTO detailDTO = new WebLogDetailDTO();
+        detailDTO.setTaskId(taskId);
+        detailDTO.setContent(decodeContent(content));
+        detailDTO.setLogType(NumberUtils.toInt(logType));
+        detailDTO.setLogTime(NumberUtils.toLong(logTime));
+        detailDTO.setMinuteOffset(minuteOffset(detailDTO.getLogTime()));
+        return detailDTO;
+    }
+
+    /**
+     * 与DateTimeUtil.getDayOffset结果一致，同一天内的日志复用当天零点，不再每条创建Calendar
+     */
+    private int minuteOffset(long logTime) {
+        if (logTime < dayStart || logTime >= nextDayStart) {
+            Date start = DateTimeUtil.trimAfter(TrimFieldEnum.HOUR, new Date(logTime));
+            dayStart = start.getTime();
+            nextDayStart = DateTimeUtil.trimAfter(TrimFieldEnum.HOUR, DateTimeUtil.plusDay(start, 1)).getTime();
+            if (nextDayStart <= dayStart) {
+                nextDayStart = dayStart + 1;
+            }
+        }
+        return (int) (logTime - dayStart) / (int) ONE_MINUTE;
+    }
+
+    /**
+     * 与URLDecoder.decode(String)结果一致(平台默认编码)，复用缓冲区；格式非法时交给URLDecoder抛出同样的异常
+     */
+    @SuppressWarnings("deprecation")
+    private String decodeContent(String content) {
+        // 绝大多数内容没有转义字符，跳过解码
+        if (content.indexOf('%') < 0 && content.indexOf('+') < 0) {
+            return content;
+        }
+        int length = content.length();
+        value.setLength(0);
+        int i = 0;
+        while (i < length) {
+            char c = content.charAt(i);
+            if (c == '+') {
+                value.append(' ');
+                i++;
+            } else if (c != '%') {
+                value.append(c);
+                i++;
+            } else {
+                int count = 0;
+                while (i < length && content.charAt(i) == '%') {
+                    int high = i + 2 < length ? Character.digit(content.charAt(i + 1), 16) : -1;
+                    int low = i + 2 < length ? Character.digit(content.charAt(i + 2), 16) : -1;
+                    if (high < 0 || low < 0) {
+                        return URLDecoder.decode(content);
+                    }
+                    if (count == bytes.length) {
+                        bytes = Arrays.copyOf(bytes, count * 2);
+                    }
+                    bytes[count++] = (byte) ((high << 4) | low);
+                    i += 3;
+                }
+                value.append(new String(bytes, 0, count, CHARSET));
+            }
+        }
+        return value.toString();
+    }
+
+    private static WebLogFieldEnum fieldOf(CharSequence key) {
+        if (key.length() != 1) {
+            return null;
+        }
+        char c = key.charAt(0);
+        if (c == WebLogFieldEnum.LOG_TYPE.key.charAt(0)) {
+            return WebLogFieldEnum.LOG_TYPE;
+        } else if (c == WebLogFieldEnum.CONTENT.key.charAt(0)) {
+            return WebLogFieldEnum.CONTENT;
+        } else if (c == WebLogFieldEnum.LOG_TIME.key.charAt(0)) {
+            return WebLogFieldEnum.LOG_TIME;
+        }
+        return null;
+    }
+
+    /**
+     * 字符串取反转义后的值，数字、布尔取原文，null返回null；对象和数组由fastjson序列化成字符串，这里不处理
+     */
+    private String readScalar() {
+        char c = peek();
+        if (c == '"') {
+            value.setLength(0);
+            readString(value);
+            return value.toString();
+        }
+        if (c == '{' || c == '[') {
+            throw error("scalar value");
+        }
+        String token = readToken();
+        return "null".equals(token) ? null : token;
+    }
+
+    private void skipValue() {
+        char c = peek();
+        if (c == '"') {
+            value.setLength(0);
+            readString(value);
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = peek();
+                if (c == '"') {
+                    value.setLength(0);
+                    readString(value);
+                    continue;
+                }
+                pos++;
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        } else {
+            readToken();
+        }
+    }
+
+    private String readToken() {
+        int start = pos;
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                break;
+            }
+            pos++;
+        }
+        if (start == pos) {
+            throw error("value");
+        }
+        return source.subSequence(start, pos).toString();
+    }
+
+    private void readString(StringBuilder out) {
+        expect('"');
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return;
+            }
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            char escaped = next();
+            switch (escaped) {
+                case 'b':
+                    out.append('\b');
+                    break;
+                case 'f':
+                    out.append('\f');
+                    break;
+                case 'n':
+                    out.append('\n');
+                    break;
+                case 'r':
+                    out.append('\r');
+                    break;
+                case 't':
+                    out.append('\t');
+                    break;
+                case 'u':
+                    if (pos + 4 > source.length()) {
+                        throw error("unicode escape");
+                    }
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(source.charAt(pos++), 16);
+                        if (digit < 0) {
+                            throw error("unicode escape");
+                        }
+                        code = (code << 4) | digit;
+                    }
+                    out.append((char) code);
+                    break;
+                case '"':
+                case '\\':
+                case '/':
+                    out.append(escaped);
+                    break;
+                default:
+                    // fastjson兼容的非标准转义(如\x41)交给它处理
+                    throw error("escape");
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private char peek() {
+        if (pos >= source.length()) {
+            throw error("more content");
+        }
+        return source.charAt(pos);
+    }
+
+    private char next() {
+        char c = peek();
+        pos++;
+        return c;
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw error("'" + expected + "'");
+        }
+    }
+
+    private IllegalArgumentException error(String expected) {
+        return new IllegalArgumentException("illegal web log content, expect " + expected + " at " + pos);
+    }
+}
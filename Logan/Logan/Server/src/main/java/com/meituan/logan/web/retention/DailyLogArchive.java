@@ -0,0 +1,244 @@
+package com.meituan.logan.web.retention;
+
+import com.meituan.logan.web.model.Tuple;
+import com.meituan.logan.web.util.FileUtil;
+import org.apache.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 原始日志的按天归档
+ *
+ * <p>归档目录下每天一个压缩包(yyyyMMdd.zip)。追加时先把旧包与新文件写入临时文件，再原子替换旧包，
+ * 替换成功后才删除原始文件，中途失败不会丢数据。一天过期只需删除一个文件。</p>
+ *
+ * <p>内存中维护文件名到归档日期的索引，首次读取时扫描一遍已有的压缩包建立，之后随归档和过期更新，
+ * 读取一个文件只打开它所在的那一个压缩包。归档与读取需使用同一个实例。</p>
+ *
+ * @since logan-web 1.0
+ */
+@Component
+public class DailyLogArchive {
+    private static final Logger LOGGER = Logger.getLogger(DailyLogArchive.class);
+
+    private static final String SUFFIX = ".zip";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File dir;
+    /**
+     * 文件名 -> 所在压缩包的日期(yyyyMMdd)
+     */
+    private final Map<String, String> index = new ConcurrentHashMap<>();
+    private volatile boolean indexed;
+
+    public DailyLogArchive() {
+        this(FileUtil.getArchiveDir());
+    }
+
+    public DailyLogArchive(File dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * 把同一天的原始文件加入当天的压缩包，成功后删除原始文件
+     *
+     * @param day      yyyyMMdd
+     * @param throttle 每读取一段原始数据后以字节数回调，用于限速
+     * @return 归档的原始字节数与压缩包增加的字节数
+     */
+    public Tuple<Long, Long> append(String day, List<File> files, IntConsumer throttle) throws IOException {
+        File archive = archiveOf(day);
+        long before = archive.length();
+        dir.mkdirs();
+        File tmp = new File(dir, day + "." + UUID.randomUUID() + ".tmp");
+        Set<String> names = new HashSet<>();
+        for (File file : files) {
+            names.add(file.getName());
+        }
+        long rawBytes = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tmp);
+                 ZipOutputStream out = new ZipOutputStream(fos)) {
+                if (archive.exists()) {
+                    copyEntries(archive, names, out, buffer);
+                }
+                for (File file : files) {
+                    ZipEntry entry = new ZipEntry(file.getName());
+                    entry.setTime(file.lastModified());
+                    out.putNextEntry(entry);
+                    try (InputStream in = new FileInputStream(file)) {
+                        int count;
+                        while ((count = in.read(buffer)) != -1) {
+                            out.write(buffer, 0, count);
+                            rawBytes += count;
+                            throttle.accept(count);
+                        }
+                    }
+                    out.closeEntry();
+                }
+                out.finish();
+                fos.getFD().sync();
+            }
+            Files.move(tmp.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if (tmp.exists()) {
+                tmp.delete();
+            }
+        }
+        for (String name : names) {
+            index.put(name, day);
+        }
+        for (File file : files) {
+            if (!file.delete()) {
+                LOGGER.error("delete archived log file failed: " + file);
+            }
+        }
+        return Tuple.create(rawBytes, archive.length() - before);
+    }
+
+    /**
+     * 从归档中读取原始日志，按索引只打开所在的压缩包
+     *
+     * @return 文件内容与原始长度，没有归档时返回null
+     */
+    public Tuple<InputStream, Long> open(String fileName) throws IOException {
+        ensureIndexed();
+        String day = index.get(fileName);
+        if (day == null) {
+            return null;
+        }
+        File archive = archiveOf(day);
+        if (!archive.exists()) {
+            index.remove(fileName, day);
+            return null;
+        }
+        ZipFile zip = new ZipFile(archive);
+        ZipEntry entry = zip.getEntry(fileName);
+        if (entry == null) {
+            zip.close();
+            return null;
+        }
+        InputStream in = new FilterInputStream(zip.getInputStream(entry)) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    zip.close();
+                }
+            }
+        };
+        return Tuple.create(in, entry.getSize());
+    }
+
+    /**
+     * 删除早于指定日期的压缩包
+     *
+     * @param day yyyyMMdd，当天及之后的不删除
+     * @return 删除的压缩包数量
+     */
+    public int expireBefore(String day) {
+        File[] archives = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+        if (archives == null) {
+            return 0;
+        }
+        int count = 0;
+        for (File archive : archives) {
+            if (dayOf(archive).compareTo(day) < 0) {
+                if (archive.delete()) {
+                    count++;
+                } else {
+                    LOGGER.error("delete expired archive failed: " + archive);
+                }
+            }
+        }
+        index.values().removeIf(archived -> archived.compareTo(day) < 0);
+        return count;
+    }
+
+    private File archiveOf(String day) {
+        return new File(dir, day + SUFFIX);
+    }
+
+    private static String dayOf(File archive) {
+        String name = archive.getName();
+        return name.substring(0, name.length() - SUFFIX.length());
+    }
+
+    /**
+     * 启动后首次读取时扫描已有压缩包的条目名，同名文件以较新的一天为准
+     */
+    private void ensureIndexed() throws IOException {
+        if (indexed) {
+            return;
+        }
+        synchronized (index) {
+            if (indexed) {
+                return;
+            }
+            File[] archives = dir.listFiles((d, name) -> name.endsWith(SUFFIX));
+            if (archives != null) {
+                Arrays.sort(archives);
+                for (File archive : archives) {
+                    String day = dayOf(archive);
+                    try (ZipFile zip = new ZipFile(archive)) {
+                        Enumeration<? extends ZipEntry> entries = zip.entries();
+                        while (entries.hasMoreElements()) {
+                            String name = entries.nextElement().getName();
+                            index.merge(name, day, (current, scanned) -> current.compareTo(scanned) >= 0 ? current : scanned);
+                        }
+                    }
+                }
+            }
+            indexed = true;
+        }
+    }
+
+    /**
+     * 复制旧包中的条目，与本次新加文件同名的条目以新文件为准
+     */
+    private static void copyEntries(File archive, Set<String> skipped, ZipOutputStream out, byte[] buffer)
+            throws IOException {
+        try (ZipFile zip = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (skipped.contains(entry.getName())) {
+                    continue;
+                }
+                ZipEntry copy = new ZipEntry(entry.getName());
+                copy.setTime(entry.getTime());
+                out.putNextEntry(copy);
+                try (InputStream in = zip.getInputStream(entry)) {
+                    int count;
+                    while ((count = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, count);
+                    }
+                }
+                out.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.meituan.logan.web.retention;
+
+import com.meituan.logan.web.enums.PartitionedTableEnum;
+import com.meituan.logan.web.model.LogPartition;
+import com.meituan.logan.web.util.DateTimeUtil;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 按天分区的规划：每天一个分区，名称为p+yyyyMMdd，边界为次日0点；最后一个分区pmax承接MAXVALUE。
+ *
+ * <p>过期只删除整个分区，新分区提前从空的pmax中拆出，两者都只改元数据，不逐行删除或搬迁数据。</p>
+ *
+ * @since logan-web 1.0
+ */
+public class DailyPartitions {
+    public static final String MAX_PARTITION = "pmax";
+    private static final String PREFIX = "p";
+    private static final String MAXVALUE = "MAXVALUE";
+
+    /**
+     * @return 边界不晚于cutoff的分区，其中所有行的add_time都早于cutoff
+     */
+    public static List<String> expired(PartitionedTableEnum table, List<LogPartition> partitions, long cutoffMillis) {
+        List<String> result = new ArrayList<>();
+        for (LogPartition partition : partitions) {
+            if (isDayPartition(partition) && table.toMillis(Long.parseLong(partition.getLessThan())) <= cutoffMillis) {
+                result.add(partition.getName());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param today 当天0点
+     * @return 为了覆盖到today之后aheadDays天，需要从pmax中拆出的分区，通常pmax为空，拆分只改元数据
+     */
+    public static List<LogPartition> missing(PartitionedTableEnum table, List<LogPartition> partitions, Date today,
+            int aheadDays) {
+        long last = -1;
+        Set<String> names = new HashSet<>();
+        for (LogPartition partition : partitions) {
+            names.add(partition.getName());
+            if (isDayPartition(partition)) {
+                last = Math.max(last, table.toMillis(Long.parseLong(partition.getLessThan())));
+            }
+        }
+        long day = last < 0 ? today.getTime() : last;
+        long end = addDays(today.getTime(), aheadDays);
+        List<LogPartition> result = new ArrayList<>();
+        if (day < today.getTime()) {
+            // 停机多天后pmax中已有数据，补一个分区覆盖到今天，避免一次拆出大量分区
+            result.add(LogPartition.create(nameOf(names, day), table.toBound(today.getTime())));
+            day = today.getTime();
+        }
+        while (day <= end) {
+            long next = addDays(day, 1);
+            result.add(LogPartition.create(nameOf(names, day), table.toBound(next)));
+            day = next;
+        }
+        return result;
+    }
+
+    public static boolean hasMaxPartition(List<LogPartition> partitions) {
+        for (LogPartition partition : partitions) {
+            if (MAX_PARTITION.equals(partition.getName()) && MAXVALUE.equalsIgnoreCase(partition.getLessThan())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 已有分区的边界不在本地0点时(如建表语句按别的时区写)，按起始日命名会与已有分区重名，加序号区分
+     */
+    private static String nameOf(Set<String> names, long day) {
+        String base = PREFIX + DateTimeUtil.formatYMD(new Date(day));
+        String name = base;
+        for (int i = 1; !names.add(name); i++) {
+            name = base + "_" + i;
+        }
+        return name;
+    }
+
+    private static boolean isDayPartition(LogPartition partition) {
+        return partition.getLessThan() != null && NumberUtils.isDigits(partition.getLessThan());
+    }
+
+    /**
+     * 按日历加天数，避免夏令时切换日不是24小时
+     */
+    private static long addDays(long millis, int days) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        calendar.add(Calendar.DAY_OF_MONTH, days);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -1,6 +1,9 @@
 package com.meituan.logan.web.service;
 
+import com.meituan.logan.web.model.BatchInsertMetrics;
+
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 功能描述:  <p></p>
@@ -14,4 +17,16 @@ public interface BatchInsertService<T> {
     void saveLogDetail(T data);
 
     void saveLogDetails(List<T> list);
+
+    /**
+     * 将该任务已提交但还未入库的数据立即入库
+     *
+     * @return 之前提交的该任务数据全部入库后完成；上次flush该任务之后它有数据入库失败时以异常完成
+     */
+    CompletableFuture<Void> flush(long taskId);
+
+    /**
+     * 队列深度、批次大小、入库耗时等运行指标
+     */
+    BatchInsertMetrics getMetrics();
 }
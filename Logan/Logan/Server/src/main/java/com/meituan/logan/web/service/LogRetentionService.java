@@ -0,0 +1,13 @@
+package com.meituan.logan.web.service;
+
+import com.meituan.logan.web.model.RetentionMetrics;
+
+/**
+ * 日志保留策略：原始日志按天归档压缩，过期的详情分区、归档包与派生文件整体删除
+ *
+ * @since logan-web 1.0
+ */
+public interface LogRetentionService {
+
+    RetentionMetrics getMetrics();
+}
@@ -0,0 +1,33 @@
+package com.meituan.logan.web.service;
+
+import com.meituan.logan.web.enums.ResultEnum;
+import com.meituan.logan.web.model.ChunkUploadStatus;
+import com.meituan.logan.web.model.LoganTaskModel;
+import com.meituan.logan.web.model.Tuple;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * 客户端日志分片上传：初始化清单、上传分片、合并
+ *
+ * @since logan-web 1.0
+ */
+public interface LoganChunkUploadService {
+
+    /**
+     * 提交上传清单，同一清单重复提交时返回同一个uploadId，用于断点续传
+     *
+     * @return 清单非法时返回null
+     */
+    ChunkUploadStatus init(LoganTaskModel task, long fileSize, int chunkSize, List<String> chunkMd5s);
+
+    ResultEnum writeChunk(String uploadId, int index, String md5, InputStream inputStream);
+
+    /**
+     * 所有分片到齐后按顺序解密解析成日志文件，并创建任务提交解析。同一uploadId重复调用时返回第一次创建的任务
+     *
+     * @return 解析结果和任务信息
+     */
+    Tuple<ResultEnum, LoganTaskModel> complete(String uploadId);
+}
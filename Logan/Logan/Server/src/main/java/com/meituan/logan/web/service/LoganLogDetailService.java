@@ -7,9 +7,24 @@ import java.util.List;
 
 public interface LoganLogDetailService {
 
-    List<List<LoganLogSimpleModel>> listByTaskIdTypeKeyword(long taskId, List<Integer> type, String keyword);
+    /**
+     * @param beginTime 日志时间下限(含)，为空时不限
+     * @param endTime   日志时间上限(含)，为空时不限
+     */
+    List<List<LoganLogSimpleModel>> listByTaskIdTypeKeyword(long taskId, List<Integer> type, String keyword,
+            Long beginTime, Long endTime);
 
     List<LoganLogDetailModel> listByDetailIds(List<Long> detailIds);
 
     LoganLogDetailModel getByDetailId(long detailId);
+
+    /**
+     * 上报完成后在后台解析日志文件
+     */
+    void submitAnalyze(long taskId);
+
+    /**
+     * @return 正在解析的任务的进度(0-100)，任务不在解析中时返回-1
+     */
+    int getAnalyzeProgress(long taskId);
 }
@@ -1,6 +1,7 @@
 package com.meituan.logan.web.service;
 
 import com.meituan.logan.web.enums.ResultEnum;
+import com.meituan.logan.web.model.Tuple;
 
 import java.io.InputStream;
 
@@ -10,4 +11,11 @@ import java.io.InputStream;
 public interface LoganLogFileService {
 
     ResultEnum write(InputStream inputStream, String fileName);
+
+    /**
+     * 读取原始日志，已按天归档的从归档包中读取
+     *
+     * @return 文件内容与长度，文件不存在时返回null
+     */
+    Tuple<InputStream, Long> open(String fileName);
 }
@@ -0,0 +1,37 @@
+package com.meituan.logan.web.service;
+
+import com.meituan.logan.web.dto.LoganLogDetailDTO;
+
+import java.util.List;
+
+/**
+ * 客户端日志详情的倒排索引
+ *
+ * @since logan-web 1.0
+ */
+public interface LoganLogIndexService {
+
+    /**
+     * 将已入库(已有详情ID)的日志详情加入对应任务的索引
+     */
+    void index(List<LoganLogDetailDTO> details);
+
+    /**
+     * 任务解析完成后调用，把尚在内存中的数据写入索引段
+     */
+    void commit(long taskId);
+
+    /**
+     * 通过索引检索可能包含关键字的详情ID，结果仍需按内容校验
+     *
+     * @return 索引无法回答(索引不存在、关键字过短等)时返回null
+     */
+    List<Long> search(long taskId, List<Integer> types, String keyword, Long beginTime, Long endTime);
+
+    /**
+     * 删除任务的索引，内存中未写出的数据和已缓存的索引段一并丢弃
+     *
+     * @return 索引目录是否已不存在
+     */
+    boolean delete(long taskId);
+}
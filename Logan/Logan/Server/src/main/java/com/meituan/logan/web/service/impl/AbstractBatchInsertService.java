@@ -1,55 +1,61 @@
 package com.meituan.logan.web.service.impl;
 
+import com.meituan.logan.web.model.BatchInsertMetrics;
 import com.meituan.logan.web.service.BatchInsertService;
-import com.meituan.logan.web.task.DelaySupplier;
-import com.meituan.logan.web.task.SingleThreadTaskLoop;
-import com.meituan.logan.web.task.TaskLoop;
+import com.meituan.logan.web.task.ShardedBatchPipeline;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
 
 import javax.annotation.PostConstruct;
-import java.util.ArrayList;
+import javax.annotation.PreDestroy;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
 public abstract class AbstractBatchInsertService<T> implements BatchInsertService<T> {
     private static final Logger LOGGER = Logger.getLogger(AbstractBatchInsertService.class);
 
-    private static final int CACHED_SIZE = 200;
-    private List<T> cachedLogDetails = new ArrayList<>(CACHED_SIZE);
-    private TaskLoop taskLoop;
+    @Value("${batch.insert.shards:4}")
+    private int shards;
+    @Value("${batch.insert.queueCapacity:20000}")
+    private int queueCapacity;
+    @Value("${batch.insert.minBatchSize:50}")
+    private int minBatchSize;
+    @Value("${batch.insert.maxBatchSize:1000}")
+    private int maxBatchSize;
+    @Value("${batch.insert.targetLatencyMillis:100}")
+    private long targetLatencyMillis;
+    @Value("${batch.insert.flushPeriodMillis:50}")
+    private long flushPeriodMillis;
+
+    private ShardedBatchPipeline<T> pipeline;
 
     @PostConstruct
     private void init() {
-        taskLoop = new SingleThreadTaskLoop(AbstractBatchInsertService.class.getSimpleName());
-        taskLoop.setDelaySupplier(new DelaySupplier() {
-            @Override
-            public long getInitialDelay() {
-                return 0;
-            }
-
-            @Override
-            public int getPeriod() {
-                return 50;
-            }
+        ShardedBatchPipeline.Config config = new ShardedBatchPipeline.Config();
+        config.setShards(shards);
+        config.setQueueCapacity(queueCapacity);
+        config.setMinBatchSize(minBatchSize);
+        config.setMaxBatchSize(Math.max(minBatchSize, maxBatchSize));
+        config.setTargetLatencyMillis(targetLatencyMillis);
+        config.setFlushPeriodMillis(flushPeriodMillis);
+        pipeline = new ShardedBatchPipeline<>(getClass().getSimpleName(), this::execute, this::shardKey, config);
+        pipeline.start();
+    }
 
-            @Override
-            public TimeUnit getTimeUnit() {
-                return TimeUnit.MILLISECONDS;
-            }
-        });
-        taskLoop.registerHarvestTask(this::doBatchInsert);
-        taskLoop.start();
+    @PreDestroy
+    private void destroy() {
+        pipeline.shutdown();
     }
 
     @Override
     public void saveLogDetail(T data) {
-        taskLoop.submitTask(() -> {
-            cachedLogDetails.add(data);
-            if (cachedLogDetails.size() >= CACHED_SIZE) {
-                doBatchInsert();
-            }
-        });
+        try {
+            pipeline.submit(data);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.error(e);
+        }
     }
 
     @Override
@@ -59,18 +65,24 @@ public abstract class AbstractBatchInsertService<T> implements BatchInsertServic
         }
     }
 
-    private void doBatchInsert() {
-        try {
-            if (!cachedLogDetails.isEmpty()) {
-                execute(cachedLogDetails);
-            }
-        } catch (Exception e) {
-            LOGGER.error(e);
-        } finally {
-            cachedLogDetails.clear();
-        }
+    @Override
+    public CompletableFuture<Void> flush(long taskId) {
+        return pipeline.flush(taskId);
     }
 
+    @Override
+    public BatchInsertMetrics getMetrics() {
+        return pipeline.getMetrics();
+    }
+
+    /**
+     * 一批数据入库，异常由流水线统一记录
+     */
     protected abstract void execute(List<T> cachedLogDetails);
 
+    /**
+     * 分片键(任务id)相同的数据按提交顺序入库，flush也按它进行
+     */
+    protected abstract long shardKey(T data);
+
 }
@@ -0,0 +1,292 @@
+package com.meituan.logan.web.service.impl;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.meituan.logan.web.enums.PartitionedTableEnum;
+import com.meituan.logan.web.mapper.LogPartitionMapper;
+import com.meituan.logan.web.model.LogPartition;
+import com.meituan.logan.web.model.RetentionMetrics;
+import com.meituan.logan.web.model.Tuple;
+import com.meituan.logan.web.retention.DailyLogArchive;
+import com.meituan.logan.web.retention.DailyPartitions;
+import com.meituan.logan.web.service.LogRetentionService;
+import com.meituan.logan.web.service.LoganLogIndexService;
+import com.meituan.logan.web.util.DateTimeUtil;
+import com.meituan.logan.web.util.FileUtil;
+import com.meituan.logan.web.util.Threads;
+import com.meituan.logan.web.util.TrimFieldEnum;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日志保留策略的默认实现
+ *
+ * <p>单线程定时执行，每轮依次：维护详情表的按天分区(删除过期分区、预建未来分区)，把超过archiveAfterDays天的
+ * 原始日志按天归入压缩包，删除过期的压缩包、列存文件、索引目录和上传分片。归档读写按字节限速，避免与上报和解析争抢磁盘。</p>
+ *
+ * <p>默认不启用；启用后默认只归档和预建分区，删除过期数据需要另外打开retention.deleteExpired。</p>
+ *
+ * <p>详情表未分区时跳过分区维护，建表方式见README。</p>
+ *
+ * @since logan-web 1.0
+ */
+@Service
+public class LogRetentionServiceImpl implements LogRetentionService {
+    private static final Logger LOGGER = Logger.getLogger(LogRetentionServiceImpl.class);
+
+    private static final long INITIAL_DELAY_MINUTES = 1;
+
+    @Value("${retention.enabled:false}")
+    private boolean enabled;
+    @Value("${retention.deleteExpired:false}")
+    private boolean deleteExpired;
+    @Value("${retention.days:30}")
+    private int retentionDays;
+    @Value("${retention.archiveAfterDays:2}")
+    private int archiveAfterDays;
+    @Value("${retention.partitionAheadDays:3}")
+    private int partitionAheadDays;
+    @Value("${retention.periodMinutes:60}")
+    private long periodMinutes;
+    @Value("${retention.archiveBytesPerSecond:20971520}")
+    private long archiveBytesPerSecond;
+    @Value("${retention.maxArchiveFilesPerRun:10000}")
+    private int maxArchiveFilesPerRun;
+
+    @Resource
+    private LogPartitionMapper partitionMapper;
+
+    @Resource
+    private DailyLogArchive archive;
+    @Resource
+    private LoganLogIndexService indexService;
+    private ScheduledExecutorService scheduler;
+    private RateLimiter limiter;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong archivedFiles = new AtomicLong();
+    private final AtomicLong archivedBytes = new AtomicLong();
+    private final AtomicLong archiveCompressedBytes = new AtomicLong();
+    private final AtomicLong expiredArchives = new AtomicLong();
+    private final AtomicLong droppedPartitions = new AtomicLong();
+    private final AtomicLong createdPartitions = new AtomicLong();
+    private final AtomicLong deletedFiles = new AtomicLong();
+    private volatile long lastRunTime;
+    private volatile long lastRunCostMillis;
+    private volatile String lastError;
+
+    @PostConstruct
+    private void init() {
+        if (!enabled) {
+            return;
+        }
+        limiter = RateLimiter.create(Math.max(1, archiveBytesPerSecond));
+        scheduler = Threads.newSingleThreadScheduledExecutor("retention");
+        scheduler.scheduleWithFixedDelay(this::run, INITIAL_DELAY_MINUTES, Math.max(1, periodMinutes),
+                TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public RetentionMetrics getMetrics() {
+        RetentionMetrics metrics = new RetentionMetrics();
+        metrics.setEnabled(enabled);
+        metrics.setDeleteExpired(deleteExpired);
+        metrics.setRetentionDays(retentionDays);
+        metrics.setRuns(runs.get());
+        metrics.setFailures(failures.get());
+        metrics.setLastRunTime(lastRunTime);
+        metrics.setLastRunCostMillis(lastRunCostMillis);
+        metrics.setLastError(lastError);
+        metrics.setArchivedFiles(archivedFiles.get());
+        metrics.setArchivedBytes(archivedBytes.get());
+        metrics.setArchiveCompressedBytes(archiveCompressedBytes.get());
+        metrics.setExpiredArchives(expiredArchives.get());
+        metrics.setDroppedPartitions(droppedPartitions.get());
+        metrics.setCreatedPartitions(createdPartitions.get());
+        metrics.setDeletedFiles(deletedFiles.get());
+        return metrics;
+    }
+
+    private void run() {
+        long start = System.currentTimeMillis();
+        Date today = DateTimeUtil.trimAfter(TrimFieldEnum.HOUR, new Date(start));
+        Date cutoff = DateTimeUtil.trimAfter(TrimFieldEnum.HOUR, DateTimeUtil.plusDay(today, -Math.max(1, retentionDays)));
+        for (PartitionedTableEnum table : PartitionedTableEnum.values()) {
+            try {
+                maintainPartitions(table, today, cutoff);
+            } catch (Exception e) {
+                fail("maintain partitions of " + table.getTable(), e);
+            }
+        }
+        try {
+            archiveLogFiles(today, cutoff);
+            if (deleteExpired) {
+                expiredArchives.addAndGet(archive.expireBefore(DateTimeUtil.formatYMD(cutoff)));
+                deleteExpired(FileUtil.getColumnarFile(0).getParentFile(), cutoff.getTime());
+                deleteExpiredIndexes(cutoff.getTime());
+                deleteExpiredChunks(cutoff.getTime());
+            }
+        } catch (Exception e) {
+            fail("archive log files", e);
+        }
+        runs.incrementAndGet();
+        lastRunTime = start;
+        lastRunCostMillis = System.currentTimeMillis() - start;
+        LOGGER.info("retention run cost " + lastRunCostMillis + "ms, archived files: " + archivedFiles.get()
+                + ", dropped partitions: " + droppedPartitions.get());
+    }
+
+    /**
+     * 过期分区整体删除；预建分区从空的pmax中拆出，不搬迁数据
+     */
+    private void maintainPartitions(PartitionedTableEnum table, Date today, Date cutoff) {
+        List<LogPartition> partitions = partitionMapper.queryPartitions(table.getTable());
+        if (partitions == null || partitions.isEmpty()) {
+            return;
+        }
+        List<String> expired = deleteExpired ? DailyPartitions.expired(table, partitions, cutoff.getTime())
+                : Collections.emptyList();
+        if (!expired.isEmpty()) {
+            partitionMapper.dropPartitions(table.getTable(), expired);
+            droppedPartitions.addAndGet(expired.size());
+            LOGGER.info("drop partitions of " + table.getTable() + ": " + expired);
+        }
+        if (!DailyPartitions.hasMaxPartition(partitions)) {
+            LOGGER.error("table " + table.getTable() + " has no " + DailyPartitions.MAX_PARTITION
+                    + " partition, skip creating partitions");
+            return;
+        }
+        List<LogPartition> missing = DailyPartitions.missing(table, partitions, today, partitionAheadDays);
+        if (!missing.isEmpty()) {
+            partitionMapper.splitMaxPartition(table.getTable(), DailyPartitions.MAX_PARTITION, missing);
+            createdPartitions.addAndGet(missing.size());
+        }
+    }
+
+    /**
+     * 当天及之后archiveAfterDays天内的文件仍可能被下载或解析，保持原样；开启删除时已过期的直接删除，不再归档
+     */
+    private void archiveLogFiles(Date today, Date cutoff) throws Exception {
+        File[] files = FileUtil.getLogDir().listFiles(File::isFile);
+        if (files == null) {
+            return;
+        }
+        long archiveBefore = DateTimeUtil.plusDay(today, -Math.max(1, archiveAfterDays)).getTime();
+        Map<String, List<File>> byDay = new TreeMap<>();
+        int count = 0;
+        for (File file : files) {
+            long modified = file.lastModified();
+            if (modified >= archiveBefore) {
+                continue;
+            }
+            if (deleteExpired && modified < cutoff.getTime()) {
+                if (file.delete()) {
+                    deletedFiles.incrementAndGet();
+                }
+                continue;
+            }
+            if (count++ >= maxArchiveFilesPerRun) {
+                continue;
+            }
+            byDay.computeIfAbsent(DateTimeUtil.formatYMD(new Date(modified)), k -> new ArrayList<>()).add(file);
+        }
+        for (Map.Entry<String, List<File>> entry : byDay.entrySet()) {
+            Tuple<Long, Long> result = archive.append(entry.getKey(), entry.getValue(), limiter::acquire);
+            archivedFiles.addAndGet(entry.getValue().size());
+            archivedBytes.addAndGet(result.getFirst());
+            archiveCompressedBytes.addAndGet(result.getSecond());
+        }
+    }
+
+    /**
+     * 删除目录下最后修改时间早于cutoff的文件或子目录
+     */
+    private void deleteExpired(File dir, long cutoff) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.lastModified() < cutoff && FileUtils.deleteQuietly(child)) {
+                deletedFiles.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 索引目录交给索引服务删除，同时丢弃缓存中该任务已映射的索引段
+     */
+    private void deleteExpiredIndexes(long cutoff) {
+        File[] children = FileUtil.getIndexDir(0).getParentFile().listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.lastModified() >= cutoff) {
+                continue;
+            }
+            boolean deleted = NumberUtils.isDigits(child.getName())
+                    ? indexService.delete(Long.parseLong(child.getName())) : FileUtils.deleteQuietly(child);
+            if (deleted) {
+                deletedFiles.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 上传清单与分片在合并后即无用，未完成的上传超过保留期后也不会再继续
+     */
+    private void deleteExpiredChunks(long cutoff) {
+        File chunkDir = FileUtil.getChunkDir();
+        File[] children = chunkDir.listFiles(File::isDirectory);
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            for (File file : FileUtils.listFiles(child, null, true)) {
+                if (file.lastModified() < cutoff && file.delete()) {
+                    deletedFiles.incrementAndGet();
+                }
+            }
+            File[] owners = child.listFiles(File::isDirectory);
+            if (owners != null) {
+                for (File owner : owners) {
+                    String[] left = owner.list();
+                    if (left != null && left.length == 0) {
+                        owner.delete();
+                    }
+                }
+            }
+        }
+    }
+
+    private void fail(String step, Exception e) {
+        failures.incrementAndGet();
+        lastError = step + ": " + e;
+        LOGGER.error(lastError, e);
+    }
+}
@@ -0,0 +1,289 @@
+package com.meituan.logan.web.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.google.common.util.concurrent.Striped;
+import com.meituan.logan.web.enums.ResultEnum;
+import com.meituan.logan.web.model.ChunkUploadManifest;
+import com.meituan.logan.web.model.ChunkUploadStatus;
+import com.meituan.logan.web.model.LoganTaskModel;
+import com.meituan.logan.web.model.Tuple;
+import com.meituan.logan.web.service.LoganChunkUploadService;
+import com.meituan.logan.web.service.LoganLogDetailService;
+import com.meituan.logan.web.service.LoganLogFileService;
+import com.meituan.logan.web.service.LoganTaskService;
+import com.meituan.logan.web.util.FileUtil;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Pattern;
+
+/**
+ * 分片上传的默认实现
+ *
+ * <p>分片按md5存放在logchunk/blob/设备目录下，已存在的分片不再上传，连接中断后重新初始化即可从缺失的分片继续。
+ * 合并时按清单顺序把分片串成一个流交给流式解密解析，不在内存中拼接整个文件。
+ * 合并成功后任务ID记入清单，重复合并直接返回该任务；清单和分片由过期清理统一删除。</p>
+ *
+ * @since logan-web 1.0
+ */
+@Service
+public class LoganChunkUploadServiceImpl implements LoganChunkUploadService {
+    private static final Logger LOGGER = Logger.getLogger(LoganChunkUploadServiceImpl.class);
+
+    private static final Pattern MD5_PATTERN = Pattern.compile("[0-9a-f]{32}");
+    private static final int MAX_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int MAX_CHUNK_COUNT = 10000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Resource
+    private LoganLogFileService fileService;
+    @Resource
+    private LoganTaskService taskService;
+    @Resource
+    private LoganLogDetailService detailService;
+
+    private final Striped<Lock> completeLocks = Striped.lock(64);
+    private final File chunkDir;
+
+    public LoganChunkUploadServiceImpl() {
+        this(FileUtil.getChunkDir());
+    }
+
+    /**
+     * @param chunkDir 分片上传的工作目录，存放上传清单和已收到的分片
+     */
+    LoganChunkUploadServiceImpl(File chunkDir) {
+        this.chunkDir = chunkDir;
+    }
+
+    @Override
+    public ChunkUploadStatus init(LoganTaskModel task, long fileSize, int chunkSize, List<String> chunkMd5s) {
+        if (task == null || chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE || fileSize <= 0 || chunkMd5s == null
+                || chunkMd5s.size() > MAX_CHUNK_COUNT || chunkMd5s.size() != (fileSize + chunkSize - 1) / chunkSize) {
+            return null;
+        }
+        for (String md5 : chunkMd5s) {
+            if (!isMd5(md5)) {
+                return null;
+            }
+        }
+        String owner = DigestUtils.md5Hex(task.getAppId() + "|" + task.getUnionId() + "|" + task.getDeviceId());
+        String uploadId = DigestUtils.md5Hex(owner + "|" + task.getLogDate() + "|" + fileSize + "|" + chunkSize
+                + "|" + StringUtils.join(chunkMd5s, ","));
+        try {
+            ChunkUploadManifest manifest = loadManifest(uploadId);
+            if (manifest == null) {
+                manifest = new ChunkUploadManifest();
+                manifest.setUploadId(uploadId);
+                manifest.setOwner(owner);
+                manifest.setFileSize(fileSize);
+                manifest.setChunkSize(chunkSize);
+                manifest.setChunkMd5s(chunkMd5s);
+                task.setAmount(String.valueOf(fileSize));
+                manifest.setTask(task);
+                saveManifest(manifest);
+            }
+            ChunkUploadStatus status = new ChunkUploadStatus();
+            status.setUploadId(uploadId);
+            status.setChunkCount(chunkMd5s.size());
+            status.setMissing(missingChunks(manifest));
+            return status;
+        } catch (IOException e) {
+            LOGGER.error(e);
+        }
+        return null;
+    }
+
+    @Override
+    public ResultEnum writeChunk(String uploadId, int index, String md5, InputStream inputStream) {
+        if (inputStream == null || !isMd5(uploadId) || !isMd5(md5)) {
+            return ResultEnum.ERROR_PARAM;
+        }
+        File tmp = null;
+        try {
+            ChunkUploadManifest manifest = loadManifest(uploadId);
+            if (manifest == null || index < 0 || index >= manifest.getChunkMd5s().size()
+                    || !md5.equals(manifest.getChunkMd5s().get(index))) {
+                return ResultEnum.ERROR_PARAM;
+            }
+            File blob = blobFile(manifest, index);
+            if (blob.exists()) {
+                return ResultEnum.SUCCESS;
+            }
+            long expected = chunkLength(manifest, index);
+            blob.getParentFile().mkdirs();
+            tmp = new File(blob.getParentFile(), md5 + "." + UUID.randomUUID() + ".tmp");
+            MessageDigest digest = DigestUtils.getMd5Digest();
+            long length = 0;
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int count;
+                while ((count = inputStream.read(buffer)) != -1) {
+                    length += count;
+                    if (length > expected) {
+                        return ResultEnum.ERROR_CHUNK;
+                    }
+                    digest.update(buffer, 0, count);
+                    out.write(buffer, 0, count);
+                }
+            }
+            String actual = Hex.encodeHexString(digest.digest());
+            if (length != expected || !md5.equals(actual)) {
+                LOGGER.error("chunk " + index + " of upload " + uploadId + " mismatch, length: " + length
+                        + ", md5: " + actual);
+                return ResultEnum.ERROR_CHUNK;
+            }
+            Files.move(tmp.toPath(), blob.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            return ResultEnum.SUCCESS;
+        } catch (IOException e) {
+            LOGGER.error(e);
+        } finally {
+            if (tmp != null && tmp.exists()) {
+                tmp.delete();
+            }
+        }
+        return ResultEnum.EXCEPTION;
+    }
+
+    @Override
+    public Tuple<ResultEnum, LoganTaskModel> complete(String uploadId) {
+        if (!isMd5(uploadId)) {
+            return Tuple.create(ResultEnum.ERROR_PARAM, null);
+        }
+        Lock lock = completeLocks.get(uploadId);
+        lock.lock();
+        try {
+            ChunkUploadManifest manifest = loadManifest(uploadId);
+            if (manifest == null) {
+                return Tuple.create(ResultEnum.ERROR_PARAM, null);
+            }
+            LoganTaskModel task = manifest.getTask();
+            // 已合并过，直接返回当时创建的任务，客户端没收到响应而重试时不会重复解析和建任务
+            if (task.getTaskId() > 0) {
+                return Tuple.create(ResultEnum.SUCCESS, task);
+            }
+            if (!missingChunks(manifest).isEmpty()) {
+                return Tuple.create(ResultEnum.ERROR_CHUNK, null);
+            }
+            ResultEnum result;
+            try (InputStream in = new SequenceInputStream(new ChunkEnumeration(manifest))) {
+                result = fileService.write(in, task.getLogFileName());
+            }
+            if (ResultEnum.SUCCESS != result) {
+                return Tuple.create(result, task);
+            }
+            long taskId = taskService.insertTask(task);
+            if (taskId <= 0) {
+                return Tuple.create(ResultEnum.ERROR_DATABASE, task);
+            }
+            task.setTaskId(taskId);
+            // 清单和分片保留到过期清理，文件增长后再次上传时只需补传变化的分片
+            saveManifest(manifest);
+            detailService.submitAnalyze(taskId);
+            return Tuple.create(ResultEnum.SUCCESS, task);
+        } catch (Exception e) {
+            LOGGER.error(e);
+        } finally {
+            lock.unlock();
+        }
+        return Tuple.create(ResultEnum.EXCEPTION, null);
+    }
+
+    private List<Integer> missingChunks(ChunkUploadManifest manifest) {
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < manifest.getChunkMd5s().size(); i++) {
+            if (!blobFile(manifest, i).exists()) {
+                missing.add(i);
+            }
+        }
+        return missing;
+    }
+
+    private static long chunkLength(ChunkUploadManifest manifest, int index) {
+        long offset = (long) index * manifest.getChunkSize();
+        return Math.min(manifest.getChunkSize(), manifest.getFileSize() - offset);
+    }
+
+    private static boolean isMd5(String value) {
+        return value != null && MD5_PATTERN.matcher(value).matches();
+    }
+
+    private File blobFile(ChunkUploadManifest manifest, int index) {
+        return new File(chunkDir, "blob" + File.separator + manifest.getOwner() + File.separator
+                + manifest.getChunkMd5s().get(index));
+    }
+
+    private File manifestFile(String uploadId) {
+        return new File(chunkDir, "upload" + File.separator + uploadId + ".json");
+    }
+
+    private ChunkUploadManifest loadManifest(String uploadId) throws IOException {
+        File file = manifestFile(uploadId);
+        if (!file.exists()) {
+            return null;
+        }
+        return JSON.parseObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8),
+                ChunkUploadManifest.class);
+    }
+
+    private void saveManifest(ChunkUploadManifest manifest) throws IOException {
+        File file = manifestFile(manifest.getUploadId());
+        file.getParentFile().mkdirs();
+        File tmp = new File(file.getParentFile(), file.getName() + "." + UUID.randomUUID() + ".tmp");
+        Files.write(tmp.toPath(), JSON.toJSONString(manifest).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 按顺序逐个打开分片，同一时刻只占用一个文件句柄
+     */
+    private class ChunkEnumeration implements Enumeration<InputStream> {
+        private final ChunkUploadManifest manifest;
+        private int next;
+
+        ChunkEnumeration(ChunkUploadManifest manifest) {
+            this.manifest = manifest;
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            return next < manifest.getChunkMd5s().size();
+        }
+
+        @Override
+        public InputStream nextElement() {
+            if (!hasMoreElements()) {
+                throw new NoSuchElementException();
+            }
+            File blob = blobFile(manifest, next++);
+            try {
+                return new FileInputStream(blob);
+            } catch (FileNotFoundException e) {
+                throw new IllegalStateException("chunk removed during assembling: " + blob, e);
+            }
+        }
+    }
+}
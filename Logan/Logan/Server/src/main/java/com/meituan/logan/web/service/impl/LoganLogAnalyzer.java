@@ -0,0 +1,317 @@
+package com.meituan.logan.web.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.meituan.logan.web.columnar.ColumnarDetailFile;
+import com.meituan.logan.web.columnar.ColumnarDetailWriter;
+import com.meituan.logan.web.dto.LoganLogDetailDTO;
+import com.meituan.logan.web.dto.LoganTaskDTO;
+import com.meituan.logan.web.enums.TaskStatusEnum;
+import com.meituan.logan.web.mapper.LoganTaskMapper;
+import com.meituan.logan.web.model.LoganLogItem;
+import com.meituan.logan.web.model.Tuple;
+import com.meituan.logan.web.service.BatchInsertService;
+import com.meituan.logan.web.service.LoganLogFileService;
+import com.meituan.logan.web.service.LoganLogIndexService;
+import com.meituan.logan.web.util.Threads;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端日志解析引擎
+ *
+ * <p>日志文件按行对齐切成若干块，多个线程并行做JSON解析，解析结果按块的顺序交给批量入库服务，
+ * 保证详情ID仍然与日志在文件中的顺序一致。同一时刻每个任务只会被解析一次。</p>
+ *
+ * <p>配置了列存时，解析结果不入库，直接写入任务的列存文件。</p>
+ *
+ * @since logan-web 1.0
+ */
+class LoganLogAnalyzer {
+    private static final Logger LOGGER = Logger.getLogger(LoganLogAnalyzer.class);
+
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int PENDING_CHUNKS_PER_WORKER = 2;
+    private static final int ANALYZE_THREADS = 2;
+    private static final int PROGRESS_UNKNOWN = -1;
+
+    private final LoganTaskMapper taskMapper;
+    private final BatchInsertService<LoganLogDetailDTO> insertService;
+    private final LoganLogIndexService indexService;
+    private final LoganLogColumnarStore columnarStore;
+    private final LoganLogFileService fileService;
+
+    private final int parseThreads = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private final ExecutorService analyzeExecutor = Threads.newFixedThreadPool("logan-analyze", ANALYZE_THREADS);
+    private final ExecutorService parseExecutor = Threads.newFixedThreadPool("logan-analyze-parse", parseThreads);
+
+    private final Map<Long, Progress> running = new ConcurrentHashMap<>();
+
+    LoganLogAnalyzer(LoganTaskMapper taskMapper, BatchInsertService<LoganLogDetailDTO> insertService,
+            LoganLogIndexService indexService, LoganLogColumnarStore columnarStore, LoganLogFileService fileService) {
+        this.taskMapper = taskMapper;
+        this.insertService = insertService;
+        this.indexService = indexService;
+        this.columnarStore = columnarStore;
+        this.fileService = fileService;
+    }
+
+    /**
+     * 在后台线程池中解析，任务已在解析中时直接返回
+     */
+    void submit(long taskId) {
+        start(taskId, true);
+    }
+
+    /**
+     * 在当前线程解析，任务已在后台解析时等待其完成
+     *
+     * @return 解析是否成功
+     */
+    boolean analyze(long taskId) {
+        try {
+            return start(taskId, false).future.get();
+        } catch (Exception e) {
+            LOGGER.error(e);
+        }
+        return false;
+    }
+
+    /**
+     * @return 正在解析的任务的进度(0-100)，任务不在解析中时返回-1
+     */
+    int getProgress(long taskId) {
+        Progress progress = running.get(taskId);
+        return progress == null ? PROGRESS_UNKNOWN : progress.percent();
+    }
+
+    void shutdown() {
+        analyzeExecutor.shutdownNow();
+        parseExecutor.shutdownNow();
+    }
+
+    private Progress start(long taskId, boolean async) {
+        Progress created = new Progress();
+        Progress existing = running.putIfAbsent(taskId, created);
+        if (existing != null) {
+            return existing;
+        }
+        Runnable runnable = () -> {
+            boolean result = false;
+            try {
+                result = doAnalyze(taskId, created);
+            } catch (Exception e) {
+                LOGGER.error(e);
+            } finally {
+                running.remove(taskId);
+                created.future.complete(result);
+            }
+        };
+        if (!async) {
+            runnable.run();
+            return created;
+        }
+        try {
+            analyzeExecutor.execute(runnable);
+        } catch (RejectedExecutionException e) {
+            LOGGER.error(e);
+            running.remove(taskId);
+            created.future.complete(false);
+        }
+        return created;
+    }
+
+    private boolean doAnalyze(long taskId, Progress progress) throws Exception {
+        // 状态以数据库为准，避免与刚结束的后台解析重复入库
+        LoganTaskDTO task = taskMapper.selectById(taskId);
+        if (task == null) {
+            return false;
+        }
+        if (TaskStatusEnum.ANALYZED.getStatus() == task.getStatus()) {
+            return true;
+        }
+        // 原始文件可能已被按天归档，由文件服务透明读取
+        Tuple<InputStream, Long> file = fileService.open(task.getLogFileName());
+        if (file == null) {
+            return false;
+        }
+        long bytes = file.getSecond();
+        progress.totalBytes = Math.max(1, bytes);
+        long start = System.currentTimeMillis();
+        long lines;
+        try (InputStream in = file.getFirst()) {
+            if (columnarStore != null && ColumnarDetailFile.supports(taskId)) {
+                lines = analyzeToColumnar(taskId, in, progress);
+            } else {
+                try {
+                    lines = parseFile(taskId, in, progress, insertService::saveLogDetails);
+                } catch (Exception e) {
+                    // 已提交的数据照常入库，flush一次清掉该任务的失败记录，全部入库后再写出索引，不等待结果
+                    insertService.flush(taskId).whenComplete((result, t) -> indexService.commit(taskId));
+                    throw e;
+                }
+                try {
+                    // 该任务有数据入库失败时抛出异常，任务保持未解析状态
+                    insertService.flush(taskId).get();
+                } finally {
+                    // 无论成败都写出索引，已入库的数据可以检索，内存中也不再留着该任务的构建器
+                    indexService.commit(taskId);
+                }
+            }
+        }
+        taskMapper.updateStatus(taskId, TaskStatusEnum.ANALYZED.getStatus());
+        long cost = Math.max(1, System.currentTimeMillis() - start);
+        LOGGER.info("analyze task " + taskId + ", lines: " + lines + ", bytes: " + bytes
+                + ", cost: " + cost + "ms, " + (lines * 1000 / cost) + " lines/s");
+        return true;
+    }
+
+    private long analyzeToColumnar(long taskId, InputStream in, Progress progress) throws Exception {
+        try (ColumnarDetailWriter writer = columnarStore.newWriter(taskId)) {
+            long lines = parseFile(taskId, in, progress, details -> {
+                for (LoganLogDetailDTO dto : details) {
+                    if (!writer.append(dto.getLogType(), dto.getLogTime(), dto.getContent())) {
+                        throw new IOException("too many log lines for columnar storage, task " + taskId);
+                    }
+                }
+            });
+            long size = writer.finish();
+            LOGGER.info("columnar task " + taskId + ", rows: " + writer.getRowCount() + ", content bytes: "
+                    + writer.getRawContentBytes() + ", file bytes: " + size);
+            return lines;
+        }
+    }
+
+    private long parseFile(long taskId, InputStream in, Progress progress, DetailSink sink) throws Exception {
+        Deque<Chunk> pending = new ArrayDeque<>();
+        int maxPending = parseThreads * PENDING_CHUNKS_PER_WORKER;
+        long lines = 0;
+        try {
+            byte[] carry = new byte[0];
+            int carryLength = 0;
+            while (true) {
+                byte[] buffer = new byte[Math.max(CHUNK_SIZE, carryLength * 2)];
+                System.arraycopy(carry, 0, buffer, 0, carryLength);
+                int length = readFully(in, buffer, carryLength);
+                if (length < buffer.length) {
+                    if (length > 0) {
+                        pending.add(submitChunk(taskId, buffer, length));
+                    }
+                    break;
+                }
+                int end = lastLineEnd(buffer, length);
+                if (end == 0) {
+                    // 单行超过了块大小，扩大缓冲区继续读
+                    carry = buffer;
+                    carryLength = length;
+                    continue;
+                }
+                carryLength = length - end;
+                carry = Arrays.copyOfRange(buffer, end, length);
+                pending.add(submitChunk(taskId, buffer, end));
+                while (pending.size() >= maxPending) {
+                    lines += drain(pending.poll(), progress, sink);
+                }
+            }
+        } finally {
+            while (!pending.isEmpty()) {
+                lines += drain(pending.poll(), progress, sink);
+            }
+        }
+        return lines;
+    }
+
+    private Chunk submitChunk(long taskId, byte[] buffer, int length) {
+        return new Chunk(length, parseExecutor.submit(() -> parseChunk(taskId, buffer, length)));
+    }
+
+    private long drain(Chunk chunk, Progress progress, DetailSink sink) throws Exception {
+        List<LoganLogDetailDTO> details = chunk.details.get();
+        sink.accept(details);
+        progress.parsedBytes.addAndGet(chunk.length);
+        return details.size();
+    }
+
+    private static List<LoganLogDetailDTO> parseChunk(long taskId, byte[] buffer, int length) {
+        List<LoganLogDetailDTO> details = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i < length && buffer[i] != '\n') {
+                continue;
+            }
+            int lineEnd = i;
+            if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            if (lineEnd > lineStart) {
+                String line = new String(buffer, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+                if (StringUtils.isNotBlank(line)) {
+                    try {
+                        details.add(JSON.parseObject(line, LoganLogItem.class).transferToDetail(taskId));
+                    } catch (Exception e) {
+                        LOGGER.error("illegal log line in task " + taskId + ": " + e);
+                    }
+                }
+            }
+            lineStart = i + 1;
+        }
+        return details;
+    }
+
+    private static int readFully(InputStream in, byte[] buffer, int offset) throws IOException {
+        int length = offset;
+        int count;
+        while (length < buffer.length && (count = in.read(buffer, length, buffer.length - length)) != -1) {
+            length += count;
+        }
+        return length;
+    }
+
+    private static int lastLineEnd(byte[] buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (buffer[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private interface DetailSink {
+        void accept(List<LoganLogDetailDTO> details) throws Exception;
+    }
+
+    private static class Chunk {
+        private final int length;
+        private final Future<List<LoganLogDetailDTO>> details;
+
+        Chunk(int length, Future<List<LoganLogDetailDTO>> details) {
+            this.length = length;
+            this.details = details;
+        }
+    }
+
+    private static class Progress {
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        private final AtomicLong parsedBytes = new AtomicLong();
+        private volatile long totalBytes = 1;
+
+        int percent() {
+            return (int) Math.min(100, parsedBytes.get() * 100 / totalBytes);
+        }
+    }
+}
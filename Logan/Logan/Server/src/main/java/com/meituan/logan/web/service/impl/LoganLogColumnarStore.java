@@ -0,0 +1,107 @@
+package com.meituan.logan.web.service.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.meituan.logan.web.columnar.ColumnarDetailFile;
+import com.meituan.logan.web.columnar.ColumnarDetailReader;
+import com.meituan.logan.web.columnar.ColumnarDetailWriter;
+import com.meituan.logan.web.dto.LoganLogDetailDTO;
+import com.meituan.logan.web.util.FileUtil;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 客户端日志详情的列存存储，每个任务一个文件，文件的块目录在缓存中复用。
+ *
+ * @since logan-web 1.0
+ */
+class LoganLogColumnarStore {
+    private static final Logger LOGGER = Logger.getLogger(LoganLogColumnarStore.class);
+
+    private static final int MAX_CACHED_READERS = 64;
+
+    private final File dir;
+    private final Cache<Long, ColumnarDetailReader> readers = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_READERS)
+            .build();
+
+    LoganLogColumnarStore() {
+        this(FileUtil.getColumnarFile(0).getParentFile());
+    }
+
+    /**
+     * @param dir 列存文件目录，每个任务一个文件
+     */
+    LoganLogColumnarStore(File dir) {
+        this.dir = dir;
+    }
+
+    boolean exists(long taskId) {
+        return fileOf(taskId).exists();
+    }
+
+    ColumnarDetailWriter newWriter(long taskId) throws IOException {
+        readers.invalidate(taskId);
+        return new ColumnarDetailWriter(fileOf(taskId));
+    }
+
+    List<LoganLogDetailDTO> query(long taskId, List<Integer> types, String keyword, Long beginTime, Long endTime)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        List<LoganLogDetailDTO> result = reader(taskId).query(types, beginTime, endTime, keyword);
+        LOGGER.debug("columnar query task " + taskId + ", rows: " + result.size()
+                + ", cost: " + (System.currentTimeMillis() - start) + "ms");
+        return result;
+    }
+
+    /**
+     * @param detailIds 列存详情ID，非列存ID被忽略
+     */
+    List<LoganLogDetailDTO> queryByIds(List<Long> detailIds) throws IOException {
+        Map<Long, List<Integer>> rowsByTask = new LinkedHashMap<>();
+        for (Long id : detailIds) {
+            if (id != null && ColumnarDetailFile.isColumnarId(id)) {
+                rowsByTask.computeIfAbsent(ColumnarDetailFile.taskIdOf(id), k -> new ArrayList<>())
+                        .add(ColumnarDetailFile.rowOf(id));
+            }
+        }
+        if (rowsByTask.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<LoganLogDetailDTO> result = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> entry : rowsByTask.entrySet()) {
+            if (!exists(entry.getKey())) {
+                continue;
+            }
+            List<Integer> rows = entry.getValue();
+            Collections.sort(rows);
+            result.addAll(reader(entry.getKey()).get(rows));
+        }
+        return result;
+    }
+
+    LoganLogDetailDTO selectById(long detailId) throws IOException {
+        List<LoganLogDetailDTO> result = queryByIds(Collections.singletonList(detailId));
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    private File fileOf(long taskId) {
+        return new File(dir, FileUtil.getColumnarFile(taskId).getName());
+    }
+
+    private ColumnarDetailReader reader(long taskId) throws IOException {
+        try {
+            return readers.get(taskId, () -> new ColumnarDetailReader(taskId, fileOf(taskId)));
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+}
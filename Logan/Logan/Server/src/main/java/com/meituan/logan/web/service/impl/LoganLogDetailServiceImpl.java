@@ -1,7 +1,7 @@
 package com.meituan.logan.web.service.impl;
 
-import com.alibaba.fastjson.JSON;
 import com.google.common.collect.Lists;
+import com.meituan.logan.web.columnar.ColumnarDetailFile;
 import com.meituan.logan.web.dto.LoganLogDetailDTO;
 import com.meituan.logan.web.dto.LoganTaskDTO;
 import com.meituan.logan.web.enums.LogTypeEnum;
@@ -9,24 +9,28 @@ import com.meituan.logan.web.enums.TaskStatusEnum;
 import com.meituan.logan.web.mapper.LoganLogDetailMapper;
 import com.meituan.logan.web.mapper.LoganTaskMapper;
 import com.meituan.logan.web.model.LoganLogDetailModel;
-import com.meituan.logan.web.model.LoganLogItem;
 import com.meituan.logan.web.model.LoganLogSimpleModel;
 import com.meituan.logan.web.service.HandlerDispatcher;
 import com.meituan.logan.web.service.LoganLogDetailService;
-import com.meituan.logan.web.util.FileUtil;
+import com.meituan.logan.web.service.LoganLogFileService;
+import com.meituan.logan.web.service.LoganLogIndexService;
+import com.meituan.logan.web.util.LocalStringUtils;
 import com.meituan.logan.web.util.OrderUtil;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * 客户端上报日志详情处理服务
@@ -37,7 +41,8 @@ import java.util.concurrent.ConcurrentHashMap;
 public class LoganLogDetailServiceImpl extends AbstractBatchInsertService<LoganLogDetailDTO> implements LoganLogDetailService {
     private static final Logger LOGGER = Logger.getLogger(LoganLogDetailServiceImpl.class);
     private static final int SIZE = 20;
-    private static final Map<String, Object> keyLocks = new ConcurrentHashMap<>();
+    private static final int QUERY_BATCH_SIZE = 1000;
+    private static final String STORAGE_COLUMNAR = "columnar";
 
     @Resource
     private LoganLogDetailMapper detailMapper;
@@ -45,17 +50,42 @@ public class LoganLogDetailServiceImpl extends AbstractBatchInsertService<LoganL
     private LoganTaskMapper taskMapper;
     @Resource
     private HandlerDispatcher handlerDispatcher;
+    @Resource
+    private LoganLogIndexService indexService;
+    @Resource
+    private LoganLogFileService fileService;
+
+    /**
+     * 新解析任务的详情存储方式：mysql 或 columnar
+     */
+    @Value("${logan.detail.storage:mysql}")
+    private String storage;
+
+    private LoganLogAnalyzer analyzer;
+    private final LoganLogColumnarStore columnarStore = new LoganLogColumnarStore();
+
+    @PostConstruct
+    private void initAnalyzer() {
+        analyzer = new LoganLogAnalyzer(taskMapper, this, indexService,
+                STORAGE_COLUMNAR.equalsIgnoreCase(storage) ? columnarStore : null, fileService);
+    }
+
+    @PreDestroy
+    private void destroyAnalyzer() {
+        analyzer.shutdown();
+    }
 
     @Override
     @Transactional
-    public List<List<LoganLogSimpleModel>> listByTaskIdTypeKeyword(long taskId, List<Integer> type, String keyword) {
+    public List<List<LoganLogSimpleModel>> listByTaskIdTypeKeyword(long taskId, List<Integer> type, String keyword,
+            Long beginTime, Long endTime) {
         try {
             LoganTaskDTO task = taskMapper.selectById(taskId);
             if (task == null) {
                 return Collections.emptyList();
             }
             tryAnalyze(task);
-            List<LoganLogDetailDTO> logDetails = detailMapper.queryByTaskIdTypeKeyword(taskId, type, keyword);
+            List<LoganLogDetailDTO> logDetails = queryDetails(task, type, keyword, beginTime, endTime);
             if (CollectionUtils.isEmpty(logDetails)) {
                 return Collections.emptyList();
             }
@@ -67,42 +97,59 @@ public class LoganLogDetailServiceImpl extends AbstractBatchInsertService<LoganL
         }
     }
 
-    private void tryAnalyze(LoganTaskDTO task) {
-        if (TaskStatusEnum.NORMAL.getStatus() == task.getStatus()) {
-            String key = task.getLogFileName();
-            synchronized (keyLocks.computeIfAbsent(key, k -> new Object())) {
-                if (TaskStatusEnum.NORMAL.getStatus() == task.getStatus()) {
-                    File file = FileUtil.getFile(task.getLogFileName());
-                    if (file == null || !file.exists()) {
-                        return;
-                    }
-                    try (InputStream in = new FileInputStream(file);
-                         BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
-                        String str;
-                        while ((str = bufferedReader.readLine()) != null) {
-                            saveLogDetail(JSON.parseObject(str, LoganLogItem.class).transferToDetail(task.getId()));
+    /**
+     * 列存的任务直接读列存文件；其余已解析的任务优先走倒排索引，索引给出的候选再按内容校验；
+     * 索引无法回答时回退到数据库检索
+     */
+    private List<LoganLogDetailDTO> queryDetails(LoganTaskDTO task, List<Integer> type, String keyword,
+            Long beginTime, Long endTime) throws IOException {
+        if (TaskStatusEnum.ANALYZED.getStatus() == task.getStatus() && columnarStore.exists(task.getId())) {
+            return columnarStore.query(task.getId(), type, keyword, beginTime, endTime);
+        }
+        if (TaskStatusEnum.ANALYZED.getStatus() == task.getStatus()) {
+            List<Long> ids = indexService.search(task.getId(), type, keyword, beginTime, endTime);
+            if (ids != null) {
+                List<LoganLogDetailDTO> result = new ArrayList<>();
+                for (List<Long> partition : Lists.partition(ids, QUERY_BATCH_SIZE)) {
+                    for (LoganLogDetailDTO dto : detailMapper.queryByIds(partition)) {
+                        if (StringUtils.containsIgnoreCase(dto.getContent(), keyword)) {
+                            result.add(dto);
                         }
-                        Thread.sleep(50);
-                        task.setStatus(TaskStatusEnum.ANALYZED.getStatus());
-                        analyzed(task);
-                    } catch (Exception e) {
-                        LOGGER.error(e);
-                    } finally {
-                        keyLocks.remove(key);
                     }
                 }
+                return result;
             }
         }
+        // 关键字按字面匹配，与索引、列存的 containsIgnoreCase 一致
+        return detailMapper.queryByTaskIdTypeKeyword(task.getId(), type, LocalStringUtils.escapeLike(keyword),
+                beginTime, endTime);
     }
 
-    private void analyzed(LoganTaskDTO task) {
-        taskMapper.updateStatus(task.getId(), TaskStatusEnum.ANALYZED.getStatus());
+    private void tryAnalyze(LoganTaskDTO task) {
+        if (TaskStatusEnum.NORMAL.getStatus() == task.getStatus() && analyzer.analyze(task.getId())) {
+            task.setStatus(TaskStatusEnum.ANALYZED.getStatus());
+        }
+    }
+
+    @Override
+    public void submitAnalyze(long taskId) {
+        analyzer.submit(taskId);
+    }
+
+    @Override
+    public int getAnalyzeProgress(long taskId) {
+        return analyzer.getProgress(taskId);
     }
 
     @Override
     public List<LoganLogDetailModel> listByDetailIds(List<Long> detailIds) {
         try {
-            List<LoganLogDetailDTO> logDetails = detailMapper.queryByIds(detailIds);
+            List<LoganLogDetailDTO> logDetails = new ArrayList<>(columnarStore.queryByIds(detailIds));
+            List<Long> databaseIds = detailIds.stream().filter(id -> id != null && !ColumnarDetailFile.isColumnarId(id))
+                    .collect(Collectors.toList());
+            if (!databaseIds.isEmpty()) {
+                logDetails.addAll(detailMapper.queryByIds(databaseIds));
+            }
             if (CollectionUtils.isEmpty(logDetails)) {
                 return Collections.emptyList();
             }
@@ -126,7 +173,8 @@ public class LoganLogDetailServiceImpl extends AbstractBatchInsertService<LoganL
     @Override
     public LoganLogDetailModel getByDetailId(long detailId) {
         try {
-            LoganLogDetailDTO dto = detailMapper.selectById(detailId);
+            LoganLogDetailDTO dto = ColumnarDetailFile.isColumnarId(detailId) ?
+                    columnarStore.selectById(detailId) : detailMapper.selectById(detailId);
             if (dto == null) {
                 return null;
             }
@@ -143,10 +191,12 @@ public class LoganLogDetailServiceImpl extends AbstractBatchInsertService<LoganL
 
     @Override
     protected void execute(List<LoganLogDetailDTO> list) {
-        try {
-            detailMapper.batchInsert(list);
-        } catch (Exception e) {
-            LOGGER.error(e);
-        }
+        detailMapper.batchInsert(list);
+        indexService.index(list);
+    }
+
+    @Override
+    protected long shardKey(LoganLogDetailDTO data) {
+        return data.getTaskId();
     }
 }
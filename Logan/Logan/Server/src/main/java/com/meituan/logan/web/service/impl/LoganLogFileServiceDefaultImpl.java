@@ -1,14 +1,18 @@
 package com.meituan.logan.web.service.impl;
 
 import com.meituan.logan.web.enums.ResultEnum;
+import com.meituan.logan.web.model.Tuple;
 import com.meituan.logan.web.parser.LoganProtocol;
+import com.meituan.logan.web.retention.DailyLogArchive;
 import com.meituan.logan.web.service.LoganLogFileService;
 import com.meituan.logan.web.util.FileUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.Resource;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.InputStream;
 
 @Service
@@ -16,6 +20,9 @@ public class LoganLogFileServiceDefaultImpl implements LoganLogFileService {
 
     private static final Logger LOGGER = Logger.getLogger(LoganLogFileServiceDefaultImpl.class);
 
+    @Resource
+    private DailyLogArchive archive;
+
     @Override
     public ResultEnum write(InputStream inputStream, String fileName) {
         if (inputStream == null|| StringUtils.isEmpty(fileName)) {
@@ -32,4 +39,24 @@ public class LoganLogFileServiceDefaultImpl implements LoganLogFileService {
         }
         return ResultEnum.EXCEPTION;
     }
+
+    @Override
+    public Tuple<InputStream, Long> open(String fileName) {
+        if (StringUtils.isEmpty(fileName)) {
+            return null;
+        }
+        try {
+            File file = FileUtil.getFile(fileName);
+            if (file == null) {
+                return null;
+            }
+            if (file.exists()) {
+                return Tuple.create(new FileInputStream(file), file.length());
+            }
+            return archive.open(fileName);
+        } catch (Exception e) {
+            LOGGER.error(e);
+        }
+        return null;
+    }
 }
@@ -0,0 +1,219 @@
+package com.meituan.logan.web.service.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.meituan.logan.web.dto.LoganLogDetailDTO;
+import com.meituan.logan.web.index.IndexSegment;
+import com.meituan.logan.web.index.TaskIndexBuilder;
+import com.meituan.logan.web.index.TrigramTokenizer;
+import com.meituan.logan.web.service.LoganLogIndexService;
+import com.meituan.logan.web.util.FileUtil;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按任务维护的三字符倒排索引，存放在本地磁盘。
+ *
+ * <p>每个任务一个目录，由若干不可变的索引段和一个清单文件组成。详情入库后在入库线程中加入内存构建器，
+ * 达到段大小上限或任务解析完成时写出新段并追加到清单，后续上报的数据以新段的形式增量加入。</p>
+ *
+ * @since logan-web 1.0
+ */
+@Service("loganLogIndexService")
+public class LoganLogIndexServiceImpl implements LoganLogIndexService {
+    private static final Logger LOGGER = Logger.getLogger(LoganLogIndexServiceImpl.class);
+
+    private static final int MAX_DOCS_PER_SEGMENT = 50000;
+    private static final int MAX_CACHED_SEGMENTS = 256;
+    private static final String MANIFEST_NAME = "segments";
+    private static final String SEGMENT_SUFFIX = ".idx";
+    /**
+     * 有段写入失败时打上标记，该任务之后的检索都交给数据库，避免漏查
+     */
+    private static final String BROKEN_NAME = "broken";
+
+    private final File root;
+    private final Map<Long, TaskIndexBuilder> builders = new ConcurrentHashMap<>();
+    private final Cache<String, IndexSegment> segments = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_SEGMENTS).build();
+    private final AtomicLong segmentSequence = new AtomicLong(System.currentTimeMillis());
+    private final Object manifestLock = new Object();
+
+    public LoganLogIndexServiceImpl() {
+        this(FileUtil.getIndexDir(0).getParentFile());
+    }
+
+    /**
+     * @param root 索引根目录，其下每个任务一个子目录
+     */
+    LoganLogIndexServiceImpl(File root) {
+        this.root = root;
+    }
+
+    @Override
+    public void index(List<LoganLogDetailDTO> details) {
+        for (LoganLogDetailDTO dto : details) {
+            if (dto.getId() <= 0) {
+                continue;
+            }
+            TaskIndexBuilder builder = builders.computeIfAbsent(dto.getTaskId(), TaskIndexBuilder::new);
+            synchronized (builder) {
+                if (!builder.accepts(dto.getId())) {
+                    writeSegment(builder);
+                }
+                builder.add(dto.getId(), dto.getLogType(), dto.getLogTime(), dto.getContent());
+                if (builder.size() >= MAX_DOCS_PER_SEGMENT) {
+                    writeSegment(builder);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void commit(long taskId) {
+        TaskIndexBuilder builder = builders.remove(taskId);
+        if (builder != null) {
+            synchronized (builder) {
+                writeSegment(builder);
+            }
+        }
+        synchronized (manifestLock) {
+            File dir = dirOf(taskId);
+            if (!new File(dir, MANIFEST_NAME).exists()) {
+                writeManifest(dir, Collections.emptyList());
+            }
+        }
+    }
+
+    @Override
+    public boolean delete(long taskId) {
+        TaskIndexBuilder builder = builders.remove(taskId);
+        if (builder != null) {
+            synchronized (builder) {
+                builder.reset();
+            }
+        }
+        File dir = dirOf(taskId);
+        synchronized (manifestLock) {
+            FileUtils.deleteQuietly(dir);
+        }
+        // 缓存中的段仍映射着已删除的文件，不失效就一直占用内存和文件句柄
+        String prefix = dir.getAbsolutePath() + File.separator;
+        segments.asMap().keySet().removeIf(path -> path.startsWith(prefix));
+        return !dir.exists();
+    }
+
+    @Override
+    public List<Long> search(long taskId, List<Integer> types, String keyword, Long beginTime, Long endTime) {
+        // 关键字按字面匹配，通配符也只是普通字符
+        if (keyword == null || keyword.length() < TrigramTokenizer.GRAM_LENGTH) {
+            return null;
+        }
+        try {
+            File dir = dirOf(taskId);
+            List<String> names = readManifest(dir);
+            if (names == null) {
+                return null;
+            }
+            long[] terms = TrigramTokenizer.tokenize(keyword);
+            List<Long> result = new ArrayList<>();
+            for (String name : names) {
+                File file = new File(dir, name);
+                segments.get(file.getAbsolutePath(), () -> IndexSegment.open(file))
+                        .search(terms, types, beginTime, endTime, result);
+            }
+            return result;
+        } catch (Exception e) {
+            LOGGER.error(e);
+        }
+        return null;
+    }
+
+    private void writeSegment(TaskIndexBuilder builder) {
+        if (builder.size() == 0) {
+            return;
+        }
+        File dir = dirOf(builder.getTaskId());
+        String name = "seg-" + segmentSequence.incrementAndGet() + SEGMENT_SUFFIX;
+        File tmp = new File(dir, name + ".tmp");
+        try {
+            if (!dir.exists()) {
+                dir.mkdirs();
+            }
+            builder.writeTo(tmp);
+            Files.move(tmp.toPath(), new File(dir, name).toPath(), StandardCopyOption.ATOMIC_MOVE);
+            synchronized (manifestLock) {
+                List<String> names = readManifest(dir);
+                List<String> updated = names == null ? new ArrayList<>() : new ArrayList<>(names);
+                updated.add(name);
+                writeManifest(dir, updated);
+            }
+        } catch (IOException e) {
+            LOGGER.error(e);
+            tmp.delete();
+            markBroken(dir);
+        } finally {
+            builder.reset();
+        }
+    }
+
+    /**
+     * 缓存中已映射的索引段数量
+     */
+    long cachedSegments() {
+        return segments.size();
+    }
+
+    private File dirOf(long taskId) {
+        return new File(root, String.valueOf(taskId));
+    }
+
+    private static void markBroken(File dir) {
+        try {
+            new File(dir, BROKEN_NAME).createNewFile();
+        } catch (IOException e) {
+            LOGGER.error(e);
+        }
+    }
+
+    private static List<String> readManifest(File dir) throws IOException {
+        File manifest = new File(dir, MANIFEST_NAME);
+        if (!manifest.exists() || new File(dir, BROKEN_NAME).exists()) {
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        for (String line : Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) {
+            if (StringUtils.isNotBlank(line)) {
+                names.add(line.trim());
+            }
+        }
+        return names;
+    }
+
+    private static void writeManifest(File dir, List<String> names) {
+        File tmp = new File(dir, MANIFEST_NAME + ".tmp");
+        try {
+            if (!dir.exists()) {
+                dir.mkdirs();
+            }
+            Files.write(tmp.toPath(), names, StandardCharsets.UTF_8);
+            Files.move(tmp.toPath(), new File(dir, MANIFEST_NAME).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.error(e);
+        }
+    }
+}
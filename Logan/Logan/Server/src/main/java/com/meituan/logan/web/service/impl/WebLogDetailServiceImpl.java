@@ -80,10 +80,11 @@ public class WebLogDetailServiceImpl extends AbstractBatchInsertService<WebLogDe
 
     @Override
     protected void execute(List<WebLogDetailDTO> cachedLogDetails) {
-        try {
-            detailMapper.batchInsert(cachedLogDetails);
-        } catch (Exception e) {
-            LOGGER.error(e);
-        }
+        detailMapper.batchInsert(cachedLogDetails);
+    }
+
+    @Override
+    protected long shardKey(WebLogDetailDTO data) {
+        return data.getTaskId();
     }
 }
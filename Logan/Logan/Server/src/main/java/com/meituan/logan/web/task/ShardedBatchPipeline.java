@@ -0,0 +1,307 @@
+package com.meituan.logan.web.task;
+
+import com.meituan.logan.web.model.BatchInsertMetrics;
+import com.meituan.logan.web.util.Threads;
+import lombok.Data;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * 分片的批量入库流水线
+ *
+ * <p>数据按分片键路由到N个分片，每个分片有一个有界队列和一个入库线程，同一分片键的数据保持提交顺序。
+ * 队列满时提交方阻塞，形成背压。每批的大小根据上一批的入库耗时在[min, max]之间自适应调整。</p>
+ *
+ * <p>入库失败按分片键(任务id)记录，只让对应分片键的flush失败；多个任务共用一个分片时互不影响。</p>
+ *
+ * @since logan-web 1.0
+ */
+public class ShardedBatchPipeline<T> {
+    private static final Logger LOGGER = Logger.getLogger(ShardedBatchPipeline.class);
+    /**
+     * 停止标记，分片线程处理完它之前的数据后退出
+     */
+    private static final Object STOP = new Object();
+
+    private final String name;
+    private final Consumer<List<T>> executor;
+    private final ToLongFunction<T> shardKey;
+    private final Config config;
+    private final List<Shard> shards;
+    private final ExecutorService workers;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+
+    private final AtomicLong insertedRows = new AtomicLong();
+    private final AtomicLong insertedBatches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong insertCostMillis = new AtomicLong();
+
+    /**
+     * @param name     流水线名称，用于线程命名
+     * @param executor 一批数据的入库动作，由分片线程调用
+     * @param shardKey 分片键(任务id)，相同键的数据按提交顺序入库，入库失败按键记录
+     * @param config   流水线配置
+     */
+    public ShardedBatchPipeline(String name, Consumer<List<T>> executor, ToLongFunction<T> shardKey, Config config) {
+        this.name = name;
+        this.executor = executor;
+        this.shardKey = shardKey;
+        this.config = config;
+        int shardCount = Math.max(1, config.getShards());
+        int capacity = Math.max(1, config.getQueueCapacity() / shardCount);
+        this.shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new Shard(capacity, config.getMinBatchSize()));
+        }
+        this.workers = Threads.newFixedThreadPool("batch-" + name, shardCount);
+    }
+
+    public void start() {
+        if (started.compareAndSet(false, true)) {
+            for (Shard shard : shards) {
+                workers.execute(shard::loop);
+            }
+        }
+    }
+
+    /**
+     * 停止接收新数据，等待已提交的数据入库后停止分片线程；超时后仍未入库的数据丢弃，未完成的flush以异常完成
+     */
+    public void shutdown() {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + config.getShutdownTimeoutMillis();
+        try {
+            for (Shard shard : shards) {
+                shard.queue.offer(STOP, Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+            workers.shutdown();
+            workers.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdownNow();
+        for (Shard shard : shards) {
+            shard.abandon();
+        }
+    }
+
+    /**
+     * 提交一条数据，对应分片的队列已满时阻塞等待
+     *
+     * @throws IllegalStateException 流水线已停止
+     */
+    public void submit(T data) throws InterruptedException {
+        checkRunning();
+        shardOf(data).queue.put(data);
+    }
+
+    /**
+     * 将之前提交的、分片键为key的数据全部入库
+     *
+     * @return 分片处理完标记之前的数据后完成；上次flush该键之后有它的数据入库失败时以异常完成
+     */
+    public CompletableFuture<Void> flush(long key) {
+        FlushMarker marker = new FlushMarker(key);
+        try {
+            checkRunning();
+            shardOf(key).queue.put(marker);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            marker.future.completeExceptionally(e);
+        } catch (IllegalStateException e) {
+            marker.future.completeExceptionally(e);
+        }
+        return marker.future;
+    }
+
+    public BatchInsertMetrics getMetrics() {
+        BatchInsertMetrics metrics = new BatchInsertMetrics();
+        metrics.setName(name);
+        metrics.setShards(shards.size());
+        int queueDepth = 0;
+        List<Integer> batchSizes = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            queueDepth += shard.queue.size();
+            batchSizes.add(shard.batchSize);
+        }
+        metrics.setQueueDepth(queueDepth);
+        metrics.setBatchSizes(batchSizes);
+        long batches = insertedBatches.get();
+        metrics.setInsertedRows(insertedRows.get());
+        metrics.setInsertedBatches(batches);
+        metrics.setFailedBatches(failedBatches.get());
+        metrics.setAvgBatchCostMillis(batches == 0 ? 0 : insertCostMillis.get() / batches);
+        return metrics;
+    }
+
+    private void checkRunning() {
+        if (stopped.get()) {
+            throw new IllegalStateException("pipeline " + name + " is shut down");
+        }
+    }
+
+    private Shard shardOf(T data) {
+        return shardOf(shardKey.applyAsLong(data));
+    }
+
+    private Shard shardOf(long key) {
+        return shards.get((int) Math.floorMod(key ^ (key >>> 32), (long) shards.size()));
+    }
+
+    private class Shard {
+        private final BlockingQueue<Object> queue;
+        private volatile int batchSize;
+        /**
+         * 分片键 -> 上次flush该键之后入库失败的行数，只由分片线程读写
+         */
+        private final Map<Long, Integer> failedRows = new HashMap<>();
+
+        Shard(int capacity, int batchSize) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.batchSize = batchSize;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void loop() {
+            List<T> batch = new ArrayList<>(config.getMaxBatchSize());
+            boolean running = true;
+            while (running && !Thread.currentThread().isInterrupted()) {
+                try {
+                    Object first = queue.poll(config.getFlushPeriodMillis(), TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    Object item = first;
+                    while (item != null) {
+                        if (item == STOP) {
+                            // 继续处理停止标记之后已入队的数据
+                            running = false;
+                        } else if (item instanceof FlushMarker) {
+                            insert(batch);
+                            complete((FlushMarker) item);
+                        } else {
+                            batch.add((T) item);
+                            if (batch.size() >= batchSize) {
+                                insert(batch);
+                            }
+                        }
+                        item = queue.poll();
+                    }
+                    insert(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    LOGGER.error(e);
+                }
+            }
+        }
+
+        private void insert(List<T> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            int size = batch.size();
+            long start = System.currentTimeMillis();
+            try {
+                executor.accept(batch);
+                // 耗时和批次数只统计成功的批次，失败的批次不参与批次大小的调整
+                long cost = System.currentTimeMillis() - start;
+                insertedRows.addAndGet(size);
+                insertedBatches.incrementAndGet();
+                insertCostMillis.addAndGet(cost);
+                adapt(size, cost);
+            } catch (Exception e) {
+                failedBatches.incrementAndGet();
+                for (T data : batch) {
+                    failedRows.merge(shardKey.applyAsLong(data), 1, Integer::sum);
+                }
+                LOGGER.error(e);
+            } finally {
+                batch.clear();
+            }
+        }
+
+        private void complete(FlushMarker marker) {
+            Integer failed = failedRows.remove(marker.key);
+            if (failed == null) {
+                marker.future.complete(null);
+            } else {
+                marker.future.completeExceptionally(new IllegalStateException(
+                        failed + " rows of key " + marker.key + " failed to insert in pipeline " + name));
+            }
+        }
+
+        /**
+         * 分片线程已退出，丢弃队列中剩余的数据，未完成的flush以异常完成
+         */
+        @SuppressWarnings("unchecked")
+        private void abandon() {
+            List<Object> rest = new ArrayList<>();
+            queue.drainTo(rest);
+            Set<Long> keys = new HashSet<>();
+            int dropped = 0;
+            for (Object item : rest) {
+                if (item instanceof FlushMarker) {
+                    ((FlushMarker) item).future.completeExceptionally(
+                            new IllegalStateException("pipeline " + name + " is shut down"));
+                } else if (item != STOP) {
+                    keys.add(shardKey.applyAsLong((T) item));
+                    dropped++;
+                }
+            }
+            if (dropped > 0) {
+                LOGGER.warn("pipeline " + name + " shut down, dropped " + dropped + " rows of keys " + keys);
+            }
+        }
+
+        /**
+         * 入库快且批次是满的就加大批次，入库慢就减小批次
+         */
+        private void adapt(int size, long cost) {
+            long target = config.getTargetLatencyMillis();
+            if (cost > target) {
+                batchSize = Math.max(config.getMinBatchSize(), batchSize / 2);
+            } else if (cost < target / 2 && size >= batchSize) {
+                batchSize = Math.min(config.getMaxBatchSize(), batchSize * 2);
+            }
+        }
+    }
+
+    private static class FlushMarker {
+        private final long key;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        FlushMarker(long key) {
+            this.key = key;
+        }
+    }
+
+    @Data
+    public static class Config {
+        private int shards = 4;
+        private int queueCapacity = 20000;
+        private int minBatchSize = 50;
+        private int maxBatchSize = 1000;
+        private long targetLatencyMillis = 100;
+        private long flushPeriodMillis = 50;
+        private long shutdownTimeoutMillis = 30000;
+    }
+}
@@ -40,6 +40,41 @@ public class FileUtil {
         return file;
     }
 
+    /**
+     * 任务的索引目录
+     */
+    public static File getIndexDir(long taskId) {
+        return new File(new File("").getAbsolutePath() + File.separator + "logindex" + File.separator + taskId);
+    }
+
+    /**
+     * 任务的列存详情文件
+     */
+    public static File getColumnarFile(long taskId) {
+        return new File(new File("").getAbsolutePath() + File.separator + "logcolumn" + File.separator + taskId + ".col");
+    }
+
+    /**
+     * 分片上传的工作目录，存放上传清单和已收到的分片
+     */
+    public static File getChunkDir() {
+        return new File(new File("").getAbsolutePath() + File.separator + "logchunk");
+    }
+
+    /**
+     * 原始日志文件所在目录
+     */
+    public static File getLogDir() {
+        return new File(new File("").getAbsolutePath() + File.separator + "logfile");
+    }
+
+    /**
+     * 原始日志的按天归档目录，每天一个压缩包
+     */
+    public static File getArchiveDir() {
+        return new File(new File("").getAbsolutePath() + File.separator + "logarchive");
+    }
+
     public static String getDownloadUrl(HttpServletRequest request, String fileName) {
         if (StringUtils.isEmpty(fileName) || request == null) {
             return "";
@@ -10,6 +10,11 @@ import org.apache.commons.lang3.StringUtils;
  */
 public class LocalStringUtils {
 
+    /**
+     * LIKE的转义符，配合 ESCAPE '!' 使用；不用反斜杠，避免它在不同数据库的字符串字面量里含义不同
+     */
+    public static final char LIKE_ESCAPE = '!';
+
     public static boolean isAllNotEmpty(String... strings) {
         for (String item : strings) {
             if (StringUtils.isEmpty(item)) {
@@ -18,4 +23,22 @@ public class LocalStringUtils {
         }
         return true;
     }
+
+    /**
+     * 转义LIKE的通配符，使关键字按字面匹配，与 StringUtils.containsIgnoreCase 的语义一致
+     */
+    public static String escapeLike(String keyword) {
+        if (keyword == null) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder(keyword.length() + 8);
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                builder.append(LIKE_ESCAPE);
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
 }
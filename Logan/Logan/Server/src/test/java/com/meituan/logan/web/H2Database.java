@@ -0,0 +1,50 @@
+package com.meituan.logan.web;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.h2.tools.RunScript;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.UUID;
+
+/**
+ * 测试用的H2内存库，按MySQL模式建表，字符串比较忽略大小写(对应线上的 _ci 排序规则)，使用线上的mapper xml
+ */
+public final class H2Database {
+
+    private H2Database() {
+    }
+
+    /**
+     * 新建一个独立的内存库并加载指定mapper
+     *
+     * @param mappers classpath下的mapper xml，如 sqlmap/LoganLogDetailMapper.xml
+     */
+    public static SqlSessionFactory create(String... mappers) throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection();
+             Reader schema = new InputStreamReader(Resources.getResourceAsStream("logan-h2.sql"),
+                     StandardCharsets.UTF_8)) {
+            RunScript.execute(connection, schema);
+        }
+        Configuration configuration = new Configuration(
+                new Environment("h2", new JdbcTransactionFactory(), dataSource));
+        for (String mapper : mappers) {
+            try (InputStream in = Resources.getResourceAsStream(mapper)) {
+                new XMLMapperBuilder(in, configuration, mapper, configuration.getSqlFragments()).parse();
+            }
+        }
+        return new SqlSessionFactoryBuilder().build(configuration);
+    }
+}
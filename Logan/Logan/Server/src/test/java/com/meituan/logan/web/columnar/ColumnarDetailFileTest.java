@@ -0,0 +1,213 @@
+package com.meituan.logan.web.columnar;
+
+import com.meituan.logan.web.dto.LoganLogDetailDTO;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 列存文件的写入读出、块级与行级过滤，以及详情ID的编码边界
+ */
+public class ColumnarDetailFileTest {
+    private static final long TASK_ID = 9;
+    private static final long MAX_TASK_ID = (1L << 28) - 1;
+    private static final int ROWS = ColumnarDetailFile.BLOCK_ROWS * 2 + 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void encodesDetailIdWithFlagTaskIdAndRow() {
+        assertEquals((1L << 52) | (TASK_ID << 24) | 5, ColumnarDetailFile.encodeId(TASK_ID, 5));
+
+        long[][] cases = {{1, 0}, {1, ColumnarDetailFile.MAX_ROWS - 1}, {MAX_TASK_ID, 0},
+                {MAX_TASK_ID, ColumnarDetailFile.MAX_ROWS - 1}, {TASK_ID, 4096}};
+        for (long[] c : cases) {
+            long id = ColumnarDetailFile.encodeId(c[0], (int) c[1]);
+            assertTrue(id > 0);
+            assertTrue(ColumnarDetailFile.isColumnarId(id));
+            assertEquals(c[0], ColumnarDetailFile.taskIdOf(id));
+            assertEquals(c[1], ColumnarDetailFile.rowOf(id));
+        }
+        // 最大任务的最后一行也不会进位到标记位
+        assertEquals((1L << 53) - 1, ColumnarDetailFile.encodeId(MAX_TASK_ID, ColumnarDetailFile.MAX_ROWS - 1));
+    }
+
+    @Test
+    public void databaseIdsAreNotColumnarIds() {
+        assertFalse(ColumnarDetailFile.isColumnarId(1));
+        assertFalse(ColumnarDetailFile.isColumnarId((1L << 52) - 1));
+        assertFalse(ColumnarDetailFile.supports(0));
+        assertFalse(ColumnarDetailFile.supports(-1));
+        assertTrue(ColumnarDetailFile.supports(1));
+        assertTrue(ColumnarDetailFile.supports(MAX_TASK_ID));
+        assertFalse(ColumnarDetailFile.supports(MAX_TASK_ID + 1));
+    }
+
+    @Test
+    public void roundTripAcrossBlocks() throws Exception {
+        File file = write(ROWS);
+        ColumnarDetailReader reader = new ColumnarDetailReader(TASK_ID, file);
+
+        List<LoganLogDetailDTO> all = reader.query(null, null, null, null);
+        assertEquals(ROWS, all.size());
+        for (int i = 0; i < ROWS; i++) {
+            LoganLogDetailDTO dto = all.get(i);
+            assertEquals(ColumnarDetailFile.encodeId(TASK_ID, i), dto.getId());
+            assertEquals(TASK_ID, dto.getTaskId());
+            assertEquals(typeOf(i), dto.getLogType());
+            assertEquals(timeOf(i), dto.getLogTime());
+            // 检索结果不带内容
+            assertNull(dto.getContent());
+        }
+
+        int last = ROWS - 1;
+        List<Integer> rows = Arrays.asList(0, ColumnarDetailFile.BLOCK_ROWS - 1, ColumnarDetailFile.BLOCK_ROWS,
+                last, ROWS, -1);
+        List<LoganLogDetailDTO> details = reader.get(rows);
+        assertEquals(4, details.size());
+        assertDetail(0, details.get(0));
+        assertDetail(ColumnarDetailFile.BLOCK_ROWS - 1, details.get(1));
+        assertDetail(ColumnarDetailFile.BLOCK_ROWS, details.get(2));
+        assertDetail(last, details.get(3));
+    }
+
+    @Test
+    public void sortsRowsByTimeWithinBlock() throws Exception {
+        File file = folder.newFile("unsorted.col");
+        try (ColumnarDetailWriter writer = new ColumnarDetailWriter(file)) {
+            writer.append(1, 30, "c");
+            writer.append(1, 10, "a");
+            writer.append(2, 20, "b1");
+            writer.append(3, 20, "b2");
+            writer.append(1, 5, null);
+            writer.finish();
+        }
+        ColumnarDetailReader reader = new ColumnarDetailReader(TASK_ID, file);
+
+        List<LoganLogDetailDTO> details = reader.get(Arrays.asList(0, 1, 2, 3, 4));
+        List<String> contents = new ArrayList<>();
+        for (LoganLogDetailDTO dto : details) {
+            contents.add(dto.getContent());
+        }
+        // 相同时间保持写入顺序，null内容读出为空串
+        assertEquals(Arrays.asList("", "a", "b1", "b2", "c"), contents);
+    }
+
+    @Test
+    public void filtersByTypeTimeAndKeyword() throws Exception {
+        ColumnarDetailReader reader = new ColumnarDetailReader(TASK_ID, write(ROWS));
+
+        assertEquals(expected(2, null, null, null), rows(reader.query(Collections.singletonList(2), null, null, null)));
+        assertEquals(expected(1, null, null, null), rows(reader.query(Arrays.asList(1, 63), null, null, null)));
+        // 类型位按低6位映射，类型65与类型1同位，行级过滤仍要排除
+        assertEquals(Collections.emptyList(), rows(reader.query(Collections.singletonList(65), null, null, null)));
+
+        long begin = timeOf(ColumnarDetailFile.BLOCK_ROWS - 10);
+        long end = timeOf(ColumnarDetailFile.BLOCK_ROWS + 10);
+        assertEquals(expected(null, begin, end, null), rows(reader.query(null, begin, end, null)));
+        assertEquals(expected(null, begin, begin, null), rows(reader.query(null, begin, begin, null)));
+        assertEquals(Collections.emptyList(), rows(reader.query(null, timeOf(ROWS), null, null)));
+
+        assertEquals(expected(null, null, null, "ROW 77"), rows(reader.query(null, null, null, "ROW 77")));
+        assertEquals(expected(3, begin, null, "row 1"), rows(reader.query(Collections.singletonList(3), begin, null, "row 1")));
+    }
+
+    @Test
+    public void stopsAppendingAtMaxRows() throws Exception {
+        File file = folder.newFile("full.col");
+        int last = ColumnarDetailFile.MAX_ROWS - 1;
+        try (ColumnarDetailWriter writer = new ColumnarDetailWriter(file)) {
+            for (int i = 0; i < last; i++) {
+                assertTrue(writer.append(1, i, null));
+            }
+            assertTrue(writer.append(2, last, "last"));
+            assertFalse(writer.append(1, last + 1, "over"));
+            assertEquals(ColumnarDetailFile.MAX_ROWS, writer.getRowCount());
+            writer.finish();
+        }
+        ColumnarDetailReader reader = new ColumnarDetailReader(MAX_TASK_ID, file);
+
+        List<LoganLogDetailDTO> details = reader.get(Arrays.asList(0, last, last + 1));
+        assertEquals(2, details.size());
+        assertEquals(ColumnarDetailFile.encodeId(MAX_TASK_ID, 0), details.get(0).getId());
+        LoganLogDetailDTO dto = details.get(1);
+        assertEquals(ColumnarDetailFile.encodeId(MAX_TASK_ID, last), dto.getId());
+        assertEquals(MAX_TASK_ID, ColumnarDetailFile.taskIdOf(dto.getId()));
+        assertEquals(last, ColumnarDetailFile.rowOf(dto.getId()));
+        assertEquals("last", dto.getContent());
+        assertEquals(2, dto.getLogType());
+    }
+
+    @Test
+    public void closeWithoutFinishLeavesNoFile() throws Exception {
+        File file = new File(folder.getRoot(), "unfinished.col");
+        try (ColumnarDetailWriter writer = new ColumnarDetailWriter(file)) {
+            writer.append(1, 1, "content");
+        }
+        assertFalse(file.exists());
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    private File write(int rows) throws Exception {
+        File file = folder.newFile("detail.col");
+        try (ColumnarDetailWriter writer = new ColumnarDetailWriter(file)) {
+            for (int i = 0; i < rows; i++) {
+                assertTrue(writer.append(typeOf(i), timeOf(i), contentOf(i)));
+            }
+            writer.finish();
+        }
+        return file;
+    }
+
+    private static void assertDetail(int row, LoganLogDetailDTO dto) {
+        assertEquals(ColumnarDetailFile.encodeId(TASK_ID, row), dto.getId());
+        assertEquals(typeOf(row), dto.getLogType());
+        assertEquals(timeOf(row), dto.getLogTime());
+        assertEquals(contentOf(row), dto.getContent());
+    }
+
+    private static List<Integer> expected(Integer type, Long begin, Long end, String keyword) {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            if ((type == null || typeOf(i) == type)
+                    && (begin == null || timeOf(i) >= begin)
+                    && (end == null || timeOf(i) <= end)
+                    && (keyword == null || contentOf(i).toLowerCase().contains(keyword.toLowerCase()))) {
+                rows.add(i);
+            }
+        }
+        return rows;
+    }
+
+    private static List<Integer> rows(List<LoganLogDetailDTO> details) {
+        List<Integer> rows = new ArrayList<>();
+        for (LoganLogDetailDTO dto : details) {
+            rows.add(ColumnarDetailFile.rowOf(dto.getId()));
+        }
+        return rows;
+    }
+
+    private static int typeOf(int row) {
+        return row % 3 + 1;
+    }
+
+    private static long timeOf(int row) {
+        return 1500000000000L + row * 7L;
+    }
+
+    private static String contentOf(int row) {
+        return "row " + row + " 日志";
+    }
+}
@@ -0,0 +1,146 @@
+package com.meituan.logan.web.mapper;
+
+import com.meituan.logan.web.enums.PartitionedTableEnum;
+import com.meituan.logan.web.model.LogPartition;
+import com.meituan.logan.web.retention.DailyPartitions;
+import com.meituan.logan.web.util.DateTimeUtil;
+import com.meituan.logan.web.util.TrimFieldEnum;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.jdbc.ScriptRunner;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 在真实的MySQL上执行README中的分区语句和LogPartitionMapper，H2不支持分区，默认跳过。
+ *
+ * <p>运行方式(库需事先建好，会重建logan_log_detail和web_detail两张表)：</p>
+ * <pre>
+ * mvn test -Dtest=LogPartitionMapperTest -Dlogan.test.mysql.url=jdbc:mysql://127.0.0.1:3306/logan_test \
+ *     -Dlogan.test.mysql.user=root -Dlogan.test.mysql.password=
+ * </pre>
+ */
+public class LogPartitionMapperTest {
+    private static final String URL = System.getProperty("logan.test.mysql.url");
+    private static final int AHEAD_DAYS = 3;
+    private static final int RETENTION_DAYS = 30;
+
+    private UnpooledDataSource dataSource;
+    private SqlSessionFactory sessionFactory;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue("set logan.test.mysql.url to run against MySQL", URL != null);
+        dataSource = new UnpooledDataSource("com.mysql.cj.jdbc.Driver", URL,
+                System.getProperty("logan.test.mysql.user", "root"),
+                System.getProperty("logan.test.mysql.password", ""));
+        try (Connection connection = dataSource.getConnection();
+             Reader schema = new InputStreamReader(Resources.getResourceAsStream("logan-mysql-partition.sql"),
+                     StandardCharsets.UTF_8)) {
+            ScriptRunner runner = new ScriptRunner(connection);
+            runner.setLogWriter(null);
+            runner.setStopOnError(true);
+            runner.runScript(schema);
+        }
+        Configuration configuration = new Configuration(
+                new Environment("mysql", new JdbcTransactionFactory(), dataSource));
+        String mapper = "sqlmap/LogPartitionMapper.xml";
+        try (InputStream in = Resources.getResourceAsStream(mapper)) {
+            new XMLMapperBuilder(in, configuration, mapper, configuration.getSqlFragments()).parse();
+        }
+        sessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    @Test
+    public void splitsAheadAndDropsExpiredPartitions() throws Exception {
+        Date today = DateTimeUtil.trimAfter(TrimFieldEnum.HOUR, new Date());
+        Date cutoff = DateTimeUtil.plusDay(today, -RETENTION_DAYS);
+        for (PartitionedTableEnum table : PartitionedTableEnum.values()) {
+            List<LogPartition> partitions = query(table);
+            assertEquals(2, partitions.size());
+            assertTrue(DailyPartitions.hasMaxPartition(partitions));
+
+            // 建表那天的旧数据和今天的数据，今天的数据在预建分区之前落在pmax
+            long old = table.toMillis(Long.parseLong(partitions.get(0).getLessThan())) - 1000;
+            insert(table, old);
+            insert(table, System.currentTimeMillis());
+
+            List<LogPartition> missing = DailyPartitions.missing(table, partitions, today, AHEAD_DAYS);
+            try (SqlSession session = sessionFactory.openSession(true)) {
+                session.getMapper(LogPartitionMapper.class)
+                        .splitMaxPartition(table.getTable(), DailyPartitions.MAX_PARTITION, missing);
+            }
+            partitions = query(table);
+            // 原有分区 + 补齐到今天的一个分区 + 今天及之后AHEAD_DAYS天 + pmax
+            assertEquals(1 + 1 + (AHEAD_DAYS + 1) + 1, partitions.size());
+            assertEquals("p" + DateTimeUtil.formatYMD(today), partitions.get(2).getName());
+            assertEquals(String.valueOf(table.toBound(DateTimeUtil.plusDay(today, 1).getTime())),
+                    partitions.get(2).getLessThan());
+            assertEquals(DailyPartitions.MAX_PARTITION, partitions.get(partitions.size() - 1).getName());
+            assertTrue(DailyPartitions.missing(table, partitions, today, AHEAD_DAYS).isEmpty());
+
+            List<String> expired = DailyPartitions.expired(table, partitions, cutoff.getTime());
+            assertEquals(1, expired.size());
+            try (SqlSession session = sessionFactory.openSession(true)) {
+                session.getMapper(LogPartitionMapper.class).dropPartitions(table.getTable(), expired);
+            }
+            assertEquals(partitions.size() - 1, query(table).size());
+            assertEquals(1, count(table));
+        }
+    }
+
+    private List<LogPartition> query(PartitionedTableEnum table) {
+        try (SqlSession session = sessionFactory.openSession(true)) {
+            return new ArrayList<>(session.getMapper(LogPartitionMapper.class).queryPartitions(table.getTable()));
+        }
+    }
+
+    private void insert(PartitionedTableEnum table, long addTime) throws Exception {
+        String sql = table == PartitionedTableEnum.LOGAN_LOG_DETAIL
+                ? "INSERT INTO logan_log_detail (task_id, log_type, content, log_time, add_time) VALUES (1, 1, 'log', 0, ?)"
+                : "INSERT INTO web_detail (task_id, log_type, content, log_time, add_time, minute_offset) "
+                + "VALUES (1, 1, 'log', 0, ?, 0)";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (table == PartitionedTableEnum.LOGAN_LOG_DETAIL) {
+                statement.setTimestamp(1, new Timestamp(addTime));
+            } else {
+                statement.setLong(1, addTime);
+            }
+            statement.executeUpdate();
+        }
+    }
+
+    private long count(PartitionedTableEnum table) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table.getTable())) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
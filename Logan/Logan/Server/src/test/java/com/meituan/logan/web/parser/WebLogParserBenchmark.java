@@ -0,0 +1,57 @@
+package com.meituan.logan.web.parser;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * H5日志详情解析的吞吐对比：fastjson两次解析(parseByJson)与单遍解析。不是单元测试，直接运行main方法：
+ * <pre>
+ * java -cp ... com.meituan.logan.web.parser.WebLogParserBenchmark [条数] [轮数]
+ * </pre>
+ */
+public class WebLogParserBenchmark {
+    private static final long TASK_ID = 1;
+    private static final int BATCH_SIZE = 1000;
+
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String content = content(items);
+        System.out.println("items: " + items + ", chars: " + content.length());
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            int json = WebLogParser.parseByJson(content, TASK_ID, 0, BATCH_SIZE, batch -> {
+            });
+            long jsonNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            int streamed = new WebLogStreamParser(content, TASK_ID).parse(BATCH_SIZE, batch -> {
+            });
+            long streamNanos = System.nanoTime() - start;
+            if (json != streamed) {
+                throw new IllegalStateException("details differ: " + json + " vs " + streamed);
+            }
+            System.out.println(String.format("round %2d  parseByJson %5d ms  stream %5d ms", round,
+                    jsonNanos / 1000000, streamNanos / 1000000));
+        }
+    }
+
+    /**
+     * 与H5 SDK上报的格式一致：内容经过URL编码，约一成含有需要解码的字符
+     */
+    private static String content(int items) {
+        List<String> logs = new ArrayList<>(items);
+        long time = 1571500000000L;
+        for (int i = 0; i < items; i++) {
+            JSONObject item = new JSONObject(true);
+            item.put("t", String.valueOf(i % 4 + 1));
+            String text = "request /api/v1/items?page=" + i + " finished, status 200, cost " + (i % 500) + "ms";
+            item.put("c", i % 10 == 0 ? text.replace(" ", "%20") + "%E4%BD%A0%E5%A5%BD" : text);
+            item.put("d", String.valueOf(time + i * 137L));
+            logs.add(item.toJSONString());
+        }
+        return JSON.toJSONString(logs);
+    }
+}
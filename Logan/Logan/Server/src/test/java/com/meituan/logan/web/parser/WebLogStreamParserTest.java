@@ -0,0 +1,199 @@
+package com.meituan.logan.web.parser;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.meituan.logan.web.dto.WebLogDetailDTO;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 单遍解析与fastjson解析(parseByJson)的结果逐条一致，包括解析失败后回退的情况
+ */
+public class WebLogStreamParserTest {
+    private static final long TASK_ID = 3;
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final long TIME = 1571500000000L;
+
+    @Test
+    public void escapesAndUnicode() {
+        assertStreamedSameAsJson(array(
+                item("1", "quote \" backslash \\ slash /", TIME),
+                item("2", "control \n\t\r\b\f end", TIME + 1),
+                item("3", "你好 \u00e9 \u2028 emoji \ud83d\ude00", TIME + 2),
+                item("4", "url %E4%BD%A0%E5%A5%BD+a%2Bb%25", TIME + 3)));
+        // fastjson兼容的非标准转义，元素内部和外层各一个
+        assertSameAsJson("[\"{\\\"t\\\":\\\"1\\\",\\\"c\\\":\\\"\\\\x41\\\",\\\"d\\\":\\\"1\\\"}\", "
+                + "\"{\\\"t\\\":\\\"1\\\",\\\"c\\\":\\\"\\x42\\\",\\\"d\\\":\\\"1\\\"}\"]");
+        // 外层和元素内部都用\\uXXXX转义，键本身也被转义
+        assertStreamedSameAsJson("[\"{\\\"\\u0074\\\":\\\"1\\\",\\\"c\\\":\\\"\\\\u4f60\\\\u597d\\u0021\\\","
+                + "\\\"d\\\":\\\"" + TIME + "\\\"}\", \"\\u007b\\\"t\\\":\\\"2\\\",\\\"c\\\":\\\"x\\\\/y\\\\\\\\z\\\","
+                + "\\\"d\\\":\\\"" + TIME + "\\\"\\u007d\"]");
+    }
+
+    @Test
+    public void nestedObjectsAndArrays() {
+        JSONObject nested = new JSONObject(true);
+        nested.put("x", Arrays.asList(1, "]}\"", new JSONObject()));
+        nested.put("t", "1");
+        nested.put("y", JSON.parseObject("{\"a\":{\"b\":[[],{}],\"c\":\"{[\"}}"));
+        nested.put("c", "after nested");
+        nested.put("z", new ArrayList<>());
+        nested.put("d", String.valueOf(TIME));
+        assertStreamedSameAsJson(array(nested.toJSONString(), item("2", "plain", TIME)));
+    }
+
+    @Test
+    public void nonStringItemsAndValues() {
+        // 数组元素不是字符串：null跳过，对象由fastjson转成字符串后照常解析
+        assertStreamedSameAsJson("[null, " + JSON.toJSONString(item("1", "a", TIME)) + " , null]");
+        assertSameAsJson("[null, " + JSON.toJSONString(item("1", "a", TIME)) + ", {\"t\":\"1\",\"c\":\"b\","
+                + "\"d\":\"" + TIME + "\"}, " + JSON.toJSONString(item("2", "c", TIME)) + "]");
+        // 数字、布尔、数组元素在fastjson中无法转成对象，两条路径都失败
+        for (String other : Arrays.asList("123", "true", "[1, 2]")) {
+            String content = "[" + JSON.toJSONString(item("1", "a", TIME)) + ", " + other + "]";
+            assertFailsLikeJson(content);
+        }
+        // 字段值是数字、布尔、null或嵌套结构
+        JSONObject numbers = new JSONObject(true);
+        numbers.put("t", 2);
+        numbers.put("c", 12.50);
+        numbers.put("d", TIME + DAY);
+        JSONObject nulls = new JSONObject(true);
+        nulls.put("t", "1");
+        nulls.put("c", null);
+        nulls.put("d", String.valueOf(TIME));
+        JSONObject booleans = new JSONObject(true);
+        booleans.put("t", true);
+        booleans.put("c", false);
+        booleans.put("d", -5);
+        JSONObject objectContent = new JSONObject(true);
+        objectContent.put("t", "1");
+        objectContent.put("c", JSON.parseObject("{\"k\":\"v\"}"));
+        objectContent.put("d", String.valueOf(TIME));
+        JSONObject arrayContent = new JSONObject(true);
+        arrayContent.put("t", "1");
+        arrayContent.put("c", Arrays.asList("a", 1));
+        arrayContent.put("d", String.valueOf(TIME));
+        assertStreamedSameAsJson(array(numbers.toJSONString(), nulls.toJSONString(), booleans.toJSONString(),
+                "{}", " { } ", "{\"t\":\"1\",\"c\":\"\",\"d\":\"1\"}", "{\"c\":\"missing type\",\"d\":\"1\"}"));
+        assertSameAsJson(array(objectContent.toJSONString(), arrayContent.toJSONString(), item("1", "x", TIME)));
+    }
+
+    @Test
+    public void logTimesAcrossDays() {
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(item(String.valueOf(i % 4), "line " + i, TIME + i * (DAY / 7) - 3 * DAY));
+        }
+        items.add(item("1", "epoch", 0));
+        items.add(item("1", "before epoch", -DAY - 61000));
+        assertStreamedSameAsJson(array(items.toArray(new String[0])));
+    }
+
+    @Test
+    public void emptyAndWhitespace() {
+        for (String content : Arrays.asList("", " ", "\n\t ", "[]", " [ ] ", "[\n]")) {
+            assertEquals("'" + content + "'", 0, parseByJson(content).size());
+            assertEquals("'" + content + "'", 0, WebLogParser.parseWebLogDetail(content, TASK_ID).size());
+        }
+    }
+
+    @Test
+    public void fallbackAfterPartialBatchSkipsDeliveredItems() {
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            items.add(item("1", "line " + i, TIME + i));
+        }
+        // 第6个元素的内容是对象，单遍解析到这里才失败，此前已经交付了两批
+        items.add(5, "{\"t\":\"1\",\"c\":{\"k\":1},\"d\":\"" + TIME + "\"}");
+        String content = array(items.toArray(new String[0]));
+        final List<Integer> batches = new ArrayList<>();
+        WebLogStreamParser parser = new WebLogStreamParser(content, TASK_ID);
+        try {
+            parser.parse(2, batch -> batches.add(batch.size()));
+            fail("object content is left to fastjson");
+        } catch (IllegalArgumentException expected) {
+            assertEquals(Arrays.asList(2, 2), batches);
+            assertEquals(4, parser.getDeliveredItems());
+        }
+
+        batches.clear();
+        List<WebLogDetailDTO> result = new ArrayList<>();
+        int count = WebLogParser.parseWebLogDetail(content, TASK_ID, 2, batch -> {
+            batches.add(batch.size());
+            result.addAll(batch);
+        });
+
+        assertEquals(8, count);
+        assertEquals(Arrays.asList(2, 2, 2, 2), batches);
+        assertEquals(describe(parseByJson(content)), describe(result));
+    }
+
+    /**
+     * 单遍解析本身就能处理，不依赖回退
+     */
+    private static void assertStreamedSameAsJson(String content) {
+        List<WebLogDetailDTO> streamed = new ArrayList<>();
+        new WebLogStreamParser(content, TASK_ID).parse(3, streamed::addAll);
+        assertEquals(describe(parseByJson(content)), describe(streamed));
+        assertSameAsJson(content);
+    }
+
+    private static void assertSameAsJson(String content) {
+        List<String> expected = describe(parseByJson(content));
+        assertTrue(!expected.isEmpty() || content.trim().length() <= 2);
+        List<WebLogDetailDTO> actual = new ArrayList<>();
+        WebLogParser.parseWebLogDetail(content, TASK_ID, 3, actual::addAll);
+        assertEquals(expected, describe(actual));
+    }
+
+    private static void assertFailsLikeJson(String content) {
+        Class<?> expected = null;
+        try {
+            parseByJson(content);
+            fail("fastjson accepted " + content);
+        } catch (RuntimeException e) {
+            expected = e.getClass();
+        }
+        try {
+            WebLogParser.parseWebLogDetail(content, TASK_ID);
+            fail("accepted " + content);
+        } catch (RuntimeException e) {
+            assertEquals(expected, e.getClass());
+        }
+    }
+
+    private static List<WebLogDetailDTO> parseByJson(String content) {
+        List<WebLogDetailDTO> result = new ArrayList<>();
+        WebLogParser.parseByJson(content, TASK_ID, 0, Integer.MAX_VALUE, result::addAll);
+        return result;
+    }
+
+    private static List<String> describe(List<WebLogDetailDTO> details) {
+        List<String> result = new ArrayList<>();
+        for (WebLogDetailDTO dto : details) {
+            result.add(dto.getTaskId() + "|" + dto.getLogType() + "|" + dto.getContent() + "|" + dto.getLogTime()
+                    + "|" + dto.getMinuteOffset());
+        }
+        return result;
+    }
+
+    private static String item(String type, String content, long time) {
+        JSONObject item = new JSONObject(true);
+        item.put("t", type);
+        item.put("c", content);
+        item.put("d", String.valueOf(time));
+        return item.toJSONString();
+    }
+
+    private static String array(String... items) {
+        return JSON.toJSONString(Arrays.asList(items));
+    }
+}
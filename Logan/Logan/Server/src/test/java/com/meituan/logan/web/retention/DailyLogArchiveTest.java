@@ -0,0 +1,67 @@
+package com.meituan.logan.web.retention;
+
+import com.meituan.logan.web.model.Tuple;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class DailyLogArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsArchivedFilesFromTheirDay() throws Exception {
+        File archiveDir = folder.newFolder("logarchive");
+        DailyLogArchive archive = new DailyLogArchive(archiveDir);
+        archive.append("20191001", Arrays.asList(log("a", "first"), log("b", "second")), count -> {
+        });
+        archive.append("20191002", Arrays.asList(log("c", "third")), count -> {
+        });
+        // 同名文件再次归档，以新的一天为准
+        archive.append("20191003", Arrays.asList(log("a", "first again")), count -> {
+        });
+
+        assertEquals("first again", read(archive, "a"));
+        assertEquals("second", read(archive, "b"));
+        assertEquals("third", read(archive, "c"));
+        assertNull(archive.open("missing"));
+
+        // 重启后首次读取时从已有压缩包重建索引
+        DailyLogArchive restarted = new DailyLogArchive(archiveDir);
+        assertEquals("first again", read(restarted, "a"));
+        assertEquals("third", read(restarted, "c"));
+
+        assertEquals(2, restarted.expireBefore("20191003"));
+        assertNull(restarted.open("b"));
+        assertNull(restarted.open("c"));
+        assertEquals("first again", read(restarted, "a"));
+        assertFalse(new File(archiveDir, "20191001.zip").exists());
+    }
+
+    private File log(String name, String content) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        FileUtils.writeStringToFile(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static String read(DailyLogArchive archive, String name) throws Exception {
+        Tuple<InputStream, Long> file = archive.open(name);
+        try (InputStream in = file.getFirst()) {
+            String content = IOUtils.toString(in, StandardCharsets.UTF_8);
+            assertEquals(content.length(), (long) file.getSecond());
+            return content;
+        }
+    }
+}
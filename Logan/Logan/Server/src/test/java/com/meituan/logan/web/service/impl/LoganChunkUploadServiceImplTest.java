@@ -0,0 +1,302 @@
+package com.meituan.logan.web.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.meituan.logan.web.enums.ResultEnum;
+import com.meituan.logan.web.model.ChunkUploadStatus;
+import com.meituan.logan.web.model.LoganTaskModel;
+import com.meituan.logan.web.model.Tuple;
+import com.meituan.logan.web.service.LoganLogDetailService;
+import com.meituan.logan.web.service.LoganLogFileService;
+import com.meituan.logan.web.service.LoganTaskService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 用HttpServer模拟分片上传的三个接口，后面接真实的分片服务；解析、建任务由桩实现记录
+ */
+public class LoganChunkUploadServiceImplTest {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_TRIES = 5;
+
+    private final List<byte[]> writtenFiles = Collections.synchronizedList(new ArrayList<>());
+    private final List<Long> analyzedTasks = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong nextTaskId = new AtomicLong(100);
+    private final Map<Integer, Integer> partAttempts = new ConcurrentHashMap<>();
+    private final AtomicInteger droppedParts = new AtomicInteger();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LoganChunkUploadServiceImpl service;
+    private HttpServer server;
+    private String baseUrl;
+    private String deviceId;
+
+    @Before
+    public void setUp() throws IOException {
+        service = new LoganChunkUploadServiceImpl(folder.newFolder("logchunk"));
+        ReflectionTestUtils.setField(service, "fileService", stub(LoganLogFileService.class, (method, args) -> {
+            writtenFiles.add(IOUtils.toByteArray((InputStream) args[0]));
+            return ResultEnum.SUCCESS;
+        }));
+        ReflectionTestUtils.setField(service, "taskService", stub(LoganTaskService.class,
+                (method, args) -> nextTaskId.incrementAndGet()));
+        ReflectionTestUtils.setField(service, "detailService", stub(LoganLogDetailService.class, (method, args) -> {
+            analyzedTasks.add((Long) args[0]);
+            return null;
+        }));
+        deviceId = UUID.randomUUID().toString();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/logan/chunk/init.json", this::handleInit);
+        server.createContext("/logan/chunk/part.json", this::handlePart);
+        server.createContext("/logan/chunk/complete.json", this::handleComplete);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/logan/chunk";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void resumesDroppedChunksAndCompletesOnce() throws Exception {
+        byte[] file = randomBytes(10 * CHUNK_SIZE + 123, 1);
+        String url = upload(file);
+
+        assertTrue(droppedParts.get() > 0);
+        assertEquals(1, writtenFiles.size());
+        assertArrayEquals(file, writtenFiles.get(0));
+        assertEquals(Collections.singletonList(101L), analyzedTasks);
+        assertTrue(url.contains("logan"));
+
+        // 客户端没收到complete的响应而重试：返回同一个地址，不再解析和建任务
+        String uploadId = (String) init(file).get("uploadId");
+        assertEquals(url, complete(uploadId));
+        assertEquals(1, writtenFiles.size());
+        assertEquals(1, analyzedTasks.size());
+
+        Tuple<ResultEnum, LoganTaskModel> again = service.complete(uploadId);
+        assertEquals(ResultEnum.SUCCESS, again.getFirst());
+        assertEquals(101L, again.getSecond().getTaskId());
+    }
+
+    @Test
+    public void grownFileSendsOnlyChangedTail() throws Exception {
+        byte[] first = randomBytes(8 * CHUNK_SIZE + 100, 2);
+        upload(first);
+
+        byte[] grown = Arrays.copyOf(first, first.length + 3 * CHUNK_SIZE);
+        System.arraycopy(randomBytes(grown.length - first.length, 3), 0, grown, first.length,
+                grown.length - first.length);
+        List<Integer> missing = missing(init(grown));
+        // 第8块原本只有100字节，文件增长后内容变了，需要和新增的块一起重传
+        assertEquals(Arrays.asList(8, 9, 10, 11), missing);
+
+        upload(grown);
+        assertEquals(2, writtenFiles.size());
+        assertArrayEquals(grown, writtenFiles.get(1));
+        assertEquals(Arrays.asList(101L, 102L), analyzedTasks);
+    }
+
+    @Test
+    public void completeWithMissingChunksFails() throws Exception {
+        byte[] file = randomBytes(3 * CHUNK_SIZE, 4);
+        JSONObject status = init(file);
+        assertEquals(Arrays.asList(0, 1, 2), missing(status));
+        Tuple<ResultEnum, LoganTaskModel> result = service.complete(status.getString("uploadId"));
+        assertEquals(ResultEnum.ERROR_CHUNK, result.getFirst());
+        assertTrue(writtenFiles.isEmpty());
+    }
+
+    /**
+     * 按客户端的流程上传：提交清单，逐块上传缺失的分片(失败重试)，合并
+     */
+    private String upload(byte[] file) throws Exception {
+        JSONObject status = init(file);
+        String uploadId = status.getString("uploadId");
+        List<String> md5s = chunkMd5s(file);
+        for (int index : missing(status)) {
+            int offset = index * CHUNK_SIZE;
+            byte[] chunk = Arrays.copyOfRange(file, offset, Math.min(file.length, offset + CHUNK_SIZE));
+            boolean sent = false;
+            for (int tries = 0; tries < MAX_TRIES && !sent; tries++) {
+                try {
+                    sent = post("/part.json", headers("uploadId", uploadId, "chunkIndex", String.valueOf(index),
+                            "chunkMd5", md5s.get(index)), chunk).getIntValue("code") == 200;
+                } catch (IOException ignored) {
+                    // 连接中断，重传这一块
+                }
+            }
+            assertTrue("chunk " + index + " not sent", sent);
+        }
+        assertTrue(missing(init(file)).isEmpty());
+        return complete(uploadId);
+    }
+
+    private JSONObject init(byte[] file) throws IOException {
+        byte[] manifest = StringUtils.join(chunkMd5s(file), "\n").getBytes(StandardCharsets.UTF_8);
+        return post("/init.json", headers("fileSize", String.valueOf(file.length),
+                "chunkSize", String.valueOf(CHUNK_SIZE), "deviceId", deviceId), manifest).getJSONObject("data");
+    }
+
+    private String complete(String uploadId) throws IOException {
+        JSONObject response = post("/complete.json", headers("uploadId", uploadId), new byte[0]);
+        assertEquals(200, response.getIntValue("code"));
+        return response.getString("data");
+    }
+
+    private static List<Integer> missing(JSONObject status) {
+        return status.getJSONArray("missing").toJavaList(Integer.class);
+    }
+
+    private void handleInit(HttpExchange exchange) throws IOException {
+        LoganTaskModel task = new LoganTaskModel();
+        task.setAppId("app");
+        task.setDeviceId(header(exchange, "deviceId"));
+        task.setLogDate(1570000000000L);
+        task.setLogFileName(task.getDeviceId() + ".log");
+        List<String> md5s = new ArrayList<>();
+        for (String line : IOUtils.readLines(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            md5s.add(line.trim());
+        }
+        ChunkUploadStatus status = service.init(task, NumberUtils.toLong(header(exchange, "fileSize")),
+                NumberUtils.toInt(header(exchange, "chunkSize")), md5s);
+        respond(exchange, status == null ? 400 : 200, status);
+    }
+
+    /**
+     * 每三块模拟一次连接中断：分片服务只收到一半数据，随后连接被直接关闭
+     */
+    private void handlePart(HttpExchange exchange) throws IOException {
+        int index = NumberUtils.toInt(header(exchange, "chunkIndex"));
+        int attempt = partAttempts.merge(index, 1, Integer::sum);
+        boolean drop = index % 3 == 0 && attempt == 1;
+        InputStream body = exchange.getRequestBody();
+        if (drop) {
+            body = new BoundedInputStream(body, CHUNK_SIZE / 2);
+        }
+        ResultEnum result = service.writeChunk(header(exchange, "uploadId"), index, header(exchange, "chunkMd5"),
+                body);
+        if (drop) {
+            assertEquals(ResultEnum.ERROR_CHUNK, result);
+            droppedParts.incrementAndGet();
+            exchange.close();
+            return;
+        }
+        respond(exchange, ResultEnum.SUCCESS == result ? 200 : 500, result.name());
+    }
+
+    private void handleComplete(HttpExchange exchange) throws IOException {
+        Tuple<ResultEnum, LoganTaskModel> result = service.complete(header(exchange, "uploadId"));
+        if (ResultEnum.SUCCESS != result.getFirst()) {
+            respond(exchange, 500, result.getFirst().name());
+            return;
+        }
+        respond(exchange, 200, "http://localhost/logan/downing?file=" + result.getSecond().getLogFileName());
+    }
+
+    private static String header(HttpExchange exchange, String name) {
+        return exchange.getRequestHeaders().getFirst(name);
+    }
+
+    private static void respond(HttpExchange exchange, int code, Object data) throws IOException {
+        JSONObject response = new JSONObject();
+        response.put("code", code);
+        response.put("data", data);
+        byte[] bytes = JSON.toJSONString(response).getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private JSONObject post(String path, Map<String, String> headers, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            headers.forEach(connection::setRequestProperty);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream response = new ByteArrayOutputStream();
+                IOUtils.copy(in, response);
+                return JSON.parseObject(new String(response.toByteArray(), StandardCharsets.UTF_8));
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static Map<String, String> headers(String... keyValues) {
+        Map<String, String> headers = new ConcurrentHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            headers.put(keyValues[i], keyValues[i + 1]);
+        }
+        return headers;
+    }
+
+    private static List<String> chunkMd5s(byte[] file) {
+        List<String> md5s = new ArrayList<>();
+        for (int offset = 0; offset < file.length; offset += CHUNK_SIZE) {
+            md5s.add(DigestUtils.md5Hex(Arrays.copyOfRange(file, offset, Math.min(file.length, offset + CHUNK_SIZE))));
+        }
+        return md5s;
+    }
+
+    private static byte[] randomBytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private interface StubMethod {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, StubMethod method) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, m, args) -> method.invoke(m.getName(), args));
+    }
+}
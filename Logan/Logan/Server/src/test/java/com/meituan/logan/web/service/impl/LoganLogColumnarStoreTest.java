@@ -0,0 +1,99 @@
+package com.meituan.logan.web.service.impl;
+
+import com.meituan.logan.web.columnar.ColumnarDetailFile;
+import com.meituan.logan.web.columnar.ColumnarDetailWriter;
+import com.meituan.logan.web.dto.LoganLogDetailDTO;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 列存存储按任务检索、按详情ID回查，以及重写文件后缓存的读取器失效
+ */
+public class LoganLogColumnarStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+    private LoganLogColumnarStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = folder.newFolder("logcolumn");
+        store = new LoganLogColumnarStore(dir);
+    }
+
+    @Test
+    public void queriesTaskAndLooksUpDetailIds() throws Exception {
+        assertFalse(store.exists(1));
+        write(1, "a1", "b1", "a2");
+        write(2, "c1");
+        assertTrue(store.exists(1));
+        assertTrue(new File(dir, "1.col").exists());
+
+        List<LoganLogDetailDTO> found = store.query(1, Collections.singletonList(1), "A", null, null);
+        assertEquals(Arrays.asList(ColumnarDetailFile.encodeId(1, 0), ColumnarDetailFile.encodeId(1, 2)), ids(found));
+
+        // 非列存ID、不存在的任务和越界的行号被忽略，结果按任务分组、组内按行号排列
+        List<Long> detailIds = Arrays.asList(ColumnarDetailFile.encodeId(2, 0), 42L, null,
+                ColumnarDetailFile.encodeId(1, 2), ColumnarDetailFile.encodeId(1, 0),
+                ColumnarDetailFile.encodeId(3, 0), ColumnarDetailFile.encodeId(1, 3));
+        List<LoganLogDetailDTO> details = store.queryByIds(detailIds);
+        assertEquals(Arrays.asList("c1", "a1", "a2"), contents(details));
+        assertEquals(2, details.get(0).getTaskId());
+
+        assertEquals("b1", store.selectById(ColumnarDetailFile.encodeId(1, 1)).getContent());
+        assertNull(store.selectById(42));
+        assertEquals(Collections.emptyList(), store.queryByIds(Collections.singletonList(42L)));
+    }
+
+    @Test
+    public void rewritingTaskInvalidatesCachedReader() throws Exception {
+        write(1, "old");
+        assertEquals(Collections.singletonList("old"),
+                contents(store.queryByIds(Collections.singletonList(ColumnarDetailFile.encodeId(1, 0)))));
+
+        write(1, "new", "newer");
+
+        assertEquals(Arrays.asList("new", "newer"), contents(store.queryByIds(Arrays.asList(
+                ColumnarDetailFile.encodeId(1, 0), ColumnarDetailFile.encodeId(1, 1)))));
+    }
+
+    private void write(long taskId, String... contents) throws Exception {
+        try (ColumnarDetailWriter writer = store.newWriter(taskId)) {
+            for (int i = 0; i < contents.length; i++) {
+                writer.append(contents[i].startsWith("b") ? 2 : 1, i, contents[i]);
+            }
+            writer.finish();
+        }
+    }
+
+    private static List<Long> ids(List<LoganLogDetailDTO> details) {
+        List<Long> ids = new ArrayList<>();
+        for (LoganLogDetailDTO dto : details) {
+            ids.add(dto.getId());
+        }
+        return ids;
+    }
+
+    private static List<String> contents(List<LoganLogDetailDTO> details) {
+        List<String> contents = new ArrayList<>();
+        for (LoganLogDetailDTO dto : details) {
+            contents.add(dto.getContent());
+        }
+        return contents;
+    }
+}
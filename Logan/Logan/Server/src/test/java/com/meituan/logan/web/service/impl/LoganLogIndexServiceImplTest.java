@@ -0,0 +1,203 @@
+package com.meituan.logan.web.service.impl;
+
+import com.meituan.logan.web.dto.LoganLogDetailDTO;
+import com.meituan.logan.web.dto.LoganTaskDTO;
+import com.meituan.logan.web.enums.ResultEnum;
+import com.meituan.logan.web.enums.TaskStatusEnum;
+import com.meituan.logan.web.mapper.LoganTaskMapper;
+import com.meituan.logan.web.model.BatchInsertMetrics;
+import com.meituan.logan.web.model.Tuple;
+import com.meituan.logan.web.model.request.LoganTaskRequest;
+import com.meituan.logan.web.service.BatchInsertService;
+import com.meituan.logan.web.service.LoganLogFileService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 索引的删除与缓存失效，以及解析失败时索引构建器的清理
+ */
+public class LoganLogIndexServiceImplTest {
+    private static final long TASK_ID = 7;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+    private LoganLogIndexServiceImpl indexService;
+
+    @Before
+    public void setUp() throws Exception {
+        root = folder.newFolder("logindex");
+        indexService = new LoganLogIndexServiceImpl(root);
+    }
+
+    @Test
+    public void deleteDropsDirectoryAndCachedSegments() {
+        indexService.index(Arrays.asList(detail(1, "hello world"), detail(2, "goodbye")));
+        indexService.commit(TASK_ID);
+        assertEquals(Arrays.asList(1L), indexService.search(TASK_ID, null, "hello", null, null));
+        assertEquals(1, indexService.cachedSegments());
+
+        assertTrue(indexService.delete(TASK_ID));
+
+        assertFalse(new File(root, String.valueOf(TASK_ID)).exists());
+        assertEquals(0, indexService.cachedSegments());
+        assertNull(indexService.search(TASK_ID, null, "hello", null, null));
+    }
+
+    @Test
+    public void deleteDiscardsUncommittedDetails() {
+        indexService.index(Arrays.asList(detail(1, "hello world")));
+
+        assertTrue(indexService.delete(TASK_ID));
+        // 删除后再提交不会写出删除前留在内存中的数据
+        indexService.commit(TASK_ID);
+        assertEquals(new ArrayList<Long>(), indexService.search(TASK_ID, null, "hello", null, null));
+    }
+
+    @Test
+    public void failedInsertStillCommitsIndex() {
+        List<Long> searched = analyze(false);
+
+        // 已入库的数据写出了索引段，构建器没有留在内存中
+        assertEquals(Arrays.asList(1L, 2L), searched);
+    }
+
+    @Test
+    public void successfulAnalyzeCommitsIndex() {
+        assertEquals(Arrays.asList(1L, 2L), analyze(true));
+    }
+
+    private List<Long> analyze(boolean insertSucceeds) {
+        TaskMapper taskMapper = new TaskMapper();
+        LoganLogAnalyzer analyzer = new LoganLogAnalyzer(taskMapper, new IndexingInsertService(insertSucceeds),
+                indexService, null, new StringFileService(
+                "{\"c\":\"hello one\",\"f\":\"1\",\"l\":\"1\"}\n{\"c\":\"hello two\",\"f\":\"1\",\"l\":\"2\"}\n"));
+        try {
+            assertEquals(insertSucceeds, analyzer.analyze(TASK_ID));
+            assertEquals(insertSucceeds ? TaskStatusEnum.ANALYZED.getStatus() : TaskStatusEnum.NORMAL.getStatus(),
+                    taskMapper.status);
+        } finally {
+            analyzer.shutdown();
+        }
+        return indexService.search(TASK_ID, null, "hello", null, null);
+    }
+
+    private static LoganLogDetailDTO detail(long id, String content) {
+        LoganLogDetailDTO dto = new LoganLogDetailDTO();
+        dto.setId(id);
+        dto.setTaskId(TASK_ID);
+        dto.setLogType(1);
+        dto.setLogTime(id);
+        dto.setContent(content);
+        return dto;
+    }
+
+    /**
+     * 与详情服务一样，入库后分配ID并加入索引
+     */
+    private class IndexingInsertService implements BatchInsertService<LoganLogDetailDTO> {
+        private final boolean succeeds;
+        private final AtomicLong ids = new AtomicLong();
+
+        IndexingInsertService(boolean succeeds) {
+            this.succeeds = succeeds;
+        }
+
+        @Override
+        public void saveLogDetail(LoganLogDetailDTO data) {
+            saveLogDetails(Arrays.asList(data));
+        }
+
+        @Override
+        public void saveLogDetails(List<LoganLogDetailDTO> list) {
+            for (LoganLogDetailDTO dto : list) {
+                dto.setId(ids.incrementAndGet());
+            }
+            indexService.index(list);
+        }
+
+        @Override
+        public CompletableFuture<Void> flush(long taskId) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            if (succeeds) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(new IllegalStateException("1 rows of key " + taskId + " failed"));
+            }
+            return future;
+        }
+
+        @Override
+        public BatchInsertMetrics getMetrics() {
+            return null;
+        }
+    }
+
+    private static class TaskMapper implements LoganTaskMapper {
+        private volatile int status = TaskStatusEnum.NORMAL.getStatus();
+
+        @Override
+        public void insert(LoganTaskDTO dto) {
+        }
+
+        @Override
+        public void updateStatus(long id, int status) {
+            this.status = status;
+        }
+
+        @Override
+        public LoganTaskDTO selectById(long id) {
+            LoganTaskDTO dto = new LoganTaskDTO();
+            dto.setId(id);
+            dto.setStatus(status);
+            dto.setLogFileName("task.log");
+            return dto;
+        }
+
+        @Override
+        public List<LoganTaskDTO> search(LoganTaskRequest request) {
+            return null;
+        }
+
+        @Override
+        public List<LoganTaskDTO> queryLatest(int limit) {
+            return null;
+        }
+    }
+
+    private static class StringFileService implements LoganLogFileService {
+        private final byte[] content;
+
+        StringFileService(String content) {
+            this.content = content.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public ResultEnum write(InputStream inputStream, String fileName) {
+            return null;
+        }
+
+        @Override
+        public Tuple<InputStream, Long> open(String fileName) {
+            return Tuple.create(new ByteArrayInputStream(content), (long) content.length);
+        }
+    }
+}
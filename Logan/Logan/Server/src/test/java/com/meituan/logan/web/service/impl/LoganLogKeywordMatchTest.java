@@ -0,0 +1,97 @@
+package com.meituan.logan.web.service.impl;
+
+import com.meituan.logan.web.H2Database;
+import com.meituan.logan.web.columnar.ColumnarDetailReader;
+import com.meituan.logan.web.columnar.ColumnarDetailWriter;
+import com.meituan.logan.web.dto.LoganLogDetailDTO;
+import com.meituan.logan.web.mapper.LoganLogDetailMapper;
+import com.meituan.logan.web.util.LocalStringUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 数据库LIKE回退路径与列存、索引候选校验使用的 containsIgnoreCase 对同一关键字给出相同结果
+ */
+public class LoganLogKeywordMatchTest {
+    private static final long TASK_ID = 1;
+    private static final List<String> CONTENTS = Arrays.asList(
+            "100% done", "100 done", "a_b", "axb", "a%b", "path\\to\\file", "pathXtoXfile",
+            "Hello World", "HELLO world", "wow!", "wow", "!%_", "user_id=42", "userXid=42", "");
+    private static final List<String> KEYWORDS = Arrays.asList(
+            "%", "_", "!", "\\", "100%", "0%", "a_b", "a%b", "a!b", "!%_", "%_", "path\\to", "user_id",
+            "hello", "WORLD", "o w", "");
+
+    private SqlSessionFactory sessionFactory;
+    private File columnarFile;
+
+    @Before
+    public void setUp() throws Exception {
+        sessionFactory = H2Database.create("sqlmap/LoganLogDetailMapper.xml");
+        List<LoganLogDetailDTO> details = new ArrayList<>();
+        columnarFile = File.createTempFile("logan-keyword", ".col");
+        try (ColumnarDetailWriter writer = new ColumnarDetailWriter(columnarFile)) {
+            for (int i = 0; i < CONTENTS.size(); i++) {
+                LoganLogDetailDTO dto = new LoganLogDetailDTO();
+                dto.setTaskId(TASK_ID);
+                dto.setLogType(1);
+                dto.setLogTime(i);
+                dto.setContent(CONTENTS.get(i));
+                details.add(dto);
+                writer.append(1, i, CONTENTS.get(i));
+            }
+            writer.finish();
+        }
+        try (SqlSession session = sessionFactory.openSession(true)) {
+            session.getMapper(LoganLogDetailMapper.class).batchInsert(details);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        columnarFile.delete();
+    }
+
+    @Test
+    public void databaseAndColumnarMatchKeywordsTheSame() throws Exception {
+        ColumnarDetailReader reader = new ColumnarDetailReader(TASK_ID, columnarFile);
+        for (String keyword : KEYWORDS) {
+            Set<Long> expected = new TreeSet<>();
+            for (int i = 0; i < CONTENTS.size(); i++) {
+                if (StringUtils.containsIgnoreCase(CONTENTS.get(i), keyword)) {
+                    expected.add((long) i);
+                }
+            }
+            assertEquals("columnar, keyword: " + keyword, expected,
+                    logTimes(reader.query(null, null, null, keyword)));
+            assertEquals("database, keyword: " + keyword, expected, logTimes(queryDatabase(keyword)));
+        }
+    }
+
+    private List<LoganLogDetailDTO> queryDatabase(String keyword) {
+        try (SqlSession session = sessionFactory.openSession(true)) {
+            return session.getMapper(LoganLogDetailMapper.class).queryByTaskIdTypeKeyword(TASK_ID, null,
+                    LocalStringUtils.escapeLike(keyword), null, null);
+        }
+    }
+
+    private static Set<Long> logTimes(List<LoganLogDetailDTO> details) {
+        Set<Long> result = new TreeSet<>();
+        for (LoganLogDetailDTO dto : details) {
+            result.add(dto.getLogTime());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,179 @@
+package com.meituan.logan.web.task;
+
+import com.meituan.logan.web.H2Database;
+import com.meituan.logan.web.dto.LoganLogDetailDTO;
+import com.meituan.logan.web.mapper.LoganLogDetailMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ShardedBatchPipelineTest {
+    private static final int TASKS = 6;
+    private static final int ROWS_PER_TASK = 3000;
+
+    private SqlSessionFactory sessionFactory;
+    private ShardedBatchPipeline<LoganLogDetailDTO> pipeline;
+
+    @Before
+    public void setUp() throws Exception {
+        sessionFactory = H2Database.create("sqlmap/LoganLogDetailMapper.xml");
+        ShardedBatchPipeline.Config config = new ShardedBatchPipeline.Config();
+        config.setShards(3);
+        config.setQueueCapacity(300);
+        config.setMinBatchSize(10);
+        config.setMaxBatchSize(200);
+        pipeline = new ShardedBatchPipeline<>("test", this::insert, LoganLogDetailDTO::getTaskId, config);
+        pipeline.start();
+    }
+
+    @After
+    public void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void flushInsertsAllRowsInSubmitOrderPerTask() throws Exception {
+        for (int i = 0; i < ROWS_PER_TASK; i++) {
+            for (long taskId = 1; taskId <= TASKS; taskId++) {
+                pipeline.submit(detail(taskId, i, "line " + i));
+            }
+        }
+        for (long taskId = 1; taskId <= TASKS; taskId++) {
+            pipeline.flush(taskId).get(30, TimeUnit.SECONDS);
+        }
+
+        for (long taskId = 1; taskId <= TASKS; taskId++) {
+            List<LoganLogDetailDTO> rows = query(taskId);
+            assertEquals(ROWS_PER_TASK, rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(i, rows.get(i).getLogTime());
+            }
+        }
+        assertEquals(TASKS * ROWS_PER_TASK, pipeline.getMetrics().getInsertedRows());
+        assertEquals(0, pipeline.getMetrics().getFailedBatches());
+        assertTrue(pipeline.getMetrics().getInsertedBatches() > 0);
+    }
+
+    @Test
+    public void flushFailsWhenABatchFailedSinceLastFlush() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            pipeline.submit(detail(1, i, "line " + i));
+        }
+        // content 非空，这一行所在的批次整体入库失败
+        pipeline.submit(detail(1, 100, null));
+        assertFlushFails(1);
+        assertTrue(query(1).size() < 101);
+        assertTrue(pipeline.getMetrics().getFailedBatches() > 0);
+        assertEquals(pipeline.getMetrics().getInsertedRows(), query(1).size());
+
+        // 失败只影响该任务之后的第一次flush
+        pipeline.submit(detail(1, 101, "line 101"));
+        pipeline.flush(1).get(30, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void failureOnlyFailsTheTaskWhoseRowsFailed() throws Exception {
+        pipeline.shutdown();
+        ShardedBatchPipeline.Config config = new ShardedBatchPipeline.Config();
+        config.setShards(1);
+        pipeline = new ShardedBatchPipeline<>("test", this::insert, LoganLogDetailDTO::getTaskId, config);
+
+        // 两个任务在同一个分片上交替解析，全部入队后再启动，批次的划分是确定的
+        for (int i = 0; i < 10; i++) {
+            pipeline.submit(detail(1, i, "a " + i));
+        }
+        CompletableFuture<Void> firstOfTask1 = pipeline.flush(1);
+        pipeline.submit(detail(2, 0, null));
+        CompletableFuture<Void> secondOfTask1 = pipeline.flush(1);
+        CompletableFuture<Void> firstOfTask2 = pipeline.flush(2);
+        // 同一批里有两个任务的数据，两个任务都失败
+        pipeline.submit(detail(1, 10, "a 10"));
+        pipeline.submit(detail(2, 1, null));
+        CompletableFuture<Void> thirdOfTask1 = pipeline.flush(1);
+        CompletableFuture<Void> secondOfTask2 = pipeline.flush(2);
+        pipeline.start();
+
+        firstOfTask1.get(30, TimeUnit.SECONDS);
+        secondOfTask1.get(30, TimeUnit.SECONDS);
+        assertFails(firstOfTask2);
+        assertFails(thirdOfTask1);
+        assertFails(secondOfTask2);
+        assertEquals(10, query(1).size());
+        assertTrue(query(2).isEmpty());
+    }
+
+    @Test
+    public void shutdownInsertsQueuedRows() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            pipeline.submit(detail(1, i, "line " + i));
+        }
+        pipeline.shutdown();
+        assertEquals(1000, query(1).size());
+        try {
+            pipeline.submit(detail(1, 1000, "line 1000"));
+            fail("submit after shutdown should be rejected");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        assertFails(pipeline.flush(1));
+    }
+
+    @Test
+    public void shutdownFailsOutstandingFlushes() throws Exception {
+        pipeline.shutdown();
+        // 未启动的流水线，数据和flush都只在队列里
+        pipeline = new ShardedBatchPipeline<>("test", this::insert, LoganLogDetailDTO::getTaskId,
+                new ShardedBatchPipeline.Config());
+        pipeline.submit(detail(1, 0, "line 0"));
+        CompletableFuture<Void> flush = pipeline.flush(1);
+        pipeline.shutdown();
+        assertFails(flush);
+        assertTrue(query(1).isEmpty());
+    }
+
+    private void assertFlushFails(long taskId) throws Exception {
+        assertFails(pipeline.flush(taskId));
+    }
+
+    private static void assertFails(CompletableFuture<Void> future) throws Exception {
+        try {
+            future.get(30, TimeUnit.SECONDS);
+            fail("flush should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    private void insert(List<LoganLogDetailDTO> batch) {
+        try (SqlSession session = sessionFactory.openSession(true)) {
+            session.getMapper(LoganLogDetailMapper.class).batchInsert(batch);
+        }
+    }
+
+    private List<LoganLogDetailDTO> query(long taskId) {
+        try (SqlSession session = sessionFactory.openSession(true)) {
+            return session.getMapper(LoganLogDetailMapper.class)
+                    .queryByTaskIdTypeKeyword(taskId, null, null, null, null);
+        }
+    }
+
+    private static LoganLogDetailDTO detail(long taskId, long logTime, String content) {
+        LoganLogDetailDTO dto = new LoganLogDetailDTO();
+        dto.setTaskId(taskId);
+        dto.setLogType(1);
+        dto.setLogTime(logTime);
+        dto.setContent(content);
+        return dto;
+    }
+}
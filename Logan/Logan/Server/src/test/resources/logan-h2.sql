@@ -0,0 +1,11 @@
+CREATE TABLE logan_log_detail (
+  id bigint NOT NULL AUTO_INCREMENT,
+  task_id bigint NOT NULL,
+  log_type int NOT NULL,
+  content varchar NOT NULL,
+  log_time bigint NOT NULL,
+  add_time timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  update_time timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (id)
+);
+CREATE INDEX idx_task_id ON logan_log_detail (task_id);
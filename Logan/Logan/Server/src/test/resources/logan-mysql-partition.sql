@@ -0,0 +1,42 @@
+-- README中的详情表结构与按天分区语句
+DROP TABLE IF EXISTS `logan_log_detail`;
+
+DROP TABLE IF EXISTS `web_detail`;
+
+CREATE TABLE `logan_log_detail` (
+  `id` bigint(11) unsigned NOT NULL AUTO_INCREMENT COMMENT '主键id',
+  `task_id` bigint(11) unsigned NOT NULL COMMENT '所属任务id',
+  `log_type` int(11) unsigned NOT NULL COMMENT '日志类型',
+  `content` text COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '原始日志',
+  `log_time` bigint(20) unsigned NOT NULL COMMENT '本条日志产生的具体时间戳',
+  `add_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '添加时间',
+  `update_time` timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_update_time` (`update_time`),
+  KEY `idx_task_id` (`task_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='日志解析后的数据详情';
+
+CREATE TABLE `web_detail` (
+  `id` bigint(11) unsigned NOT NULL AUTO_INCREMENT COMMENT '自增主键',
+  `task_id` bigint(20) NOT NULL COMMENT '所属任务id',
+  `log_type` int(11) NOT NULL COMMENT '日志类型',
+  `content` mediumtext NOT NULL COMMENT '日志内容',
+  `log_time` bigint(20) NOT NULL COMMENT '日志所属时间',
+  `log_level` int(11) DEFAULT NULL COMMENT '日志等级',
+  `add_time` bigint(20) NOT NULL COMMENT '添加时间',
+  `minute_offset` int(11) NOT NULL COMMENT '距离当天0点的分钟数',
+  PRIMARY KEY (`id`),
+  KEY `taskid_logtype` (`task_id`,`log_type`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COMMENT='H5日志详情表';
+
+ALTER TABLE `logan_log_detail` DROP PRIMARY KEY, ADD PRIMARY KEY (`id`, `add_time`);
+ALTER TABLE `logan_log_detail` PARTITION BY RANGE (UNIX_TIMESTAMP(`add_time`)) (
+  PARTITION p20191001 VALUES LESS THAN (UNIX_TIMESTAMP('2019-10-02 00:00:00')),
+  PARTITION pmax VALUES LESS THAN MAXVALUE
+);
+
+ALTER TABLE `web_detail` DROP PRIMARY KEY, ADD PRIMARY KEY (`id`, `add_time`);
+ALTER TABLE `web_detail` PARTITION BY RANGE (`add_time`) (
+  PARTITION p20191001 VALUES LESS THAN (1569945600000),
+  PARTITION pmax VALUES LESS THAN MAXVALUE
+);
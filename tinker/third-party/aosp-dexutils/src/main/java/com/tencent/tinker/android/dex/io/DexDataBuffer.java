@@ -40,6 +40,7 @@ import com.tencent.tinker.android.dex.util.ByteOutput;
 
 import java.io.ByteArrayOutputStream;
 import java.io.UTFDataFormatException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
@@ -54,9 +55,12 @@ public class DexDataBuffer implements ByteInput, ByteOutput {
     private static final Code.Try[] EMPTY_TRY_ARRAY = new Code.Try[0];
     private static final Code.CatchHandler[] EMPTY_CATCHHANDLER_ARRAY = new Code.CatchHandler[0];
 
+    private static final int MAX_LEB128_BYTES = 5;
+
     private ByteBuffer data;
     private int dataBound;
     private boolean isResizeAllowed;
+    private char[] stringDecodeBuffer = new char[64];
 
     public DexDataBuffer() {
         this.data = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
@@ -153,14 +157,51 @@ public class DexDataBuffer implements ByteInput, ByteOutput {
     }
 
     public int readUleb128() {
+        // Fast path: decode straight from backing array when a full 5-byte leb128 fits.
+        if (data.hasArray() && data.remaining() >= MAX_LEB128_BYTES) {
+            return readLeb128FromArray();
+        }
         return Leb128.readUnsignedLeb128(this);
     }
 
+    /**
+     * Reads the 7-bit groups of a leb128 straight from backing array and moves position past them.
+     * The caller must make sure that at least {@link #MAX_LEB128_BYTES} bytes remain.
+     */
+    private int readLeb128FromArray() {
+        final byte[] array = data.array();
+        final int start = data.arrayOffset() + data.position();
+        int pos = start;
+        int result = 0;
+        int cur;
+        int shift = 0;
+        do {
+            cur = array[pos++] & 0xff;
+            result |= (cur & 0x7f) << shift;
+            shift += 7;
+        } while ((cur & 0x80) == 0x80 && shift < MAX_LEB128_BYTES * 7);
+        if ((cur & 0x80) == 0x80) {
+            throw new DexException("invalid LEB128 sequence");
+        }
+        data.position(data.position() + (pos - start));
+        return result;
+    }
+
     public int readUleb128p1() {
-        return Leb128.readUnsignedLeb128(this) - 1;
+        return readUleb128() - 1;
     }
 
     public int readSleb128() {
+        if (data.hasArray() && data.remaining() >= MAX_LEB128_BYTES) {
+            final int start = data.position();
+            int result = readLeb128FromArray();
+            final int shift = (data.position() - start) * 7;
+            // Sign extend if appropriate
+            if (shift < 32 && (result & (1 << (shift - 1))) != 0) {
+                result |= -1 << shift;
+            }
+            return result;
+        }
         return Leb128.readSignedLeb128(this);
     }
 
@@ -168,7 +209,7 @@ public class DexDataBuffer implements ByteInput, ByteOutput {
         int off = data.position();
         try {
             int expectedLength = readUleb128();
-            String result = Mutf8.decode(this, new char[expectedLength]);
+            String result = (data.hasArray() ? decodeMutf8FromArray(expectedLength) : Mutf8.decode(this, new char[expectedLength]));
             if (result.length() != expectedLength) {
                 throw new DexException("Declared length " + expectedLength
                         + " doesn't match decoded length of " + result.length());
@@ -179,6 +220,64 @@ public class DexDataBuffer implements ByteInput, ByteOutput {
         }
     }
 
+    /**
+     * Decodes a MUTF-8 string straight from backing array into a reusable char buffer,
+     * ASCII bytes still go through the per-byte loop but take its first branch.
+     */
+    private String decodeMutf8FromArray(int expectedLength) throws UTFDataFormatException {
+        final byte[] array = data.array();
+        final int base = data.arrayOffset();
+        final int limit = base + data.limit();
+        int pos = base + data.position();
+        // Each char takes 1 to 3 bytes, so a declared length of n never decodes to more than n chars
+        // for a valid string, leave one extra slot so that an invalid one is detected below.
+        char[] out = stringDecodeBuffer;
+        if (out.length < expectedLength + 1) {
+            out = new char[Math.max(expectedLength + 1, out.length << 1)];
+            stringDecodeBuffer = out;
+        }
+        int s = 0;
+        while (true) {
+            if (pos >= limit) {
+                throw new BufferUnderflowException();
+            }
+            final int a = array[pos++] & 0xff;
+            if (a == 0) {
+                break;
+            }
+            if (s >= out.length) {
+                throw new DexException("Declared length " + expectedLength
+                        + " doesn't match decoded length of at least " + s);
+            }
+            if (a < 0x80) {
+                out[s++] = (char) a;
+            } else if ((a & 0xe0) == 0xc0) {
+                if (pos >= limit) {
+                    throw new BufferUnderflowException();
+                }
+                final int b = array[pos++] & 0xff;
+                if ((b & 0xC0) != 0x80) {
+                    throw new UTFDataFormatException("bad second byte");
+                }
+                out[s++] = (char) (((a & 0x1F) << 6) | (b & 0x3F));
+            } else if ((a & 0xf0) == 0xe0) {
+                if (pos + 1 >= limit) {
+                    throw new BufferUnderflowException();
+                }
+                final int b = array[pos++] & 0xff;
+                final int c = array[pos++] & 0xff;
+                if (((b & 0xC0) != 0x80) || ((c & 0xC0) != 0x80)) {
+                    throw new UTFDataFormatException("bad second or third byte");
+                }
+                out[s++] = (char) (((a & 0x0F) << 12) | ((b & 0x3F) << 6) | (c & 0x3F));
+            } else {
+                throw new UTFDataFormatException("bad byte");
+            }
+        }
+        data.position(pos - base);
+        return new String(out, 0, s);
+    }
+
     public TypeList readTypeList() {
         int off = data.position();
         int size = readInt();
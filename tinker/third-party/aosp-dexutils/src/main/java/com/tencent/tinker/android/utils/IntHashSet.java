@@ -0,0 +1,75 @@
+/*
+ * Tencent is pleased to support the open source community by making Tinker available.
+ *
+ * Copyright (C) 2016 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" basis, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.tinker.android.utils;
+
+/**
+ * IntHashSet is a set of integers backed by an {@link IntIntHashMap}.
+ *
+ * <p>It replaces {@link SparseBoolArray} in places where only membership
+ * is queried and keys are inserted in no particular order.</p>
+ */
+public class IntHashSet {
+    private final IntIntHashMap mMap;
+
+    /**
+     * Creates a new empty IntHashSet.
+     */
+    public IntHashSet() {
+        mMap = new IntIntHashMap();
+    }
+
+    /**
+     * Creates a new empty IntHashSet that will not require any additional
+     * memory allocation to store the specified number of elements.
+     */
+    public IntHashSet(int expectedSize) {
+        mMap = new IntIntHashMap(expectedSize);
+    }
+
+    /**
+     * Adds the specified element to this set.
+     */
+    public void add(int element) {
+        mMap.put(element, 1);
+    }
+
+    /**
+     * Returns whether the {@code element} is exists.
+     */
+    public boolean contains(int element) {
+        return mMap.containsKey(element);
+    }
+
+    /**
+     * Returns the number of elements that this IntHashSet currently stores.
+     */
+    public int size() {
+        return mMap.size();
+    }
+
+    /**
+     * Removes all elements from this IntHashSet.
+     */
+    public void clear() {
+        mMap.clear();
+    }
+
+    @Override
+    public String toString() {
+        return mMap.toString();
+    }
+}
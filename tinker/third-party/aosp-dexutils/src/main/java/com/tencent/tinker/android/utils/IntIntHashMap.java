@@ -0,0 +1,250 @@
+/*
+ * Tencent is pleased to support the open source community by making Tinker available.
+ *
+ * Copyright (C) 2016 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" basis, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.tinker.android.utils;
+
+import java.util.Arrays;
+
+/**
+ * IntIntHashMap maps integers to integers with open addressing and linear probing.
+ *
+ * <p>Unlike {@link SparseIntArray}, lookups and inserts take constant time on average
+ * and inserting keys out of order never shifts existing entries. Keys and values are
+ * kept in two flat int arrays, so no boxing or entry objects are involved.</p>
+ *
+ * <p>The lookup api mirrors {@link SparseIntArray}: {@link #indexOfKey(int)} returns a
+ * slot index that can be passed to {@link #valueAt(int)}, or a negative number if the
+ * key is not mapped. Slot indices are NOT ordered by key and are invalidated by any
+ * later insertion.</p>
+ */
+public class IntIntHashMap {
+    private static final int FREE_KEY = 0;
+    private static final int FREE_KEY_SLOT = Integer.MAX_VALUE;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] mKeys;
+    private int[] mValues;
+    private int   mMask;
+    private int   mSize;
+    private int   mThreshold;
+
+    // FREE_KEY marks an empty slot, so a mapping for it is stored aside.
+    private boolean mHasFreeKey;
+    private int     mFreeKeyValue;
+
+    /**
+     * Creates a new IntIntHashMap containing no mappings.
+     */
+    public IntIntHashMap() {
+        this(16);
+    }
+
+    /**
+     * Creates a new IntIntHashMap containing no mappings that will not
+     * require any additional memory allocation to store the specified
+     * number of mappings.
+     */
+    public IntIntHashMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Bad expectedSize: " + expectedSize);
+        }
+        final int capacity = tableSizeFor((int) Math.ceil(expectedSize / LOAD_FACTOR));
+        mKeys = new int[capacity];
+        mValues = new int[capacity];
+        mMask = capacity - 1;
+        mThreshold = (int) (capacity * LOAD_FACTOR);
+        mSize = 0;
+    }
+
+    private static int tableSizeFor(int size) {
+        int capacity = 4;
+        while (capacity < size && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(int key) {
+        // Murmur3 finalizer, offsets in dex are usually 4-byte aligned which would
+        // otherwise leave most of the low bits unused.
+        int h = key * 0x85ebca6b;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Gets the int mapped from the specified key, or <code>0</code>
+     * if no such mapping has been made.
+     */
+    public int get(int key) {
+        return get(key, 0);
+    }
+
+    /**
+     * Gets the int mapped from the specified key, or the specified value
+     * if no such mapping has been made.
+     */
+    public int get(int key, int valueIfKeyNotFound) {
+        final int index = indexOfKey(key);
+        return (index < 0 ? valueIfKeyNotFound : valueAt(index));
+    }
+
+    /**
+     * Returns the slot index for which {@link #valueAt} would return the
+     * value of specified key, or a negative number if the specified
+     * key is not mapped.
+     */
+    public int indexOfKey(int key) {
+        if (key == FREE_KEY) {
+            return (mHasFreeKey ? FREE_KEY_SLOT : -1);
+        }
+        final int[] keys = mKeys;
+        final int mask = mMask;
+        int pos = hash(key) & mask;
+        while (true) {
+            final int k = keys[pos];
+            if (k == key) {
+                return pos;
+            }
+            if (k == FREE_KEY) {
+                return -1;
+            }
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns whether the {@code key} is exists.
+     */
+    public boolean containsKey(int key) {
+        return indexOfKey(key) >= 0;
+    }
+
+    /**
+     * Given a slot index returned by {@link #indexOfKey(int)}, returns
+     * the value stored in that slot.
+     */
+    public int valueAt(int index) {
+        return (index == FREE_KEY_SLOT ? mFreeKeyValue : mValues[index]);
+    }
+
+    /**
+     * Adds a mapping from the specified key to the specified value,
+     * replacing the previous mapping from the specified key if there
+     * was one.
+     */
+    public void put(int key, int value) {
+        if (key == FREE_KEY) {
+            if (!mHasFreeKey) {
+                mHasFreeKey = true;
+                ++mSize;
+            }
+            mFreeKeyValue = value;
+            return;
+        }
+        int pos = hash(key) & mMask;
+        while (true) {
+            final int k = mKeys[pos];
+            if (k == key) {
+                mValues[pos] = value;
+                return;
+            }
+            if (k == FREE_KEY) {
+                mKeys[pos] = key;
+                mValues[pos] = value;
+                if (++mSize > mThreshold) {
+                    rehash(mKeys.length << 1);
+                }
+                return;
+            }
+            pos = (pos + 1) & mMask;
+        }
+    }
+
+    /**
+     * Returns the number of key-value mappings that this IntIntHashMap
+     * currently stores.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Removes all key-value mappings from this IntIntHashMap.
+     */
+    public void clear() {
+        Arrays.fill(mKeys, FREE_KEY);
+        mHasFreeKey = false;
+        mSize = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        final int[] oldKeys = mKeys;
+        final int[] oldValues = mValues;
+        final int[] newKeys = new int[newCapacity];
+        final int[] newValues = new int[newCapacity];
+        final int newMask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; ++i) {
+            final int key = oldKeys[i];
+            if (key == FREE_KEY) {
+                continue;
+            }
+            int pos = hash(key) & newMask;
+            while (newKeys[pos] != FREE_KEY) {
+                pos = (pos + 1) & newMask;
+            }
+            newKeys[pos] = key;
+            newValues[pos] = oldValues[i];
+        }
+        mKeys = newKeys;
+        mValues = newValues;
+        mMask = newMask;
+        mThreshold = (int) (newCapacity * LOAD_FACTOR);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation composes a string by iterating over its mappings.
+     * Mappings are listed in slot order, not key order.
+     */
+    @Override
+    public String toString() {
+        if (mSize <= 0) {
+            return "{}";
+        }
+
+        StringBuilder buffer = new StringBuilder(mSize * 28);
+        buffer.append('{');
+        boolean first = true;
+        if (mHasFreeKey) {
+            buffer.append(FREE_KEY).append('=').append(mFreeKeyValue);
+            first = false;
+        }
+        for (int i = 0; i < mKeys.length; i++) {
+            if (mKeys[i] == FREE_KEY) {
+                continue;
+            }
+            if (!first) {
+                buffer.append(", ");
+            }
+            buffer.append(mKeys[i]).append('=').append(mValues[i]);
+            first = false;
+        }
+        buffer.append('}');
+        return buffer.toString();
+    }
+}
@@ -23,7 +23,10 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -94,6 +97,8 @@ public class TinkerZipFile implements Closeable, ZipConstants {
     private File fileToDeleteOnClose;
     private RandomAccessFile raf;
     private String comment;
+    private MappedByteBuffer mappedFile;
+    private boolean mapFailed = false;
 
     /**
      * Constructs a new {@code ZipFile} allowing read access to the contents of the given file.
@@ -251,6 +256,7 @@ public class TinkerZipFile implements Closeable, ZipConstants {
         if (localRaf != null) { // Only close initialized instances
             synchronized (localRaf) {
                 raf = null;
+                mappedFile = null;
                 localRaf.close();
             }
             if (fileToDeleteOnClose != null) {
@@ -379,6 +385,77 @@ public class TinkerZipFile implements Closeable, ZipConstants {
         }
     }
 
+    /**
+     * Returns a read-only view on the raw data of the specified {@code ZipEntry}, exactly as it
+     * is stored in this zip file (compressed data is NOT inflated).
+     *
+     * <p>The view is backed by a memory mapping of the whole file, so copying it does not need
+     * to seek the shared {@code RandomAccessFile} and can be done from any thread.
+     *
+     * @return the raw data of the entry, or null if the entry is not in this zip file or this zip
+     * file cannot be mapped, callers should fall back to {@link #getInputStream} then.
+     * @throws IOException
+     *             if the local file header of the entry is corrupted.
+     * @throws IllegalStateException if this zip file has been closed.
+     */
+    public ByteBuffer getRawDataBuffer(TinkerZipEntry entry) throws IOException {
+        entry = getEntry(entry.getName());
+        if (entry == null) {
+            return null;
+        }
+        final ByteBuffer mapped = getMappedFile();
+        if (mapped == null) {
+            return null;
+        }
+        final ByteBuffer buffer = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        final int limit = buffer.limit();
+        if (entry.localHeaderRelOffset < 0 || entry.localHeaderRelOffset + LOCHDR > limit) {
+            throw new ZipException("Local File Header of " + entry.getName() + " at " + entry.localHeaderRelOffset
+                    + " exceeds file size: " + limit);
+        }
+        final int headerOffset = (int) entry.localHeaderRelOffset;
+        final int localMagic = buffer.getInt(headerOffset);
+        if (localMagic != LOCSIG) {
+            throwZipException(filename, limit, entry.getName(), entry.localHeaderRelOffset, "Local File Header", localMagic);
+        }
+        // At position 6 we find the General Purpose Bit Flag.
+        final int gpbf = buffer.getShort(headerOffset + 6) & 0xffff;
+        if ((gpbf & TinkerZipFile.GPBF_UNSUPPORTED_MASK) != 0) {
+            throw new ZipException("Invalid General Purpose Bit Flag: " + gpbf);
+        }
+        // Offset 26 has the file name length, and offset 28 has the extra field length.
+        final int fileNameLength = buffer.getShort(headerOffset + 26) & 0xffff;
+        final int extraFieldLength = buffer.getShort(headerOffset + 28) & 0xffff;
+        final long dataOffset = entry.localHeaderRelOffset + LOCHDR + fileNameLength + extraFieldLength;
+        final long dataLength = (entry.compressionMethod == TinkerZipEntry.STORED ? entry.size : entry.compressedSize);
+        if (dataLength < 0 || dataOffset + dataLength > limit) {
+            throw new ZipException("Entry " + entry.getName() + " exceeds file size: " + limit);
+        }
+        buffer.limit((int) (dataOffset + dataLength));
+        buffer.position((int) dataOffset);
+        return buffer.slice();
+    }
+
+    private ByteBuffer getMappedFile() {
+        RandomAccessFile localRaf = raf;
+        checkNotClosed();
+        synchronized (localRaf) {
+            if (mappedFile == null && !mapFailed) {
+                try {
+                    final FileChannel channel = localRaf.getChannel();
+                    if (channel.size() <= Integer.MAX_VALUE) {
+                        mappedFile = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    } else {
+                        mapFailed = true;
+                    }
+                } catch (IOException e) {
+                    mapFailed = true;
+                }
+            }
+            return mappedFile;
+        }
+    }
+
     /**
      * Gets the file name of this {@code ZipFile}.
      *
@@ -21,19 +21,40 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Created by zhangshaowen on 16/8/10.
  */
 public class TinkerZipUtil {
-    private static final int BUFFER_SIZE = 16384;
+    public static final int BUFFER_SIZE = 16384;
 
     public static void extractTinkerEntry(TinkerZipFile apk, TinkerZipEntry zipEntry, TinkerZipOutputStream outputStream) throws IOException {
+        extractTinkerEntry(apk, zipEntry, outputStream, new byte[BUFFER_SIZE]);
+    }
+
+    /**
+     * Copy the raw (still compressed) data of {@code zipEntry} to {@code outputStream}, nothing is
+     * inflated or deflated. The data is read from a memory mapping of {@code apk} when possible.
+     *
+     * @param buffer reusable copy buffer, so that callers copying many entries allocate it once.
+     */
+    public static void extractTinkerEntry(TinkerZipFile apk, TinkerZipEntry zipEntry, TinkerZipOutputStream outputStream, byte[] buffer) throws IOException {
+        final ByteBuffer rawData = apk.getRawDataBuffer(zipEntry);
+        if (rawData != null) {
+            outputStream.putNextEntry(new TinkerZipEntry(zipEntry));
+            while (rawData.hasRemaining()) {
+                final int length = Math.min(buffer.length, rawData.remaining());
+                rawData.get(buffer, 0, length);
+                outputStream.write(buffer, 0, length);
+            }
+            outputStream.closeEntry();
+            return;
+        }
         InputStream in = null;
         try {
             in = apk.getInputStream(zipEntry);
             outputStream.putNextEntry(new TinkerZipEntry(zipEntry));
-            byte[] buffer = new byte[BUFFER_SIZE];
 
             for (int length = in.read(buffer); length != -1; length = in.read(buffer)) {
                 outputStream.write(buffer, 0, length);
@@ -47,6 +68,10 @@ public class TinkerZipUtil {
     }
 
     public static void extractLargeModifyFile(TinkerZipEntry sourceArscEntry, File newFile, long newFileCrc, TinkerZipOutputStream outputStream) throws IOException {
+        extractLargeModifyFile(sourceArscEntry, newFile, newFileCrc, outputStream, new byte[BUFFER_SIZE]);
+    }
+
+    public static void extractLargeModifyFile(TinkerZipEntry sourceArscEntry, File newFile, long newFileCrc, TinkerZipOutputStream outputStream, byte[] buffer) throws IOException {
         TinkerZipEntry newArscZipEntry = new TinkerZipEntry(sourceArscEntry);
 
         newArscZipEntry.setMethod(TinkerZipEntry.STORED);
@@ -57,7 +82,6 @@ public class TinkerZipUtil {
         try {
             in = new BufferedInputStream(new FileInputStream(newFile));
             outputStream.putNextEntry(new TinkerZipEntry(newArscZipEntry));
-            byte[] buffer = new byte[BUFFER_SIZE];
 
             for (int length = in.read(buffer); length != -1; length = in.read(buffer)) {
                 outputStream.write(buffer, 0, length);
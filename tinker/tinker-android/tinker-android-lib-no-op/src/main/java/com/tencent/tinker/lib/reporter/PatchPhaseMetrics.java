@@ -0,0 +1,85 @@
+/*
+ * Tencent is pleased to support the open source community by making Tinker available.
+ *
+ * Copyright (C) 2016 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" basis, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.tinker.lib.reporter;
+
+import com.tencent.tinker.loader.shareutil.ShareTinkerInternals;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Metrics of one patch phase, such as dex, library or resource recovering.
+ */
+public final class PatchPhaseMetrics {
+    /**
+     * which phase it is, as following
+     * {@code ShareConstants.TYPE_DEX}       dex diff patch
+     * {@code ShareConstants.TYPE_ARKHOT_SO} ark hot patch
+     * {@code ShareConstants.TYPE_LIBRARY}   library bsdiff patch
+     * {@code ShareConstants.TYPE_RESOURCE}  resource patch
+     * {@code ShareConstants.TYPE_DEX_OPT}   wait and check dex opt files
+     */
+    public final int     fileType;
+    public final boolean success;
+    public final long    wallTimeMs;
+    /**
+     * cpu time of all threads of the :patch process during this phase, such as the parallel dex opt threads,
+     * -1 if unknown. dex2oat runs in its own process and is not included, while unrelated work of other
+     * threads in the :patch process at the same time is.
+     */
+    public final long    cpuTimeMs;
+    /**
+     * bytes read and written by the whole :patch process during this phase, -1 if unknown.
+     * They are process-wide counters, so io of other threads at the same time is included and
+     * io of dex2oat, which runs in its own process, is not.
+     */
+    public final long    bytesRead;
+    public final long    bytesWritten;
+    /**
+     * the max used java heap of the :patch process, sampled every 20ms during this phase and at its end,
+     * so a spike shorter than that may be missed.
+     */
+    public final long    peakHeapBytes;
+    /**
+     * output file name (relative to the phase directory) to its size after this phase.
+     */
+    public final Map<String, Long> outputFiles;
+
+    public PatchPhaseMetrics(int fileType, boolean success, long wallTimeMs, long cpuTimeMs, long bytesRead,
+                             long bytesWritten, long peakHeapBytes, Map<String, Long> outputFiles) {
+        this.fileType = fileType;
+        this.success = success;
+        this.wallTimeMs = wallTimeMs;
+        this.cpuTimeMs = cpuTimeMs;
+        this.bytesRead = bytesRead;
+        this.bytesWritten = bytesWritten;
+        this.peakHeapBytes = peakHeapBytes;
+        this.outputFiles = Collections.unmodifiableMap(outputFiles);
+    }
+
+    @Override
+    public String toString() {
+        return "PatchPhaseMetrics{type=" + ShareTinkerInternals.getTypeString(fileType)
+                + ", success=" + success
+                + ", wallTimeMs=" + wallTimeMs
+                + ", cpuTimeMs=" + cpuTimeMs
+                + ", bytesRead=" + bytesRead
+                + ", bytesWritten=" + bytesWritten
+                + ", peakHeapBytes=" + peakHeapBytes
+                + ", outputFiles=" + outputFiles.size()
+                + "}";
+    }
+}
@@ -26,6 +26,7 @@ import com.tencent.tinker.lib.patch.UpgradePatch;
 import com.tencent.tinker.lib.reporter.DefaultLoadReporter;
 import com.tencent.tinker.lib.reporter.DefaultPatchReporter;
 import com.tencent.tinker.lib.reporter.LoadReporter;
+import com.tencent.tinker.lib.reporter.PatchMetricsReporter;
 import com.tencent.tinker.lib.reporter.PatchReporter;
 import com.tencent.tinker.lib.service.AbstractResultService;
 import com.tencent.tinker.lib.service.DefaultTinkerResultService;
@@ -352,6 +353,13 @@ public class Tinker {
             return this;
         }
 
+        public Builder patchMetricsReporter(PatchMetricsReporter patchMetricsReporter) {
+            if (patchMetricsReporter == null) {
+                throw new TinkerRuntimeException("patchMetricsReporter must not be null.");
+            }
+            return this;
+        }
+
         public Builder listener(PatchListener listener) {
             if (listener == null) {
                 throw new TinkerRuntimeException("listener must not be null.");
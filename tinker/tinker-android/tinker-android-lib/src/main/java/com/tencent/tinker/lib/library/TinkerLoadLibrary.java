@@ -28,6 +28,7 @@ import com.tencent.tinker.loader.shareutil.ShareTinkerLog;
 import com.tencent.tinker.loader.TinkerRuntimeException;
 import com.tencent.tinker.loader.shareutil.ShareConstants;
 import com.tencent.tinker.loader.shareutil.SharePatchFileUtil;
+import com.tencent.tinker.loader.shareutil.SharePatchFileVerifier;
 import com.tencent.tinker.loader.shareutil.ShareReflectUtil;
 import com.tencent.tinker.loader.shareutil.ShareTinkerInternals;
 
@@ -158,7 +159,8 @@ public class TinkerLoadLibrary {
                 }
                 //whether we check md5 when load
                 boolean verifyMd5 = tinker.isTinkerLoadVerify();
-                if (verifyMd5 && !SharePatchFileUtil.verifyFileMd5(library, loadResult.libs.get(name))) {
+                if (verifyMd5 && !new SharePatchFileVerifier(new File(loadResult.patchVersionDirectory,
+                        ShareConstants.PATCH_VERIFIED_DIGEST_NAME)).addFile(library, loadResult.libs.get(name)).verifyAll()) {
                     tinker.getLoadReporter().onLoadFileMd5Mismatch(library, ShareConstants.TYPE_LIBRARY);
                 } else {
                     System.load(patchLibraryPath);
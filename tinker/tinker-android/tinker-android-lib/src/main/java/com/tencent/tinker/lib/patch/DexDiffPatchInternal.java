@@ -33,6 +33,7 @@ import com.tencent.tinker.loader.shareutil.ShareConstants;
 import com.tencent.tinker.loader.shareutil.ShareDexDiffPatchInfo;
 import com.tencent.tinker.loader.shareutil.ShareElfFile;
 import com.tencent.tinker.loader.shareutil.SharePatchFileUtil;
+import com.tencent.tinker.loader.shareutil.SharePatchFileVerifier;
 import com.tencent.tinker.loader.shareutil.ShareSecurityCheck;
 import com.tencent.tinker.loader.shareutil.ShareTinkerInternals;
 import com.tencent.tinker.loader.shareutil.ShareTinkerLog;
@@ -323,12 +324,15 @@ public class DexDiffPatchInternal extends BasePatchInternal {
         }
 
         if (result) {
+            // record verified digests so that loader can skip re-hashing the merged classN file on boot.
+            final SharePatchFileVerifier verifier = new SharePatchFileVerifier(
+                    new File(classNFile.getParentFile().getParentFile(), ShareConstants.PATCH_VERIFIED_DIGEST_NAME));
             for (ShareDexDiffPatchInfo info : classNDexInfo.keySet()) {
-                if (!SharePatchFileUtil.verifyDexFileMd5(classNFile, info.rawName, info.destMd5InArt)) {
-                    result = false;
-                    ShareTinkerLog.e(TAG, "verify dex file md5 error, entry name; %s, file len: %d", info.rawName, classNFile.length());
-                    break;
-                }
+                verifier.addDexFile(classNFile, info.rawName, info.destMd5InArt);
+            }
+            if (!verifier.verifyAll()) {
+                result = false;
+                ShareTinkerLog.e(TAG, "verify dex file md5 error, file len: %d", classNFile.length());
             }
         }
         if (result) {
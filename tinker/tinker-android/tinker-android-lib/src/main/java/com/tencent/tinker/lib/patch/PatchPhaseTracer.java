@@ -0,0 +1,228 @@
+/*
+ * Tencent is pleased to support the open source community by making Tinker available.
+ *
+ * Copyright (C) 2016 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" basis, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.tinker.lib.patch;
+
+import com.tencent.tinker.lib.reporter.PatchMetricsReporter;
+import com.tencent.tinker.lib.reporter.PatchPhaseMetrics;
+import com.tencent.tinker.loader.shareutil.SharePatchFileUtil;
+import com.tencent.tinker.loader.shareutil.ShareTinkerLog;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures each phase of a patch process and delivers it to a {@link PatchMetricsReporter}.
+ * It does nothing if there is no reporter.
+ *
+ * usage:
+ * <pre>
+ *     tracer.begin(ShareConstants.TYPE_DEX, dexDirectory);
+ *     boolean success = DexDiffPatchInternal.tryRecoverDexFiles(...);
+ *     tracer.end(success);
+ * </pre>
+ */
+public final class PatchPhaseTracer {
+    private static final String TAG = "Tinker.PatchPhaseTracer";
+
+    private static final String PROC_SELF_IO   = "/proc/self/io";
+    private static final String PROC_SELF_STAT = "/proc/self/stat";
+    private static final String IO_READ_KEY    = "rchar:";
+    private static final String IO_WRITE_KEY   = "wchar:";
+
+    // utime and stime of /proc/self/stat are the 14th and 15th fields, in USER_HZ (always 100) ticks.
+    private static final int  STAT_UTIME_INDEX_AFTER_COMM = 11;
+    private static final long MILLIS_PER_CLOCK_TICK       = 10;
+
+    private static final long HEAP_SAMPLE_INTERVAL_MS = 20;
+
+    private final PatchMetricsReporter reporter;
+    private final File                 patchFile;
+
+    private int  fileType = -1;
+    private File outputDirectory;
+    private long startWallTime;
+    private long startCpuTime;
+    private long startBytesRead;
+    private long startBytesWritten;
+    private HeapSampler heapSampler;
+
+    public PatchPhaseTracer(PatchMetricsReporter reporter, File patchFile) {
+        this.reporter = reporter;
+        this.patchFile = patchFile;
+    }
+
+    /**
+     * @param fileType        which phase it is, see {@link PatchPhaseMetrics#fileType}
+     * @param outputDirectory files under it are reported as the outputs of this phase, may be null
+     */
+    public void begin(int fileType, File outputDirectory) {
+        if (reporter == null) {
+            return;
+        }
+        this.fileType = fileType;
+        this.outputDirectory = outputDirectory;
+        final long[] io = readProcessIo();
+        startBytesRead = io[0];
+        startBytesWritten = io[1];
+        heapSampler = new HeapSampler();
+        heapSampler.start();
+        startCpuTime = readProcessCpuTime();
+        startWallTime = System.nanoTime();
+    }
+
+    public void end(boolean success) {
+        if (reporter == null || fileType == -1) {
+            return;
+        }
+        final long wallTime = (System.nanoTime() - startWallTime) / 1000000;
+        final long endCpuTime = readProcessCpuTime();
+        final long cpuTime = (endCpuTime < 0 || startCpuTime < 0) ? -1 : endCpuTime - startCpuTime;
+        final long[] io = readProcessIo();
+        final long bytesRead = (io[0] < 0 || startBytesRead < 0) ? -1 : io[0] - startBytesRead;
+        final long bytesWritten = (io[1] < 0 || startBytesWritten < 0) ? -1 : io[1] - startBytesWritten;
+        final long peakHeap = heapSampler.finish();
+        heapSampler = null;
+
+        final Map<String, Long> outputFiles = new HashMap<>();
+        if (outputDirectory != null) {
+            collectOutputFiles(outputDirectory, "", outputFiles);
+        }
+        final PatchPhaseMetrics metrics = new PatchPhaseMetrics(fileType, success, wallTime, cpuTime,
+                bytesRead, bytesWritten, peakHeap, outputFiles);
+        fileType = -1;
+        outputDirectory = null;
+        try {
+            reporter.onPatchPhaseFinished(patchFile, metrics);
+        } catch (Throwable thr) {
+            ShareTinkerLog.e(TAG, "report patch phase metrics failed: " + thr);
+        }
+    }
+
+    private static long usedHeapBytes() {
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void collectOutputFiles(File file, String relativePath, Map<String, Long> result) {
+        final File[] children = file.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            final String childPath = relativePath + child.getName();
+            if (child.isDirectory()) {
+                collectOutputFiles(child, childPath + "/", result);
+            } else {
+                result.put(childPath, child.length());
+            }
+        }
+    }
+
+    /**
+     * @return utime + stime of all threads of current process in milliseconds, -1 if it is unavailable.
+     */
+    private static long readProcessCpuTime() {
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(PROC_SELF_STAT));
+            final String line = reader.readLine();
+            // comm is in parentheses and may contain spaces, so count fields after the last ')'.
+            final String[] fields = line.substring(line.lastIndexOf(')') + 2).split(" ");
+            final long ticks = Long.parseLong(fields[STAT_UTIME_INDEX_AFTER_COMM])
+                    + Long.parseLong(fields[STAT_UTIME_INDEX_AFTER_COMM + 1]);
+            return ticks * MILLIS_PER_CLOCK_TICK;
+        } catch (Throwable ignored) {
+            return -1;
+        } finally {
+            SharePatchFileUtil.closeQuietly(reader);
+        }
+    }
+
+    /**
+     * Samples used java heap every {@link #HEAP_SAMPLE_INTERVAL_MS} until {@link #finish()}.
+     */
+    private static final class HeapSampler extends Thread {
+        private volatile boolean stopped = false;
+        private volatile long    peakHeapBytes;
+
+        HeapSampler() {
+            super("Tinker.PatchHeapSampler");
+            setDaemon(true);
+            peakHeapBytes = usedHeapBytes();
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                sample();
+                try {
+                    Thread.sleep(HEAP_SAMPLE_INTERVAL_MS);
+                } catch (InterruptedException ignored) {
+                    return;
+                }
+            }
+        }
+
+        private void sample() {
+            final long used = usedHeapBytes();
+            if (used > peakHeapBytes) {
+                peakHeapBytes = used;
+            }
+        }
+
+        /**
+         * stop sampling, take a last sample and return the peak.
+         */
+        long finish() {
+            stopped = true;
+            interrupt();
+            try {
+                join();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            sample();
+            return peakHeapBytes;
+        }
+    }
+
+    /**
+     * @return [rchar, wchar] of current process, -1 if it is unavailable.
+     */
+    private static long[] readProcessIo() {
+        final long[] result = {-1, -1};
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(PROC_SELF_IO));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(IO_READ_KEY)) {
+                    result[0] = Long.parseLong(line.substring(IO_READ_KEY.length()).trim());
+                } else if (line.startsWith(IO_WRITE_KEY)) {
+                    result[1] = Long.parseLong(line.substring(IO_WRITE_KEY.length()).trim());
+                }
+            }
+        } catch (Throwable ignored) {
+            // Ignored.
+        } finally {
+            SharePatchFileUtil.closeQuietly(reader);
+        }
+        return result;
+    }
+}
@@ -27,6 +27,7 @@ import com.tencent.tinker.loader.shareutil.ShareTinkerLog;
 import com.tencent.tinker.loader.TinkerRuntimeException;
 import com.tencent.tinker.loader.shareutil.ShareConstants;
 import com.tencent.tinker.loader.shareutil.SharePatchFileUtil;
+import com.tencent.tinker.loader.shareutil.SharePatchFileVerifier;
 import com.tencent.tinker.loader.shareutil.ShareResPatchInfo;
 import com.tencent.tinker.loader.shareutil.ShareSecurityCheck;
 import com.tencent.tinker.loader.shareutil.ShareTinkerInternals;
@@ -50,6 +51,8 @@ public class ResDiffPatchInternal extends BasePatchInternal {
 
     protected static final String TAG = "Tinker.ResDiffPatchInternal";
 
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
     protected static boolean tryRecoverResourceFiles(Tinker manager, ShareSecurityCheck checker, Context context,
                                                 String patchVersionDirectory, File patchFile) {
 
@@ -131,9 +134,11 @@ public class ResDiffPatchInternal extends BasePatchInternal {
             TinkerZipFile newApk = null;
             int totalEntryCount = 0;
             try {
-                out = new TinkerZipOutputStream(new BufferedOutputStream(new FileOutputStream(resOutput)));
+                out = new TinkerZipOutputStream(new BufferedOutputStream(new FileOutputStream(resOutput), COPY_BUFFER_SIZE));
                 oldApk = new TinkerZipFile(apkPath);
                 newApk = new TinkerZipFile(patchFile);
+                // entries are copied raw from mapped apks, share one buffer for all of them.
+                final byte[] copyBuffer = new byte[COPY_BUFFER_SIZE];
                 final Enumeration<? extends TinkerZipEntry> entries = oldApk.entries();
                 while (entries.hasMoreElements()) {
                     TinkerZipEntry zipEntry = entries.nextElement();
@@ -150,7 +155,7 @@ public class ResDiffPatchInternal extends BasePatchInternal {
                             && !resPatchInfo.modRes.contains(name)
                             && !resPatchInfo.largeModRes.contains(name)
                             && !name.equals(ShareConstants.RES_MANIFEST)) {
-                            TinkerZipUtil.extractTinkerEntry(oldApk, zipEntry, out);
+                            TinkerZipUtil.extractTinkerEntry(oldApk, zipEntry, out, copyBuffer);
                             totalEntryCount++;
                         }
                     }
@@ -163,7 +168,7 @@ public class ResDiffPatchInternal extends BasePatchInternal {
                     manager.getPatchReporter().onPatchTypeExtractFail(patchFile, resOutput, ShareConstants.RES_MANIFEST, type);
                     return false;
                 }
-                TinkerZipUtil.extractTinkerEntry(oldApk, manifestZipEntry, out);
+                TinkerZipUtil.extractTinkerEntry(oldApk, manifestZipEntry, out, copyBuffer);
                 totalEntryCount++;
 
                 for (String name : resPatchInfo.largeModRes) {
@@ -174,7 +179,7 @@ public class ResDiffPatchInternal extends BasePatchInternal {
                         return false;
                     }
                     ShareResPatchInfo.LargeModeInfo largeModeInfo = resPatchInfo.largeModMap.get(name);
-                    TinkerZipUtil.extractLargeModifyFile(largeZipEntry, largeModeInfo.file, largeModeInfo.crc, out);
+                    TinkerZipUtil.extractLargeModifyFile(largeZipEntry, largeModeInfo.file, largeModeInfo.crc, out, copyBuffer);
                     totalEntryCount++;
                 }
 
@@ -187,9 +192,9 @@ public class ResDiffPatchInternal extends BasePatchInternal {
                     }
                     if (resPatchInfo.storeRes.containsKey(name)) {
                         File storeFile = resPatchInfo.storeRes.get(name);
-                        TinkerZipUtil.extractLargeModifyFile(addZipEntry, storeFile, addZipEntry.getCrc(), out);
+                        TinkerZipUtil.extractLargeModifyFile(addZipEntry, storeFile, addZipEntry.getCrc(), out, copyBuffer);
                     } else {
-                        TinkerZipUtil.extractTinkerEntry(newApk, addZipEntry, out);
+                        TinkerZipUtil.extractTinkerEntry(newApk, addZipEntry, out, copyBuffer);
                     }
                     totalEntryCount++;
                 }
@@ -203,9 +208,9 @@ public class ResDiffPatchInternal extends BasePatchInternal {
                     }
                     if (resPatchInfo.storeRes.containsKey(name)) {
                         File storeFile = resPatchInfo.storeRes.get(name);
-                        TinkerZipUtil.extractLargeModifyFile(modZipEntry, storeFile, modZipEntry.getCrc(), out);
+                        TinkerZipUtil.extractLargeModifyFile(modZipEntry, storeFile, modZipEntry.getCrc(), out, copyBuffer);
                     } else {
-                        TinkerZipUtil.extractTinkerEntry(newApk, modZipEntry, out);
+                        TinkerZipUtil.extractTinkerEntry(newApk, modZipEntry, out, copyBuffer);
                     }
                     totalEntryCount++;
                 }
@@ -219,7 +224,10 @@ public class ResDiffPatchInternal extends BasePatchInternal {
                 //delete temp files
                 SharePatchFileUtil.deleteDir(tempResFileDirectory);
             }
-            boolean result = SharePatchFileUtil.checkResourceArscMd5(resOutput, resPatchInfo.resArscMd5);
+            // record verified digest so that loader can skip re-hashing resources.arsc on boot.
+            final SharePatchFileVerifier verifier = new SharePatchFileVerifier(
+                    new File(directory.getParentFile(), ShareConstants.PATCH_VERIFIED_DIGEST_NAME));
+            boolean result = verifier.addZipEntry(resOutput, ShareConstants.RES_ARSC, resPatchInfo.resArscMd5).verifyAll();
 
             if (!result) {
                 ShareTinkerLog.i(TAG, "check final new resource file fail path:%s, entry count:%d, size:%d", resOutput.getAbsolutePath(), totalEntryCount, resOutput.length());
@@ -153,29 +153,46 @@ public class UpgradePatch extends AbstractPatch {
             return false;
         }
 
+        final PatchPhaseTracer tracer = new PatchPhaseTracer(manager.getPatchMetricsReporter(), destPatchFile);
+
         //we use destPatchFile instead of patchFile, because patchFile may be deleted during the patch process
-        if (!DexDiffPatchInternal.tryRecoverDexFiles(manager, signatureCheck, context, patchVersionDirectory, destPatchFile, patchResult)) {
+        tracer.begin(ShareConstants.TYPE_DEX, new File(patchVersionDirectory, ShareConstants.DEX_PATH));
+        boolean phaseResult = DexDiffPatchInternal.tryRecoverDexFiles(manager, signatureCheck, context, patchVersionDirectory, destPatchFile, patchResult);
+        tracer.end(phaseResult);
+        if (!phaseResult) {
             ShareTinkerLog.e(TAG, "UpgradePatch tryPatch:new patch recover, try patch dex failed");
             return false;
         }
 
-        if (!ArkHotDiffPatchInternal.tryRecoverArkHotLibrary(manager, signatureCheck,
-                context, patchVersionDirectory, destPatchFile)) {
+        tracer.begin(ShareConstants.TYPE_ARKHOT_SO, new File(patchVersionDirectory, ShareConstants.ARKHOTFIX_PATH));
+        phaseResult = ArkHotDiffPatchInternal.tryRecoverArkHotLibrary(manager, signatureCheck,
+                context, patchVersionDirectory, destPatchFile);
+        tracer.end(phaseResult);
+        if (!phaseResult) {
             return false;
         }
 
-        if (!BsDiffPatchInternal.tryRecoverLibraryFiles(manager, signatureCheck, context, patchVersionDirectory, destPatchFile)) {
+        tracer.begin(ShareConstants.TYPE_LIBRARY, new File(patchVersionDirectory, ShareConstants.SO_PATH));
+        phaseResult = BsDiffPatchInternal.tryRecoverLibraryFiles(manager, signatureCheck, context, patchVersionDirectory, destPatchFile);
+        tracer.end(phaseResult);
+        if (!phaseResult) {
             ShareTinkerLog.e(TAG, "UpgradePatch tryPatch:new patch recover, try patch library failed");
             return false;
         }
 
-        if (!ResDiffPatchInternal.tryRecoverResourceFiles(manager, signatureCheck, context, patchVersionDirectory, destPatchFile)) {
+        tracer.begin(ShareConstants.TYPE_RESOURCE, new File(patchVersionDirectory, ShareConstants.RES_PATH));
+        phaseResult = ResDiffPatchInternal.tryRecoverResourceFiles(manager, signatureCheck, context, patchVersionDirectory, destPatchFile);
+        tracer.end(phaseResult);
+        if (!phaseResult) {
             ShareTinkerLog.e(TAG, "UpgradePatch tryPatch:new patch recover, try patch resource failed");
             return false;
         }
 
         // check dex opt file at last, some phone such as VIVO/OPPO like to change dex2oat to interpreted
-        if (!DexDiffPatchInternal.waitAndCheckDexOptFile(patchFile, manager)) {
+        tracer.begin(ShareConstants.TYPE_DEX_OPT, null);
+        phaseResult = DexDiffPatchInternal.waitAndCheckDexOptFile(patchFile, manager);
+        tracer.end(phaseResult);
+        if (!phaseResult) {
             ShareTinkerLog.e(TAG, "UpgradePatch tryPatch:new patch recover, check dex opt file failed");
             return false;
         }
@@ -0,0 +1,37 @@
+/*
+ * Tencent is pleased to support the open source community by making Tinker available.
+ *
+ * Copyright (C) 2016 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" basis, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tencent.tinker.lib.reporter;
+
+import java.io.File;
+
+/**
+ * Receives structured timing and resource usage of each phase of a patch process,
+ * e.g. to find slow devices or regressions across versions.
+ *
+ * It is optional, set it by {@code Tinker.Builder.patchMetricsReporter}. When it is not set,
+ * no metrics are collected at all.
+ * all is running in the :patch process
+ */
+public interface PatchMetricsReporter {
+
+    /**
+     * a patch phase is finished, no matter it is success or not
+     *
+     * @param patchFile the input patch file to recover
+     * @param metrics   metrics of this phase, {@link PatchPhaseMetrics#fileType} tells which phase it is
+     */
+    void onPatchPhaseFinished(File patchFile, PatchPhaseMetrics metrics);
+}
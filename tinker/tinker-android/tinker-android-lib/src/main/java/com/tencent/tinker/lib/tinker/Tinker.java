@@ -26,6 +26,7 @@ import com.tencent.tinker.lib.patch.UpgradePatch;
 import com.tencent.tinker.lib.reporter.DefaultLoadReporter;
 import com.tencent.tinker.lib.reporter.DefaultPatchReporter;
 import com.tencent.tinker.lib.reporter.LoadReporter;
+import com.tencent.tinker.lib.reporter.PatchMetricsReporter;
 import com.tencent.tinker.lib.reporter.PatchReporter;
 import com.tencent.tinker.lib.service.AbstractResultService;
 import com.tencent.tinker.lib.service.DefaultTinkerResultService;
@@ -57,6 +58,7 @@ public class Tinker {
     final PatchListener listener;
     final LoadReporter  loadReporter;
     final PatchReporter patchReporter;
+    final PatchMetricsReporter patchMetricsReporter;
     final File          patchInfoFile;
     final File          patchInfoLockFile;
     final boolean       isMainProcess;
@@ -77,12 +79,14 @@ public class Tinker {
     private boolean loaded = false;
 
     private Tinker(Context context, int tinkerFlags, LoadReporter loadReporter, PatchReporter patchReporter,
+                   PatchMetricsReporter patchMetricsReporter,
                    PatchListener listener, File patchDirectory, File patchInfoFile, File patchInfoLockFile,
                    boolean isInMainProc, boolean isPatchProcess, boolean tinkerLoadVerifyFlag) {
         this.context = context;
         this.listener = listener;
         this.loadReporter = loadReporter;
         this.patchReporter = patchReporter;
+        this.patchMetricsReporter = patchMetricsReporter;
         this.tinkerFlags = tinkerFlags;
         this.patchDirectory = patchDirectory;
         this.patchInfoFile = patchInfoFile;
@@ -203,6 +207,13 @@ public class Tinker {
         return patchReporter;
     }
 
+    /**
+     * @return null if no {@link PatchMetricsReporter} is set
+     */
+    public PatchMetricsReporter getPatchMetricsReporter() {
+        return patchMetricsReporter;
+    }
+
     public boolean isTinkerEnabled() {
         return ShareTinkerInternals.isTinkerEnabled(tinkerFlags);
     }
@@ -335,6 +346,7 @@ public class Tinker {
         private int status = -1;
         private LoadReporter  loadReporter;
         private PatchReporter patchReporter;
+        private PatchMetricsReporter patchMetricsReporter;
         private PatchListener listener;
         private File          patchDirectory;
         private File          patchInfoFile;
@@ -402,6 +414,17 @@ public class Tinker {
             return this;
         }
 
+        public Builder patchMetricsReporter(PatchMetricsReporter patchMetricsReporter) {
+            if (patchMetricsReporter == null) {
+                throw new TinkerRuntimeException("patchMetricsReporter must not be null.");
+            }
+            if (this.patchMetricsReporter != null) {
+                throw new TinkerRuntimeException("patchMetricsReporter is already set.");
+            }
+            this.patchMetricsReporter = patchMetricsReporter;
+            return this;
+        }
+
         public Builder listener(PatchListener listener) {
             if (listener == null) {
                 throw new TinkerRuntimeException("listener must not be null.");
@@ -434,7 +457,7 @@ public class Tinker {
                 tinkerLoadVerifyFlag = false;
             }
 
-            return new Tinker(context, status, loadReporter, patchReporter, listener, patchDirectory,
+            return new Tinker(context, status, loadReporter, patchReporter, patchMetricsReporter, listener, patchDirectory,
                 patchInfoFile, patchInfoLockFile, mainProcess, patchProcess, tinkerLoadVerifyFlag);
         }
     }
@@ -24,6 +24,7 @@ import com.tencent.tinker.loader.TinkerRuntimeException;
 import com.tencent.tinker.loader.shareutil.ShareConstants;
 import com.tencent.tinker.loader.shareutil.ShareIntentUtil;
 import com.tencent.tinker.loader.shareutil.SharePatchFileUtil;
+import com.tencent.tinker.loader.shareutil.SharePatchFileVerifier;
 import com.tencent.tinker.loader.shareutil.SharePatchInfo;
 import com.tencent.tinker.loader.shareutil.ShareTinkerInternals;
 
@@ -336,7 +337,8 @@ public class TinkerApplicationHelper {
             }
             //whether we check md5 when load
             final boolean verifyMd5 = applicationLike.getTinkerLoadVerifyFlag();
-            if (verifyMd5 && !SharePatchFileUtil.verifyFileMd5(library, loadLibraries.get(name))) {
+            if (verifyMd5 && !new SharePatchFileVerifier(new File(patchVersionDirectory,
+                    ShareConstants.PATCH_VERIFIED_DIGEST_NAME)).addFile(library, loadLibraries.get(name)).verifyAll()) {
                 //do not report, because tinker is not install
                 ShareTinkerLog.i(TAG, "loadLibraryFromTinker md5mismatch fail:" + patchLibraryPath);
             } else {
@@ -0,0 +1,178 @@
+/*
+ * Tencent is pleased to support the open source community by making Tinker available.
+ *
+ * Copyright (C) 2016 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" basis, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.tinker.lib.patch;
+
+import com.tencent.tinker.lib.reporter.PatchMetricsReporter;
+import com.tencent.tinker.lib.reporter.PatchPhaseMetrics;
+import com.tencent.tinker.loader.shareutil.ShareConstants;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class PatchPhaseTracerTest {
+    // keeps the busy loop of spin from being optimized away
+    private static volatile long sink;
+
+    private final List<PatchPhaseMetrics> reported = new ArrayList<>();
+    private final PatchMetricsReporter reporter = new PatchMetricsReporter() {
+        @Override
+        public void onPatchPhaseFinished(File patchFile, PatchPhaseMetrics metrics) {
+            assertEquals(PatchPhaseTracerTest.this.patchFile, patchFile);
+            reported.add(metrics);
+        }
+    };
+
+    private File patchFile;
+    private File phaseDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        patchFile = File.createTempFile("patch", ".apk");
+        phaseDirectory = File.createTempFile("phase", "");
+        assertTrue(phaseDirectory.delete());
+        assertTrue(new File(phaseDirectory, "lib").mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        deleteRecursively(phaseDirectory);
+        patchFile.delete();
+    }
+
+    @Test
+    public void reportsEachPhase() throws Exception {
+        final PatchPhaseTracer tracer = new PatchPhaseTracer(reporter, patchFile);
+
+        tracer.begin(ShareConstants.TYPE_DEX, phaseDirectory);
+        writeFile(new File(phaseDirectory, "classes.dex"), 4096);
+        writeFile(new File(phaseDirectory, "lib/libtest.so"), 100);
+        tracer.end(true);
+
+        tracer.begin(ShareConstants.TYPE_DEX_OPT, null);
+        tracer.end(false);
+
+        assertEquals(2, reported.size());
+        final PatchPhaseMetrics dex = reported.get(0);
+        assertEquals(ShareConstants.TYPE_DEX, dex.fileType);
+        assertTrue(dex.success);
+        assertTrue(dex.wallTimeMs >= 0);
+        assertEquals(2, dex.outputFiles.size());
+        assertEquals(Long.valueOf(4096), dex.outputFiles.get("classes.dex"));
+        assertEquals(Long.valueOf(100), dex.outputFiles.get("lib/libtest.so"));
+        if (dex.bytesWritten != -1) {
+            assertTrue(dex.bytesWritten >= 4096 + 100);
+        }
+
+        final PatchPhaseMetrics dexOpt = reported.get(1);
+        assertEquals(ShareConstants.TYPE_DEX_OPT, dexOpt.fileType);
+        assertFalse(dexOpt.success);
+        assertTrue(dexOpt.outputFiles.isEmpty());
+    }
+
+    @Test
+    public void cpuTimeIncludesOtherThreads() throws Exception {
+        final PatchPhaseTracer tracer = new PatchPhaseTracer(reporter, patchFile);
+        tracer.begin(ShareConstants.TYPE_DEX_OPT, null);
+        final Thread worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                spin(300);
+            }
+        });
+        worker.start();
+        worker.join();
+        tracer.end(true);
+
+        final PatchPhaseMetrics metrics = reported.get(0);
+        if (metrics.cpuTimeMs != -1) {
+            // the patch thread only waited, the cpu time was spent by the worker thread.
+            assertTrue("cpuTimeMs = " + metrics.cpuTimeMs, metrics.cpuTimeMs >= 150);
+        }
+    }
+
+    @Test
+    public void peakHeapIsSampledDuringPhase() throws Exception {
+        final PatchPhaseTracer tracer = new PatchPhaseTracer(reporter, patchFile);
+        final int size = 32 * 1024 * 1024;
+        tracer.begin(ShareConstants.TYPE_RESOURCE, null);
+        byte[] buffer = new byte[size];
+        buffer[size - 1] = 1;
+        Thread.sleep(200);
+        assertEquals(1, buffer[size - 1]);
+        buffer = null;
+        tracer.end(true);
+
+        assertTrue(reported.get(0).peakHeapBytes >= size);
+    }
+
+    @Test
+    public void doesNothingWithoutReporterOrBegin() {
+        final PatchPhaseTracer noReporter = new PatchPhaseTracer(null, patchFile);
+        noReporter.begin(ShareConstants.TYPE_DEX, phaseDirectory);
+        noReporter.end(true);
+
+        final PatchPhaseTracer tracer = new PatchPhaseTracer(reporter, patchFile);
+        tracer.end(true);
+        tracer.begin(ShareConstants.TYPE_LIBRARY, phaseDirectory);
+        tracer.end(true);
+        tracer.end(true);
+
+        assertEquals(1, reported.size());
+        assertNotNull(reported.get(0).outputFiles);
+    }
+
+    private static void spin(long millis) {
+        final long deadline = System.nanoTime() + millis * 1000000L;
+        long x = 0;
+        while (System.nanoTime() < deadline) {
+            x += x * 31 + 7;
+        }
+        sink = x;
+    }
+
+    private static void writeFile(File file, int length) throws IOException {
+        final FileOutputStream os = new FileOutputStream(file);
+        try {
+            os.write(new byte[length]);
+            os.getFD().sync();
+        } finally {
+            os.close();
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
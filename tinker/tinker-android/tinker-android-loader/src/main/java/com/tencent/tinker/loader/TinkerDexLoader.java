@@ -23,6 +23,7 @@ import com.tencent.tinker.loader.shareutil.ShareConstants;
 import com.tencent.tinker.loader.shareutil.ShareDexDiffPatchInfo;
 import com.tencent.tinker.loader.shareutil.ShareIntentUtil;
 import com.tencent.tinker.loader.shareutil.SharePatchFileUtil;
+import com.tencent.tinker.loader.shareutil.SharePatchFileVerifier;
 import com.tencent.tinker.loader.shareutil.ShareSecurityCheck;
 import com.tencent.tinker.loader.shareutil.ShareTinkerInternals;
 import com.tencent.tinker.loader.shareutil.ShareTinkerLog;
@@ -80,6 +81,9 @@ public class TinkerDexLoader {
         String dexPath = directory + "/" + DEX_PATH + "/";
 
         ArrayList<File> legalFiles = new ArrayList<>();
+        // verify all dexes at once, files are hashed concurrently and unchanged ones are skipped.
+        final SharePatchFileVerifier verifier = new SharePatchFileVerifier(
+                new File(directory + "/" + ShareConstants.PATCH_VERIFIED_DIGEST_NAME));
 
         for (ShareDexDiffPatchInfo info : LOAD_DEX_LIST) {
             //for dalvik, ignore art support dex
@@ -91,38 +95,30 @@ public class TinkerDexLoader {
             File file = new File(path);
 
             if (application.isTinkerLoadVerifyFlag()) {
-                long start = System.currentTimeMillis();
-                String checkMd5 = getInfoMd5(info);
-                if (!SharePatchFileUtil.verifyDexFileMd5(file, checkMd5)) {
-                    //it is good to delete the mismatch file
-                    ShareIntentUtil.setIntentReturnCode(intentResult, ShareConstants.ERROR_LOAD_PATCH_VERSION_DEX_MD5_MISMATCH);
-                    intentResult.putExtra(ShareIntentUtil.INTENT_PATCH_MISMATCH_DEX_PATH,
-                        file.getAbsolutePath());
-                    return false;
-                }
-                ShareTinkerLog.i(TAG, "verify dex file:" + file.getPath() + " md5, use time: " + (System.currentTimeMillis() - start));
+                verifier.addDexFile(file, getInfoMd5(info));
             }
             legalFiles.add(file);
         }
         // verify merge classN.apk
         if (isVmArt && !classNDexInfo.isEmpty()) {
             File classNFile = new File(dexPath + ShareConstants.CLASS_N_APK_NAME);
-            long start = System.currentTimeMillis();
 
             if (application.isTinkerLoadVerifyFlag()) {
                 for (ShareDexDiffPatchInfo info : classNDexInfo) {
-                    if (!SharePatchFileUtil.verifyDexFileMd5(classNFile, info.rawName, info.destMd5InArt)) {
-                        ShareIntentUtil.setIntentReturnCode(intentResult, ShareConstants.ERROR_LOAD_PATCH_VERSION_DEX_MD5_MISMATCH);
-                        intentResult.putExtra(ShareIntentUtil.INTENT_PATCH_MISMATCH_DEX_PATH,
-                            classNFile.getAbsolutePath());
-                        return false;
-                    }
+                    verifier.addDexFile(classNFile, info.rawName, info.destMd5InArt);
                 }
             }
-            ShareTinkerLog.i(TAG, "verify dex file:" + classNFile.getPath() + " md5, use time: " + (System.currentTimeMillis() - start));
 
             legalFiles.add(classNFile);
         }
+        if (application.isTinkerLoadVerifyFlag() && !verifier.verifyAll()) {
+            //it is good to delete the mismatch file
+            ShareIntentUtil.setIntentReturnCode(intentResult, ShareConstants.ERROR_LOAD_PATCH_VERSION_DEX_MD5_MISMATCH);
+            final File mismatchFile = verifier.getMismatchFile();
+            intentResult.putExtra(ShareIntentUtil.INTENT_PATCH_MISMATCH_DEX_PATH,
+                (mismatchFile != null ? mismatchFile.getAbsolutePath() : dexPath));
+            return false;
+        }
         File optimizeDir = new File(directory + "/" + oatDir);
 
         if (isSystemOTA) {
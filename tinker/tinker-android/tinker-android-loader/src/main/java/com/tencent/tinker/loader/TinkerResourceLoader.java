@@ -23,6 +23,7 @@ import com.tencent.tinker.loader.app.TinkerApplication;
 import com.tencent.tinker.loader.shareutil.ShareConstants;
 import com.tencent.tinker.loader.shareutil.ShareIntentUtil;
 import com.tencent.tinker.loader.shareutil.SharePatchFileUtil;
+import com.tencent.tinker.loader.shareutil.SharePatchFileVerifier;
 import com.tencent.tinker.loader.shareutil.ShareResPatchInfo;
 import com.tencent.tinker.loader.shareutil.ShareSecurityCheck;
 import com.tencent.tinker.loader.shareutil.ShareTinkerLog;
@@ -54,7 +55,11 @@ public class TinkerResourceLoader {
         long start = System.currentTimeMillis();
 
         if (application.isTinkerLoadVerifyFlag()) {
-            if (!SharePatchFileUtil.checkResourceArscMd5(resourceFile, resPatchInfo.resArscMd5)) {
+            // the arsc digest is cached with the dex ones, an unchanged resources.apk is not hashed again.
+            final SharePatchFileVerifier verifier = new SharePatchFileVerifier(
+                    new File(directory + "/" + ShareConstants.PATCH_VERIFIED_DIGEST_NAME));
+            verifier.addZipEntry(resourceFile, ShareConstants.RES_ARSC, resPatchInfo.resArscMd5);
+            if (!verifier.verifyAll()) {
                 ShareTinkerLog.e(TAG, "Failed to load resource file, path: " + resourceFile.getPath() + ", expect md5: " + resPatchInfo.resArscMd5);
                 ShareIntentUtil.setIntentReturnCode(intentResult, ShareConstants.ERROR_LOAD_PATCH_VERSION_RESOURCE_MD5_MISMATCH);
                 return false;
@@ -104,6 +104,7 @@ public class ShareConstants {
 
     public static final String PATCH_INFO_NAME      = "patch.info";
     public static final String PATCH_INFO_LOCK_NAME = "info.lock";
+    public static final String PATCH_VERIFIED_DIGEST_NAME = "verified_digest.info";
 
     public static final String META_SUFFIX = "meta.txt";
 
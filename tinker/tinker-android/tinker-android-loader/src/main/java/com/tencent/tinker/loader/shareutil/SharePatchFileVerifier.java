@@ -0,0 +1,344 @@
+/*
+ * Tencent is pleased to support the open source community by making Tinker available.
+ *
+ * Copyright (C) 2016 THL A29 Limited, a Tencent company. All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * https://opensource.org/licenses/BSD-3-Clause
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" basis, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.tencent.tinker.loader.shareutil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Verifies md5 of a batch of patch files concurrently.
+ *
+ * Raw files are hashed through a memory mapped channel, dex wrapped in jar is hashed
+ * from its zip entry stream. Digests of files which passed verification are persisted
+ * into a cache file keyed by path, length and last modified time, so files that are
+ * unchanged since the last successful check are not hashed again on later boots.
+ */
+public final class SharePatchFileVerifier {
+    private static final String TAG = "Tinker.PatchFileVerifier";
+
+    private static final int  MAX_WORKER_COUNT = 4;
+    private static final long MAP_CHUNK_SIZE   = 8 * 1024 * 1024;
+
+    private static final String CACHE_VERSION   = "1";
+    private static final String CACHE_SEPARATOR = "|";
+
+    // dex, resources and libraries of one patch share the cache file, libraries are verified on any thread.
+    private static final Object CACHE_LOCK = new Object();
+
+    private final File cacheFile;
+    private final List<Item> items = new ArrayList<>();
+    private final Map<String, CacheRecord> cachedRecords = new HashMap<>();
+
+    private File mismatchFile = null;
+
+    /**
+     * @param cacheFile file to persist verified digests into, or null to always hash.
+     */
+    public SharePatchFileVerifier(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    public SharePatchFileVerifier addFile(File file, String md5) {
+        items.add(new Item(file, null, md5));
+        return this;
+    }
+
+    /**
+     * dex may wrap with jar, in which case the md5 of {@code entryName} is checked.
+     */
+    public SharePatchFileVerifier addDexFile(File file, String entryName, String md5) {
+        items.add(new Item(file, SharePatchFileUtil.isRawDexFile(file.getName()) ? null : entryName, md5));
+        return this;
+    }
+
+    public SharePatchFileVerifier addDexFile(File file, String md5) {
+        return addDexFile(file, ShareConstants.DEX_IN_JAR, md5);
+    }
+
+    /**
+     * the md5 of {@code entryName} in zip {@code file} is checked, such as resources.arsc in resources.apk.
+     */
+    public SharePatchFileVerifier addZipEntry(File file, String entryName, String md5) {
+        items.add(new Item(file, entryName, md5));
+        return this;
+    }
+
+    /**
+     * Returns the first file that failed verification, or null if all of them are valid.
+     */
+    public File getMismatchFile() {
+        return mismatchFile;
+    }
+
+    /**
+     * Verify all added files.
+     *
+     * @return If all files match their md5, return true. Otherwise return false.
+     */
+    public boolean verifyAll() {
+        mismatchFile = null;
+        if (items.isEmpty()) {
+            return true;
+        }
+        final long start = System.currentTimeMillis();
+        synchronized (CACHE_LOCK) {
+            loadCache();
+        }
+
+        final List<Item> pending = new ArrayList<>(items.size());
+        int cacheHitCount = 0;
+        for (Item item : items) {
+            if (item.file == null || item.md5 == null || !SharePatchFileUtil.isLegalFile(item.file)) {
+                mismatchFile = item.file;
+                return false;
+            }
+            final CacheRecord record = cachedRecords.get(item.key());
+            if (record != null && record.matches(item.file, item.md5)) {
+                ++cacheHitCount;
+                continue;
+            }
+            pending.add(item);
+        }
+
+        boolean result = true;
+        if (!pending.isEmpty()) {
+            final int workerCount = Math.min(pending.size(),
+                    Math.min(MAX_WORKER_COUNT, Runtime.getRuntime().availableProcessors()));
+            if (workerCount <= 1) {
+                for (Item item : pending) {
+                    if (!item.verify()) {
+                        mismatchFile = item.file;
+                        result = false;
+                        break;
+                    }
+                }
+            } else {
+                result = verifyConcurrently(pending, workerCount);
+            }
+            if (result) {
+                synchronized (CACHE_LOCK) {
+                    // reload, records of files verified by others since then are kept.
+                    loadCache();
+                    for (Item item : pending) {
+                        cachedRecords.put(item.key(), new CacheRecord(item.file.length(), item.file.lastModified(), item.md5));
+                    }
+                    saveCache();
+                }
+            }
+        }
+        ShareTinkerLog.i(TAG, "verify " + items.size() + " files, cache hit: " + cacheHitCount
+                + ", result: " + result + ", use time: " + (System.currentTimeMillis() - start));
+        return result;
+    }
+
+    private boolean verifyConcurrently(List<Item> pending, int workerCount) {
+        final ExecutorService executor = Executors.newFixedThreadPool(workerCount);
+        try {
+            final List<Future<Boolean>> futures = new ArrayList<>(pending.size());
+            for (final Item item : pending) {
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return item.verify();
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); ++i) {
+                boolean matched;
+                try {
+                    matched = futures.get(i).get();
+                } catch (Throwable thr) {
+                    ShareTinkerLog.e(TAG, "verify file failed: " + pending.get(i).file.getAbsolutePath(), thr);
+                    matched = false;
+                }
+                if (!matched) {
+                    mismatchFile = pending.get(i).file;
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void loadCache() {
+        cachedRecords.clear();
+        if (!SharePatchFileUtil.isLegalFile(cacheFile)) {
+            return;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(cacheFile), "UTF-8"));
+            if (!CACHE_VERSION.equals(reader.readLine())) {
+                return;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.split("\\" + CACHE_SEPARATOR);
+                if (fields.length != 4) {
+                    continue;
+                }
+                cachedRecords.put(fields[0], new CacheRecord(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3]));
+            }
+        } catch (Throwable thr) {
+            ShareTinkerLog.w(TAG, "load verified digest cache failed, ignore it: " + thr);
+            cachedRecords.clear();
+        } finally {
+            SharePatchFileUtil.closeQuietly(reader);
+        }
+    }
+
+    private void saveCache() {
+        if (cacheFile == null) {
+            return;
+        }
+        final File tmpFile = new File(cacheFile.getPath() + ".tmp");
+        BufferedWriter writer = null;
+        try {
+            SharePatchFileUtil.ensureFileDirectory(cacheFile);
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmpFile), "UTF-8"));
+            writer.write(CACHE_VERSION);
+            writer.newLine();
+            for (Map.Entry<String, CacheRecord> entry : cachedRecords.entrySet()) {
+                final CacheRecord record = entry.getValue();
+                writer.write(entry.getKey() + CACHE_SEPARATOR + record.length
+                        + CACHE_SEPARATOR + record.lastModified + CACHE_SEPARATOR + record.md5);
+                writer.newLine();
+            }
+            writer.close();
+            writer = null;
+            if (!tmpFile.renameTo(cacheFile)) {
+                throw new IOException("rename " + tmpFile.getPath() + " to " + cacheFile.getPath() + " failed");
+            }
+        } catch (Throwable thr) {
+            ShareTinkerLog.w(TAG, "save verified digest cache failed: " + thr);
+            SharePatchFileUtil.safeDeleteFile(tmpFile);
+        } finally {
+            SharePatchFileUtil.closeQuietly(writer);
+        }
+    }
+
+    static String getMappedFileMD5(File file) {
+        FileInputStream fis = null;
+        try {
+            fis = new FileInputStream(file);
+            final FileChannel channel = fis.getChannel();
+            final MessageDigest md = MessageDigest.getInstance("MD5");
+            final long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                final long chunkSize = Math.min(MAP_CHUNK_SIZE, size - position);
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, chunkSize);
+                md.update(buffer);
+                position += chunkSize;
+            }
+            return toHexString(md.digest());
+        } catch (Throwable thr) {
+            ShareTinkerLog.e(TAG, "exception occurred when get md5: " + file.getAbsolutePath(), thr);
+            return null;
+        } finally {
+            SharePatchFileUtil.closeQuietly(fis);
+        }
+    }
+
+    static String getZipEntryMD5(File file, String entryName) {
+        ZipFile zipFile = null;
+        InputStream is = null;
+        try {
+            zipFile = new ZipFile(file);
+            final ZipEntry entry = zipFile.getEntry(entryName);
+            if (entry == null) {
+                ShareTinkerLog.e(TAG, "There's no entry named: " + entryName + " in " + file.getAbsolutePath());
+                return null;
+            }
+            is = zipFile.getInputStream(entry);
+            return SharePatchFileUtil.getMD5(is);
+        } catch (Throwable thr) {
+            ShareTinkerLog.e(TAG, "Bad dex jar file: " + file.getAbsolutePath(), thr);
+            return null;
+        } finally {
+            SharePatchFileUtil.closeQuietly(is);
+            SharePatchFileUtil.closeZip(zipFile);
+        }
+    }
+
+    private static String toHexString(byte[] hashValue) {
+        final StringBuilder md5Str = new StringBuilder(hashValue.length * 2);
+        for (byte b : hashValue) {
+            md5Str.append(Integer.toString((b & 0xff) + 0x100, 16).substring(1));
+        }
+        return md5Str.toString();
+    }
+
+    private static final class Item {
+        final File   file;
+        final String entryName;
+        final String md5;
+
+        Item(File file, String entryName, String md5) {
+            this.file = file;
+            this.entryName = entryName;
+            this.md5 = md5;
+        }
+
+        String key() {
+            return (entryName == null ? file.getAbsolutePath() : file.getAbsolutePath() + "!" + entryName);
+        }
+
+        boolean verify() {
+            final String fileMd5 = (entryName == null ? getMappedFileMD5(file) : getZipEntryMD5(file, entryName));
+            return md5.equals(fileMd5);
+        }
+    }
+
+    private static final class CacheRecord {
+        final long   length;
+        final long   lastModified;
+        final String md5;
+
+        CacheRecord(long length, long lastModified, String md5) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.md5 = md5;
+        }
+
+        boolean matches(File file, String expectedMd5) {
+            return md5.equals(expectedMd5) && file.length() == length && file.lastModified() == lastModified;
+        }
+    }
+}
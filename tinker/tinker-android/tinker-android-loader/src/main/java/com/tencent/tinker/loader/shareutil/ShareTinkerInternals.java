@@ -324,6 +324,8 @@ public class ShareTinkerInternals {
                 return "patch_info";
             case ShareConstants.TYPE_RESOURCE:
                 return "resource";
+            case ShareConstants.TYPE_ARKHOT_SO:
+                return "arkhot_so";
             default:
                 return "unknown";
         }
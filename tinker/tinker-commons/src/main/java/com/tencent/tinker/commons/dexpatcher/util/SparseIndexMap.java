@@ -16,45 +16,49 @@
 
 package com.tencent.tinker.commons.dexpatcher.util;
 
-import com.tencent.tinker.android.utils.SparseBoolArray;
-import com.tencent.tinker.android.utils.SparseIntArray;
+import com.tencent.tinker.android.utils.IntHashSet;
+import com.tencent.tinker.android.utils.IntIntHashMap;
 
 /**
  * Created by tangyinsheng on 2016/6/29.
  *
  * *** This file is renamed from IndexMap in dx project. ***
+ *
+ * Mappings are kept in open-addressing hash maps since
+ * {@link com.tencent.tinker.commons.dexpatcher.util.InstructionTransformer} queries them
+ * for every instruction of every method and sections are not always visited in key order.
  */
 
 public class SparseIndexMap extends AbstractIndexMap {
-    private final SparseIntArray stringIdsMap = new SparseIntArray();
-    private final SparseIntArray typeIdsMap = new SparseIntArray();
-    private final SparseIntArray protoIdsMap = new SparseIntArray();
-    private final SparseIntArray fieldIdsMap = new SparseIntArray();
-    private final SparseIntArray methodIdsMap = new SparseIntArray();
-    private final SparseIntArray typeListOffsetsMap = new SparseIntArray();
-    private final SparseIntArray annotationOffsetsMap = new SparseIntArray();
-    private final SparseIntArray annotationSetOffsetsMap = new SparseIntArray();
-    private final SparseIntArray annotationSetRefListOffsetsMap = new SparseIntArray();
-    private final SparseIntArray annotationsDirectoryOffsetsMap = new SparseIntArray();
-    private final SparseIntArray staticValuesOffsetsMap = new SparseIntArray();
-    private final SparseIntArray classDataOffsetsMap = new SparseIntArray();
-    private final SparseIntArray debugInfoItemOffsetsMap = new SparseIntArray();
-    private final SparseIntArray codeOffsetsMap = new SparseIntArray();
-
-    private final SparseBoolArray deletedStringIds = new SparseBoolArray();
-    private final SparseBoolArray deletedTypeIds = new SparseBoolArray();
-    private final SparseBoolArray deletedProtoIds = new SparseBoolArray();
-    private final SparseBoolArray deletedFieldIds = new SparseBoolArray();
-    private final SparseBoolArray deletedMethodIds = new SparseBoolArray();
-    private final SparseBoolArray deletedTypeListOffsets = new SparseBoolArray();
-    private final SparseBoolArray deletedAnnotationOffsets = new SparseBoolArray();
-    private final SparseBoolArray deletedAnnotationSetOffsets = new SparseBoolArray();
-    private final SparseBoolArray deletedAnnotationSetRefListOffsets = new SparseBoolArray();
-    private final SparseBoolArray deletedAnnotationsDirectoryOffsets = new SparseBoolArray();
-    private final SparseBoolArray deletedStaticValuesOffsets = new SparseBoolArray();
-    private final SparseBoolArray deletedClassDataOffsets = new SparseBoolArray();
-    private final SparseBoolArray deletedDebugInfoItemOffsets = new SparseBoolArray();
-    private final SparseBoolArray deletedCodeOffsets = new SparseBoolArray();
+    private final IntIntHashMap stringIdsMap = new IntIntHashMap();
+    private final IntIntHashMap typeIdsMap = new IntIntHashMap();
+    private final IntIntHashMap protoIdsMap = new IntIntHashMap();
+    private final IntIntHashMap fieldIdsMap = new IntIntHashMap();
+    private final IntIntHashMap methodIdsMap = new IntIntHashMap();
+    private final IntIntHashMap typeListOffsetsMap = new IntIntHashMap();
+    private final IntIntHashMap annotationOffsetsMap = new IntIntHashMap();
+    private final IntIntHashMap annotationSetOffsetsMap = new IntIntHashMap();
+    private final IntIntHashMap annotationSetRefListOffsetsMap = new IntIntHashMap();
+    private final IntIntHashMap annotationsDirectoryOffsetsMap = new IntIntHashMap();
+    private final IntIntHashMap staticValuesOffsetsMap = new IntIntHashMap();
+    private final IntIntHashMap classDataOffsetsMap = new IntIntHashMap();
+    private final IntIntHashMap debugInfoItemOffsetsMap = new IntIntHashMap();
+    private final IntIntHashMap codeOffsetsMap = new IntIntHashMap();
+
+    private final IntHashSet deletedStringIds = new IntHashSet();
+    private final IntHashSet deletedTypeIds = new IntHashSet();
+    private final IntHashSet deletedProtoIds = new IntHashSet();
+    private final IntHashSet deletedFieldIds = new IntHashSet();
+    private final IntHashSet deletedMethodIds = new IntHashSet();
+    private final IntHashSet deletedTypeListOffsets = new IntHashSet();
+    private final IntHashSet deletedAnnotationOffsets = new IntHashSet();
+    private final IntHashSet deletedAnnotationSetOffsets = new IntHashSet();
+    private final IntHashSet deletedAnnotationSetRefListOffsets = new IntHashSet();
+    private final IntHashSet deletedAnnotationsDirectoryOffsets = new IntHashSet();
+    private final IntHashSet deletedStaticValuesOffsets = new IntHashSet();
+    private final IntHashSet deletedClassDataOffsets = new IntHashSet();
+    private final IntHashSet deletedDebugInfoItemOffsets = new IntHashSet();
+    private final IntHashSet deletedCodeOffsets = new IntHashSet();
 
     public void mapStringIds(int oldIndex, int newIndex) {
         stringIdsMap.put(oldIndex, newIndex);
@@ -62,7 +66,7 @@ public class SparseIndexMap extends AbstractIndexMap {
 
     public void markStringIdDeleted(int index) {
         if (index < 0) return;
-        deletedStringIds.put(index, true);
+        deletedStringIds.add(index);
     }
 
     public void mapTypeIds(int oldIndex, int newIndex) {
@@ -71,7 +75,7 @@ public class SparseIndexMap extends AbstractIndexMap {
 
     public void markTypeIdDeleted(int index) {
         if (index < 0) return;
-        deletedTypeIds.put(index, true);
+        deletedTypeIds.add(index);
     }
 
     public void mapProtoIds(int oldIndex, int newIndex) {
@@ -80,7 +84,7 @@ public class SparseIndexMap extends AbstractIndexMap {
 
     public void markProtoIdDeleted(int index) {
         if (index < 0) return;
-        deletedProtoIds.put(index, true);
+        deletedProtoIds.add(index);
     }
 
     public void mapFieldIds(int oldIndex, int newIndex) {
@@ -89,7 +93,7 @@ public class SparseIndexMap extends AbstractIndexMap {
 
     public void markFieldIdDeleted(int index) {
         if (index < 0) return;
-        deletedFieldIds.put(index, true);
+        deletedFieldIds.add(index);
     }
 
     public void mapMethodIds(int oldIndex, int newIndex) {
@@ -98,7 +102,7 @@ public class SparseIndexMap extends AbstractIndexMap {
 
     public void markMethodIdDeleted(int index) {
         if (index < 0) return;
-        deletedMethodIds.put(index, true);
+        deletedMethodIds.add(index);
     }
 
     public void mapTypeListOffset(int oldOffset, int newOffset) {
@@ -107,7 +111,7 @@ public class SparseIndexMap extends AbstractIndexMap {
 
     public void markTypeListDeleted(int offset) {
         if (offset < 0) return;
-        deletedTypeListOffsets.put(offset, true);
+        deletedTypeListOffsets.add(offset);
     }
 
     public void mapAnnotationOffset(int oldOffset, int newOffset) {
@@ -116,7 +120,7 @@ public class SparseIndexMap extends AbstractIndexMap {
 
     public void markAnnotationDeleted(int offset) {
         if (offset < 0) return;
-        deletedAnnotationOffsets.put(offset, true);
+        deletedAnnotationOffsets.add(offset);
     }
 
     public void mapAnnotationSetOffset(int oldOffset, int newOffset) {
@@ -125,7 +129,7 @@ public class SparseIndexMap extends AbstractIndexMap {
 
     public void markAnnotationSetDeleted(int offset) {
         if (offset < 0) return;
-        deletedAnnotationSetOffsets.put(offset, true);
+        deletedAnnotationSetOffsets.add(offset);
     }
 
     public void mapAnnotationSetRefListOffset(int oldOffset, int newOffset) {
@@ -134,7 +138,7 @@ public class SparseIndexMap extends AbstractIndexMap {
 
     public void markAnnotationSetRefListDeleted(int offset) {
         if (offset < 0) return;
-        deletedAnnotationSetRefListOffsets.put(offset, true);
+        deletedAnnotationSetRefListOffsets.add(offset);
     }
 
     public void mapAnnotationsDirectoryOffset(int oldOffset, int newOffset) {
@@ -143,7 +147,7 @@ public class SparseIndexMap extends AbstractIndexMap {
 
     public void markAnnotationsDirectoryDeleted(int offset) {
         if (offset < 0) return;
-        deletedAnnotationsDirectoryOffsets.put(offset, true);
+        deletedAnnotationsDirectoryOffsets.add(offset);
     }
 
     public void mapStaticValuesOffset(int oldOffset, int newOffset) {
@@ -152,7 +156,7 @@ public class SparseIndexMap extends AbstractIndexMap {
 
     public void markStaticValuesDeleted(int offset) {
         if (offset < 0) return;
-        deletedStaticValuesOffsets.put(offset, true);
+        deletedStaticValuesOffsets.add(offset);
     }
 
     public void mapClassDataOffset(int oldOffset, int newOffset) {
@@ -161,7 +165,7 @@ public class SparseIndexMap extends AbstractIndexMap {
 
     public void markClassDataDeleted(int offset) {
         if (offset < 0) return;
-        deletedClassDataOffsets.put(offset, true);
+        deletedClassDataOffsets.add(offset);
     }
 
     public void mapDebugInfoItemOffset(int oldOffset, int newOffset) {
@@ -170,7 +174,7 @@ public class SparseIndexMap extends AbstractIndexMap {
 
     public void markDebugInfoItemDeleted(int offset) {
         if (offset < 0) return;
-        deletedDebugInfoItemOffsets.put(offset, true);
+        deletedDebugInfoItemOffsets.add(offset);
     }
 
     public void mapCodeOffset(int oldOffset, int newOffset) {
@@ -179,14 +183,14 @@ public class SparseIndexMap extends AbstractIndexMap {
 
     public void markCodeDeleted(int offset) {
         if (offset < 0) return;
-        deletedCodeOffsets.put(offset, true);
+        deletedCodeOffsets.add(offset);
     }
 
     @Override
     public int adjustStringIndex(int stringIndex) {
         int index = stringIdsMap.indexOfKey(stringIndex);
         if (index < 0) {
-            return (stringIndex >= 0 && deletedStringIds.containsKey(stringIndex) ? -1 : stringIndex);
+            return (stringIndex >= 0 && deletedStringIds.contains(stringIndex) ? -1 : stringIndex);
         } else {
             return stringIdsMap.valueAt(index);
         }
@@ -196,7 +200,7 @@ public class SparseIndexMap extends AbstractIndexMap {
     public int adjustTypeIdIndex(int typeIdIndex) {
         int index = typeIdsMap.indexOfKey(typeIdIndex);
         if (index < 0) {
-            return (typeIdIndex >= 0 && deletedTypeIds.containsKey(typeIdIndex) ? -1 : typeIdIndex);
+            return (typeIdIndex >= 0 && deletedTypeIds.contains(typeIdIndex) ? -1 : typeIdIndex);
         } else {
             return typeIdsMap.valueAt(index);
         }
@@ -206,7 +210,7 @@ public class SparseIndexMap extends AbstractIndexMap {
     public int adjustProtoIdIndex(int protoIndex) {
         int index = protoIdsMap.indexOfKey(protoIndex);
         if (index < 0) {
-            return (protoIndex >= 0 && deletedProtoIds.containsKey(protoIndex) ? -1 : protoIndex);
+            return (protoIndex >= 0 && deletedProtoIds.contains(protoIndex) ? -1 : protoIndex);
         } else {
             return protoIdsMap.valueAt(index);
         }
@@ -216,7 +220,7 @@ public class SparseIndexMap extends AbstractIndexMap {
     public int adjustFieldIdIndex(int fieldIndex) {
         int index = fieldIdsMap.indexOfKey(fieldIndex);
         if (index < 0) {
-            return (fieldIndex >= 0 && deletedFieldIds.containsKey(fieldIndex) ? -1 : fieldIndex);
+            return (fieldIndex >= 0 && deletedFieldIds.contains(fieldIndex) ? -1 : fieldIndex);
         } else {
             return fieldIdsMap.valueAt(index);
         }
@@ -226,7 +230,7 @@ public class SparseIndexMap extends AbstractIndexMap {
     public int adjustMethodIdIndex(int methodIndex) {
         int index = methodIdsMap.indexOfKey(methodIndex);
         if (index < 0) {
-            return (methodIndex >= 0 && deletedMethodIds.containsKey(methodIndex) ? -1 : methodIndex);
+            return (methodIndex >= 0 && deletedMethodIds.contains(methodIndex) ? -1 : methodIndex);
         } else {
             return methodIdsMap.valueAt(index);
         }
@@ -236,7 +240,7 @@ public class SparseIndexMap extends AbstractIndexMap {
     public int adjustTypeListOffset(int typeListOffset) {
         int index = typeListOffsetsMap.indexOfKey(typeListOffset);
         if (index < 0) {
-            return (typeListOffset >= 0 && deletedTypeListOffsets.containsKey(typeListOffset) ? -1 : typeListOffset);
+            return (typeListOffset >= 0 && deletedTypeListOffsets.contains(typeListOffset) ? -1 : typeListOffset);
         } else {
             return typeListOffsetsMap.valueAt(index);
         }
@@ -246,7 +250,7 @@ public class SparseIndexMap extends AbstractIndexMap {
     public int adjustAnnotationOffset(int annotationOffset) {
         int index = annotationOffsetsMap.indexOfKey(annotationOffset);
         if (index < 0) {
-            return (annotationOffset >= 0 && deletedAnnotationOffsets.containsKey(annotationOffset) ? -1 : annotationOffset);
+            return (annotationOffset >= 0 && deletedAnnotationOffsets.contains(annotationOffset) ? -1 : annotationOffset);
         } else {
             return annotationOffsetsMap.valueAt(index);
         }
@@ -256,7 +260,7 @@ public class SparseIndexMap extends AbstractIndexMap {
     public int adjustAnnotationSetOffset(int annotationSetOffset) {
         int index = annotationSetOffsetsMap.indexOfKey(annotationSetOffset);
         if (index < 0) {
-            return (annotationSetOffset >= 0 && deletedAnnotationSetOffsets.containsKey(annotationSetOffset) ? -1 : annotationSetOffset);
+            return (annotationSetOffset >= 0 && deletedAnnotationSetOffsets.contains(annotationSetOffset) ? -1 : annotationSetOffset);
         } else {
             return annotationSetOffsetsMap.valueAt(index);
         }
@@ -266,7 +270,7 @@ public class SparseIndexMap extends AbstractIndexMap {
     public int adjustAnnotationSetRefListOffset(int annotationSetRefListOffset) {
         int index = annotationSetRefListOffsetsMap.indexOfKey(annotationSetRefListOffset);
         if (index < 0) {
-            return (annotationSetRefListOffset >= 0 && deletedAnnotationSetRefListOffsets.containsKey(annotationSetRefListOffset) ? -1 : annotationSetRefListOffset);
+            return (annotationSetRefListOffset >= 0 && deletedAnnotationSetRefListOffsets.contains(annotationSetRefListOffset) ? -1 : annotationSetRefListOffset);
         } else {
             return annotationSetRefListOffsetsMap.valueAt(index);
         }
@@ -276,7 +280,7 @@ public class SparseIndexMap extends AbstractIndexMap {
     public int adjustAnnotationsDirectoryOffset(int annotationsDirectoryOffset) {
         int index = annotationsDirectoryOffsetsMap.indexOfKey(annotationsDirectoryOffset);
         if (index < 0) {
-            return (annotationsDirectoryOffset >= 0 && deletedAnnotationsDirectoryOffsets.containsKey(annotationsDirectoryOffset) ? -1 : annotationsDirectoryOffset);
+            return (annotationsDirectoryOffset >= 0 && deletedAnnotationsDirectoryOffsets.contains(annotationsDirectoryOffset) ? -1 : annotationsDirectoryOffset);
         } else {
             return annotationsDirectoryOffsetsMap.valueAt(index);
         }
@@ -286,7 +290,7 @@ public class SparseIndexMap extends AbstractIndexMap {
     public int adjustStaticValuesOffset(int staticValuesOffset) {
         int index = staticValuesOffsetsMap.indexOfKey(staticValuesOffset);
         if (index < 0) {
-            return (staticValuesOffset >= 0 && deletedStaticValuesOffsets.containsKey(staticValuesOffset) ? -1 : staticValuesOffset);
+            return (staticValuesOffset >= 0 && deletedStaticValuesOffsets.contains(staticValuesOffset) ? -1 : staticValuesOffset);
         } else {
             return staticValuesOffsetsMap.valueAt(index);
         }
@@ -296,7 +300,7 @@ public class SparseIndexMap extends AbstractIndexMap {
     public int adjustClassDataOffset(int classDataOffset) {
         int index = classDataOffsetsMap.indexOfKey(classDataOffset);
         if (index < 0) {
-            return (classDataOffset >= 0 && deletedClassDataOffsets.containsKey(classDataOffset) ? -1 : classDataOffset);
+            return (classDataOffset >= 0 && deletedClassDataOffsets.contains(classDataOffset) ? -1 : classDataOffset);
         } else {
             return classDataOffsetsMap.valueAt(index);
         }
@@ -306,7 +310,7 @@ public class SparseIndexMap extends AbstractIndexMap {
     public int adjustDebugInfoItemOffset(int debugInfoItemOffset) {
         int index = debugInfoItemOffsetsMap.indexOfKey(debugInfoItemOffset);
         if (index < 0) {
-            return (debugInfoItemOffset >= 0 && deletedDebugInfoItemOffsets.containsKey(debugInfoItemOffset) ? -1 : debugInfoItemOffset);
+            return (debugInfoItemOffset >= 0 && deletedDebugInfoItemOffsets.contains(debugInfoItemOffset) ? -1 : debugInfoItemOffset);
         } else {
             return debugInfoItemOffsetsMap.valueAt(index);
         }
@@ -316,7 +320,7 @@ public class SparseIndexMap extends AbstractIndexMap {
     public int adjustCodeOffset(int codeOffset) {
         int index = codeOffsetsMap.indexOfKey(codeOffset);
         if (index < 0) {
-            return (codeOffset >= 0 && deletedCodeOffsets.containsKey(codeOffset) ? -1 : codeOffset);
+            return (codeOffset >= 0 && deletedCodeOffsets.contains(codeOffset) ? -1 : codeOffset);
         } else {
             return codeOffsetsMap.valueAt(index);
         }